@@ -0,0 +1,475 @@
+package de.persosim.simulator.adapter.socket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.globaltester.simulator.Simulator;
+import org.globaltester.simulator.SimulatorEventListener;
+import org.junit.After;
+import org.junit.Test;
+
+import de.persosim.simulator.PersoSimPool;
+import de.persosim.simulator.adapter.socket.protocol.GlobalTesterProtocol;
+import de.persosim.simulator.adapter.socket.protocol.VSmartCardProtocol;
+import de.persosim.simulator.perso.Profile01;
+import de.persosim.simulator.utils.HexString;
+
+public class NioSocketAdapterTest
+{
+	private static final int TIMEOUT_MILLIS = 10000;
+
+	private NioSocketAdapter adapter;
+
+	/**
+	 * Simulator that responds with its own number, the INS byte of the
+	 * command and 9000. Processing of commands with INS 0xEE blocks until
+	 * released.
+	 */
+	private static class NumberedSimulator implements Simulator
+	{
+		private final byte number;
+		private final CountDownLatch release;
+
+		NumberedSimulator(int number, CountDownLatch release)
+		{
+			this.number = (byte) number;
+			this.release = release;
+		}
+
+		@Override
+		public byte[] processCommand(byte[] apdu)
+		{
+			if (apdu[1] == (byte) 0xEE) {
+				try {
+					release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return new byte[] { number, apdu[1], (byte) 0x90, 0x00 };
+		}
+
+		@Override
+		public byte[] cardPowerUp()
+		{
+			return new byte[] { (byte) 0x90, 0x00 };
+		}
+
+		@Override
+		public byte[] cardPowerDown()
+		{
+			return new byte[] { (byte) 0x90, 0x00 };
+		}
+
+		@Override
+		public byte[] cardReset()
+		{
+			return new byte[] { (byte) 0x90, 0x00 };
+		}
+
+		@Override
+		public boolean startSimulator()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean stopSimulator()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean restartSimulator()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isRunning()
+		{
+			return true;
+		}
+
+		@Override
+		public void addEventListener(SimulatorEventListener... listeners)
+		{
+			// events are not needed for these tests
+		}
+
+		@Override
+		public void removeEventListener(SimulatorEventListener listener)
+		{
+			// events are not needed for these tests
+		}
+	}
+
+	/**
+	 * Provides a new {@link NumberedSimulator} for each connection and counts
+	 * the released ones.
+	 */
+	private static class NumberingSimulatorProvider implements SimulatorProvider
+	{
+		private final AtomicInteger counter = new AtomicInteger();
+		private final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger released = new AtomicInteger();
+
+		@Override
+		public Simulator getSimulator()
+		{
+			return new NumberedSimulator(counter.incrementAndGet(), release);
+		}
+
+		@Override
+		public void releaseSimulator(Simulator simulator)
+		{
+			released.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Blocks providing the simulator for the first connection until released.
+	 */
+	private static class SlowSimulatorProvider extends NumberingSimulatorProvider
+	{
+		private final CountDownLatch providing = new CountDownLatch(1);
+		private final CountDownLatch provide = new CountDownLatch(1);
+		private final AtomicInteger noOfCalls = new AtomicInteger();
+
+		@Override
+		public Simulator getSimulator()
+		{
+			if (noOfCalls.getAndIncrement() == 0) {
+				providing.countDown();
+				try {
+					provide.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.getSimulator();
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (adapter != null) {
+			adapter.stop();
+		}
+	}
+
+	private NioSocketAdapter startAdapter(NumberingSimulatorProvider provider, boolean vsmartcard)
+	{
+		adapter = new NioSocketAdapter(0, vsmartcard ? new VSmartCardProtocol(provider) : new GlobalTesterProtocol(provider), provider);
+		assertTrue(adapter.start());
+		return adapter;
+	}
+
+	/**
+	 * Positive test: many connections exchange APDUs in parallel, each one
+	 * with its own simulator.
+	 */
+	@Test
+	public void testParallelConnections() throws Exception
+	{
+		startAdapter(new NumberingSimulatorProvider(), false);
+
+		int noOfConnections = 16;
+		List<Socket> sockets = new ArrayList<>();
+		try {
+			for (int i = 0; i < noOfConnections; i++) {
+				Socket socket = new Socket("localhost", adapter.getLocalPort());
+				socket.setSoTimeout(TIMEOUT_MILLIS);
+				sockets.add(socket);
+			}
+
+			ExecutorService clients = Executors.newFixedThreadPool(noOfConnections);
+			List<Future<String>> results = new ArrayList<>();
+			for (Socket socket : sockets) {
+				results.add(clients.submit(new Callable<String>() {
+					@Override
+					public String call() throws IOException
+					{
+						PrintStream out = new PrintStream(socket.getOutputStream());
+						BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+						String simulatorNumber = null;
+						for (int i = 0; i < 20; i++) {
+							out.println("00B0000000");
+							out.flush();
+							String response = in.readLine();
+							assertEquals("B09000", response.substring(2));
+							if (simulatorNumber == null) {
+								simulatorNumber = response.substring(0, 2);
+							}
+							assertEquals(simulatorNumber, response.substring(0, 2));
+						}
+						return simulatorNumber;
+					}
+				}));
+			}
+
+			List<String> simulatorNumbers = new ArrayList<>();
+			for (Future<String> result : results) {
+				String simulatorNumber = result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				assertTrue("simulator shared between connections", !simulatorNumbers.contains(simulatorNumber));
+				simulatorNumbers.add(simulatorNumber);
+			}
+			clients.shutdown();
+		}
+		finally {
+			for (Socket socket : sockets) {
+				socket.close();
+			}
+		}
+	}
+
+	/**
+	 * Positive test: a connection whose simulator is busy does not block
+	 * other connections.
+	 */
+	@Test
+	public void testBusySimulatorDoesNotBlockOtherConnections() throws Exception
+	{
+		NumberingSimulatorProvider provider = new NumberingSimulatorProvider();
+		startAdapter(provider, false);
+
+		try (Socket busy = new Socket("localhost", adapter.getLocalPort()); Socket other = new Socket("localhost", adapter.getLocalPort())) {
+			busy.setSoTimeout(TIMEOUT_MILLIS);
+			other.setSoTimeout(TIMEOUT_MILLIS);
+
+			PrintStream busyOut = new PrintStream(busy.getOutputStream());
+			busyOut.println("00EE000000");
+			busyOut.flush();
+
+			PrintStream otherOut = new PrintStream(other.getOutputStream());
+			otherOut.println("00B0000000");
+			otherOut.flush();
+			assertTrue(new BufferedReader(new InputStreamReader(other.getInputStream())).readLine().endsWith("B09000"));
+
+			provider.release.countDown();
+			assertTrue(new BufferedReader(new InputStreamReader(busy.getInputStream())).readLine().endsWith("EE9000"));
+		}
+	}
+
+	/**
+	 * Positive test: a connection waiting for its simulator does not block
+	 * accepting and serving other connections, its data is processed as soon
+	 * as the simulator is available.
+	 */
+	@Test
+	public void testSlowSimulatorProviderDoesNotBlockOtherConnections() throws Exception
+	{
+		SlowSimulatorProvider provider = new SlowSimulatorProvider();
+		startAdapter(provider, false);
+
+		try (Socket slow = new Socket("localhost", adapter.getLocalPort())) {
+			slow.setSoTimeout(TIMEOUT_MILLIS);
+			assertTrue(provider.providing.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			PrintStream slowOut = new PrintStream(slow.getOutputStream());
+			slowOut.println("00B2000000");
+			slowOut.flush();
+
+			try (Socket other = new Socket("localhost", adapter.getLocalPort())) {
+				other.setSoTimeout(TIMEOUT_MILLIS);
+				PrintStream otherOut = new PrintStream(other.getOutputStream());
+				otherOut.println("00B0000000");
+				otherOut.flush();
+				assertTrue(new BufferedReader(new InputStreamReader(other.getInputStream())).readLine().endsWith("B09000"));
+			}
+
+			provider.provide.countDown();
+			assertTrue(new BufferedReader(new InputStreamReader(slow.getInputStream())).readLine().endsWith("B29000"));
+		}
+	}
+
+	/**
+	 * Positive test: a simulator provided after the adapter has been stopped
+	 * is released.
+	 */
+	@Test
+	public void testSimulatorReleasedIfProvidedAfterStop() throws Exception
+	{
+		SlowSimulatorProvider provider = new SlowSimulatorProvider();
+		startAdapter(provider, false);
+
+		// the connection is only needed to request a simulator
+		Socket slow = new Socket("localhost", adapter.getLocalPort());
+		try {
+			assertTrue(provider.providing.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+			ExecutorService stopper = Executors.newSingleThreadExecutor();
+			Future<Boolean> stopped = stopper.submit(adapter::stop);
+			provider.provide.countDown();
+			assertTrue(stopped.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			stopper.shutdown();
+		}
+		finally {
+			slow.close();
+		}
+
+		assertEquals(1, provider.released.get());
+	}
+
+	/**
+	 * Positive test: length prefixed messages are framed correctly if they
+	 * are received byte by byte or several of them at once.
+	 */
+	@Test
+	public void testFragmentedAndCoalescedMessages() throws Exception
+	{
+		startAdapter(new NumberingSimulatorProvider(), true);
+
+		try (Socket socket = new Socket("localhost", adapter.getLocalPort())) {
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			socket.setTcpNoDelay(true);
+			OutputStream out = socket.getOutputStream();
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+
+			// power on and an APDU in one write
+			out.write(HexString.toByteArray("0001010005" + "00B0000000"));
+			out.flush();
+			assertResponse(in, "01B09000");
+
+			// an APDU byte by byte
+			for (byte current : HexString.toByteArray("0005" + "00B2000000")) {
+				out.write(current);
+				out.flush();
+				Thread.sleep(5);
+			}
+			assertResponse(in, "01B29000");
+		}
+	}
+
+	/**
+	 * Positive test: the simulator of a connection is released exactly once
+	 * when the connection is closed by the peer.
+	 */
+	@Test
+	public void testSimulatorReleasedOnClose() throws Exception
+	{
+		NumberingSimulatorProvider provider = new NumberingSimulatorProvider();
+		startAdapter(provider, false);
+
+		try (Socket socket = new Socket("localhost", adapter.getLocalPort())) {
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			PrintStream out = new PrintStream(socket.getOutputStream());
+			out.println("00B0000000");
+			out.flush();
+			assertTrue(new BufferedReader(new InputStreamReader(socket.getInputStream())).readLine().endsWith("B09000"));
+			assertEquals(0, provider.released.get());
+		}
+
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (provider.released.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, provider.released.get());
+
+		adapter.stop();
+		assertEquals(1, provider.released.get());
+	}
+
+	/**
+	 * Negative test: a connection sending a line longer than the longest
+	 * hex encoded APDU is closed instead of buffering it without limit.
+	 */
+	@Test
+	public void testOversizedMessageClosesConnection() throws Exception
+	{
+		NumberingSimulatorProvider provider = new NumberingSimulatorProvider();
+		startAdapter(provider, false);
+
+		try (Socket socket = new Socket("localhost", adapter.getLocalPort())) {
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			OutputStream out = socket.getOutputStream();
+			byte[] chunk = new byte[4096];
+			Arrays.fill(chunk, (byte) '0');
+			try {
+				for (int i = 0; i < 64; i++) {
+					out.write(chunk);
+				}
+				out.flush();
+				assertEquals(-1, socket.getInputStream().read());
+			}
+			catch (SocketException e) {
+				// the connection has been reset by the adapter
+			}
+		}
+
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (provider.released.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, provider.released.get());
+	}
+
+	/**
+	 * Positive test: with a {@link PersoSimPoolProvider} each connection is
+	 * served by its own personalized simulator, connections exceeding the
+	 * pool are closed.
+	 */
+	@Test
+	public void testPooledSimulators() throws Exception
+	{
+		PersoSimPool pool = new PersoSimPool(Profile01::new, 2);
+		SimulatorProvider provider = new PersoSimPoolProvider(pool);
+		adapter = new NioSocketAdapter(0, new GlobalTesterProtocol(provider), provider);
+		assertTrue(adapter.start());
+
+		try (Socket first = new Socket("localhost", adapter.getLocalPort()); Socket second = new Socket("localhost", adapter.getLocalPort())) {
+			for (Socket socket : new Socket[] { first, second }) {
+				socket.setSoTimeout(TIMEOUT_MILLIS);
+				PrintStream out = new PrintStream(socket.getOutputStream());
+				out.println("FF01000000");
+				out.println("00A4020C02011C");
+				out.flush();
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				// ATR
+				assertTrue(in.readLine().startsWith("3B"));
+				assertEquals("9000", in.readLine());
+			}
+			assertEquals(2, pool.getNoOfSimulators());
+
+			try (Socket exceeding = new Socket("localhost", adapter.getLocalPort())) {
+				exceeding.setSoTimeout(TIMEOUT_MILLIS);
+				assertNull(new BufferedReader(new InputStreamReader(exceeding.getInputStream())).readLine());
+			}
+		}
+
+		adapter.stop();
+		assertEquals(0, pool.getNoOfSimulators());
+	}
+
+	private static void assertResponse(DataInputStream in, String expected) throws IOException
+	{
+		int length = in.readUnsignedShort();
+		byte[] response = new byte[length];
+		in.readFully(response);
+		assertArrayEquals(HexString.toByteArray(expected), response);
+	}
+
+}
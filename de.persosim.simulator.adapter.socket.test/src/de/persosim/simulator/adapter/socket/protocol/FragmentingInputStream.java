@@ -0,0 +1,36 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Input stream of a fake socket that delivers its data in fragments of the
+ * provided sizes, the last size is used for all further fragments.
+ */
+class FragmentingInputStream extends InputStream
+{
+	private final ByteArrayInputStream data;
+	private final int[] fragmentSizes;
+	private int fragment = 0;
+
+	FragmentingInputStream(byte[] data, int... fragmentSizes)
+	{
+		this.data = new ByteArrayInputStream(data);
+		this.fragmentSizes = fragmentSizes;
+	}
+
+	@Override
+	public int read()
+	{
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len)
+	{
+		int fragmentSize = fragmentSizes[Math.min(fragment, fragmentSizes.length - 1)];
+		fragment++;
+		return data.read(b, off, Math.min(len, fragmentSize));
+	}
+}
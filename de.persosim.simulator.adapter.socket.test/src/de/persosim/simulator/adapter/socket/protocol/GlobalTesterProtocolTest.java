@@ -0,0 +1,237 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.utils.HexString;
+
+public class GlobalTesterProtocolTest
+{
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private RecordingSimulator simulator;
+	private GlobalTesterProtocol protocol;
+
+	@Before
+	public void setUp()
+	{
+		simulator = new RecordingSimulator();
+		protocol = new GlobalTesterProtocol(() -> simulator);
+	}
+
+	/**
+	 * This method handles all messages of the provided stream.
+	 *
+	 * @return the data written to the output stream
+	 */
+	private byte[] handleAll(InputStream inputStream, int noOfMessages) throws IOException
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		for (int i = 0; i < noOfMessages; i++) {
+			assertTrue(protocol.handleConnectionExchange(inputStream, outputStream));
+		}
+		assertFalse(protocol.handleConnectionExchange(inputStream, outputStream));
+		return outputStream.toByteArray();
+	}
+
+	private static byte[] concatenate(byte[]... parts)
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			result.writeBytes(part);
+		}
+		return result.toByteArray();
+	}
+
+	private static byte[] ascii(String text)
+	{
+		return text.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Positive test: several hex lines received at once are all processed,
+	 * data buffered for the following lines is not lost between exchanges.
+	 */
+	@Test
+	public void testHandleConnectionExchange_HexLines() throws Exception
+	{
+		byte[] stream = ascii("FF010000\r\n00B0000000\n00B2000000\r");
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, stream.length), 3);
+
+		assertEquals(List.of("power on", "00B0000000", "00B2000000"), simulator.received);
+		assertEquals("9000" + LINE_SEPARATOR + "00B00000009000" + LINE_SEPARATOR + "00B20000009000" + LINE_SEPARATOR, new String(responses, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Positive test: after switching to binary mode APDUs and responses are
+	 * exchanged as length prefixed binary messages, even if they are
+	 * fragmented.
+	 */
+	@Test
+	public void testHandleConnectionExchange_BinaryMode() throws Exception
+	{
+		byte[] stream = concatenate(ascii("FF010000\r\nFFB00000\r\n"), HexString.toByteArray("000500B0000000" + "0004FF000000"));
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, 20, 1), 4);
+
+		assertEquals(List.of("power on", "00B0000000", "power off"), simulator.received);
+		assertArrayEquals(concatenate(ascii("9000" + LINE_SEPARATOR + "9000" + LINE_SEPARATOR), HexString.toByteArray("0007" + "00B00000009000" + "00029000")), responses);
+	}
+
+	/**
+	 * Positive test: a byte following the line switching to binary mode is
+	 * not mistaken for a line feed if the line was terminated by LF only.
+	 */
+	@Test
+	public void testHandleConnectionExchange_BinaryModeAfterLineFeed() throws Exception
+	{
+		byte[] stream = concatenate(ascii("FFB00000\n"), HexString.toByteArray("000500B0000000"));
+
+		handleAll(new FragmentingInputStream(stream, stream.length), 2);
+
+		assertEquals(List.of("00B0000000"), simulator.received);
+	}
+
+	/**
+	 * Positive test: a new connection starts in hex mode again.
+	 */
+	@Test
+	public void testHandleConnectionExchange_NewConnectionInHexMode() throws Exception
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		assertTrue(protocol.handleConnectionExchange(new FragmentingInputStream(ascii("FFB00000\n"), 64), outputStream));
+
+		outputStream = new ByteArrayOutputStream();
+		assertTrue(protocol.handleConnectionExchange(new FragmentingInputStream(ascii("00B0000000\n"), 64), outputStream));
+
+		assertEquals("00B00000009000" + LINE_SEPARATOR, new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Positive test: the connection handler switches to binary mode and
+	 * frames binary messages received in fragments or at once.
+	 */
+	@Test
+	public void testConnectionHandler_BinaryMode() throws Exception
+	{
+		SocketConnectionHandler handler = protocol.createConnectionHandler(simulator);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		ByteBuffer received = ByteBuffer.wrap(concatenate(ascii("FFB00000\r\n"), HexString.toByteArray("000500B0")));
+		assertTrue(handler.handleReceivedData(received, outputStream));
+		assertEquals(4, received.remaining());
+
+		received = ByteBuffer.wrap(HexString.toByteArray("000500B0000000" + "000500B2000000"));
+		assertTrue(handler.handleReceivedData(received, outputStream));
+		assertEquals(0, received.remaining());
+
+		assertEquals(List.of("00B0000000", "00B2000000"), simulator.received);
+		assertArrayEquals(concatenate(ascii("9000" + LINE_SEPARATOR), HexString.toByteArray("0007" + "00B00000009000" + "0007" + "00B20000009000")), outputStream.toByteArray());
+	}
+
+	/**
+	 * Positive test: the first byte of a binary message following a CRLF
+	 * terminated switch to binary mode is not mistaken for a line feed, even
+	 * if it is 0x0A.
+	 */
+	@Test
+	public void testHandleConnectionExchange_BinaryMessageStartingWithLineFeed() throws Exception
+	{
+		StringBuilder apdu = new StringBuilder("00D60000");
+		while (apdu.length() < 2 * 0x0A00) {
+			apdu.append("00");
+		}
+		byte[] stream = concatenate(ascii("FFB00000\r\n"), HexString.toByteArray("0A00" + apdu));
+
+		handleAll(new FragmentingInputStream(stream, 10, 1, 64), 2);
+
+		assertEquals(List.of(apdu.toString()), simulator.received);
+	}
+
+	/**
+	 * Negative test: a switch to binary mode terminated by CR only is
+	 * rejected and the connection stays in hex mode.
+	 */
+	@Test
+	public void testHandleConnectionExchange_SwitchTerminatedByCarriageReturn() throws Exception
+	{
+		byte[] stream = ascii("FFB00000\r00B0000000\n");
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, stream.length), 2);
+
+		assertEquals(List.of("00B0000000"), simulator.received);
+		assertEquals("6F00" + LINE_SEPARATOR + "00B00000009000" + LINE_SEPARATOR, new String(responses, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Negative test: the connection handler rejects a switch to binary mode
+	 * terminated by CR only and stays in hex mode.
+	 */
+	@Test
+	public void testConnectionHandler_SwitchTerminatedByCarriageReturn() throws Exception
+	{
+		SocketConnectionHandler handler = protocol.createConnectionHandler(simulator);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		ByteBuffer received = ByteBuffer.wrap(ascii("FFB00000\r00B0000000\n"));
+		assertTrue(handler.handleReceivedData(received, outputStream));
+		assertEquals(0, received.remaining());
+
+		assertEquals(List.of("00B0000000"), simulator.received);
+		assertEquals("6F00" + LINE_SEPARATOR + "00B00000009000" + LINE_SEPARATOR, new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Negative test: a switch to binary mode is rejected without waiting for
+	 * the LF if only the CR has been received, the LF received later is
+	 * skipped and the connection stays in hex mode.
+	 */
+	@Test
+	public void testHandleConnectionExchange_SwitchLineFeedNotYetReceived() throws Exception
+	{
+		byte[] stream = ascii("FFB00000\r\n00B0000000\n");
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, 9, 64), 2);
+
+		assertEquals(List.of("00B0000000"), simulator.received);
+		assertEquals("6F00" + LINE_SEPARATOR + "00B00000009000" + LINE_SEPARATOR, new String(responses, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Negative test: the connection handler rejects a switch to binary mode
+	 * without waiting for the LF if only the CR has been received, the LF
+	 * received later is skipped and the connection stays in hex mode.
+	 */
+	@Test
+	public void testConnectionHandler_SwitchLineFeedNotYetReceived() throws Exception
+	{
+		SocketConnectionHandler handler = protocol.createConnectionHandler(simulator);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		ByteBuffer received = ByteBuffer.wrap(ascii("FFB00000\r"));
+		assertTrue(handler.handleReceivedData(received, outputStream));
+		assertEquals(0, received.remaining());
+		assertEquals("6F00" + LINE_SEPARATOR, new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1));
+
+		received = ByteBuffer.wrap(ascii("\n00B0000000\n"));
+		assertTrue(handler.handleReceivedData(received, outputStream));
+		assertEquals(0, received.remaining());
+
+		assertEquals(List.of("00B0000000"), simulator.received);
+		assertEquals("6F00" + LINE_SEPARATOR + "00B00000009000" + LINE_SEPARATOR, new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1));
+	}
+
+}
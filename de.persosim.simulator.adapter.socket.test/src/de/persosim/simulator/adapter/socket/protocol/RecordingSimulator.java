@@ -0,0 +1,82 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.globaltester.simulator.Simulator;
+import org.globaltester.simulator.SimulatorEventListener;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Simulator that records the received messages and responds to each APDU with
+ * the APDU itself followed by 9000.
+ */
+class RecordingSimulator implements Simulator
+{
+	final List<String> received = new ArrayList<>();
+
+	@Override
+	public byte[] processCommand(byte[] apdu)
+	{
+		received.add(HexString.encode(apdu));
+		return HexString.toByteArray(HexString.encode(apdu) + "9000");
+	}
+
+	@Override
+	public byte[] cardPowerUp()
+	{
+		received.add("power on");
+		return new byte[] { (byte) 0x90, 0x00 };
+	}
+
+	@Override
+	public byte[] cardPowerDown()
+	{
+		received.add("power off");
+		return new byte[] { (byte) 0x90, 0x00 };
+	}
+
+	@Override
+	public byte[] cardReset()
+	{
+		received.add("reset");
+		return new byte[] { (byte) 0x90, 0x00 };
+	}
+
+	@Override
+	public boolean startSimulator()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean stopSimulator()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean restartSimulator()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		return true;
+	}
+
+	@Override
+	public void addEventListener(SimulatorEventListener... listeners)
+	{
+		// events are not needed for these tests
+	}
+
+	@Override
+	public void removeEventListener(SimulatorEventListener listener)
+	{
+		// events are not needed for these tests
+	}
+}
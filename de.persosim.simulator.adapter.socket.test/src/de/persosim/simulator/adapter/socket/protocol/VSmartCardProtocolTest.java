@@ -0,0 +1,156 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.utils.HexString;
+
+public class VSmartCardProtocolTest
+{
+	private RecordingSimulator simulator;
+	private VSmartCardProtocol protocol;
+
+	@Before
+	public void setUp()
+	{
+		simulator = new RecordingSimulator();
+		protocol = new VSmartCardProtocol(() -> simulator);
+	}
+
+	/**
+	 * This method handles all messages of the provided stream.
+	 *
+	 * @return the data written to the output stream
+	 */
+	private byte[] handleAll(InputStream inputStream, int noOfMessages) throws IOException
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		for (int i = 0; i < noOfMessages; i++) {
+			assertTrue(protocol.handleConnectionExchange(inputStream, outputStream));
+		}
+		assertFalse(protocol.handleConnectionExchange(inputStream, outputStream));
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Positive test: messages are read completely if they are delivered byte
+	 * by byte.
+	 */
+	@Test
+	public void testHandleConnectionExchange_Fragmented() throws Exception
+	{
+		byte[] stream = HexString.toByteArray("000101" + "000500B0000000" + "0007" + "00A4020C02011C");
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, 1), 3);
+
+		assertEquals(List.of("power on", "00B0000000", "00A4020C02011C"), simulator.received);
+		assertArrayEquals(HexString.toByteArray("0007" + "00B00000009000" + "0009" + "00A4020C02011C9000"), responses);
+	}
+
+	/**
+	 * Positive test: several messages delivered at once are read one after
+	 * the other.
+	 */
+	@Test
+	public void testHandleConnectionExchange_Coalesced() throws Exception
+	{
+		byte[] stream = HexString.toByteArray("000101" + "000102" + "000500B0000000" + "000500B2000000" + "000100");
+
+		byte[] responses = handleAll(new FragmentingInputStream(stream, stream.length), 5);
+
+		assertEquals(List.of("power on", "reset", "00B0000000", "00B2000000", "power off"), simulator.received);
+		assertArrayEquals(HexString.toByteArray("0007" + "00B00000009000" + "0007" + "00B20000009000"), responses);
+	}
+
+	/**
+	 * Positive test: messages split at arbitrary positions and exceeding the
+	 * initial buffer size are read completely.
+	 */
+	@Test
+	public void testHandleConnectionExchange_FragmentedLargeMessages() throws Exception
+	{
+		StringBuilder apdu = new StringBuilder("00D60000000400");
+		for (int i = 0; i < 0x400; i++) {
+			apdu.append(String.format("%02X", i & 0xFF));
+		}
+		String message = String.format("%04X", apdu.length() / 2) + apdu;
+		byte[] stream = HexString.toByteArray("000500B0000000" + message + message + "000500B0000000");
+
+		handleAll(new FragmentingInputStream(stream, 3, 1, 700, 2, 5, 1000, 7), 4);
+
+		assertEquals(List.of("00B0000000", apdu.toString(), apdu.toString(), "00B0000000"), simulator.received);
+	}
+
+	/**
+	 * Negative test: a connection whose stream ends within a message is not
+	 * continued and the incomplete message is not processed.
+	 */
+	@Test
+	public void testHandleConnectionExchange_Truncated() throws Exception
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		assertFalse(protocol.handleConnectionExchange(new FragmentingInputStream(HexString.toByteArray("000500B000"), 2), outputStream));
+		assertFalse(protocol.handleConnectionExchange(new FragmentingInputStream(HexString.toByteArray("00"), 2), outputStream));
+
+		assertTrue(simulator.received.isEmpty());
+		assertEquals(0, outputStream.size());
+	}
+
+	/**
+	 * Positive test: a new connection is read from the start of its own
+	 * stream.
+	 */
+	@Test
+	public void testHandleConnectionExchange_NewConnection() throws Exception
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		assertTrue(protocol.handleConnectionExchange(new FragmentingInputStream(HexString.toByteArray("000500B0000000" + "0005"), 64), outputStream));
+		assertTrue(protocol.handleConnectionExchange(new FragmentingInputStream(HexString.toByteArray("000500B2000000"), 64), outputStream));
+
+		assertEquals(List.of("00B0000000", "00B2000000"), simulator.received);
+	}
+
+	/**
+	 * Positive test: length field and payload of a message are written at
+	 * once.
+	 */
+	@Test
+	public void testSend_SingleWrite() throws Exception
+	{
+		List<byte[]> writes = new ArrayList<>();
+		OutputStream outputStream = new OutputStream() {
+			@Override
+			public void write(int b)
+			{
+				writes.add(new byte[] { (byte) b });
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len)
+			{
+				writes.add(Arrays.copyOfRange(b, off, off + len));
+			}
+		};
+
+		VSmartCardProtocol.send(HexString.toByteArray("00B0000000"), outputStream);
+
+		assertEquals(1, writes.size());
+		assertArrayEquals(HexString.toByteArray("0005" + "00B0000000"), writes.get(0));
+	}
+
+}
@@ -10,8 +10,10 @@ import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
 
+import de.persosim.simulator.PersoSimPool;
 import de.persosim.simulator.adapter.socket.protocol.GlobalTesterProtocol;
 import de.persosim.simulator.log.PersoSimLogTags;
+import de.persosim.simulator.perso.Profile01;
 import de.persosim.simulator.preferences.EclipsePreferenceAccessor;
 import de.persosim.simulator.preferences.PersoSimPreferenceManager;
 
@@ -26,9 +28,28 @@ public class Activator implements BundleActivator, SimulatorProvider
 {
 	private static BundleContext context;
 	private static SocketAdapter gtSimulatorSocket;
+	private static NioSocketAdapter nioSimulatorSocket;
 	private static ServiceTracker<Simulator, Simulator> serviceTracker;
 	private static final int GT_SIM_PORT = 9876;
 
+	/**
+	 * Preference holding the port of an additional socket serving many
+	 * GlobalTester connections at the same time, see {@link NioSocketAdapter}.
+	 * The socket is only opened if this preference and
+	 * {@link #PREF_NIO_SOCKET_POOL_SIZE} are set.
+	 */
+	public static final String PREF_NIO_SOCKET_PORT = "PREF_NIO_SOCKET_PORT";
+
+	/**
+	 * Preference holding the number of simulators of a {@link PersoSimPool}
+	 * used by the socket configured by {@link #PREF_NIO_SOCKET_PORT}. Each
+	 * connection gets its own simulator personalized with {@link Profile01},
+	 * so the socket is available independent of the Simulator service. The
+	 * connections never share the Simulator service, as they are processed
+	 * concurrently.
+	 */
+	public static final String PREF_NIO_SOCKET_POOL_SIZE = "PREF_NIO_SOCKET_POOL_SIZE";
+
 	public static BundleContext getContext()
 	{
 		return context;
@@ -45,6 +66,10 @@ public class Activator implements BundleActivator, SimulatorProvider
 		BasicLogger.log("START Activator Adapter Socket", LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
 		Activator.context = bundleContext;
 		gtSimulatorSocket = new SocketAdapter(GT_SIM_PORT, new GlobalTesterProtocol(this));
+		nioSimulatorSocket = createNioSocketAdapter();
+		if (nioSimulatorSocket != null) {
+			nioSimulatorSocket.start();
+		}
 		serviceTracker = new ServiceTracker<Simulator, Simulator>(bundleContext, Simulator.class.getName(), new ServiceTrackerCustomizer<Simulator, Simulator>() {
 
 			@Override
@@ -64,7 +89,6 @@ public class Activator implements BundleActivator, SimulatorProvider
 			public void removedService(ServiceReference<Simulator> reference, Simulator service)
 			{
 				gtSimulatorSocket.stop();
-
 			}
 		});
 		serviceTracker.open();
@@ -80,6 +104,54 @@ public class Activator implements BundleActivator, SimulatorProvider
 	{
 		Activator.context = null;
 		serviceTracker.close();
+		if (nioSimulatorSocket != null) {
+			nioSimulatorSocket.stop();
+		}
+	}
+
+	/**
+	 * This method creates the {@link NioSocketAdapter} configured by
+	 * {@link #PREF_NIO_SOCKET_PORT} and {@link #PREF_NIO_SOCKET_POOL_SIZE}.
+	 *
+	 * @return the adapter or null if it is not configured
+	 */
+	private static NioSocketAdapter createNioSocketAdapter()
+	{
+		Integer port = getIntPreference(PREF_NIO_SOCKET_PORT);
+		if (port == null) {
+			return null;
+		}
+
+		Integer poolSize = getIntPreference(PREF_NIO_SOCKET_POOL_SIZE);
+		if (poolSize == null || poolSize < 1) {
+			BasicLogger.log("Not opening the NIO socket, " + PREF_NIO_SOCKET_POOL_SIZE + " must provide a simulator for each connection", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+			return null;
+		}
+
+		SimulatorProvider simProvider = new PersoSimPoolProvider(new PersoSimPool(Profile01::new, poolSize));
+		return new NioSocketAdapter(port, new GlobalTesterProtocol(simProvider), simProvider);
+	}
+
+	/**
+	 * @param key
+	 *            the key of the preference
+	 * @return the integer value of the preference or null if it is not set or
+	 *         invalid
+	 */
+	private static Integer getIntPreference(String key)
+	{
+		String value = PersoSimPreferenceManager.getPreference(key);
+		if (value == null || value.trim().isEmpty()) {
+			return null;
+		}
+
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			BasicLogger.log("Ignoring invalid value of preference " + key + ": " + value, LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+			return null;
+		}
 	}
 
 	@Override
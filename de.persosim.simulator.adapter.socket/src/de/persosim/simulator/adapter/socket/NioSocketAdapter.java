@@ -0,0 +1,522 @@
+package de.persosim.simulator.adapter.socket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.globaltester.logging.BasicLogger;
+import org.globaltester.logging.tags.LogLevel;
+import org.globaltester.logging.tags.LogTag;
+import org.globaltester.simulator.Simulator;
+
+import de.persosim.simulator.CommandParser;
+import de.persosim.simulator.adapter.socket.protocol.SocketConnectionHandler;
+import de.persosim.simulator.adapter.socket.protocol.SocketProtocol;
+import de.persosim.simulator.log.PersoSimLogTags;
+
+/**
+ * This class provides a socket interface to the PersoSim simulator that serves
+ * many connections at the same time.
+ *
+ * In contrast to the {@link SocketAdapter} a single thread accepts the
+ * connections and receives and sends the data of all of them using a
+ * {@link Selector}. The messages are framed by the
+ * {@link SocketConnectionHandler} the {@link SocketProtocol} creates for each
+ * connection. Complete messages are processed by worker threads, so a busy
+ * simulator does not delay the other connections. The messages of a single
+ * connection are processed one after the other.
+ *
+ * Each connection is bound to the {@link Simulator} returned by the
+ * {@link SimulatorProvider} when the connection is accepted. As providing a
+ * simulator may take a while, it is requested by a worker thread and no data
+ * is read from the connection until it is available. The simulator is
+ * released to the provider as soon as the connection is closed.
+ */
+public class NioSocketAdapter implements Runnable
+{
+	private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+	private static final int WORKER_TERMINATION_TIMEOUT_SECONDS = 5;
+
+	private int port;
+	private SocketProtocol protocol;
+	private SimulatorProvider simProvider;
+	private Thread simThread = null;
+	private volatile boolean isRunning;
+	private volatile Selector selector;
+	private volatile ServerSocketChannel server;
+	private ExecutorService workers;
+	/* tasks to be executed by the selector thread, e.g. to hand over processed responses */
+	private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Create new instance.
+	 *
+	 * @param simPort
+	 *            port the server socket should listen on, 0 for any free port
+	 * @param protocol
+	 *            the protocol used on all connections
+	 * @param simProvider
+	 *            provides the simulator for each new connection, must not
+	 *            return the same simulator to several connections at the
+	 *            same time as the connections are processed concurrently
+	 */
+	public NioSocketAdapter(int simPort, SocketProtocol protocol, SimulatorProvider simProvider)
+	{
+		BasicLogger.log("Initialized NIO Socket Adapter", LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+		this.port = simPort;
+		this.protocol = protocol;
+		this.simProvider = simProvider;
+	}
+
+	/**
+	 * Start execution of the simulation (within its own thread).
+	 *
+	 * If this adapter already owns a (running) Thread this method does nothing
+	 * and returns false.
+	 *
+	 * If the newly created Thread does not start execution within a small
+	 * timeout this method also returns false;
+	 *
+	 * @return true iff a new Thread was created and successfully started
+	 */
+	public synchronized boolean start()
+	{
+		// check for existing thread
+		if (simThread != null) {
+			// a previous Thread exists, this needs to be stopped before a new
+			// one can be created
+			return isRunning();
+		}
+
+		simThread = new Thread(this);
+		simThread.start();
+
+		// wait until the just started Thread begins execution
+		int counter = 0;
+		while (!isRunning()) {
+			try {
+				counter++;
+				Thread.sleep(100);
+				if (counter > 20) {
+					break;
+				}
+			}
+			catch (InterruptedException e) {
+				BasicLogger.logException(getClass(), "Interrupted while waiting for the NIO Socket Adapter to start", e, LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		return isRunning();
+	}
+
+	public boolean isRunning()
+	{
+		return isRunning;
+	}
+
+	/**
+	 * @return the port the server socket listens on or -1 if it is not open
+	 */
+	public int getLocalPort()
+	{
+		ServerSocketChannel currentServer = server;
+		return currentServer != null ? currentServer.socket().getLocalPort() : -1;
+	}
+
+	public synchronized boolean stop()
+	{
+		isRunning = false;
+
+		if (selector != null) {
+			BasicLogger.log("Stopping NIO Socket Adapter", LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+			selector.wakeup();
+		}
+
+		// wait for second thread
+		if (simThread != null) {
+			try {
+				simThread.join();
+				simThread = null;
+			}
+			catch (InterruptedException e) {
+				CommandParser.showExceptionToUser(e);
+			}
+		}
+
+		return !isRunning();
+	}
+
+	@Override
+	public void run()
+	{
+		// open server socket
+		try {
+			selector = Selector.open();
+			server = ServerSocketChannel.open();
+			server.bind(new InetSocketAddress(port));
+			server.configureBlocking(false);
+			server.register(selector, SelectionKey.OP_ACCEPT);
+		}
+		catch (IOException e) {
+			CommandParser.showExceptionToUser(e);
+			closeAll();
+			return; // without an open server socket this method is done
+		}
+
+		workers = Executors.newCachedThreadPool();
+
+		// handle connections
+		isRunning = true;
+		while (isRunning) {
+			try {
+				selector.select();
+
+				runSelectorTasks();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					handleKey(key);
+				}
+			}
+			catch (IOException e) {
+				// show the exception only if the server is still running, otherwise it is expected behavior
+				if (isRunning) {
+					CommandParser.showExceptionToUser(e);
+				}
+			}
+		}
+
+		workers.shutdownNow();
+		closeAll();
+
+		// connections opened concurrently release their simulators when the pending tasks find them closed
+		try {
+			workers.awaitTermination(WORKER_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		runSelectorTasks();
+	}
+
+	private void runSelectorTasks()
+	{
+		Runnable task;
+		while ((task = selectorTasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	/**
+	 * This method hands a task over to the selector thread.
+	 *
+	 * @param task
+	 *            the task to be executed by the selector thread
+	 */
+	private void executeOnSelectorThread(Runnable task)
+	{
+		selectorTasks.add(task);
+		Selector currentSelector = selector;
+		if (currentSelector != null) {
+			currentSelector.wakeup();
+		}
+	}
+
+	/**
+	 * Handles the readiness of a single channel.
+	 *
+	 * @param key
+	 *            the selected key of the channel
+	 * @throws IOException
+	 */
+	private void handleKey(SelectionKey key) throws IOException
+	{
+		if (!key.isValid()) {
+			return;
+		}
+
+		if (key.isAcceptable()) {
+			accept();
+			return;
+		}
+
+		Connection connection = (Connection) key.attachment();
+		try {
+			if (key.isReadable()) {
+				connection.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				connection.write();
+			}
+		}
+		catch (IOException e) {
+			// the connection is lost, other connections are not affected
+			BasicLogger.log("Closing connection after " + e.getMessage(), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+			connection.close();
+		}
+	}
+
+	private void accept() throws IOException
+	{
+		SocketChannel channel = server.accept();
+		if (channel == null) {
+			return;
+		}
+
+		BasicLogger.log("Accepted connection from " + channel.getRemoteAddress(), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+
+		// no data is read until the simulator is available
+		channel.configureBlocking(false);
+		// responses are written at once, there is no need to wait for more data
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		SelectionKey key = channel.register(selector, 0);
+		Connection connection = new Connection(channel, key);
+		key.attach(connection);
+
+		workers.execute(() -> {
+			Simulator simulator = null;
+			SocketConnectionHandler handler = null;
+			try {
+				simulator = simProvider.getSimulator();
+				if (simulator != null) {
+					handler = protocol.createConnectionHandler(simulator);
+				}
+			}
+			catch (RuntimeException e) {
+				CommandParser.showExceptionToUser(e);
+			}
+
+			Simulator openedSimulator = simulator;
+			SocketConnectionHandler openedHandler = handler;
+			executeOnSelectorThread(() -> connection.opened(openedSimulator, openedHandler));
+		});
+	}
+
+	private void closeAll()
+	{
+		if (selector != null) {
+			for (SelectionKey key : selector.keys()) {
+				if (key.attachment() instanceof Connection) {
+					((Connection) key.attachment()).close();
+				}
+				else {
+					closeQuietly(key.channel());
+				}
+			}
+			closeQuietly(selector);
+		}
+		if (server != null) {
+			closeQuietly(server);
+		}
+		selector = null;
+		server = null;
+	}
+
+	private static void closeQuietly(AutoCloseable closeable)
+	{
+		try {
+			closeable.close();
+		}
+		catch (Exception e) {
+			// nothing to be done, the resource is not used anymore
+		}
+	}
+
+	/**
+	 * This class holds the state of a single connection. Apart from the
+	 * processing of the received data all methods are called by the selector
+	 * thread only.
+	 */
+	private class Connection
+	{
+		private final SocketChannel channel;
+		private final SelectionKey key;
+		/* both null until the connection is opened */
+		private Simulator simulator;
+		private SocketConnectionHandler handler;
+		/* in write mode, i.e. ready to receive more data, while not processing */
+		private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+		private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+		private boolean isOpened = false;
+		private boolean isProcessing = false;
+		private boolean isClosing = false;
+		private boolean isReleased = false;
+
+		Connection(SocketChannel channel, SelectionKey key)
+		{
+			this.channel = channel;
+			this.key = key;
+		}
+
+		/**
+		 * Binds the connection to its simulator and starts reading. If the
+		 * connection has been closed in the meantime, the simulator is
+		 * released immediately.
+		 *
+		 * @param simulator
+		 *            the simulator of the connection, null if none is
+		 *            available
+		 * @param handler
+		 *            the handler for the simulator, null if none is available
+		 */
+		void opened(Simulator simulator, SocketConnectionHandler handler)
+		{
+			this.simulator = simulator;
+			this.handler = handler;
+
+			if (!channel.isOpen()) {
+				close();
+				return;
+			}
+
+			if (simulator == null || handler == null) {
+				BasicLogger.log("Closing connection, no simulator available", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+				close();
+				return;
+			}
+
+			isOpened = true;
+			updateInterestOps();
+		}
+
+		void read() throws IOException
+		{
+			if (!readBuffer.hasRemaining()) {
+				// the buffer holds an incomplete message that exceeds the current size
+				int maxMessageLength = handler.getMaxMessageLength();
+				if (readBuffer.capacity() >= maxMessageLength) {
+					BasicLogger.log("Closing connection, message exceeds " + maxMessageLength + " bytes", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+					close();
+					return;
+				}
+				ByteBuffer largerBuffer = ByteBuffer.allocate(Math.min(readBuffer.capacity() * 2, maxMessageLength));
+				readBuffer.flip();
+				largerBuffer.put(readBuffer);
+				readBuffer = largerBuffer;
+			}
+
+			int readBytes = channel.read(readBuffer);
+			if (readBytes < 0) {
+				// connection closed by peer
+				close();
+				return;
+			}
+
+			if (readBytes > 0) {
+				process();
+			}
+		}
+
+		/**
+		 * Hands the received data over to a worker thread. No further data is
+		 * read from the connection until the processing is finished.
+		 */
+		private void process()
+		{
+			isProcessing = true;
+			updateInterestOps();
+			readBuffer.flip();
+
+			workers.execute(() -> {
+				ByteArrayOutputStream responses = new ByteArrayOutputStream();
+				boolean isHandlingCommands;
+				try {
+					isHandlingCommands = handler.handleReceivedData(readBuffer, responses);
+				}
+				catch (IOException | RuntimeException e) {
+					CommandParser.showExceptionToUser(e);
+					isHandlingCommands = false;
+				}
+
+				boolean continueConnection = isHandlingCommands;
+				executeOnSelectorThread(() -> processed(responses.toByteArray(), continueConnection));
+			});
+		}
+
+		private void processed(byte[] responses, boolean continueConnection)
+		{
+			if (!channel.isOpen()) {
+				return;
+			}
+
+			// keep incomplete messages for the next processing
+			readBuffer.compact();
+			isProcessing = false;
+
+			if (responses.length > 0) {
+				writeQueue.add(ByteBuffer.wrap(responses));
+			}
+			if (!continueConnection) {
+				isClosing = true;
+			}
+
+			if (isClosing && writeQueue.isEmpty()) {
+				close();
+			}
+			else {
+				updateInterestOps();
+			}
+		}
+
+		void write() throws IOException
+		{
+			while (!writeQueue.isEmpty()) {
+				ByteBuffer buffer = writeQueue.peek();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					// the socket send buffer is full, continue as soon as the channel is writable again
+					break;
+				}
+				writeQueue.poll();
+			}
+
+			if (isClosing && writeQueue.isEmpty()) {
+				close();
+			}
+			else {
+				updateInterestOps();
+			}
+		}
+
+		private void updateInterestOps()
+		{
+			int interestOps = 0;
+			if (isOpened && !isProcessing && !isClosing) {
+				interestOps |= SelectionKey.OP_READ;
+			}
+			if (!writeQueue.isEmpty()) {
+				interestOps |= SelectionKey.OP_WRITE;
+			}
+			key.interestOps(interestOps);
+		}
+
+		void close()
+		{
+			key.cancel();
+			closeQuietly(channel);
+
+			if (!isReleased && simulator != null) {
+				isReleased = true;
+				simProvider.releaseSimulator(simulator);
+			}
+		}
+	}
+
+}
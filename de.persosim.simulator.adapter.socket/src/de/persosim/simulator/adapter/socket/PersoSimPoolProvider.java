@@ -0,0 +1,47 @@
+package de.persosim.simulator.adapter.socket;
+
+import org.globaltester.logging.BasicLogger;
+import org.globaltester.logging.tags.LogLevel;
+import org.globaltester.logging.tags.LogTag;
+import org.globaltester.simulator.Simulator;
+
+import de.persosim.simulator.PersoSim;
+import de.persosim.simulator.PersoSimPool;
+import de.persosim.simulator.log.PersoSimLogTags;
+
+/**
+ * This {@link SimulatorProvider} dedicates a simulator of a
+ * {@link PersoSimPool} to each caller, e.g. to each connection of a
+ * {@link NioSocketAdapter}. The simulator is returned to the pool when it is
+ * released.
+ */
+public class PersoSimPoolProvider implements SimulatorProvider
+{
+	private PersoSimPool pool;
+
+	public PersoSimPoolProvider(PersoSimPool pool)
+	{
+		this.pool = pool;
+	}
+
+	@Override
+	public Simulator getSimulator()
+	{
+		try {
+			return pool.acquire();
+		}
+		catch (IllegalStateException e) {
+			BasicLogger.log("No simulator available: " + e.getMessage(), LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+			return null;
+		}
+	}
+
+	@Override
+	public void releaseSimulator(Simulator simulator)
+	{
+		if (simulator instanceof PersoSim) {
+			pool.release((PersoSim) simulator);
+		}
+	}
+
+}
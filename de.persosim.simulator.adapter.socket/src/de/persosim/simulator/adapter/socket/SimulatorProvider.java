@@ -15,4 +15,15 @@ public interface SimulatorProvider {
 	 * @return a {@link Simulator} implementation or null if none is available
 	 */
 	abstract Simulator getSimulator();
+
+	/**
+	 * Signals that a {@link Simulator} returned by {@link #getSimulator()} is
+	 * not used anymore, e.g. because its connection has been closed.
+	 * 
+	 * @param simulator
+	 *            the simulator that is not used anymore
+	 */
+	default void releaseSimulator(Simulator simulator) {
+		// nothing to be done for shared simulators
+	}
 }
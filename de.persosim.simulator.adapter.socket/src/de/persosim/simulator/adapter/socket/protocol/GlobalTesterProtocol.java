@@ -1,12 +1,15 @@
 package de.persosim.simulator.adapter.socket.protocol;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.globaltester.simulator.Simulator;
 
@@ -16,52 +19,101 @@ import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
 
+/**
+ * This protocol exchanges APDUs with GlobalTester. By default each APDU and
+ * each response is sent as a line of hex characters.
+ *
+ * The control command {@link #SWITCH_TO_BINARY_MODE} switches the connection
+ * to a binary mode. Its line must be terminated by LF or CRLF, the binary mode
+ * starts right after the LF. It is acknowledged by a hex encoded 9000 line,
+ * afterwards APDUs and responses are exchanged as binary messages prefixed by
+ * a 2 byte big endian length field, just like in the {@link VSmartCardProtocol}.
+ * The binary mode lasts until the connection is closed. If the line of the
+ * control command is terminated by CR only, the command is rejected with 6F00
+ * and the connection stays in hex mode. This also applies if the LF of a CRLF
+ * has not yet been received when the CR is processed, the LF is then skipped
+ * as the rest of the terminator.
+ */
 public class GlobalTesterProtocol implements SocketProtocol {
 
+	/** CLA and INS of the control command switching the connection to binary mode */
+	public static final int SWITCH_TO_BINARY_MODE = 0xFFB0;
+
 	private static final byte[] ACK = Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR);
 	private static final byte[] NACK = Utils.toUnsignedByteArray(Iso7816.SW_6F00_UNKNOWN);
+	private static final int MAX_BINARY_MESSAGE_LENGTH = 0xFFFF;
+	/* length of an extended length APDU with 65535 bytes of data and Le */
+	private static final int MAX_APDU_LENGTH = 4 + 3 + 0xFFFF + 2;
+	/* hex line of the longest APDU with a separator after each byte and CRLF */
+	private static final int MAX_HEX_LINE_LENGTH = 3 * MAX_APDU_LENGTH + 2;
 
 	SimulatorProvider simProvider;
-	
+
+	/* state of the current connection, replaced as soon as another connection is handled */
+	private StreamConnection connection;
+
 	public GlobalTesterProtocol(SimulatorProvider simProvider) {
 		this.simProvider = simProvider;
 	}
-	
+
 	@Override
 	public boolean handleConnectionExchange(InputStream inputStream, OutputStream outputStream) throws IOException {
-		BufferedReader in = new BufferedReader(new InputStreamReader(inputStream));
-		PrintStream out = new PrintStream(outputStream);
-		
-		// read APDU from socket
-		String apduLine = null;
-		try {
-			apduLine = in.readLine();
-		} catch (SocketException e){
-			//if the other side closed the the connection, this is expected behavior
+		if (connection == null || !connection.isHandling(inputStream, outputStream)) {
+			connection = new StreamConnection(inputStream, outputStream);
 		}
+		return connection.exchange(simProvider.getSimulator());
+	}
 
-		if (apduLine == null) {
-			// connection closed by peer
-			return false;
-		}
-		
-		// parse hex APDU
-		byte[] apdu = null;
-		byte[] response = new byte[] { 0x6F, 0x23 };
+	@Override
+	public SocketConnectionHandler createConnectionHandler(Simulator simulator) {
+		return new GlobalTesterConnectionHandler(simulator);
+	}
+
+	/**
+	 * Parse a single hex encoded APDU.
+	 *
+	 * @param apduLine
+	 *            the hex encoded APDU
+	 * @return the APDU or null if the line could not be parsed
+	 */
+	private static byte[] parseApdu(String apduLine) {
 		try {
-			apdu = HexString.toByteArray(apduLine);
+			return HexString.toByteArray(apduLine);
 		} catch (RuntimeException e) {
 			CommandParser.showExceptionToUser(e);
 			// nothing else needs to be done, will lead to an empty
 			// apdu==null, thus no processing is done and the default SW
 			// 6F23 is returned
+			return null;
 		}
+	}
+
+	/**
+	 * @param apdu
+	 *            the received APDU, may be null
+	 * @return true, iff the APDU is the control command switching to binary
+	 *         mode
+	 */
+	private static boolean isSwitchToBinaryMode(byte[] apdu) {
+		return apdu != null && apdu.length >= 2 && Utils.maskUnsignedShortToInt(Utils.concatenate(apdu[0], apdu[1])) == SWITCH_TO_BINARY_MODE;
+	}
+
+	/**
+	 * Process a single APDU.
+	 *
+	 * @param sim
+	 *            the simulator to process the APDU, may be null
+	 * @param apdu
+	 *            the APDU, may be null if it could not be parsed
+	 * @return the response to be returned
+	 */
+	private static byte[] processApdu(Simulator sim, byte[] apdu) {
+		byte[] response = new byte[] { 0x6F, 0x23 };
 
 		// process the APDU, generate response
-		
-		Simulator sim = simProvider.getSimulator();
+
 		// if there is a simulator available, get the response
-		if (sim != null){
+		if (sim != null && apdu != null && apdu.length >= 2){
 			int clains = Utils.maskUnsignedShortToInt(Utils.concatenate(apdu[0], apdu[1]));
 			switch (clains) {
 			case 0xFF00:
@@ -84,14 +136,287 @@ public class GlobalTesterProtocol implements SocketProtocol {
 				// simulator processingl
 				response = sim.processCommand(apdu);
 			}
-			
+
+		}
+
+		return response;
+	}
+
+	/**
+	 * @param response
+	 *            the response to be sent in binary mode
+	 * @return the provided response or {@link #NACK} if it exceeds the
+	 *         maximum message length
+	 */
+	private static byte[] limitBinaryResponse(byte[] response) {
+		return response.length <= MAX_BINARY_MESSAGE_LENGTH ? response : NACK;
+	}
+
+	/**
+	 * This class holds the streams of a single blocking connection. They are
+	 * reused for all exchanges of the connection, data received beyond the
+	 * current message stays buffered for the next exchange.
+	 */
+	private static class StreamConnection {
+
+		private final InputStream inputStream;
+		private final OutputStream outputStream;
+		private final BufferedInputStream in;
+		private final PrintStream out;
+		private final StringBuilder line = new StringBuilder();
+		/* set if the last line was terminated by CR, which may be followed by LF */
+		private boolean skipLineFeed = false;
+		/* only available in binary mode, which starts after the LF terminating the switch command */
+		private LengthPrefixedMessageReader binaryReader = null;
+
+		StreamConnection(InputStream inputStream, OutputStream outputStream) {
+			this.inputStream = inputStream;
+			this.outputStream = outputStream;
+			in = new BufferedInputStream(inputStream);
+			out = new PrintStream(outputStream);
+		}
+
+		boolean isHandling(InputStream inputStream, OutputStream outputStream) {
+			return this.inputStream == inputStream && this.outputStream == outputStream;
+		}
+
+		/**
+		 * Handle a single exchange on this connection.
+		 *
+		 * @param sim
+		 *            the simulator to process the APDU, may be null
+		 * @return true, iff the connection should continue
+		 * @throws IOException
+		 */
+		boolean exchange(Simulator sim) throws IOException {
+			if (binaryReader != null) {
+				return exchangeBinary(sim);
+			}
+
+			// read APDU from socket
+			String apduLine = null;
+			try {
+				apduLine = readLine();
+			} catch (SocketException e){
+				//if the other side closed the the connection, this is expected behavior
+			}
+
+			if (apduLine == null) {
+				// connection closed by peer
+				return false;
+			}
+
+			byte[] apdu = parseApdu(apduLine);
+			byte[] response;
+			if (isSwitchToBinaryMode(apdu)) {
+				if (isTerminatedByLineFeed()) {
+					response = ACK;
+					binaryReader = new LengthPrefixedMessageReader(in);
+				} else {
+					response = NACK;
+				}
+			} else {
+				response = processApdu(sim, apdu);
+			}
+
+			// encode response and return it
+			out.println(HexString.encode(response));
+			out.flush();
+			return true;
+		}
+
+		private boolean exchangeBinary(Simulator sim) throws IOException {
+			int length;
+			try {
+				length = binaryReader.readMessage();
+			} catch (SocketException | EOFException e) {
+				//if the other side closed the the connection, this is expected behavior
+				return false;
+			}
+
+			if (length < 0) {
+				// connection closed by peer
+				return false;
+			}
+
+			byte[] response = processApdu(sim, Arrays.copyOf(binaryReader.getBuffer(), length));
+			VSmartCardProtocol.send(limitBinaryResponse(response), out);
+			return true;
+		}
+
+		/**
+		 * Reads a line terminated by CR, LF or CRLF.
+		 *
+		 * @return the line without terminator or null if the stream ended
+		 *         before any character of the line
+		 * @throws IOException
+		 */
+		private String readLine() throws IOException {
+			line.setLength(0);
+			int current;
+			while ((current = in.read()) >= 0) {
+				if (skipLineFeed) {
+					skipLineFeed = false;
+					if (current == '\n') {
+						continue;
+					}
+				}
+				if (current == '\n' || current == '\r') {
+					skipLineFeed = current == '\r';
+					return line.toString();
+				}
+				line.append((char) current);
+			}
+			return line.length() > 0 ? line.toString() : null;
+		}
+
+		/**
+		 * Checks whether the last line was terminated by LF or CRLF. If the
+		 * line ended with CR, an already received next byte completes the
+		 * terminator, it stays available for the next line if it is not a LF.
+		 * This method does not block waiting for the next byte, a LF received
+		 * later is still skipped as part of the CRLF.
+		 *
+		 * @return true, iff the terminator of the last line ended with LF
+		 * @throws IOException
+		 */
+		private boolean isTerminatedByLineFeed() throws IOException {
+			if (!skipLineFeed) {
+				return true;
+			}
+
+			if (in.available() == 0) {
+				return false;
+			}
+
+			skipLineFeed = false;
+			in.mark(1);
+			if (in.read() == '\n') {
+				return true;
+			}
+			in.reset();
+			return false;
+		}
+
+	}
+
+	/**
+	 * This class frames the hex encoded APDU lines or, after switching to
+	 * binary mode, the length prefixed APDUs received on a single connection.
+	 */
+	private static class GlobalTesterConnectionHandler implements SocketConnectionHandler {
+
+		private final Simulator simulator;
+		/* set if the last line was terminated by CR, which may be followed by LF */
+		private boolean skipLineFeed = false;
+		private boolean isBinaryMode = false;
+		/* number of bytes of the current line already checked not to contain a terminator */
+		private int scannedLineLength = 0;
+
+		GlobalTesterConnectionHandler(Simulator simulator) {
+			this.simulator = simulator;
+		}
+
+		@Override
+		public boolean handleReceivedData(ByteBuffer received, OutputStream outputStream) throws IOException {
+			while (received.hasRemaining()) {
+				if (skipLineFeed) {
+					skipLineFeed = false;
+					if (received.get(received.position()) == '\n') {
+						received.get();
+						continue;
+					}
+				}
+
+				if (isBinaryMode) {
+					if (!handleBinaryMessage(received, outputStream)) {
+						// wait for the rest of the message
+						return true;
+					}
+					continue;
+				}
+
+				int lineEnd = indexOfLineTerminator(received, received.position() + scannedLineLength);
+				if (lineEnd < 0) {
+					// wait for the rest of the line, the bytes received so far need not be checked again
+					scannedLineLength = received.remaining();
+					return true;
+				}
+				scannedLineLength = 0;
+
+				byte[] line = new byte[lineEnd - received.position()];
+				received.get(received.position(), line);
+				byte[] apdu = parseApdu(new String(line, StandardCharsets.ISO_8859_1));
+				boolean isTerminatedByCarriageReturn = received.get(lineEnd) == '\r';
+
+				byte[] response;
+				if (isSwitchToBinaryMode(apdu)) {
+					received.position(lineEnd + 1);
+					skipLineFeed = false;
+
+					// the binary mode requires the line to be terminated by LF or CRLF, the LF is not waited for
+					isBinaryMode = !isTerminatedByCarriageReturn;
+					if (isTerminatedByCarriageReturn) {
+						if (!received.hasRemaining()) {
+							// a LF received later completes the CRLF
+							skipLineFeed = true;
+						} else if (received.get(received.position()) == '\n') {
+							received.get();
+							isBinaryMode = true;
+						}
+					}
+					response = isBinaryMode ? ACK : NACK;
+				} else {
+					received.position(lineEnd + 1);
+					skipLineFeed = isTerminatedByCarriageReturn;
+					response = processApdu(simulator, apdu);
+				}
+
+				String respLine = HexString.encode(response);
+				outputStream.write((respLine + System.lineSeparator()).getBytes(StandardCharsets.ISO_8859_1));
+			}
+			return true;
+		}
+
+		/**
+		 * Process a single length prefixed message if it has been received
+		 * completely.
+		 *
+		 * @return true, iff a message has been consumed
+		 * @throws IOException
+		 */
+		private boolean handleBinaryMessage(ByteBuffer received, OutputStream outputStream) throws IOException {
+			if (received.remaining() < 2) {
+				return false;
+			}
+			int length = ((received.get(received.position()) & 0xFF) << 8) | (received.get(received.position() + 1) & 0xFF);
+			if (received.remaining() < 2 + length) {
+				return false;
+			}
+
+			received.position(received.position() + 2);
+			byte[] apdu = new byte[length];
+			received.get(apdu);
+
+			VSmartCardProtocol.send(limitBinaryResponse(processApdu(simulator, apdu)), outputStream);
+			return true;
+		}
+
+		@Override
+		public int getMaxMessageLength() {
+			return MAX_HEX_LINE_LENGTH;
+		}
+
+		private static int indexOfLineTerminator(ByteBuffer buffer, int startIndex) {
+			for (int i = startIndex; i < buffer.limit(); i++) {
+				byte current = buffer.get(i);
+				if (current == '\n' || current == '\r') {
+					return i;
+				}
+			}
+			return -1;
 		}
 
-		// encode response and return it
-		String respLine = HexString.encode(response);
-		out.println(respLine);
-		out.flush();
-		return true;
 	}
 
 }
@@ -0,0 +1,89 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class reads messages that are prefixed by a 2 byte big endian length
+ * field from the stream of a single connection.
+ *
+ * The data of a message may arrive in any number of fragments, the reader
+ * blocks until the complete message has been received. The buffer holding the
+ * message is reused for all messages of the connection and only grows if a
+ * message exceeds its current size.
+ */
+class LengthPrefixedMessageReader
+{
+	private static final int INITIAL_BUFFER_SIZE = 512;
+
+	private final InputStream inputStream;
+	private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+	/**
+	 * Create new instance.
+	 *
+	 * @param inputStream
+	 *            the stream of the connection
+	 */
+	LengthPrefixedMessageReader(InputStream inputStream)
+	{
+		this.inputStream = inputStream;
+	}
+
+	/**
+	 * @param stream
+	 *            the stream to check
+	 * @return true, iff this reader reads from the provided stream
+	 */
+	boolean isReading(InputStream stream)
+	{
+		return inputStream == stream;
+	}
+
+	/**
+	 * This method reads the next complete message into the buffer.
+	 *
+	 * @return the length of the message or -1 if the stream ended before the
+	 *         first byte of the message
+	 * @throws EOFException
+	 *             if the stream ended within the message
+	 * @throws IOException
+	 */
+	int readMessage() throws IOException
+	{
+		int lengthByte1 = inputStream.read();
+		if (lengthByte1 < 0) {
+			return -1;
+		}
+		int lengthByte2 = inputStream.read();
+		if (lengthByte2 < 0) {
+			throw new EOFException("Stream is EOF while reading length field");
+		}
+
+		int length = (lengthByte1 << 8) | lengthByte2;
+		if (buffer.length < length) {
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		}
+
+		int offset = 0;
+		while (offset < length) {
+			int readBytes = inputStream.read(buffer, offset, length - offset);
+			if (readBytes < 0) {
+				throw new EOFException("Stream is EOF while reading payload, got " + offset + " of " + length + " bytes");
+			}
+			offset += readBytes;
+		}
+
+		return length;
+	}
+
+	/**
+	 * @return the buffer holding the last message read, starting at index 0
+	 */
+	byte[] getBuffer()
+	{
+		return buffer;
+	}
+
+}
@@ -0,0 +1,40 @@
+package de.persosim.simulator.adapter.socket.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Implementations of this interface handle a single connection without
+ * blocking on the underlying channel. They are created by
+ * {@link SocketProtocol#createConnectionHandler(org.globaltester.simulator.Simulator)}
+ * and keep the framing state of their connection between calls.
+ */
+public interface SocketConnectionHandler
+{
+
+	/**
+	 * Handle the data received so far. All complete messages contained in the
+	 * buffer are consumed and processed, the responses are written to the
+	 * provided stream. An incomplete message at the end of the buffer is not
+	 * consumed, it is handled again as soon as more data has been received.
+	 *
+	 * @param received
+	 *            the received data, ready to be read
+	 * @param outputStream
+	 *            the stream the encoded responses are written to
+	 * @return true, iff the connection should continue
+	 * @throws IOException
+	 */
+	boolean handleReceivedData(ByteBuffer received, OutputStream outputStream) throws IOException;
+
+	/**
+	 * Returns the maximum number of bytes a single message including its
+	 * framing may occupy. A connection that sends a longer message can be
+	 * closed without waiting for the rest of it.
+	 *
+	 * @return the maximum length of a single framed message
+	 */
+	int getMaxMessageLength();
+
+}
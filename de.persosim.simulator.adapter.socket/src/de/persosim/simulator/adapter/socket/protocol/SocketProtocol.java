@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.globaltester.simulator.Simulator;
+
 public interface SocketProtocol {
 	
 	/**
@@ -15,5 +17,15 @@ public interface SocketProtocol {
 	 * @throws IOException
 	 */
 	boolean handleConnectionExchange(InputStream inputStream, OutputStream outputStream) throws IOException;
-	
+
+	/**
+	 * Create a handler for a single connection that frames the messages of
+	 * this protocol from data received without blocking.
+	 *
+	 * @param simulator
+	 *            the simulator the connection is bound to, may be null
+	 * @return the handler for the new connection
+	 */
+	SocketConnectionHandler createConnectionHandler(Simulator simulator);
+
 }
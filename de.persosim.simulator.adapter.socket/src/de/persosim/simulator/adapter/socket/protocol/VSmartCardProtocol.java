@@ -1,17 +1,19 @@
 package de.persosim.simulator.adapter.socket.protocol;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.globaltester.logging.BasicLogger;
 import org.globaltester.logging.tags.LogLevel;
 import org.globaltester.logging.tags.LogTag;
 import org.globaltester.simulator.Simulator;
 
-import de.persosim.driver.connector.SimulatorManager;
 import de.persosim.simulator.adapter.socket.SimulatorProvider;
+import de.persosim.simulator.log.PersoSimLogConfiguration;
 import de.persosim.simulator.log.PersoSimLogTags;
 import de.persosim.simulator.utils.HexString;
 
@@ -21,6 +23,9 @@ public class VSmartCardProtocol implements SocketProtocol
 
 	SimulatorProvider simProvider;
 
+	/* reader of the current connection, replaced as soon as another connection is handled */
+	private LengthPrefixedMessageReader reader;
+
 	public VSmartCardProtocol(SimulatorProvider simProvider)
 	{
 		this.simProvider = simProvider;
@@ -32,56 +37,101 @@ public class VSmartCardProtocol implements SocketProtocol
 		Simulator sim = simProvider.getSimulator();
 		// if there is a simulator available, get the response
 		if (sim != null) {
-			var lengthField = new byte[2];
-			var readBytes = is.read(lengthField);
-			if (readBytes == -1) {
-				BasicLogger.log("Stream is EOF while reading length field", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-				return false;
+			if (reader == null || !reader.isReading(is)) {
+				reader = new LengthPrefixedMessageReader(is);
 			}
 
-			BasicLogger.log("Received length field (" + readBytes + "):" + HexString.encode(lengthField), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-			var data = new byte[new BigInteger(lengthField).intValue()];
-			readBytes = is.read(data);
-
-			if (readBytes == -1) {
-				BasicLogger.log("Stream is EOF while reading payload", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+			int length;
+			try {
+				length = reader.readMessage();
+			}
+			catch (EOFException e) {
+				BasicLogger.log(e.getMessage(), LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
 				return false;
 			}
 
-			BasicLogger.log("Received data (" + readBytes + "):" + HexString.encode(data), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+			if (length < 0) {
+				BasicLogger.log("Stream is EOF while reading length field", LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+				return false;
+			}
 
-			if (data.length > 1) {
-				BasicLogger.log("Got APDU", LogLevel.INFO);
-				byte[] responseApdu = SimulatorManager.getSim().processCommand(data);
-				send(responseApdu, os);
+			if (PersoSimLogConfiguration.isEnabled(LogLevel.DEBUG, PersoSimLogTags.VSMARTCARD_TAG_ID)) {
+				BasicLogger.log("Received data (" + length + "):" + HexString.encode(Arrays.copyOf(reader.getBuffer(), length)), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
 			}
-			else if (data.length == 1) {
-				switch (data[0]) {
-					case 0:
-						BasicLogger.log("Got power off", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-						SimulatorManager.getSim().cardPowerDown();
-						break;
-					case 1:
-						BasicLogger.log("Got power on", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-						SimulatorManager.getSim().cardPowerUp();
-						break;
-					case 2:
-						BasicLogger.log("Got reset", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-						SimulatorManager.getSim().cardReset();
-						break;
-					default:
-						BasicLogger.log("Got unexpected command: " + data[0], LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
-						return false;
-				}
+
+			return processMessage(sim, reader.getBuffer(), length, os);
+		}
+		return true;
+	}
+
+	@Override
+	public SocketConnectionHandler createConnectionHandler(Simulator simulator)
+	{
+		return new VSmartCardConnectionHandler(simulator);
+	}
+
+	/**
+	 * Process a single message, i.e. an APDU or a control command.
+	 *
+	 * @param sim
+	 *            the simulator to process the message
+	 * @param data
+	 *            the buffer holding the payload of the message, starting at
+	 *            index 0
+	 * @param length
+	 *            the length of the payload
+	 * @param os
+	 *            the stream the response is written to
+	 * @return true, iff the connection should continue
+	 * @throws IOException
+	 */
+	private static boolean processMessage(Simulator sim, byte[] data, int length, OutputStream os) throws IOException
+	{
+		if (length > 1) {
+			BasicLogger.log("Got APDU", LogLevel.INFO);
+			byte[] responseApdu = sim.processCommand(Arrays.copyOf(data, length));
+			send(responseApdu, os);
+		}
+		else if (length == 1) {
+			switch (data[0]) {
+				case 0:
+					BasicLogger.log("Got power off", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+					sim.cardPowerDown();
+					break;
+				case 1:
+					BasicLogger.log("Got power on", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+					sim.cardPowerUp();
+					break;
+				case 2:
+					BasicLogger.log("Got reset", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+					sim.cardReset();
+					break;
+				default:
+					BasicLogger.log("Got unexpected command: " + data[0], LogLevel.WARN, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+					return false;
 			}
 		}
 		return true;
 	}
 
+	/**
+	 * This method sends a length prefixed message. Length field and payload
+	 * are written at once, so that they are not sent as separate TCP segments
+	 * that the peer acknowledges delayed.
+	 *
+	 * @param payload
+	 *            the payload of the message
+	 * @param os
+	 *            the stream the message is written to
+	 * @throws IOException
+	 */
 	public static void send(byte[] payload, OutputStream os) throws IOException
 	{
-		sendLength(payload.length, os);
-		os.write(payload);
+		byte[] message = new byte[2 + payload.length];
+		message[0] = (byte) (payload.length >> 8);
+		message[1] = (byte) (payload.length & 0xff);
+		System.arraycopy(payload, 0, message, 2, payload.length);
+		os.write(message);
 		os.flush();
 	}
 
@@ -111,6 +161,51 @@ public class VSmartCardProtocol implements SocketProtocol
 		return null;
 	}
 
+	/**
+	 * This class frames the length prefixed messages received on a single
+	 * connection.
+	 */
+	private static class VSmartCardConnectionHandler implements SocketConnectionHandler
+	{
+		private final Simulator simulator;
+
+		VSmartCardConnectionHandler(Simulator simulator)
+		{
+			this.simulator = simulator;
+		}
+
+		@Override
+		public boolean handleReceivedData(ByteBuffer received, OutputStream outputStream) throws IOException
+		{
+			while (received.remaining() >= 2) {
+				int length = ((received.get(received.position()) & 0xFF) << 8) | (received.get(received.position() + 1) & 0xFF);
+				if (received.remaining() < 2 + length) {
+					// wait for the rest of the message
+					return true;
+				}
+
+				received.position(received.position() + 2);
+				byte[] data = new byte[length];
+				received.get(data);
+
+				if (PersoSimLogConfiguration.isEnabled(LogLevel.DEBUG, PersoSimLogTags.VSMARTCARD_TAG_ID)) {
+					BasicLogger.log("Received data (" + length + "):" + HexString.encode(data), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.VSMARTCARD_TAG_ID));
+				}
+
+				if (simulator != null && !processMessage(simulator, data, length, outputStream)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int getMaxMessageLength()
+		{
+			return 2 + 0xFFFF;
+		}
+	}
+
 	private static int getLengthFromStream(InputStream is) throws IOException
 	{
 		int lengthByte1 = is.read();
@@ -1,6 +1,7 @@
 package de.persosim.simulator.log;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.globaltester.logging.AbstractLogListener;
 import org.globaltester.logging.BasicLogger;
@@ -17,18 +18,33 @@ import de.persosim.simulator.preferences.PersoSimPreferenceManager;
 import de.persosim.simulator.preferences.PreferenceConstants;
 
 /**
- * This {@link LogListener} implementation is used to write log entries
- * into a given {@link LinkedList} using a maximum number of entries.
+ * This {@link LogListener} implementation is used to cache log entries
+ * using a maximum number of entries.
+ * <p/>
+ * The entries are stored in a circular array, so appending an entry, evicting
+ * the oldest entry and accessing an entry by index are constant time
+ * operations. Each entry gets a sequence number which is incremented for each
+ * cached entry and is not reset on eviction. This allows consumers to fetch
+ * only the entries added since their last poll.
  */
 public class LinkedListLogListener extends AbstractLogListener
 {
-	private LinkedList<PersoSimLogEntry> list = new LinkedList<>();
-	private int maxLines;
+	private final PersoSimLogEntry[] entries;
+	private int first = 0;
+	private int size = 0;
+	private long nextSequenceNumber = 0;
 	private boolean haveToRefresh;
 
+	/**
+	 * @param maxLines
+	 *            the maximum number of cached entries, must be positive
+	 */
 	public LinkedListLogListener(int maxLines)
 	{
-		this.maxLines = maxLines;
+		if (maxLines < 1) {
+			throw new IllegalArgumentException("maximum number of lines must be positive");
+		}
+		this.entries = new PersoSimLogEntry[maxLines];
 		setRefreshState(true);
 		updateConfig();
 	}
@@ -85,7 +101,7 @@ public class LinkedListLogListener extends AbstractLogListener
 	public int getNumberOfCachedEntries()
 	{
 		synchronized (this) {
-			return list.size();
+			return size;
 		}
 	}
 
@@ -99,7 +115,66 @@ public class LinkedListLogListener extends AbstractLogListener
 	public PersoSimLogEntry getEntry(int index)
 	{
 		synchronized (this) {
-			return list.get(index);
+			checkIndex(index);
+			return entries[(first + index) % entries.length];
+		}
+	}
+
+	/**
+	 * @param index
+	 *            of the entry
+	 * @return the sequence number of the cached entry at the given index
+	 * @throws IndexOutOfBoundsException
+	 *             if index is invalid
+	 */
+	public long getSequenceNumber(int index)
+	{
+		synchronized (this) {
+			checkIndex(index);
+			return nextSequenceNumber - size + index;
+		}
+	}
+
+	/**
+	 * @return the sequence number the next cached entry will get, i.e. the
+	 *         number of entries cached so far including evicted entries
+	 */
+	public long getNextSequenceNumber()
+	{
+		synchronized (this) {
+			return nextSequenceNumber;
+		}
+	}
+
+	/**
+	 * This method returns all cached entries with a sequence number greater
+	 * than or equal to the given one. Entries that have already been evicted
+	 * are not returned.
+	 * 
+	 * @param sequenceNumber
+	 *            the sequence number of the first entry to return, usually
+	 *            the result of {@link #getNextSequenceNumber()} at the last
+	 *            poll
+	 * @return the entries in the order they have been cached
+	 */
+	public List<PersoSimLogEntry> getEntriesSince(long sequenceNumber)
+	{
+		synchronized (this) {
+			long firstSequenceNumber = nextSequenceNumber - size;
+			int startIndex = (int) Math.max(0, Math.min(size, sequenceNumber - firstSequenceNumber));
+
+			List<PersoSimLogEntry> result = new ArrayList<>(size - startIndex);
+			for (int i = startIndex; i < size; i++) {
+				result.add(entries[(first + i) % entries.length]);
+			}
+			return result;
+		}
+	}
+
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
 		}
 	}
 
@@ -123,13 +198,30 @@ public class LinkedListLogListener extends AbstractLogListener
 	public void log(Message msg)
 	{
 		if (config.getFilter() != null && config.getFilter().matches(msg)) {
-			PersoSimLogEntry entry = ((PersoSimLogFormatter) config.getFormat()).getLogEntry(msg);
-			synchronized (this) {
-				if (list.size() >= maxLines) {
-					list.removeFirst();
-				}
-				list.add(entry);
+			addEntry(((PersoSimLogFormatter) config.getFormat()).getLogEntry(msg));
+		}
+	}
+
+	/**
+	 * This method caches the given entry, evicting the oldest entry if the
+	 * maximum number of entries is reached.
+	 * 
+	 * @param entry
+	 *            the entry to cache
+	 */
+	void addEntry(PersoSimLogEntry entry)
+	{
+		synchronized (this) {
+			if (size < entries.length) {
+				entries[(first + size) % entries.length] = entry;
+				size++;
+			}
+			else {
+				// overwrite the oldest entry
+				entries[first] = entry;
+				first = (first + 1) % entries.length;
 			}
+			nextSequenceNumber++;
 		}
 	}
 
@@ -0,0 +1,59 @@
+package de.persosim.simulator.log;
+
+import org.globaltester.logging.tags.LogLevel;
+
+import de.persosim.simulator.preferences.PersoSimPreferenceManager;
+import de.persosim.simulator.preferences.PreferenceConstants;
+
+/**
+ * This class provides access to the log levels and log tags selected for
+ * display, as stored in the preferences {@link PreferenceConstants#PREF_LOG_LEVELS}
+ * and {@link PreferenceConstants#PREF_LOG_TAGS}. It allows to skip costly
+ * computations that are only needed to create diagnostic log messages.
+ */
+public final class PersoSimLogConfiguration
+{
+	private PersoSimLogConfiguration()
+	{
+		// hide implicit public constructor
+	}
+
+	/**
+	 * This method checks whether log messages with the given level and tag
+	 * are currently selected for display. If no selection is stored in the
+	 * preferences (or no preferences are available at all) all levels and tags
+	 * are considered to be enabled.
+	 * 
+	 * @param logLevel
+	 *            the level of the log message
+	 * @param logTagId
+	 *            the log tag of the log message, e.g.
+	 *            {@link PersoSimLogTags#COMMAND_PROCESSOR_TAG_ID}
+	 * @return true iff the log level and the log tag are both enabled
+	 */
+	public static boolean isEnabled(LogLevel logLevel, String logTagId)
+	{
+		if (!PersoSimPreferenceManager.isPreferenceAccessorAvailable()) {
+			return true;
+		}
+
+		String levels = PersoSimPreferenceManager.getPreference(PreferenceConstants.PREF_LOG_LEVELS);
+		if ((levels != null) && !contains(levels, logLevel.name())) {
+			return false;
+		}
+
+		String tags = PersoSimPreferenceManager.getPreference(PreferenceConstants.PREF_LOG_TAGS);
+		return (tags == null) || contains(tags, logTagId);
+	}
+
+	private static boolean contains(String preferenceValue, String element)
+	{
+		for (String current : preferenceValue.split(PreferenceConstants.PREF_DELIMITER)) {
+			if (current.equals(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
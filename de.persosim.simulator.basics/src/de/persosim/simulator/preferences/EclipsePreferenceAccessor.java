@@ -8,6 +8,10 @@ public class EclipsePreferenceAccessor implements PreferenceAccessor {
 
 	@Override
 	public void set(String key, String value) {
+		if (value != null && value.equals(get(key))) {
+			// avoid flushing the preference store if nothing changed
+			return;
+		}
 		PreferenceHelper.setPreferenceValue("de.persosim.simulator", key, value);
 		PreferenceHelper.flush("de.persosim.simulator");
 	}
@@ -3,22 +3,65 @@ package de.persosim.simulator.preferences;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.globaltester.logging.BasicLogger;
 import org.globaltester.logging.tags.LogLevel;
 
 import de.persosim.simulator.utils.PreferenceAccessor;
 
+/**
+ * This {@link PreferenceAccessor} stores preferences in a properties file.
+ * <p/>
+ * Changes are kept in memory and written to the file with a delay (write
+ * behind), so that multiple changes within the delay are coalesced into a
+ * single write. Setting a preference to its current value does not cause any
+ * write at all. Pending changes are written when {@link #flush()} is called
+ * and when the JVM shuts down.
+ * <p/>
+ * The file is replaced atomically, i.e. it always contains either the
+ * previous or the new complete set of preferences.
+ */
 public class IniPreferenceStoreAccessor implements PreferenceAccessor {
 
+	public static final long DEFAULT_FLUSH_DELAY_MILLIS = 1000;
+
+	private static final Set<IniPreferenceStoreAccessor> PENDING = ConcurrentHashMap.newKeySet();
+	private static ScheduledExecutorService flushScheduler;
+
 	Properties props = new Properties();
 	private Path path;
-	
+	private long flushDelayMillis;
+
+	private final Object flushLock = new Object();
+	private boolean dirty = false;
+	private boolean flushScheduled = false;
+
+	/**
+	 * This constructor constructs an {@link IniPreferenceStoreAccessor} using the {@link #DEFAULT_FLUSH_DELAY_MILLIS}
+	 * @param path the properties file
+	 */
 	public IniPreferenceStoreAccessor(Path path) {
+		this(path, DEFAULT_FLUSH_DELAY_MILLIS);
+	}
+
+	/**
+	 * This constructor constructs an {@link IniPreferenceStoreAccessor}
+	 * @param path the properties file
+	 * @param flushDelayMillis the delay after which changed preferences are written to the file
+	 */
+	public IniPreferenceStoreAccessor(Path path, long flushDelayMillis) {
 		this.path = path;
+		this.flushDelayMillis = flushDelayMillis;
 		if (Files.exists(path)) {
 			try (InputStream inputStream = Files.newInputStream(path)) {
 				props.load(inputStream);
@@ -26,22 +69,49 @@ public class IniPreferenceStoreAccessor implements PreferenceAccessor {
 				BasicLogger.log(getClass(), "Failure during load of properties file", LogLevel.WARN);
 			}
 		} else {
-			store();
+			store(copyProperties());
 		}
 	}
 
-	private void store() {
-		try (OutputStream outputStream = Files.newOutputStream(path)) {	
-			props.store(outputStream, null);
+	/**
+	 * This method writes the provided properties to a temporary file which then replaces the properties file.
+	 * @return true iff the properties have been written successfully
+	 */
+	private boolean store(Properties properties) {
+		Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+				properties.store(outputStream, null);
+			}
+			try {
+				Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
 		} catch (IOException e) {
 			BasicLogger.log(getClass(), "Failure during store of properties file", LogLevel.ERROR);
+			return false;
 		}
 	}
-	
+
 	@Override
 	public void set(String key, String value) {
-		props.setProperty(key, value);
-		store();
+		synchronized (this) {
+			if (value.equals(props.getProperty(key))) {
+				return;
+			}
+			props.setProperty(key, value);
+			dirty = true;
+
+			PENDING.add(this);
+			if (flushScheduled) {
+				return;
+			}
+			flushScheduled = true;
+		}
+
+		getFlushScheduler().schedule(this::flush, flushDelayMillis, TimeUnit.MILLISECONDS);
 	}
 
 	@Override
@@ -49,4 +119,69 @@ public class IniPreferenceStoreAccessor implements PreferenceAccessor {
 		return props.getProperty(key);
 	}
 
+	/**
+	 * This method writes all pending changes to the properties file. It
+	 * returns after the changes have been written and does nothing if no
+	 * changes are pending.
+	 */
+	public void flush() {
+		// serialize flushes so that an older state never overwrites a newer one
+		synchronized (flushLock) {
+			Properties snapshot;
+			synchronized (this) {
+				flushScheduled = false;
+				if (!dirty) {
+					return;
+				}
+				dirty = false;
+				snapshot = copyProperties();
+			}
+
+			if (!store(snapshot)) {
+				synchronized (this) {
+					// keep the changes pending, they are retried with the next change or flush
+					dirty = true;
+				}
+				return;
+			}
+
+			synchronized (this) {
+				if (!dirty) {
+					PENDING.remove(this);
+				}
+			}
+		}
+	}
+
+	private synchronized Properties copyProperties() {
+		Properties copy = new Properties();
+		copy.putAll(props);
+		return copy;
+	}
+
+	/**
+	 * @return the scheduler executing the delayed flushes, created on first use
+	 */
+	private static synchronized ScheduledExecutorService getFlushScheduler() {
+		if (flushScheduler == null) {
+			flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "IniPreferenceStoreAccessor flush");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+			Runtime.getRuntime().addShutdownHook(new Thread(IniPreferenceStoreAccessor::flushAll, "IniPreferenceStoreAccessor shutdown flush"));
+		}
+		return flushScheduler;
+	}
+
+	/**
+	 * This method writes the pending changes of all instances.
+	 */
+	public static void flushAll() {
+		for (IniPreferenceStoreAccessor accessor : PENDING) {
+			accessor.flush();
+		}
+	}
+
 }
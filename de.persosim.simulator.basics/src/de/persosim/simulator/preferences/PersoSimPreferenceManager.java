@@ -22,6 +22,29 @@ public class PersoSimPreferenceManager
 			PersoSimPreferenceManager.preferenceAccessor = preferenceAccessor;
 	}
 
+	/**
+	 * This method replaces the current {@link PreferenceAccessor}, e.g. to
+	 * isolate tests from the persistent preferences.
+	 *
+	 * @param preferenceAccessor
+	 *            the accessor to be used from now on, may be null
+	 * @return the previously used accessor, may be null
+	 */
+	public static PreferenceAccessor setPreferenceAccessor(PreferenceAccessor preferenceAccessor)
+	{
+		PreferenceAccessor previous = PersoSimPreferenceManager.preferenceAccessor;
+		PersoSimPreferenceManager.preferenceAccessor = preferenceAccessor;
+		return previous;
+	}
+
+	/**
+	 * @return true iff a {@link PreferenceAccessor} has been set
+	 */
+	public static boolean isPreferenceAccessorAvailable()
+	{
+		return preferenceAccessor != null;
+	}
+
 	public static void storePreference(String key, String value)
 	{
 		storePreference(key, value, true);
@@ -0,0 +1,302 @@
+package de.persosim.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.KeyAgreement;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.globaltester.cryptoprovider.Crypto;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.crypto.CryptoSupport;
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.KeyDerivationFunction;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+import de.persosim.simulator.perso.Profile01;
+import de.persosim.simulator.protocols.Tr03110Utils;
+import de.persosim.simulator.protocols.pace.GenericMapping;
+import de.persosim.simulator.protocols.pace.MappingResult;
+import de.persosim.simulator.protocols.pace.PaceOid;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvPath;
+import de.persosim.simulator.tlv.TlvTag;
+import de.persosim.simulator.utils.HexString;
+
+public class PersoSimPoolTest extends PersoSimTestCase {
+
+	private static final int TIMEOUT_SECONDS = 120;
+
+	/* id-PACE-ECDH-GM-AES-CBC-CMAC-128 with the CAN of the default profile and standardized domain parameters 13 */
+	private static final byte[] PACE_OID = HexString.toByteArray("04007F00070202040202");
+	private static final String MSE_SET_AT_CAN = "0022C1A40F800A04007F00070202040202830102";
+	private static final byte[] CAN = "500540".getBytes(StandardCharsets.UTF_8);
+	private static final int DOMAIN_PARAMETER_ID = 13;
+
+	private PersoSimPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new PersoSimPool(Profile01::new, 8);
+	}
+
+	@After
+	public void tearDown() {
+		for (int i = 0; i < pool.getMaxNoOfSimulators(); i++) {
+			pool.closeSession(Integer.toString(i));
+		}
+	}
+
+	/**
+	 * Positive test: PACE is performed on several kernels at the same time,
+	 * each session completes independently of the others.
+	 */
+	@Test
+	public void testConcurrentPaceSessions() throws Exception {
+		int noOfSessions = pool.getMaxNoOfSimulators();
+		ExecutorService terminals = Executors.newFixedThreadPool(noOfSessions);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < noOfSessions; i++) {
+				String sessionId = Integer.toString(i);
+				// one terminal uses a wrong password, this must not affect the other sessions
+				byte[] password = (i == 0) ? "123456".getBytes(StandardCharsets.UTF_8) : CAN;
+				results.add(terminals.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						PersoSim simulator = pool.getSession(sessionId);
+						simulator.cardPowerUp();
+						return performPace(simulator, password);
+					}
+				}));
+			}
+
+			assertFalse(results.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			for (int i = 1; i < noOfSessions; i++) {
+				assertTrue("PACE of session " + i, results.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			}
+		} finally {
+			terminals.shutdownNow();
+		}
+
+		assertEquals(noOfSessions, pool.getNoOfSimulators());
+	}
+
+	/**
+	 * Positive test: the same session id is always routed to the same kernel,
+	 * different ids to different kernels.
+	 */
+	@Test
+	public void testGetSession() {
+		PersoSim first = pool.getSession("0");
+		PersoSim second = pool.getSession("1");
+
+		assertSame(first, pool.getSession("0"));
+		assertNotSame(first, second);
+		assertEquals(2, pool.getNoOfSimulators());
+	}
+
+	/**
+	 * Positive test: a closed session releases its kernel, a new session with
+	 * the same id is bound to a newly personalized kernel.
+	 */
+	@Test
+	public void testCloseSession() {
+		PersoSim first = pool.getSession("0");
+
+		assertTrue(pool.closeSession("0"));
+		assertFalse(first.isRunning());
+		assertEquals(0, pool.getNoOfSimulators());
+
+		PersoSim second = pool.getSession("0");
+		assertNotSame(first, second);
+		assertTrue(second.isRunning());
+	}
+
+	/**
+	 * Negative test: no more kernels than configured can be acquired until
+	 * one is released.
+	 */
+	@Test
+	public void testAcquire_PoolExhausted() {
+		PersoSimPool smallPool = new PersoSimPool(Profile01::new, 1);
+		PersoSim simulator = smallPool.acquire();
+
+		try {
+			smallPool.acquire();
+			assertTrue("expected IllegalStateException", false);
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertTrue(smallPool.release(simulator));
+		assertFalse(smallPool.release(simulator));
+		smallPool.release(smallPool.acquire());
+	}
+
+	/**
+	 * Positive test: while a simulator is personalized, its place in the pool
+	 * is reserved and the pool can be used by other callers.
+	 */
+	@Test(timeout = 30000)
+	public void testAcquire_PersonalizationDoesNotBlockPool() throws Exception {
+		CountDownLatch personalizationStarted = new CountDownLatch(1);
+		CountDownLatch personalizationContinued = new CountDownLatch(1);
+		AtomicInteger noOfPersonalizations = new AtomicInteger();
+		PersoSimPool smallPool = new PersoSimPool(() -> {
+			if (noOfPersonalizations.getAndIncrement() > 0) {
+				return new Profile01();
+			}
+			return new Profile01() {
+				@Override
+				public void initialize() {
+					personalizationStarted.countDown();
+					try {
+						personalizationContinued.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					super.initialize();
+				}
+			};
+		}, 2);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<PersoSim> slowSimulator = executor.submit(smallPool::acquire);
+			personalizationStarted.await();
+
+			assertEquals(0, smallPool.getNoOfSimulators());
+			PersoSim simulator = smallPool.acquire();
+			try {
+				smallPool.acquire();
+				assertTrue("expected IllegalStateException", false);
+			} catch (IllegalStateException e) {
+				// expected, the place of the simulator being personalized is reserved
+			}
+
+			personalizationContinued.countDown();
+			PersoSim personalizedSimulator = slowSimulator.get();
+			assertEquals(2, smallPool.getNoOfSimulators());
+			assertTrue(smallPool.release(personalizedSimulator));
+			assertTrue(smallPool.release(simulator));
+		} finally {
+			personalizationContinued.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method performs PACE with generic ECDH mapping on behalf of a
+	 * terminal.
+	 *
+	 * @param simulator
+	 *            the simulator to perform PACE with
+	 * @param password
+	 *            the password used by the terminal
+	 * @return true, iff PACE was successful and the authentication token of
+	 *         the card is valid
+	 */
+	private static boolean performPace(PersoSim simulator, byte[] password) throws Exception {
+		PaceOid paceOid = new PaceOid(PACE_OID);
+		CryptoSupport cryptoSupport = paceOid.getCryptoSupport();
+		KeyDerivationFunction kdf = new KeyDerivationFunction(paceOid.getSymmetricCipherKeyLengthInBytes());
+		DomainParameterSet domainParametersUnmapped = StandardizedDomainParameters.getDomainParameterSetById(DOMAIN_PARAMETER_ID);
+		SecureRandom rng = new SecureRandom();
+
+		assertArrayEquals(HexString.toByteArray("9000"), simulator.processCommand(HexString.toByteArray(MSE_SET_AT_CAN)));
+
+		// encrypted nonce
+		byte[] encryptedNonce = generalAuthenticate(simulator, true, null, null, TlvConstants.TAG_80);
+		SecretKeySpec nonceKey = cryptoSupport.generateSecretKeySpecCipher(kdf.derivePI(password));
+		byte[] nonce = cryptoSupport.decryptWithIvZero(encryptedNonce, nonceKey);
+
+		// generic mapping
+		KeyPair keyPairPcdUnmapped = CryptoUtil.generateKeyPair(domainParametersUnmapped, rng);
+		byte[] mappingDataPicc = generalAuthenticate(simulator, true, TlvConstants.TAG_81, domainParametersUnmapped.encodePublicKey(keyPairPcdUnmapped.getPublic()), TlvConstants.TAG_82);
+		MappingResult mappingResult = ((GenericMapping) paceOid.getMapping()).performMapping(domainParametersUnmapped, keyPairPcdUnmapped, nonce, mappingDataPicc);
+		DomainParameterSet domainParametersMapped = mappingResult.getMappedDomainParameters();
+		KeyPair keyPairPcd = mappingResult.getKeyPairPiccMapped();
+
+		// key agreement
+		byte[] publicKeyComponentPicc = generalAuthenticate(simulator, true, TlvConstants.TAG_83, domainParametersMapped.encodePublicKey(keyPairPcd.getPublic()), TlvConstants.TAG_84);
+		PublicKey publicKeyPicc = domainParametersMapped.reconstructPublicKey(publicKeyComponentPicc);
+
+		KeyAgreement keyAgreement = KeyAgreement.getInstance(paceOid.getKeyAgreementName(), Crypto.getCryptoProvider());
+		keyAgreement.init(keyPairPcd.getPrivate());
+		keyAgreement.doPhase(publicKeyPicc, true);
+		SecretKeySpec macKey = cryptoSupport.generateSecretKeySpecMac(kdf.deriveMAC(keyAgreement.generateSecret()));
+
+		// mutual authentication
+		byte[] pcdToken = computeToken(cryptoSupport, macKey, publicKeyPicc, domainParametersMapped, paceOid);
+		byte[] piccToken = generalAuthenticate(simulator, false, TlvConstants.TAG_85, pcdToken, TlvConstants.TAG_86);
+		if (piccToken == null) {
+			return false;
+		}
+
+		return Arrays.equals(computeToken(cryptoSupport, macKey, keyPairPcd.getPublic(), domainParametersMapped, paceOid), piccToken);
+	}
+
+	/**
+	 * This method sends a GENERAL AUTHENTICATE command to the simulator.
+	 *
+	 * @return the value of the expected response object or null if the
+	 *         command was not successful
+	 */
+	private static byte[] generalAuthenticate(PersoSim simulator, boolean chaining, TlvTag commandTag, byte[] commandValue, TlvTag responseTag) {
+		ConstructedTlvDataObject dynamicAuthenticationData = new ConstructedTlvDataObject(TlvConstants.TAG_7C);
+		if (commandTag != null) {
+			dynamicAuthenticationData.addTlvDataObject(new PrimitiveTlvDataObject(commandTag, commandValue));
+		}
+		byte[] data = dynamicAuthenticationData.toByteArray();
+
+		byte[] apdu = new byte[data.length + 6];
+		apdu[0] = (byte) (chaining ? 0x10 : 0x00);
+		apdu[1] = (byte) 0x86;
+		apdu[4] = (byte) data.length;
+		System.arraycopy(data, 0, apdu, 5, data.length);
+
+		byte[] response = simulator.processCommand(apdu);
+		if (response.length < 2 || response[response.length - 2] != (byte) 0x90 || response[response.length - 1] != 0x00) {
+			return null;
+		}
+
+		TlvDataObjectContainer responseData = new TlvDataObjectContainer(Arrays.copyOf(response, response.length - 2));
+		return responseData.getTlvDataObject(new TlvPath(TlvConstants.TAG_7C, responseTag)).getValueField();
+	}
+
+	/**
+	 * @return the authentication token over the provided public key
+	 */
+	private static byte[] computeToken(CryptoSupport cryptoSupport, SecretKeySpec macKey, PublicKey publicKey, DomainParameterSet domainParameters, PaceOid paceOid) {
+		TlvDataObjectContainer tokenInput = Tr03110Utils.buildAuthenticationTokenInput(publicKey, domainParameters, paceOid);
+		return Arrays.copyOf(cryptoSupport.macAuthenticationToken(tokenInput.toByteArray(), macKey), 8);
+	}
+
+}
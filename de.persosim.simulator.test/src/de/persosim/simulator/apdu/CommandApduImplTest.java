@@ -1,10 +1,16 @@
 package de.persosim.simulator.apdu;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
 import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
 import de.persosim.simulator.tlv.TlvValue;
 import de.persosim.simulator.tlv.TlvValuePlain;
 import de.persosim.simulator.utils.HexString;
@@ -28,4 +34,41 @@ public class CommandApduImplTest extends PersoSimTestCase {
 		assertArrayEquals(cApduDataExpected, cApduDataReceived);
 	}
 	
+	/**
+	 * Positive test: the command data object container contains the same
+	 * objects on each request while the returned containers are distinct.
+	 */
+	@Test
+	public void testGetCommandDataObjectContainer_Repeated() {
+		CommandApduImpl cApdu = new CommandApduImpl(HexString.toByteArray("002241A40F800A04007F00070202040202830101"));
+		
+		TlvDataObjectContainer first = cApdu.getCommandDataObjectContainer();
+		TlvDataObjectContainer second = cApdu.getCommandDataObjectContainer();
+		
+		assertNotSame(first, second);
+		assertEquals(first, second);
+		assertArrayEquals(cApdu.getCommandData().toByteArray(), second.toByteArray());
+		assertNotSame(first.getTlvDataObject(TlvConstants.TAG_80), second.getTlvDataObject(TlvConstants.TAG_80));
+	}
+	
+	/**
+	 * Positive test: modifications of a returned command data object container
+	 * do not affect containers returned later.
+	 */
+	@Test
+	public void testGetCommandDataObjectContainer_Modified() {
+		CommandApduImpl cApdu = new CommandApduImpl(HexString.toByteArray("002241A40F800A04007F00070202040202830101"));
+		
+		TlvDataObjectContainer modified = cApdu.getCommandDataObjectContainer();
+		modified.removeTlvDataObject(TlvConstants.TAG_80);
+		modified.getTlvDataObject(TlvConstants.TAG_83).setTag(TlvConstants.TAG_84);
+		
+		TlvDataObjectContainer container = cApdu.getCommandDataObjectContainer();
+		
+		assertNull(modified.getTlvDataObject(TlvConstants.TAG_80));
+		assertNotNull(container.getTlvDataObject(TlvConstants.TAG_80));
+		assertNotNull(container.getTlvDataObject(TlvConstants.TAG_83));
+		assertArrayEquals(cApdu.getCommandData().toByteArray(), container.toByteArray());
+	}
+	
 }
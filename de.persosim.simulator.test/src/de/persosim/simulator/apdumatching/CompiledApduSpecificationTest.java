@@ -0,0 +1,215 @@
+package de.persosim.simulator.apdumatching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvPath;
+import de.persosim.simulator.utils.HexString;
+
+public class CompiledApduSpecificationTest extends PersoSimTestCase implements ApduSpecificationConstants, Iso7816 {
+
+	private static final String PATH_PROFILE = "../de.persosim.simulator/personalization/profiles/Profile01.perso";
+
+	/**
+	 * APDUs covering the commands of all protocols of the default profiles,
+	 * unsupported commands and parameters as well as different classes,
+	 * lengths and (malformed) command data fields
+	 */
+	private static final String[] APDUS = new String[] {
+			"00A4000C023F00", // SELECT MF
+			"00A4020C02011C", // SELECT EF.CardAccess
+			"00A4040C07A0000002471001", // SELECT by AID
+			"00B0000000", // READ BINARY
+			"00B09C0010", // READ BINARY with SFI
+			"00B1011C0454020000", // READ BINARY odd INS
+			"00B1011C0454020000" + "00", // READ BINARY odd INS with Le
+			"00D6000003010203", // UPDATE BINARY
+			"000E000000", // ERASE BINARY
+			"0022C1A40F800A04007F00070202040202830103", // MSE Set AT PACE
+			"0022C1A412800A04007F00070202040202830103840100", // MSE Set AT PACE with further tag
+			"0022C1A40F830103800A04007F00070202040202", // MSE Set AT PACE, tags in reverse order
+			"0022C1A403830103", // MSE Set AT PACE without OID
+			"0022C1A403800304", // MSE Set AT PACE, malformed command data
+			"10860000027C0000", // General Authenticate with chaining
+			"00860000027C0000", // General Authenticate
+			"00860000047C028100", // General Authenticate with nested tag
+			"00860000047C02FF00", // General Authenticate with unexpected nested tag
+			"0086000002810000", // General Authenticate without dynamic authentication data
+			"008600000000027C000000", // General Authenticate with extended length
+			"0C860000027C0000", // General Authenticate with SM indication
+			"01860000027C0000", // General Authenticate on channel 1
+			"0084000008", // GET CHALLENGE
+			"002281B60F830D4445435643416549443030313031", // MSE Set DST
+			"002A00BE00", // PSO Verify Certificate
+			"0082000000", // EXTERNAL AUTHENTICATE
+			"002241A40F800A04007F00070202030202840101", // MSE Set AT CA/RI
+			"00200003", // VERIFY retry counter
+			"002C020306313233343536", // RESET RETRY COUNTER
+			"00441003", // ACTIVATE PIN
+			"00041003", // DEACTIVATE PIN
+			"00441103", // ACTIVATE with unsupported P1
+			"802080000B060904007F000703010402", // Aux VERIFY
+			"003300000B060904007F000703010403", // Aux COMPARE
+			"FF86000000", // PACE bypass
+			"00CA010000", // GET DATA
+			"0070000000", // MANAGE CHANNEL
+			"80CA9F7F00", // proprietary class
+			"00FF000000", // unsupported INS
+	};
+
+	/**
+	 * Positive test: the compiled forms of the APDU specifications of all
+	 * protocols of the default profile match the same APDUs as the
+	 * interpreted specifications.
+	 */
+	@Test
+	public void testMatches_SameAsInterpreted_ProtocolSpecifications() throws Exception {
+		Personalization perso = (Personalization) PersonalizationFactory.unmarshal(PATH_PROFILE);
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(perso);
+		kernel.powerOn();
+		CommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class);
+
+		List<ApduSpecification> apduSpecifications = new ArrayList<>();
+		for (Protocol protocol : commandProcessor.getProtocolList()) {
+			Collection<ApduSpecification> apduSet = protocol.getApduSet();
+			if (apduSet != null) {
+				apduSpecifications.addAll(apduSet);
+			}
+		}
+		assertFalse(apduSpecifications.isEmpty());
+
+		assertSameAsInterpreted(apduSpecifications);
+	}
+
+	/**
+	 * Positive test: the compiled forms of APDU specifications using all
+	 * kinds of requirements match the same APDUs as the interpreted
+	 * specifications.
+	 */
+	@Test
+	public void testMatches_SameAsInterpreted_Requirements() {
+		List<ApduSpecification> apduSpecifications = new ArrayList<>();
+
+		ApduSpecification mismatchingHeader = new ApduSpecification("mismatching header");
+		mismatchingHeader.setIsoFormat(ISO_FORMAT_PROPRIETARY);
+		mismatchingHeader.setReqIsoFormat(REQ_MISMATCH);
+		mismatchingHeader.setIns(INS_86_GENERAL_AUTHENTICATE);
+		mismatchingHeader.setP1((byte) 0x00);
+		mismatchingHeader.setReqP1(REQ_MISMATCH);
+		apduSpecifications.add(mismatchingHeader);
+
+		ApduSpecification chainingAndChannel = new ApduSpecification("chaining and channel");
+		chainingAndChannel.setChaining(true);
+		chainingAndChannel.setReqChaining(REQ_MISMATCH);
+		chainingAndChannel.setChannel((byte) 0x00);
+		apduSpecifications.add(chainingAndChannel);
+
+		ApduSpecification secureMessaging = new ApduSpecification("secure messaging");
+		secureMessaging.setSecureMessaging(SM_OFF_OR_NO_INDICATION);
+		secureMessaging.setReqSecureMessaging(REQ_MISMATCH);
+		apduSpecifications.add(secureMessaging);
+
+		ApduSpecification extendedLength = new ApduSpecification("extended length");
+		extendedLength.setIns(INS_86_GENERAL_AUTHENTICATE);
+		extendedLength.setIsoCase(ISO_CASE_4);
+		extendedLength.setExtendedLengthLCLE(false);
+		apduSpecifications.add(extendedLength);
+
+		ApduSpecification nestedTags = new ApduSpecification("nested tags");
+		nestedTags.setIns(INS_86_GENERAL_AUTHENTICATE);
+		TlvSpecification dynamicAuthenticationData = new TlvSpecification(TlvConstants.TAG_7C);
+		dynamicAuthenticationData.add(new TlvSpecification(TlvConstants.TAG_81, REQ_OPTIONAL));
+		dynamicAuthenticationData.add(new TlvSpecification(TlvConstants.TAG_82, REQ_MISMATCH));
+		nestedTags.addTag(dynamicAuthenticationData);
+		apduSpecifications.add(nestedTags);
+
+		ApduSpecification unspecifiedTags = new ApduSpecification("unspecified tags");
+		unspecifiedTags.setIns(INS_22_MANAGE_SECURITY_ENVIRONMENT);
+		unspecifiedTags.getTags().setAllowUnspecifiedSubTags(ALLOW_FURTHER_TAGS);
+		unspecifiedTags.addTag(new TlvSpecification(TlvConstants.TAG_80));
+		unspecifiedTags.addTag(new TlvSpecification(TlvConstants.TAG_83, REQ_OPTIONAL));
+		apduSpecifications.add(unspecifiedTags);
+
+		ApduSpecification arbitraryOrder = new ApduSpecification("arbitrary order");
+		arbitraryOrder.getTags().setStrictOrder(ARBITRARY_ORDER);
+		arbitraryOrder.addTag(new TlvSpecification(TlvConstants.TAG_80));
+		arbitraryOrder.addTag(new TlvSpecification(TlvConstants.TAG_83));
+		apduSpecifications.add(arbitraryOrder);
+
+		ApduSpecification path = new ApduSpecification("path");
+		path.addTag(new TlvSpecification(TlvConstants.TAG_7C));
+		path.addTag(new TlvPath(TlvConstants.TAG_7C), new TlvSpecification(TlvConstants.TAG_81));
+		apduSpecifications.add(path);
+
+		assertSameAsInterpreted(apduSpecifications);
+	}
+
+	/**
+	 * Positive test: the compiled form is not affected by later changes of
+	 * the specification.
+	 */
+	@Test
+	public void testCompile_Snapshot() {
+		ApduSpecification apduSpecification = new ApduSpecification("snapshot");
+		apduSpecification.setIns(INS_B0_READ_BINARY);
+		CompiledApduSpecification compiled = apduSpecification.compile();
+
+		apduSpecification.setIns(INS_B1_READ_BINARY);
+
+		CommandApdu apdu = CommandApduFactory.createCommandApdu(HexString.toByteArray("00B0000000"));
+		assertTrue(compiled.matches(apdu));
+		assertTrue(compiled.matchesHeader(apdu));
+		assertFalse(apduSpecification.matchesFullApdu(apdu));
+		assertEquals("snapshot", compiled.getId());
+	}
+
+	/**
+	 * This method asserts that the compiled forms of the provided
+	 * specifications match exactly the same APDUs as the interpreted ones.
+	 */
+	private static void assertSameAsInterpreted(List<ApduSpecification> apduSpecifications) {
+		for (ApduSpecification apduSpecification : apduSpecifications) {
+			CompiledApduSpecification compiled = apduSpecification.compile();
+
+			for (String apduString : APDUS) {
+				CommandApdu apdu = CommandApduFactory.createCommandApdu(HexString.toByteArray(apduString));
+				String message = apduSpecification.getId() + " " + apduString;
+
+				assertEquals(message, result(() -> apduSpecification.matchesFullApdu(apdu)), result(() -> compiled.matches(apdu)));
+				assertEquals(message, apduSpecification.matchesHeader(apdu), compiled.matchesHeader(apdu));
+			}
+		}
+	}
+
+	/**
+	 * @return the result of the provided matching or the class of the exception thrown during matching
+	 */
+	private static Object result(BooleanSupplier matching) {
+		try {
+			return matching.getAsBoolean();
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+}
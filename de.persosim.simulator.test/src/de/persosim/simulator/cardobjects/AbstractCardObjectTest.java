@@ -2,6 +2,9 @@ package de.persosim.simulator.cardobjects;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -192,4 +195,146 @@ public class AbstractCardObjectTest extends PersoSimTestCase {
 		assertEquals(123, ((IdentifiableObjectImpl) cardObjects.iterator().next()).getId());
 	}
 
+	/**
+	 * Positive test: files are found by file identifier, short file identifier
+	 * and dedicated file name before and after the children have been changed.
+	 */
+	@Test
+	public void testFindChildren_FileIdentifiers() throws AccessDeniedException {
+		DedicatedFile df = new DedicatedFile(new FileIdentifier(0xDF01), new DedicatedFileIdentifier(HexString.toByteArray("A000000247")));
+		ElementaryFile ef1 = new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[0]);
+		ElementaryFile ef2 = new ElementaryFile(new FileIdentifier(0x0102), new ShortFileIdentifier(2), new byte[0]);
+		masterFile.addChild(df);
+		masterFile.addChild(ef1);
+		
+		assertEquals(Arrays.asList(df), masterFile.findChildren(new FileIdentifier(0xDF01)));
+		assertEquals(Arrays.asList(df), masterFile.findChildren(new DedicatedFileIdentifier(HexString.toByteArray("A000000247"))));
+		assertEquals(Arrays.asList(ef1), masterFile.findChildren(new ShortFileIdentifier(1)));
+		assertEquals(Arrays.asList(ef1), masterFile.findChildren(new FileIdentifier(0x0101), new ShortFileIdentifier(1)));
+		assertEquals(0, masterFile.findChildren(new FileIdentifier(0x0101), new ShortFileIdentifier(2)).size());
+		
+		masterFile.addChild(ef2);
+		masterFile.removeChild(ef1);
+		
+		assertEquals(Arrays.asList(ef2), masterFile.findChildren(new ShortFileIdentifier(2)));
+		assertEquals(0, masterFile.findChildren(new FileIdentifier(0x0101)).size());
+		assertEquals(0, masterFile.findChildren(new ShortFileIdentifier(1)).size());
+	}
+	
+	/**
+	 * Positive test: files are found by their new identifiers after these
+	 * have been changed.
+	 */
+	@Test
+	public void testFindChildren_IdentifierChanged() throws AccessDeniedException {
+		ElementaryFile ef = new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[0]);
+		masterFile.addChild(ef);
+		assertEquals(Arrays.asList(ef), masterFile.findChildren(new ShortFileIdentifier(1)));
+		
+		ef.setShortFileIdentifier(new ShortFileIdentifier(3));
+		
+		assertEquals(0, masterFile.findChildren(new ShortFileIdentifier(1)).size());
+		assertEquals(Arrays.asList(ef), masterFile.findChildren(new ShortFileIdentifier(3)));
+	}
+	
+	/**
+	 * Positive test: if the identifiers of a child are not available while
+	 * the children are indexed, no incomplete index is used afterwards.
+	 */
+	@Test
+	public void testFindChildren_IdentifiersNotAvailable() throws AccessDeniedException {
+		final boolean[] identifiersAvailable = new boolean[1];
+		ElementaryFile ef = new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[0]);
+		ElementaryFile notAvailable = new ElementaryFile(new FileIdentifier(0x0102), new ShortFileIdentifier(2), new byte[0]) {
+			@Override
+			public Collection<CardObjectIdentifier> getAllIdentifiers() {
+				if (!identifiersAvailable[0]) {
+					throw new IllegalStateException("identifiers not available");
+				}
+				return super.getAllIdentifiers();
+			}
+		};
+		masterFile.addChild(ef);
+		masterFile.addChild(notAvailable);
+		
+		try {
+			masterFile.findChildren(new FileIdentifier(0x0101));
+			fail("identifiers of a child are not available");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		
+		identifiersAvailable[0] = true;
+		
+		assertEquals(Arrays.asList(ef), masterFile.findChildren(new FileIdentifier(0x0101)));
+		assertEquals(Arrays.asList(notAvailable), masterFile.findChildren(new FileIdentifier(0x0102)));
+	}
+	
+	/**
+	 * Positive test: a wrapper is found by the identifiers of the currently
+	 * wrapped file.
+	 */
+	@Test
+	public void testFindChildren_WrappedObjectChanged() throws AccessDeniedException {
+		ElementaryFileReadWriteCounterWrapper wrapper = new ElementaryFileReadWriteCounterWrapper();
+		wrapper.setWrappedObject(new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[0]));
+		masterFile.addChild(wrapper);
+		assertEquals(Arrays.asList(wrapper), masterFile.findChildren(new ShortFileIdentifier(1)));
+		
+		wrapper.setWrappedObject(new ElementaryFile(new FileIdentifier(0x0102), new ShortFileIdentifier(2), new byte[0]));
+		
+		assertEquals(0, masterFile.findChildren(new ShortFileIdentifier(1)).size());
+		assertEquals(Arrays.asList(wrapper), masterFile.findChildren(new ShortFileIdentifier(2)));
+	}
+	
+	/**
+	 * Positive test: a wrapper is found by the new short file identifier set
+	 * through the wrapper.
+	 */
+	@Test
+	public void testFindChildren_WrappedIdentifierChanged() throws AccessDeniedException {
+		ElementaryFileReadWriteCounterWrapper wrapper = new ElementaryFileReadWriteCounterWrapper();
+		wrapper.setWrappedObject(new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[0]));
+		masterFile.addChild(wrapper);
+		assertEquals(Arrays.asList(wrapper), masterFile.findChildren(new ShortFileIdentifier(1)));
+		
+		wrapper.setShortFileIdentifier(new ShortFileIdentifier(3));
+		
+		assertEquals(0, masterFile.findChildren(new ShortFileIdentifier(1)).size());
+		assertEquals(Arrays.asList(wrapper), masterFile.findChildren(new ShortFileIdentifier(3)));
+	}
+	
+	/**
+	 * Positive test: domain parameters are no longer found by an OID after
+	 * its identifier has been removed.
+	 */
+	@Test
+	public void testFindChildren_OidIdentifierRemoved() throws AccessDeniedException {
+		OidIdentifier oidIdentifier = new OidIdentifier(new GenericOid(HexString.toByteArray("0022FF")));
+		DomainParameterSetCardObject domainParameters = new DomainParameterSetCardObject(null, new DomainParameterSetIdentifier(17));
+		domainParameters.addOidIdentifier(oidIdentifier);
+		masterFile.addChild(domainParameters);
+		assertEquals(Arrays.asList(domainParameters), masterFile.findChildren(oidIdentifier));
+		
+		domainParameters.removeOidIdentifier(oidIdentifier);
+		
+		assertEquals(0, masterFile.findChildren(oidIdentifier).size());
+	}
+	
+	/**
+	 * Positive test: all children match an empty OID prefix, children added
+	 * later are found by the prefixes of their OIDs.
+	 */
+	@Test
+	public void testFindChildren_OidPrefix() throws AccessDeniedException {
+		assertEquals(4, masterFile.findChildren(new OidIdentifier(new GenericOid(new byte[0]))).size());
+		
+		IdentifiableObjectImpl identifiableObjectImpl4 = new IdentifiableObjectImpl(securityStatus, 4);
+		identifiableObjectImpl4.addOidIdentifier(new OidIdentifier(new GenericOid(HexString.toByteArray("0011FF"))));
+		masterFile.addChild(identifiableObjectImpl4);
+		
+		assertEquals(4, masterFile.findChildren(new OidIdentifier(new GenericOid(HexString.toByteArray("00")))).size());
+		assertEquals(Arrays.asList(identifiableObjectImpl4), masterFile.findChildren(new OidIdentifier(new GenericOid(HexString.toByteArray("0011FF")))));
+	}
+
 }
@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -40,6 +41,71 @@ public class ElementaryFileTest extends PersoSimTestCase {
 		assertArrayEquals("file content not as expected", newContent, file.getContent());
 	}
 	
+	/**
+	 * Positive test: a ranged read returns only the requested range, truncated at the end of the file.
+	 */
+	@Test
+	public void testGetContent_Range() throws Exception {
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), new byte[] { 1, 2, 3, 4 },
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+
+		assertArrayEquals(new byte[] { 2, 3 }, file.getContent(1, 2));
+		assertArrayEquals(new byte[] { 3, 4 }, file.getContent(2, 256));
+		assertArrayEquals(new byte[0], file.getContent(3, 0));
+	}
+	
+	/**
+	 * Negative test: a ranged read must start within the file.
+	 */
+	@Test (expected = IndexOutOfBoundsException.class)
+	public void testGetContent_RangeBehindEndOfFile() throws Exception {
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), new byte[] { 1, 2, 3, 4 },
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+
+		file.getContent(4, 1);
+	}
+	
+	/**
+	 * Positive test: the content length is returned without reading the content.
+	 */
+	@Test
+	public void testGetContentLength() throws Exception {
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), new byte[] { 1, 2, 3, 4 },
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+
+		assertEquals(4, file.getContentLength());
+	}
+	
+	/**
+	 * Negative test: the content length is only returned if reading is allowed.
+	 */
+	@Test (expected = AccessDeniedException.class)
+	public void testGetContentLength_WithoutSecConditions() throws AccessDeniedException {
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), new byte[] { 1, 2, 3, 4 });
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+		
+		file.getContentLength();
+	}
+	
+	/**
+	 * Negative test: a ranged read checks the reading conditions.
+	 */
+	@Test (expected = AccessDeniedException.class)
+	public void testGetContent_RangeWithoutSecConditions() throws AccessDeniedException {
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), new byte[] { 1, 2, 3, 4 });
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+		
+		file.getContent(0, 1);
+	}
+	
 	/**
 	 * Negative test: Try to read when constructor without SecConditions is used.
 	 */
@@ -0,0 +1,75 @@
+package de.persosim.simulator.control.soap.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.preferences.PersoSimPreferenceManager;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.PreferenceAccessor;
+
+public class PersoSimRemoteControlImplTest extends PersoSimTestCase {
+
+	private PreferenceAccessor previousAccessor;
+	private RecordingPreferenceAccessor accessor;
+
+	/**
+	 * Preference accessor that keeps the values in memory and counts the
+	 * write accesses, each of which would flush a persistent store.
+	 */
+	private static class RecordingPreferenceAccessor implements PreferenceAccessor {
+		private final Map<String, String> values = new HashMap<>();
+		private int noOfWrites = 0;
+
+		@Override
+		public void set(String key, String value) {
+			noOfWrites++;
+			values.put(key, value);
+		}
+
+		@Override
+		public String get(String key) {
+			return values.get(key);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		accessor = new RecordingPreferenceAccessor();
+		previousAccessor = PersoSimPreferenceManager.setPreferenceAccessor(accessor);
+	}
+
+	@After
+	public void tearDown() {
+		PersoSimPreferenceManager.setPreferenceAccessor(previousAccessor);
+	}
+
+	/**
+	 * Positive test: sending an APDU does not write the preferences, so no
+	 * flush of the preference store is caused.
+	 */
+	@Test
+	public void testSendApdu_NoPreferenceWrite() {
+		PersoSimRemoteControlResult result = new PersoSimRemoteControlImpl().sendApdu("00A4020C02011C");
+
+		assertNotNull(result);
+		assertEquals(0, accessor.noOfWrites);
+	}
+
+	/**
+	 * Positive test: a reset does not write the preferences.
+	 */
+	@Test
+	public void testReset_NoPreferenceWrite() {
+		new PersoSimRemoteControlImpl().reset();
+
+		assertEquals(0, accessor.noOfWrites);
+	}
+
+}
@@ -2,6 +2,7 @@ package de.persosim.simulator.crypto;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
@@ -10,7 +11,11 @@ import java.security.KeyPair;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECPoint;
 import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EllipticCurve;
 import java.security.spec.KeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -75,6 +80,219 @@ public class CryptoUtilTest extends PersoSimTestCase {
 		assertEquals("mult y", expectedEcPoint.getAffineY(), receivedEcPoint.getAffineY());
 	}
 	
+	/**
+	 * Positive test case: scalar point multiplication in Jacobian coordinates
+	 * matches the affine reference implementation for the generator and a
+	 * derived point on all standardized elliptic curves.
+	 */
+	@Test
+	public void testScalarPointMultiplication_MatchesAffineOnAllStandardizedCurves() {
+		Random random = new Random(0x5EED);
+		
+		for (DomainParameterSetEcdh domParamsEcdh : getStandardizedDomainParameterSetsEcdh()) {
+			EllipticCurve curve = domParamsEcdh.getCurve();
+			BigInteger order = domParamsEcdh.getOrder();
+			
+			ECPoint generator = domParamsEcdh.getGenerator();
+			ECPoint derivedPoint = CryptoUtil.scalarPointMultiplicationAffine(curve, generator, BigInteger.valueOf(5));
+			
+			List<BigInteger> scalars = new ArrayList<>();
+			scalars.add(BigInteger.ONE);
+			scalars.add(CryptoUtil.TWO);
+			scalars.add(CryptoUtil.THREE);
+			scalars.add(order.subtract(BigInteger.ONE));
+			for (int i = 0; i < 3; i++) {
+				scalars.add(new BigInteger(order.bitLength(), random).mod(order));
+			}
+			
+			for (ECPoint point : new ECPoint[] {generator, derivedPoint}) {
+				for (BigInteger scalar : scalars) {
+					ECPoint expected = CryptoUtil.scalarPointMultiplicationAffine(curve, point, scalar);
+					ECPoint received = CryptoUtil.scalarPointMultiplication(curve, order, point, scalar);
+					
+					assertEquals("mult x for order " + HexString.encode(order), expected.getAffineX(), received.getAffineX());
+					assertEquals("mult y for order " + HexString.encode(order), expected.getAffineY(), received.getAffineY());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Positive test case: scalar point multiplication yields the point at infinity for multiples of the order.
+	 */
+	@Test
+	public void testScalarPointMultiplication_Infinity() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		
+		assertEquals(ECPoint.POINT_INFINITY, CryptoUtil.scalarPointMultiplication(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), domParamsEcdh.getOrder()));
+		assertEquals(ECPoint.POINT_INFINITY, CryptoUtil.scalarPointMultiplication(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), BigInteger.ZERO));
+		assertEquals(ECPoint.POINT_INFINITY, CryptoUtil.scalarPointMultiplication(domParamsEcdh.getCurve(), ECPoint.POINT_INFINITY, BigInteger.TEN));
+	}
+	
+	/**
+	 * Positive test case: scalar multiplication of the generator using the
+	 * precomputed comb table matches the affine reference implementation on all
+	 * standardized elliptic curves.
+	 */
+	@Test
+	public void testScalarPointMultiplication_GeneratorTableOnAllStandardizedCurves() {
+		Random random = new Random(0xC0DE);
+		
+		for (DomainParameterSetEcdh domParamsEcdh : getStandardizedDomainParameterSetsEcdh()) {
+			EllipticCurve curve = domParamsEcdh.getCurve();
+			BigInteger order = domParamsEcdh.getOrder();
+			ECPoint generator = domParamsEcdh.getGenerator();
+			
+			BigInteger[] scalars = new BigInteger[] {BigInteger.ONE, CryptoUtil.TWO, order.subtract(BigInteger.ONE), order.add(CryptoUtil.THREE), new BigInteger(order.bitLength(), random)};
+			
+			for (BigInteger scalar : scalars) {
+				ECPoint expected = CryptoUtil.scalarPointMultiplicationAffine(curve, generator, scalar.mod(order));
+				ECPoint received = CryptoUtil.scalarPointMultiplication(domParamsEcdh, generator, scalar);
+				
+				assertEquals("mult x for order " + HexString.encode(order), expected.getAffineX(), received.getAffineX());
+				assertEquals("mult y for order " + HexString.encode(order), expected.getAffineY(), received.getAffineY());
+			}
+		}
+	}
+	
+	/**
+	 * Positive test case: comb tables of different widths yield identical results.
+	 */
+	@Test
+	public void testFixedBaseCombTable_Widths() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		BigInteger scalar = new BigInteger(1, HexString.toByteArray("FA587945E9FE2AEB417DF0ADF951B7CBD9D5E476F8F6EF1B701C59C56B180204")).mod(domParamsEcdh.getOrder());
+		
+		ECPoint expected = CryptoUtil.scalarPointMultiplication(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), scalar);
+		
+		for (int width = 1; width <= 8; width++) {
+			FixedBaseCombTable table = new FixedBaseCombTable(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), domParamsEcdh.getOrder(), width);
+			assertEquals("width " + width, expected, table.multiply(scalar));
+		}
+	}
+	
+	/**
+	 * Positive test case: scalar multiplication of a point other than the generator with domain parameters.
+	 */
+	@Test
+	public void testScalarPointMultiplication_DomainParametersNonGenerator() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		
+		ECPoint point = CryptoUtil.scalarPointMultiplication(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), BigInteger.TEN);
+		BigInteger scalar = new BigInteger(1, HexString.toByteArray("FA587945E9FE2AEB417DF0ADF951B7CBD9D5E476F8F6EF1B701C59C56B180204"));
+		
+		ECPoint expected = CryptoUtil.scalarPointMultiplicationAffine(domParamsEcdh.getCurve(), point, scalar.mod(domParamsEcdh.getOrder()));
+		
+		assertEquals(expected, CryptoUtil.scalarPointMultiplication(domParamsEcdh, point, scalar));
+	}
+	
+	/**
+	 * Positive test case: width-w NAF scalar multiplication yields identical results for all supported window widths.
+	 */
+	@Test
+	public void testScalarPointMultiplicationWnaf_Windows() {
+		Random random = new Random(0x4AF);
+		
+		for (DomainParameterSetEcdh domParamsEcdh : getStandardizedDomainParameterSetsEcdh()) {
+			EllipticCurve curve = domParamsEcdh.getCurve();
+			BigInteger order = domParamsEcdh.getOrder();
+			ECPoint point = CryptoUtil.scalarPointMultiplicationAffine(curve, domParamsEcdh.getGenerator(), BigInteger.valueOf(7));
+			
+			BigInteger[] scalars = new BigInteger[] {BigInteger.ONE, BigInteger.valueOf(0xFF), order.subtract(BigInteger.ONE), new BigInteger(order.bitLength(), random)};
+			
+			for (BigInteger scalar : scalars) {
+				ECPoint expected = CryptoUtil.scalarPointMultiplicationAffine(curve, point, scalar);
+				
+				for (int window = 2; window <= CryptoUtil.MAX_WNAF_WINDOW; window++) {
+					assertEquals("window " + window + " for order " + HexString.encode(order), expected, CryptoUtil.scalarPointMultiplicationWnaf(curve, point, scalar, window));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Positive test case: width-w NAF scalar multiplication with a negative scalar yields the negated point.
+	 */
+	@Test
+	public void testScalarPointMultiplicationWnaf_NegativeScalar() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		EllipticCurve curve = domParamsEcdh.getCurve();
+		BigInteger order = domParamsEcdh.getOrder();
+		
+		ECPoint expected = CryptoUtil.scalarPointMultiplicationAffine(curve, domParamsEcdh.getGenerator(), order.subtract(BigInteger.TEN));
+		
+		assertEquals(expected, CryptoUtil.scalarPointMultiplicationWnaf(curve, domParamsEcdh.getGenerator(), BigInteger.TEN.negate(), 5));
+	}
+	
+	/**
+	 * Negative test case: width-w NAF scalar multiplication with unsupported window width.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testScalarPointMultiplicationWnaf_InvalidWindow() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		
+		CryptoUtil.scalarPointMultiplicationWnaf(domParamsEcdh.getCurve(), domParamsEcdh.getGenerator(), BigInteger.TEN, 1);
+	}
+	
+	/**
+	 * Positive test case: simultaneous multiplication matches the sum of the single affine multiplications on all standardized curves.
+	 */
+	@Test
+	public void testMultiScalarPointMultiplication_MatchesAffineOnAllStandardizedCurves() {
+		Random random = new Random(0x5742);
+		
+		for (DomainParameterSetEcdh domParamsEcdh : getStandardizedDomainParameterSetsEcdh()) {
+			EllipticCurve curve = domParamsEcdh.getCurve();
+			BigInteger order = domParamsEcdh.getOrder();
+			ECPoint generator = domParamsEcdh.getGenerator();
+			ECPoint pointH = CryptoUtil.scalarPointMultiplicationAffine(curve, generator, new BigInteger(order.bitLength(), random).mod(order));
+			
+			BigInteger s = new BigInteger(order.bitLength(), random).mod(order);
+			BigInteger r = new BigInteger(order.bitLength() / 2, random);
+			
+			ECPoint expected = CryptoUtil.addPoint(curve, CryptoUtil.scalarPointMultiplicationAffine(curve, generator, s), CryptoUtil.scalarPointMultiplicationAffine(curve, pointH, r));
+			
+			assertEquals("sG + rH for order " + HexString.encode(order), expected, CryptoUtil.multiScalarPointMultiplication(curve, new ECPoint[] {generator, pointH}, new BigInteger[] {s, r}));
+			
+			expected = CryptoUtil.addPoint(curve, CryptoUtil.scalarPointMultiplicationAffine(curve, generator, s), pointH);
+			
+			assertEquals("sG + H for order " + HexString.encode(order), expected, CryptoUtil.multiScalarPointMultiplication(curve, new ECPoint[] {generator, pointH}, new BigInteger[] {s, BigInteger.ONE}));
+		}
+	}
+	
+	/**
+	 * Positive test case: simultaneous multiplication yields the point at infinity if the single products cancel each other out.
+	 */
+	@Test
+	public void testMultiScalarPointMultiplication_Infinity() {
+		DomainParameterSetEcdh domParamsEcdh = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
+		EllipticCurve curve = domParamsEcdh.getCurve();
+		ECPoint generator = domParamsEcdh.getGenerator();
+		ECPoint point = CryptoUtil.scalarPointMultiplication(curve, generator, BigInteger.TEN);
+		
+		ECPoint received = CryptoUtil.multiScalarPointMultiplication(curve, new ECPoint[] {generator, point}, new BigInteger[] {BigInteger.TEN, domParamsEcdh.getOrder().subtract(BigInteger.ONE)});
+		
+		assertEquals(ECPoint.POINT_INFINITY, received);
+	}
+	
+	/**
+	 * @return all standardized domain parameter sets describing elliptic curves
+	 */
+	static List<DomainParameterSetEcdh> getStandardizedDomainParameterSetsEcdh() {
+		List<DomainParameterSetEcdh> domainParameterSets = new ArrayList<>();
+		
+		for (int i = 0; i < StandardizedDomainParameters.NO_OF_STANDARDIZED_DOMAIN_PARAMETERS; i++) {
+			DomainParameterSet domParams = StandardizedDomainParameters.getDomainParameterSetById(i);
+			if (domParams instanceof DomainParameterSetEcdh) {
+				domainParameterSets.add((DomainParameterSetEcdh) domParams);
+			}
+		}
+		
+		assertFalse("no standardized ec domain parameters available", domainParameterSets.isEmpty());
+		
+		return domainParameterSets;
+	}
+	
 	/**
 	 * Positive test case: add two EC points.
 	 */
@@ -3,6 +3,7 @@ package de.persosim.simulator.crypto;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.StringReader;
@@ -362,6 +363,25 @@ public class DomainParameterSetEcdhTest extends PersoSimTestCase {
 		assertEquals(domParamsEcdh, unmarshalledObject);
 	}
 	
+	/**
+	 * Positive test: the generator precomputations are created once and are
+	 * not part of the XML representation.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetGeneratorTable() throws Exception {
+		FixedBaseCombTable table = domParamsEcdh.getGeneratorTable();
+		assertSame(table, domParamsEcdh.getGeneratorTable());
+		
+		StringWriter strWriter = new StringWriter();
+		PersonalizationFactory.marshal(domParamsEcdh, strWriter);
+		assertFalse(strWriter.toString().contains("generatorTable"));
+		
+		DomainParameterSetEcdh unmarshalled = (DomainParameterSetEcdh) PersonalizationFactory.unmarshal(new StringReader(strWriter.toString()));
+		assertEquals(domParamsEcdh.computePublicPoint(BigInteger.TEN), unmarshalled.computePublicPoint(BigInteger.TEN));
+	}
+	
 	/**
 	 * Positive test case: check equals method for identical object.
 	 */
@@ -0,0 +1,146 @@
+package de.persosim.simulator.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.globaltester.logging.tags.LogLevel;
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class LinkedListLogListenerTest extends PersoSimTestCase {
+
+	/**
+	 * Positive test: entries are returned in insertion order before the maximum number of entries is reached.
+	 */
+	@Test
+	public void testGetEntry_NotFull() {
+		LinkedListLogListener listener = new LinkedListLogListener(5);
+		PersoSimLogEntry first = createEntry(0);
+		PersoSimLogEntry second = createEntry(1);
+
+		listener.addEntry(first);
+		listener.addEntry(second);
+
+		assertEquals(2, listener.getNumberOfCachedEntries());
+		assertSame(first, listener.getEntry(0));
+		assertSame(second, listener.getEntry(1));
+		assertEquals(0, listener.getSequenceNumber(0));
+		assertEquals(1, listener.getSequenceNumber(1));
+		assertEquals(2, listener.getNextSequenceNumber());
+	}
+
+	/**
+	 * Positive test: the oldest entries are evicted and all remaining entries
+	 * match a linked list capped at the maximum number of entries.
+	 */
+	@Test
+	public void testGetEntry_EvictionMatchesLinkedList() {
+		int maxLines = 7;
+		LinkedListLogListener listener = new LinkedListLogListener(maxLines);
+		LinkedList<PersoSimLogEntry> expected = new LinkedList<>();
+
+		for (int i = 0; i < 50; i++) {
+			PersoSimLogEntry entry = createEntry(i);
+			listener.addEntry(entry);
+			if (expected.size() >= maxLines) {
+				expected.removeFirst();
+			}
+			expected.add(entry);
+
+			assertEquals(expected.size(), listener.getNumberOfCachedEntries());
+			for (int index = 0; index < expected.size(); index++) {
+				assertSame(expected.get(index), listener.getEntry(index));
+				assertEquals(i - expected.size() + 1 + index, listener.getSequenceNumber(index));
+			}
+		}
+		assertEquals(50, listener.getNextSequenceNumber());
+	}
+
+	/**
+	 * Negative test: accessing an index outside the cached entries fails.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetEntry_IndexTooLarge() {
+		LinkedListLogListener listener = new LinkedListLogListener(3);
+		for (int i = 0; i < 5; i++) {
+			listener.addEntry(createEntry(i));
+		}
+
+		listener.getEntry(3);
+	}
+
+	/**
+	 * Negative test: accessing a negative index fails.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetEntry_NegativeIndex() {
+		LinkedListLogListener listener = new LinkedListLogListener(3);
+		listener.addEntry(createEntry(0));
+
+		listener.getEntry(-1);
+	}
+
+	/**
+	 * Positive test: only entries added since the last poll are returned.
+	 */
+	@Test
+	public void testGetEntriesSince() {
+		LinkedListLogListener listener = new LinkedListLogListener(10);
+		for (int i = 0; i < 4; i++) {
+			listener.addEntry(createEntry(i));
+		}
+
+		long lastPoll = listener.getNextSequenceNumber();
+		assertTrue(listener.getEntriesSince(lastPoll).isEmpty());
+
+		PersoSimLogEntry fifth = createEntry(4);
+		PersoSimLogEntry sixth = createEntry(5);
+		listener.addEntry(fifth);
+		listener.addEntry(sixth);
+
+		List<PersoSimLogEntry> newEntries = listener.getEntriesSince(lastPoll);
+		assertEquals(2, newEntries.size());
+		assertSame(fifth, newEntries.get(0));
+		assertSame(sixth, newEntries.get(1));
+
+		assertEquals(6, listener.getEntriesSince(0).size());
+	}
+
+	/**
+	 * Positive test: entries evicted since the last poll are skipped.
+	 */
+	@Test
+	public void testGetEntriesSince_Evicted() {
+		LinkedListLogListener listener = new LinkedListLogListener(3);
+		long lastPoll = listener.getNextSequenceNumber();
+
+		for (int i = 0; i < 8; i++) {
+			listener.addEntry(createEntry(i));
+		}
+
+		List<PersoSimLogEntry> newEntries = listener.getEntriesSince(lastPoll);
+		assertEquals(3, newEntries.size());
+		for (int i = 0; i < 3; i++) {
+			assertSame(listener.getEntry(i), newEntries.get(i));
+		}
+		assertEquals("entry 5", newEntries.get(0).getLogContent());
+	}
+
+	/**
+	 * Negative test: at least one entry must be cached.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_NoLines() {
+		new LinkedListLogListener(0);
+	}
+
+	private static PersoSimLogEntry createEntry(int number) {
+		return new PersoSimLogEntry("entry " + number, "timestamp", LogLevel.INFO);
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.persosim.simulator.perso;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class PersonalizationFactoryTest extends PersoSimTestCase {
+
+	private static final Path PATH_PROFILES = Path.of("../de.persosim.simulator/personalization/profiles");
+
+	/**
+	 * Positive test: the configured xStream objects are cached and reused.
+	 */
+	@Test
+	public void testGetXStream_Cached() {
+		assertSame(PersonalizationFactory.getXStream(false), PersonalizationFactory.getXStream(false));
+		assertSame(PersonalizationFactory.getXStream(true), PersonalizationFactory.getXStream(true));
+		assertNotSame(PersonalizationFactory.getXStream(false), PersonalizationFactory.getXStream(true));
+	}
+
+	/**
+	 * Positive test: repeatedly unmarshalling the bundled profiles with the
+	 * cached xStream object yields distinct but equal personalization objects.
+	 */
+	@Test
+	public void testUnmarshal_RepeatedlyEqual() throws Exception {
+		List<Path> profiles = getProfiles();
+		assertFalse("no profiles found", profiles.isEmpty());
+
+		for (Path profile : profiles) {
+			Object first = PersonalizationFactory.unmarshal(profile.toString());
+			Object second = PersonalizationFactory.unmarshal(profile.toString());
+
+			assertNotSame(profile.toString(), first, second);
+			assertEquals(profile.toString(), first.getClass(), second.getClass());
+			assertEquals(profile.toString(), marshal(first), marshal(second));
+		}
+	}
+
+	/**
+	 * Positive test: concurrently unmarshalling the bundled profiles with the
+	 * cached xStream object yields the same personalization objects as
+	 * sequential unmarshalling.
+	 */
+	@Test
+	public void testUnmarshal_Concurrently() throws Exception {
+		List<Path> profiles = getProfiles();
+
+		List<String> expected = new ArrayList<>();
+		for (Path profile : profiles) {
+			expected.add(marshal(PersonalizationFactory.unmarshal(profile.toString())));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (Path profile : profiles) {
+				Callable<String> task = () -> marshal(PersonalizationFactory.unmarshal(profile.toString()));
+				results.add(executor.submit(task));
+			}
+
+			for (int i = 0; i < profiles.size(); i++) {
+				assertEquals(profiles.get(i).toString(), expected.get(i), results.get(i).get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static List<Path> getProfiles() throws IOException {
+		try (Stream<Path> files = Files.list(PATH_PROFILES)) {
+			return files.filter(path -> path.toString().endsWith(".perso")).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static String marshal(Object perso) {
+		StringWriter writer = new StringWriter();
+		PersonalizationFactory.marshal(perso, writer);
+		return writer.toString();
+	}
+
+}
@@ -5,6 +5,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
 import org.globaltester.logging.InfoSource;
 import org.junit.Test;
 
@@ -14,6 +17,7 @@ import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.processing.ProcessingData;
 import de.persosim.simulator.tlv.TlvValuePlain;
 import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.Utils;
 
 public class EnvelopingTest implements InfoSource {
 	@Test
@@ -123,6 +127,94 @@ public class EnvelopingTest implements InfoSource {
 		assertArrayEquals(HexString.toByteArray("11112222333344445555666677778888999900006789"), data.getResponseApdu().getData().toByteArray());
 	}
 
+	@Test
+	public void testProcessLargePayloads() {
+		Enveloping enveloping = new Enveloping();
+		enveloping.initializeForUse();
+		
+		byte [] commandData = new byte [5120];
+		for (int i = 0; i < commandData.length; i++) {
+			commandData[i] = (byte) i;
+		}
+		byte [] command = Utils.concatByteArrays(HexString.toByteArray("00D60000001400"), commandData);
+		
+		ProcessingData data = null;
+		for (int offset = 0; offset < command.length; offset += 255) {
+			int chunkLength = Math.min(255, command.length - offset);
+			boolean last = offset + chunkLength == command.length;
+			byte [] header = new byte [] {(byte) (last ? 0x00 : 0x10), Iso7816.INS_C2_ENVELOPE, 0x00, 0x00, (byte) chunkLength};
+			
+			data = new ProcessingData();
+			data.updateCommandApdu(this, "Envelope APDU", CommandApduFactory.createCommandApdu(Utils.concatByteArrays(header, Arrays.copyOfRange(command, offset, offset + chunkLength))));
+			
+			enveloping.processAscending(data);
+			if (!last) {
+				enveloping.processDescending(data);
+				assertEquals((short)0x9000, data.getResponseApdu().getStatusWord());
+			}
+		}
+		
+		assertArrayEquals(command, data.getCommandApdu().toByteArray());
+		
+		byte [] responseData = new byte [5000];
+		for (int i = 0; i < responseData.length; i++) {
+			responseData[i] = (byte) (i * 7);
+		}
+		data.updateResponseAPDU(this, "Upper layer response", new ResponseApdu(new TlvValuePlain(responseData), (short)0x9000));
+		
+		enveloping.processDescending(data);
+		
+		assertEquals((short)0x6100, data.getResponseApdu().getStatusWord());
+		
+		byte [] expectedResponse = Utils.concatByteArrays(responseData, HexString.toByteArray("9000"));
+		ByteArrayOutputStream receivedResponse = new ByteArrayOutputStream();
+		short sw;
+		do {
+			data = new ProcessingData();
+			data.updateCommandApdu(this, "Get Response APDU", CommandApduFactory.createCommandApdu(HexString.toByteArray("00C0000000")));
+			
+			enveloping.processAscending(data);
+			enveloping.processDescending(data);
+			
+			byte [] portion = data.getResponseApdu().getData().toByteArray();
+			receivedResponse.write(portion, 0, portion.length);
+			
+			sw = data.getResponseApdu().getStatusWord();
+			int remaining = expectedResponse.length - receivedResponse.size();
+			if (remaining > 0) {
+				assertEquals(256, portion.length);
+				assertEquals(Utils.concatenate((byte) 0x61, (byte) (remaining > 255 ? 0 : remaining)), sw);
+			}
+		} while (sw != Iso7816.SW_9000_NO_ERROR);
+		
+		assertArrayEquals(expectedResponse, receivedResponse.toByteArray());
+	}
+	
+	@Test
+	public void testGetResponseNeExceedingRemainingData() {
+		Enveloping enveloping = new Enveloping();
+		enveloping.initializeForUse();
+		ProcessingData data = new ProcessingData();
+		data.updateCommandApdu(this, "Envelope APDU", CommandApduFactory.createCommandApdu(HexString.toByteArray("00C200000400B00000")));
+		
+		enveloping.processAscending(data);
+		
+		data.updateResponseAPDU(this, "Upper layer response", new ResponseApdu(new TlvValuePlain(HexString.toByteArray("AABBCCDD")), (short)0x6789));
+		
+		enveloping.processDescending(data);
+		
+		assertEquals((short)0x6106, data.getResponseApdu().getStatusWord());
+		
+		data = new ProcessingData();
+		data.updateCommandApdu(this, "Get Response APDU", CommandApduFactory.createCommandApdu(HexString.toByteArray("00C0000010")));
+		
+		enveloping.processAscending(data);
+		enveloping.processDescending(data);
+		
+		assertEquals((short)0x9000, data.getResponseApdu().getStatusWord());
+		assertArrayEquals(HexString.toByteArray("AABBCCDD6789"), data.getResponseApdu().getData().toByteArray());
+	}
+
 	@Override
 	public String getIDString() {
 		return "TEST";
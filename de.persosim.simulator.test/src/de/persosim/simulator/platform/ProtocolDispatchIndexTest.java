@@ -0,0 +1,168 @@
+package de.persosim.simulator.platform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.protocols.NpaProtocol;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.protocols.pace.PaceProtocol;
+import de.persosim.simulator.protocols.pin.PinProtocol;
+import de.persosim.simulator.protocols.ri.RiProtocol;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class ProtocolDispatchIndexTest extends PersoSimTestCase {
+
+	private static final String PATH_PROFILE = "../de.persosim.simulator/personalization/profiles/Profile01.perso";
+
+	/**
+	 * APDUs covering the commands of all protocols of the default profiles as
+	 * well as unsupported commands and parameters
+	 */
+	private static final String[] APDUS = new String[] {
+			"00A4000C023F00", // SELECT MF
+			"00A4020C02011C", // SELECT EF.CardAccess
+			"00B0000000", // READ BINARY
+			"00B09C0010", // READ BINARY with SFI
+			"00B1011C0454020000", // READ BINARY odd INS
+			"00D6000003010203", // UPDATE BINARY
+			"000E000000", // ERASE BINARY
+			"00A4040C07A0000002471001", // SELECT by AID
+			"0022C1A40F800A04007F00070202040202830103", // MSE Set AT PACE
+			"10860000027C0000", // General Authenticate, get nonce
+			"00860000027C0000", // General Authenticate
+			"0084000008", // GET CHALLENGE
+			"002281B60F830D4445435643416549443030313031", // MSE Set DST
+			"002A00BE00", // PSO Verify Certificate
+			"0082000000", // EXTERNAL AUTHENTICATE
+			"002241A40F800A04007F00070202030202840101", // MSE Set AT CA/RI
+			"00200003", // VERIFY retry counter
+			"002C020306313233343536", // RESET RETRY COUNTER
+			"00441003", // ACTIVATE PIN
+			"00041003", // DEACTIVATE PIN
+			"00441103", // ACTIVATE with unsupported P1
+			"802080000B060904007F000703010402", // Aux VERIFY
+			"003300000B060904007F000703010403", // Aux COMPARE
+			"FF86000000", // PACE bypass
+			"00CA010000", // GET DATA
+			"0070000000", // MANAGE CHANNEL
+			"80CA9F7F00", // proprietary class
+			"00FF000000", // unsupported INS
+			"00A4000C023F00", // SELECT MF again
+	};
+
+	/**
+	 * Positive test: protocols without APDU set are candidates for every APDU,
+	 * the others only for APDUs with matching header.
+	 */
+	@Test
+	public void testGetCandidates() {
+		List<Protocol> protocols = Arrays.asList(new TestProtocol(), new PinProtocol(), new RiProtocol(), new NpaProtocol());
+		ProtocolDispatchIndex index = new ProtocolDispatchIndex(protocols);
+
+		assertEquals(candidates(0, 1), index.getCandidates(CommandApduFactory.createCommandApdu(HexString.toByteArray("00200003"))));
+		assertEquals(candidates(0, 2), index.getCandidates(CommandApduFactory.createCommandApdu(HexString.toByteArray("002241A40F800A04007F00070202030202840101"))));
+		assertEquals(candidates(0), index.getCandidates(CommandApduFactory.createCommandApdu(HexString.toByteArray("0022C1A40F800A04007F00070202040202830103"))));
+		assertEquals(candidates(0), index.getCandidates(CommandApduFactory.createCommandApdu(HexString.toByteArray("00441103"))));
+		assertEquals(candidates(0), index.getCandidates(CommandApduFactory.createCommandApdu(HexString.toByteArray("00B0000000"))));
+	}
+
+	/**
+	 * Positive test: the index is only valid for the same protocols in the same order.
+	 */
+	@Test
+	public void testIsIndexOf() {
+		Protocol pin = new PinProtocol();
+		Protocol ri = new RiProtocol();
+		List<Protocol> protocols = new ArrayList<>(Arrays.asList(pin, ri));
+		ProtocolDispatchIndex index = new ProtocolDispatchIndex(protocols);
+
+		assertTrue(index.isIndexOf(protocols));
+		assertFalse(index.isIndexOf(Arrays.asList(ri, pin)));
+		assertFalse(index.isIndexOf(Arrays.asList(pin, new RiProtocol())));
+
+		protocols.add(new NpaProtocol());
+		assertFalse(index.isIndexOf(protocols));
+	}
+
+	/**
+	 * Positive test: state machine protocols provide their APDU set after
+	 * unmarshalling, uninitialized ones are not reset to provide it.
+	 */
+	@Test
+	public void testGetApduSet_StateMachineProtocols() throws Exception {
+		Personalization perso = (Personalization) PersonalizationFactory.unmarshal(PATH_PROFILE);
+		CommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class);
+
+		for (Protocol protocol : commandProcessor.getProtocolList()) {
+			if (protocol instanceof PaceProtocol) {
+				assertFalse(protocol.getApduSet().isEmpty());
+			}
+		}
+
+		PaceProtocol uninitialized = new PaceProtocol();
+		assertNull(uninitialized.getApduSet());
+		assertFalse(uninitialized.isInitialized());
+	}
+
+	/**
+	 * Positive test: processing a sequence of APDUs with preselection of
+	 * protocols by INS byte yields the same responses and currently active
+	 * protocols as consulting all protocols for every APDU.
+	 */
+	@Test
+	public void testProcess_SameAsLinearDispatch() throws Exception {
+		Personalization indexedPerso = (Personalization) PersonalizationFactory.unmarshal(PATH_PROFILE);
+		Personalization linearPerso = (Personalization) PersonalizationFactory.unmarshal(PATH_PROFILE);
+		CommandProcessor indexed = PersonalizationHelper.getUniqueCompatibleLayer(indexedPerso.getLayerList(), CommandProcessor.class);
+		CommandProcessor linear = PersonalizationHelper.getUniqueCompatibleLayer(linearPerso.getLayerList(), CommandProcessor.class);
+		linear.setLinearProtocolDispatch(true);
+
+		PersoSimKernel indexedKernel = new PersoSimKernel();
+		indexedKernel.init(indexedPerso);
+		indexedKernel.powerOn();
+		PersoSimKernel linearKernel = new PersoSimKernel();
+		linearKernel.init(linearPerso);
+		linearKernel.powerOn();
+
+		for (String apdu : APDUS) {
+			byte[] indexedResponse = indexedKernel.process(HexString.toByteArray(apdu));
+			byte[] linearResponse = linearKernel.process(HexString.toByteArray(apdu));
+
+			byte ins = HexString.toByteArray(apdu)[1];
+			if (ins == Iso7816.INS_84_GET_CHALLENGE || ins == Iso7816.INS_86_GENERAL_AUTHENTICATE) {
+				// responses contain random data
+				assertEquals(apdu, linearResponse.length, indexedResponse.length);
+				assertArrayEquals(apdu, Arrays.copyOfRange(linearResponse, linearResponse.length - 2, linearResponse.length),
+						Arrays.copyOfRange(indexedResponse, indexedResponse.length - 2, indexedResponse.length));
+			}
+			else {
+				assertArrayEquals(apdu, linearResponse, indexedResponse);
+			}
+
+			assertEquals(apdu, linear.getCurrentlyActiveProtocol().getClass(), indexed.getCurrentlyActiveProtocol().getClass());
+		}
+	}
+
+	private static BitSet candidates(int... indices) {
+		BitSet candidates = new BitSet();
+		for (int index : indices) {
+			candidates.set(index);
+		}
+		return candidates;
+	}
+
+}
@@ -0,0 +1,186 @@
+package de.persosim.simulator.preferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class IniPreferenceStoreAccessorTest extends PersoSimTestCase {
+
+	private static final long NO_TIMER_FLUSH = 600000;
+
+	private Path path;
+	private List<IniPreferenceStoreAccessor> accessors = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		path = getTmpFolder().toPath().resolve(getClass().getSimpleName() + ".preferences");
+		Files.deleteIfExists(path);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// write pending changes now, so no flush on shutdown touches the deleted file
+		for (IniPreferenceStoreAccessor accessor : accessors) {
+			accessor.flush();
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * This method creates an accessor for the test file whose pending changes
+	 * are flushed when the test ends.
+	 */
+	private IniPreferenceStoreAccessor createAccessor(long flushDelayMillis) {
+		IniPreferenceStoreAccessor accessor = new IniPreferenceStoreAccessor(path, flushDelayMillis);
+		accessors.add(accessor);
+		return accessor;
+	}
+
+	/**
+	 * Positive test: changed values are read from memory immediately but only written to the file on flush.
+	 */
+	@Test
+	public void testSet_WrittenOnFlush() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(NO_TIMER_FLUSH);
+
+		accessor.set("key1", "value1");
+		accessor.set("key2", "value2");
+		accessor.set("key1", "value3");
+
+		assertEquals("value3", accessor.get("key1"));
+		assertEquals("value2", accessor.get("key2"));
+		assertTrue(load().isEmpty());
+
+		accessor.flush();
+
+		Properties stored = load();
+		assertEquals("value3", stored.getProperty("key1"));
+		assertEquals("value2", stored.getProperty("key2"));
+	}
+
+	/**
+	 * Positive test: pending changes are written after the flush delay.
+	 */
+	@Test
+	public void testSet_WrittenAfterDelay() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(10);
+
+		accessor.set("key", "value");
+
+		long timeout = System.currentTimeMillis() + 5000;
+		while (load().getProperty("key") == null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals("value", load().getProperty("key"));
+	}
+
+	/**
+	 * Positive test: setting a preference to its current value does not cause a write.
+	 */
+	@Test
+	public void testSet_UnchangedValueNotWritten() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(NO_TIMER_FLUSH);
+		accessor.set("key", "value");
+		accessor.flush();
+
+		// any further write would recreate the file
+		Files.delete(path);
+
+		accessor.set("key", "value");
+		accessor.flush();
+
+		assertFalse(Files.exists(path));
+		assertEquals("value", accessor.get("key"));
+	}
+
+	/**
+	 * Positive test: if the process ends before a flush the file still
+	 * contains the complete previously flushed state and no temporary files
+	 * are left.
+	 */
+	@Test
+	public void testFlush_FileConsistentWithoutFlush() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(NO_TIMER_FLUSH);
+		accessor.set("key1", "flushed1");
+		accessor.set("key2", "flushed2");
+		accessor.flush();
+
+		accessor.set("key1", "pending");
+
+		// a new accessor for the same file behaves like a restart after a crash
+		IniPreferenceStoreAccessor restarted = createAccessor(NO_TIMER_FLUSH);
+		assertEquals("flushed1", restarted.get("key1"));
+		assertEquals("flushed2", restarted.get("key2"));
+
+		try (Stream<Path> files = Files.list(path.getParent())) {
+			assertFalse(files.anyMatch(file -> file.getFileName().toString().startsWith(path.getFileName() + ".")));
+		}
+	}
+
+	/**
+	 * Positive test: concurrent changes and flushes never leave an older state in the file.
+	 */
+	@Test
+	public void testFlush_ConcurrentFlushesKeepLatestState() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			String key = "key" + t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 50; i++) {
+					accessor.set(key, Integer.toString(i));
+					accessor.flush();
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Properties stored = load();
+		for (int t = 0; t < 4; t++) {
+			assertEquals("49", stored.getProperty("key" + t));
+		}
+	}
+
+	/**
+	 * Negative test: a missing preference is not created by reading it.
+	 */
+	@Test
+	public void testGet_Missing() throws Exception {
+		IniPreferenceStoreAccessor accessor = createAccessor(NO_TIMER_FLUSH);
+
+		assertNull(accessor.get("missing"));
+		accessor.flush();
+		assertTrue(load().isEmpty());
+	}
+
+	private Properties load() throws IOException {
+		Properties props = new Properties();
+		try (InputStream inputStream = Files.newInputStream(path)) {
+			props.load(inputStream);
+		}
+		return props;
+	}
+
+}
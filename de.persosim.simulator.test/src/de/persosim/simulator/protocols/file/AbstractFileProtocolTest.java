@@ -37,6 +37,7 @@ import de.persosim.simulator.secstatus.SecStatusMechanismUpdatePropagation;
 import de.persosim.simulator.test.PersoSimTestCase;
 import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvLength;
 import de.persosim.simulator.tlv.TlvTag;
 import de.persosim.simulator.tlv.TlvValue;
 import de.persosim.simulator.utils.HexString;
@@ -402,6 +403,72 @@ public class AbstractFileProtocolTest extends PersoSimTestCase {
 				.getResponseApdu().getData().toByteArray());
 	}
 
+	/**
+	 * Read a large file using an odd instruction with Ne around the thresholds
+	 * of the length encoding and check that the response uses as much of Ne
+	 * as possible without exceeding it.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testReadBinaryOddInstructionLengthEncodingThresholds() throws Exception {
+		byte[] content = new byte[300];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		masterFile.addChild(new ElementaryFile(new FileIdentifier(0x011D), new ShortFileIdentifier(4), content, SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED));
+
+		// Le 00 encodes Ne 256
+		int[][] neAndExpectedDataLength = new int[][] { { 129, 127 }, { 130, 127 }, { 131, 128 }, { 255, 252 }, { 256, 253 } };
+
+		for (int[] testCase : neAndExpectedDataLength) {
+			int ne = testCase[0];
+			int expectedDataLength = testCase[1];
+
+			// read binary APDU
+			ProcessingData processingData = new ProcessingData();
+			byte[] apduBytes = HexString.toByteArray("00B1000403540100" + String.format("%02X", ne & 0xFF));
+			processingData.updateCommandApdu(this, "read binary APDU",
+					CommandApduFactory.createCommandApdu(apduBytes));
+
+			// call mut (the protocol is not supposed to process more than one APDU)
+			DefaultFileProtocol fileProtocol = new DefaultFileProtocol();
+			fileProtocol.setCardStateAccessor(cardStateAccessor);
+			fileProtocol.init();
+			fileProtocol.process(processingData);
+
+			// check results
+			TlvValue expected = new TlvDataObjectContainer(
+					new PrimitiveTlvDataObject(new TlvTag((byte) 0x53),
+							Arrays.copyOfRange(content, 0, expectedDataLength)));
+			byte[] responseData = processingData.getResponseApdu().getData().toByteArray();
+			assertTrue("response exceeds Ne " + ne, responseData.length <= ne);
+			assertArrayEquals("file content not as expected for Ne " + ne, expected.toByteArray(), responseData);
+		}
+	}
+
+	/**
+	 * Positive test: the computed maximum data length for responses to odd
+	 * instructions is the largest one whose encoding does not exceed Ne.
+	 */
+	@Test
+	public void testGetMaxOddInsResponseDataLength() {
+		assertEquals(0, AbstractFileProtocol.getMaxOddInsResponseDataLength(0));
+		assertEquals(0, AbstractFileProtocol.getMaxOddInsResponseDataLength(2));
+		assertEquals(127, AbstractFileProtocol.getMaxOddInsResponseDataLength(129));
+		assertEquals(127, AbstractFileProtocol.getMaxOddInsResponseDataLength(130));
+		assertEquals(128, AbstractFileProtocol.getMaxOddInsResponseDataLength(131));
+		assertEquals(255, AbstractFileProtocol.getMaxOddInsResponseDataLength(258));
+		assertEquals(255, AbstractFileProtocol.getMaxOddInsResponseDataLength(259));
+		assertEquals(256, AbstractFileProtocol.getMaxOddInsResponseDataLength(260));
+
+		for (int ne = 2; ne <= 70000; ne++) {
+			int dataLength = AbstractFileProtocol.getMaxOddInsResponseDataLength(ne);
+			assertTrue("Ne " + ne, 1 + TlvLength.getMinNoOfBytesEncodingLength(dataLength) + dataLength <= ne);
+			assertTrue("Ne " + ne, 1 + TlvLength.getMinNoOfBytesEncodingLength(dataLength + 1) + dataLength + 1 > ne);
+		}
+	}
+
 	/**
 	 * Try to update a binary file and check the status word and new file
 	 * contents by reading it directly after writing.
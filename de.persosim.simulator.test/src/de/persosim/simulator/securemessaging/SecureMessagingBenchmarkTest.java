@@ -0,0 +1,251 @@
+package de.persosim.simulator.securemessaging;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.globaltester.cryptoprovider.Crypto;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.processing.ProcessingData;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.Serializer;
+import de.persosim.simulator.utils.Utils;
+
+/**
+ * Microbenchmark comparing the heap allocations needed to unwrap a protected
+ * command APDU with the previous implementation, which parsed the SM data
+ * objects for unwrapping and mac verification separately and built the mac
+ * input within a stream.
+ */
+public class SecureMessagingBenchmarkTest extends PersoSimTestCase {
+
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int MEASURED_ITERATIONS = 20000;
+
+	// test data from ICAO Doc 9303 Part 3 Vol 2, Worked Example Appendix 6 to section IV
+	private static final String ICAO_SK_ENC = "979EC13B1CBFE9DCD01AB0FED307EAE5";
+	private static final String ICAO_SK_MAC = "F1CB1F1FB5ADF208806B89DC579DC1F8";
+	private static final String ICAO_SSC_PLUS1 = "887022120C06C227";
+	private static final String ICAO_PLAIN_APDU = "00A4020C02011E";
+	private static final String ICAO_SM_APDU = "0CA4020C158709016375432908C044F68E08BF8B92D635FF24F800";
+
+	private TestSmDataProvider dataProvider;
+	private byte[] smApduBytes;
+	private byte[] header;
+	private TlvDataObject cryptogram;
+	private TlvDataObject tlvObject97;
+
+	@Before
+	public void setUp() throws Exception {
+		dataProvider = new TestSmDataProvider();
+		dataProvider.cipherIv = new IvParameterSpec(new byte[8]);
+		dataProvider.cipher = Cipher.getInstance("DESede/CBC/NoPadding", Crypto.getCryptoProvider());
+		dataProvider.keyEnc = new SecretKeySpec(HexString.toByteArray(ICAO_SK_ENC), "DESede");
+		dataProvider.mac = Mac.getInstance("ISO9797ALG3", Crypto.getCryptoProvider());
+		dataProvider.keyMac = new SecretKeySpec(HexString.toByteArray(ICAO_SK_MAC), "DESede");
+		dataProvider.macAuxiliaryData = HexString.toByteArray(ICAO_SSC_PLUS1);
+		dataProvider.macLength = 8;
+
+		smApduBytes = HexString.toByteArray(ICAO_SM_APDU);
+
+		CommandApdu smApdu = CommandApduFactory.createCommandApdu(smApduBytes);
+		TlvDataObjectContainer smDataObjects = smApdu.getCommandDataObjectContainer();
+		header = smApdu.getHeader();
+		cryptogram = smDataObjects.getTlvDataObject(TlvConstants.TAG_87);
+		tlvObject97 = smDataObjects.getTlvDataObject(TlvConstants.TAG_97);
+	}
+
+	/**
+	 * Positive test: the single buffer mac input is identical to the mac input built by the stream based approach.
+	 */
+	@Test
+	public void testBuildMacInput_IdenticalToStreamBasedMacInput() throws Exception {
+		SecureMessaging secureMessaging = createSecureMessaging();
+
+		assertArrayEquals(buildMacInputStreamBased(header, cryptogram, tlvObject97), secureMessaging.buildMacInput(header, cryptogram, tlvObject97));
+		assertArrayEquals(buildMacInputStreamBased(header, null, tlvObject97), secureMessaging.buildMacInput(header, null, tlvObject97));
+		assertArrayEquals(buildMacInputStreamBased(header, null, null), secureMessaging.buildMacInput(header, null, null));
+	}
+
+	/**
+	 * Positive test: the previous implementation used as reference by the
+	 * benchmark unwraps the protected APDU identically to the current one.
+	 */
+	@Test
+	public void testUnwrap_PreviousImplementationIdentical() {
+		assertArrayEquals(HexString.toByteArray(ICAO_PLAIN_APDU), unwrap(createSecureMessaging()).toByteArray());
+		assertArrayEquals(HexString.toByteArray(ICAO_PLAIN_APDU), unwrap(createPreviousSecureMessaging()).toByteArray());
+	}
+
+	/**
+	 * This benchmark can be enabled to show that unwrapping a protected APDU
+	 * allocates less memory than the previous implementation. It is not part of
+	 * the regular test suite as allocation measurements depend on JIT and GC
+	 * behavior of the executing JVM.
+	 */
+	@Test
+	@Ignore
+	public void benchmarkUnwrap_Allocations() {
+		com.sun.management.ThreadMXBean threadBean = getThreadMXBean();
+		assumeTrue("thread allocation measurement not supported", threadBean != null);
+
+		SecureMessaging previousSecureMessaging = createPreviousSecureMessaging();
+		SecureMessaging secureMessaging = createSecureMessaging();
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			unwrap(previousSecureMessaging);
+			unwrap(secureMessaging);
+		}
+
+		long bytesPerApduPrevious = measureAllocatedBytesPerUnwrap(threadBean, previousSecureMessaging);
+		long bytesPerApdu = measureAllocatedBytesPerUnwrap(threadBean, secureMessaging);
+
+		assertTrue("unwrapping allocates " + bytesPerApdu + " bytes per APDU, previously " + bytesPerApduPrevious,
+				bytesPerApdu < bytesPerApduPrevious);
+	}
+
+	/**
+	 * This method measures the average number of bytes allocated by the
+	 * current thread while unwrapping the protected APDU.
+	 *
+	 * @param threadBean
+	 *            the bean used to measure the allocations
+	 * @param secureMessaging
+	 *            the layer unwrapping the APDU
+	 * @return the average number of allocated bytes per unwrapped APDU
+	 */
+	private long measureAllocatedBytesPerUnwrap(com.sun.management.ThreadMXBean threadBean, SecureMessaging secureMessaging) {
+		long threadId = Thread.currentThread().getId();
+
+		long start = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			unwrap(secureMessaging);
+		}
+		return (threadBean.getThreadAllocatedBytes(threadId) - start) / MEASURED_ITERATIONS;
+	}
+
+	/**
+	 * This method passes the protected APDU through the given layer.
+	 *
+	 * @param secureMessaging
+	 *            the layer unwrapping the APDU
+	 * @return the unwrapped command APDU
+	 */
+	private CommandApdu unwrap(SecureMessaging secureMessaging) {
+		ProcessingData pData = new ProcessingData();
+		pData.updateCommandApdu(this, "test command APDU", CommandApduFactory.createCommandApdu(smApduBytes));
+		secureMessaging.processAscending(pData);
+		return pData.getCommandApdu();
+	}
+
+	private SecureMessaging createSecureMessaging() {
+		SecureMessaging secureMessaging = new SecureMessaging();
+		secureMessaging.dataProvider = dataProvider;
+		return secureMessaging;
+	}
+
+	/**
+	 * This method creates a {@link SecureMessaging} layer behaving like the
+	 * previous implementation. It parses the SM data objects for unwrapping and
+	 * mac verification separately and builds the mac input within a stream.
+	 */
+	private SecureMessaging createPreviousSecureMessaging() {
+		SecureMessaging secureMessaging = new SecureMessaging() {
+			@Override
+			public CommandApdu extractPlainTextAPDU(TlvDataObjectContainer constructedCommandDataField) {
+				return super.extractPlainTextAPDU(parseCommandDataObjectContainer());
+			}
+
+			@Override
+			public boolean verifyMac(TlvDataObjectContainer constructedCommandDataField) {
+				return super.verifyMac(parseCommandDataObjectContainer());
+			}
+
+			@Override
+			byte[] buildMacInput(byte[] header, TlvDataObject cryptogram, TlvDataObject tlvObject97) {
+				try {
+					return buildMacInputStreamBased(header, cryptogram, tlvObject97);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			private TlvDataObjectContainer parseCommandDataObjectContainer() {
+				return Serializer.deepCopy(new TlvDataObjectContainer(processingData.getCommandApdu().getCommandData()));
+			}
+		};
+		secureMessaging.dataProvider = dataProvider;
+		return secureMessaging;
+	}
+
+	/**
+	 * @return the {@link com.sun.management.ThreadMXBean} if allocation measurement is supported, null otherwise
+	 */
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threadBean.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		return threadBean;
+	}
+
+	/**
+	 * This method builds the mac input as previously done by {@link SecureMessaging#verifyMac()}.
+	 */
+	private byte[] buildMacInputStreamBased(byte[] header, TlvDataObject cryptogram, TlvDataObject tlvObject97) throws IOException {
+		int blockSize = dataProvider.getCipher().getBlockSize();
+		ByteArrayOutputStream macInputStream = new ByteArrayOutputStream();
+
+		byte[] paddingHeader = new byte[blockSize - header.length];
+		Arrays.fill(paddingHeader, (byte) 0x00);
+		paddingHeader[0] = (byte) 0x80;
+
+		macInputStream.write(header);
+		macInputStream.write(paddingHeader);
+
+		if (cryptogram != null) {
+			macInputStream.write(cryptogram.toByteArray());
+		}
+
+		if (tlvObject97 != null) {
+			macInputStream.write(tlvObject97.toByteArray());
+		}
+
+		byte[] macInput = macInputStream.toByteArray();
+
+		if ((cryptogram != null) || (tlvObject97 != null)) {
+			int nrOfZeros = (blockSize - ((macInput.length + 1) % blockSize)) % blockSize;
+			byte[] paddingZeros = new byte[nrOfZeros];
+			Arrays.fill(paddingZeros, (byte) 0x00);
+			macInput = Utils.concatByteArrays(macInput, new byte[]{(byte) 0x80}, paddingZeros);
+		}
+
+		return macInput;
+	}
+
+}
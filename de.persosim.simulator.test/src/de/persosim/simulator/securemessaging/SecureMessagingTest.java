@@ -1,30 +1,40 @@
 package de.persosim.simulator.securemessaging;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.lang.reflect.Field;
 import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.globaltester.cryptoprovider.Crypto;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 import de.persosim.simulator.apdu.CommandApdu;
 import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.apdu.InterindustryCommandApduImpl;
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.crypto.CryptoUtil;
 import de.persosim.simulator.platform.Layer;
+import de.persosim.simulator.preferences.PersoSimPreferenceManager;
+import de.persosim.simulator.preferences.PreferenceConstants;
 import de.persosim.simulator.processing.ProcessingData;
 import de.persosim.simulator.test.PersoSimTestCase;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
 import de.persosim.simulator.tlv.TlvTag;
 import de.persosim.simulator.tlv.TlvValuePlain;
+import de.persosim.simulator.utils.PreferenceAccessor;
 import de.persosim.simulator.utils.HexString;
 
 public class SecureMessagingTest extends PersoSimTestCase {
@@ -52,6 +62,34 @@ public class SecureMessagingTest extends PersoSimTestCase {
 	private static final String AES256_CASE2_SM_APDU = "0C8200000D9701FF8E083D0A111D900F25A500";
 	private static final String AES256_CASE2_PLAIN_APDU = "00820000FF";
 	
+	private PreferenceAccessor previousPreferenceAccessor;
+	
+	/**
+	 * Isolate the tests from the persistent preferences by using an in memory
+	 * {@link PreferenceAccessor}.
+	 */
+	@Before
+	public void setUp() {
+		previousPreferenceAccessor = PersoSimPreferenceManager.setPreferenceAccessor(new PreferenceAccessor() {
+			private Map<String, String> preferences = new HashMap<>();
+			
+			@Override
+			public void set(String key, String value) {
+				preferences.put(key, value);
+			}
+			
+			@Override
+			public String get(String key) {
+				return preferences.get(key);
+			}
+		});
+	}
+	
+	@After
+	public void tearDown() {
+		PersoSimPreferenceManager.setPreferenceAccessor(previousPreferenceAccessor);
+	}
+	
 	@Test
 	public void processAscending_plainApduUntouched() {
 		SecureMessaging secureMessaging = new SecureMessaging();
@@ -113,6 +151,104 @@ public class SecureMessagingTest extends PersoSimTestCase {
 
 	}
 	
+	/**
+	 * Check that the SM data objects of an incoming APDU are parsed only once
+	 * for unwrapping and mac verification, otherwise similar to
+	 * {@link #processAscending_isoCase3()}
+	 * 
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void processAscending_smDataObjectsParsedOnce() throws GeneralSecurityException {
+		//prepare configuration
+		TestSmDataProvider testDataProvider = new TestSmDataProvider();
+		
+		testDataProvider.cipherIv = new IvParameterSpec(new byte[8]);
+		testDataProvider.cipher = Cipher.getInstance("DESede/CBC/NoPadding", Crypto.getCryptoProvider());
+		testDataProvider.keyEnc = new SecretKeySpec(HexString.toByteArray(ICAO_SK_ENC), "DESede");
+
+		testDataProvider.mac = Mac.getInstance("ISO9797ALG3", Crypto.getCryptoProvider());
+		testDataProvider.keyMac = new SecretKeySpec(HexString.toByteArray(ICAO_SK_MAC), "DESede");
+		testDataProvider.macAuxiliaryData = HexString.toByteArray(ICAO_SSC_PLUS1);
+		testDataProvider.macLength = 8;
+
+		// prepare ObjectUnderTest
+		SecureMessaging secureMessaging = new SecureMessaging();
+		secureMessaging.dataProvider = testDataProvider;
+		
+		// provide sample APDU counting the parsing of its data field
+		final int[] parseCount = new int[1];
+		InterindustryCommandApduImpl smApdu = new InterindustryCommandApduImpl(HexString.toByteArray(ICAO_SM_APDU), null) {
+			@Override
+			public TlvDataObjectContainer getCommandDataObjectContainer() {
+				parseCount[0]++;
+				return super.getCommandDataObjectContainer();
+			}
+		};
+		ProcessingData pData = new ProcessingData();
+		pData.updateCommandApdu(this, "test command APDU", smApdu);
+
+		// call mut
+		secureMessaging.processAscending(pData);
+
+		// check unwrapped APDU and number of parsing operations
+		assertArrayEquals("unwrapped APDU incorrect", HexString.toByteArray(ICAO_PLAIN_APDU), pData.getCommandApdu().toByteArray());
+		assertEquals("number of parsing operations", 1, parseCount[0]);
+	}
+	
+	/**
+	 * Check that the diagnostic decryption of the cipher IV is only performed
+	 * if TRACE logging of the command processor is enabled, otherwise similar
+	 * to {@link #processAscending_isoCase3()}
+	 * 
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void processAscending_diagnosticDecryptionOnlyIfTraceEnabled() throws GeneralSecurityException {
+		PersoSimPreferenceManager.storePreference(PreferenceConstants.PREF_LOG_LEVELS, "DEBUG:INFO:WARN:ERROR:FATAL", false);
+		assertEquals("key usages with TRACE disabled", 1, countEncryptionKeyUsagesForIsoCase3());
+		
+		PersoSimPreferenceManager.storePreference(PreferenceConstants.PREF_LOG_LEVELS, "TRACE:DEBUG:INFO:WARN:ERROR:FATAL", false);
+		assertEquals("key usages with TRACE enabled", 2, countEncryptionKeyUsagesForIsoCase3());
+	}
+	
+	/**
+	 * This method unwraps the APDU used in {@link #processAscending_isoCase3()}
+	 * and counts how often the encryption key is used, i.e. the number of
+	 * decryption operations.
+	 */
+	private int countEncryptionKeyUsagesForIsoCase3() throws GeneralSecurityException {
+		final int[] keyUsages = new int[1];
+		TestSmDataProvider testDataProvider = new TestSmDataProvider() {
+			@Override
+			public SecretKey getKeyEnc() {
+				keyUsages[0]++;
+				return super.getKeyEnc();
+			}
+		};
+		
+		testDataProvider.cipherIv = new IvParameterSpec(new byte[8]);
+		testDataProvider.cipher = Cipher.getInstance("DESede/CBC/NoPadding", Crypto.getCryptoProvider());
+		testDataProvider.keyEnc = new SecretKeySpec(HexString.toByteArray(ICAO_SK_ENC), "DESede");
+
+		testDataProvider.mac = Mac.getInstance("ISO9797ALG3", Crypto.getCryptoProvider());
+		testDataProvider.keyMac = new SecretKeySpec(HexString.toByteArray(ICAO_SK_MAC), "DESede");
+		testDataProvider.macAuxiliaryData = HexString.toByteArray(ICAO_SSC_PLUS1);
+		testDataProvider.macLength = 8;
+
+		SecureMessaging secureMessaging = new SecureMessaging();
+		secureMessaging.dataProvider = testDataProvider;
+		
+		ProcessingData pData = new ProcessingData();
+		pData.updateCommandApdu(this, "test command APDU", CommandApduFactory.createCommandApdu(HexString.toByteArray(ICAO_SM_APDU)));
+
+		secureMessaging.processAscending(pData);
+
+		assertArrayEquals("unwrapped APDU incorrect", HexString.toByteArray(ICAO_PLAIN_APDU), pData.getCommandApdu().toByteArray());
+		
+		return keyUsages[0];
+	}
+	
 	/**
 	 * SM after PACE, example from previous GlobalTester run
 	 * @throws Exception
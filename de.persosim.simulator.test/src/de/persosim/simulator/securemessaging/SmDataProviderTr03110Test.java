@@ -0,0 +1,165 @@
+package de.persosim.simulator.securemessaging;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.lang.reflect.Field;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.globaltester.cryptoprovider.Crypto;
+import org.junit.Test;
+
+import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.apdu.ResponseApdu;
+import de.persosim.simulator.crypto.CryptoSupport;
+import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.platform.Layer;
+import de.persosim.simulator.processing.ProcessingData;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.tlv.TlvValuePlain;
+import de.persosim.simulator.utils.HexString;
+
+public class SmDataProviderTr03110Test extends PersoSimTestCase {
+
+	private static final String AES128_SK_ENC = "F5F0E35C0D7161EE6724EE513A0D9A7F";
+	private static final String AES128_SK_MAC = "FE251C7858B356B24514B3BD5F4297D1";
+
+	private static final String AES256_SK_ENC = "4DD037AB00B6B0D7FC80DA1D567AEF8098F8D8AC417E212660CCD6BDD7002067";
+	private static final String AES256_SK_MAC = "8BC9DD9D33C62926101D212B04C0C79A5BF7032F4DDCA237552D665DCB560B68";
+
+	// test data from ICAO Doc 9303 Part 3 Vol 2, Worked Example Appendix 6 to section IV
+	private static final String ICAO_SK_ENC = "979EC13B1CBFE9DCD01AB0FED307EAE5";
+	private static final String ICAO_SK_MAC = "F1CB1F1FB5ADF208806B89DC579DC1F8";
+
+	/**
+	 * Positive test: en-/decryption and mac computation with AES-128 session keys yield the same results as freshly initialized cipher and mac objects.
+	 */
+	@Test
+	public void testCryptoOperations_Aes128() throws Exception {
+		checkCryptoOperations("AES/CBC/NoPadding", AES128_SK_ENC, "AESCMAC", AES128_SK_MAC);
+	}
+
+	/**
+	 * Positive test: en-/decryption and mac computation with AES-256 session keys yield the same results as freshly initialized cipher and mac objects.
+	 */
+	@Test
+	public void testCryptoOperations_Aes256() throws Exception {
+		checkCryptoOperations("AES/CBC/NoPadding", AES256_SK_ENC, "AESCMAC", AES256_SK_MAC);
+	}
+
+	/**
+	 * Positive test: en-/decryption and mac computation with 3DES session keys yield the same results as freshly initialized cipher and mac objects.
+	 */
+	@Test
+	public void testCryptoOperations_DESede() throws Exception {
+		checkCryptoOperations("DESede/CBC/NoPadding", ICAO_SK_ENC, "ISO9797ALG3", ICAO_SK_MAC);
+	}
+
+	/**
+	 * Positive test: wrapping of response APDUs by {@link SecureMessaging} is
+	 * byte-identical to wrapping performed with freshly initialized cipher and
+	 * mac objects for a sequence of APDUs.
+	 */
+	@Test
+	public void testProcessOutgoingSmApdu_IdenticalToFreshlyInitializedCrypto() throws Exception {
+		SecretKeySpec keyEnc = new SecretKeySpec(HexString.toByteArray(AES128_SK_ENC), "AES/CBC/NoPadding");
+		SecretKeySpec keyMac = new SecretKeySpec(HexString.toByteArray(AES128_SK_MAC), "AESCMAC");
+		SmDataProviderTr03110 dataProvider = new SmDataProviderTr03110(keyEnc, keyMac);
+
+		Random random = new Random(0x5EC);
+
+		for (int apdu = 0; apdu < 5; apdu++) {
+			dataProvider.nextIncoming();
+
+			byte[] responseData = new byte[random.nextInt(300) + 1];
+			random.nextBytes(responseData);
+
+			ResponseApdu received = wrapResponse(dataProvider, responseData);
+
+			// the reference provider expects the SSC value used for the response
+			TestSmDataProvider referenceProvider = getReferenceProvider("AES/CBC/NoPadding", keyEnc, "AESCMAC", keyMac, dataProvider);
+			ResponseApdu expected = wrapResponse(referenceProvider, responseData);
+
+			assertArrayEquals("wrapped response APDU " + apdu, expected.toByteArray(), received.toByteArray());
+		}
+	}
+
+	/**
+	 * This method checks all crypto operations of an {@link SmDataProviderTr03110} against freshly initialized cipher and mac objects.
+	 */
+	private void checkCryptoOperations(String cipherAlgorithm, String keyEncHex, String macAlgorithm, String keyMacHex) throws GeneralSecurityException {
+		SecretKeySpec keyEnc = new SecretKeySpec(HexString.toByteArray(keyEncHex), cipherAlgorithm);
+		SecretKeySpec keyMac = new SecretKeySpec(HexString.toByteArray(keyMacHex), macAlgorithm);
+		SmDataProviderTr03110 dataProvider = new SmDataProviderTr03110(keyEnc, keyMac);
+		int blockSize = dataProvider.getCipher().getBlockSize();
+
+		Random random = new Random(0xC1F);
+
+		for (int apdu = 0; apdu < 4; apdu++) {
+			if (apdu % 2 == 0) {
+				dataProvider.nextIncoming();
+			} else {
+				dataProvider.nextOutgoing();
+			}
+
+			TestSmDataProvider referenceProvider = getReferenceProvider(cipherAlgorithm, keyEnc, macAlgorithm, keyMac, dataProvider);
+
+			byte[] data = new byte[blockSize * (apdu + 1)];
+			random.nextBytes(data);
+
+			assertArrayEquals("iv", referenceProvider.getCipherIv().getIV(), dataProvider.getCipherIv().getIV());
+			assertArrayEquals("encrypt", referenceProvider.encrypt(data), dataProvider.encrypt(data));
+			assertArrayEquals("decrypt", referenceProvider.decrypt(data), dataProvider.decrypt(data));
+			assertArrayEquals("mac", referenceProvider.mac(data), dataProvider.mac(data));
+		}
+	}
+
+	/**
+	 * This method creates a {@link TestSmDataProvider} using the default
+	 * crypto operations with freshly initialized cipher and mac objects for the
+	 * current SSC of the provided {@link SmDataProviderTr03110}.
+	 */
+	private static TestSmDataProvider getReferenceProvider(String cipherAlgorithm, SecretKeySpec keyEnc, String macAlgorithm, SecretKeySpec keyMac, SmDataProviderTr03110 dataProvider) throws GeneralSecurityException {
+		TestSmDataProvider referenceProvider = new TestSmDataProvider();
+
+		referenceProvider.cipher = Cipher.getInstance(cipherAlgorithm, Crypto.getCryptoProvider());
+		referenceProvider.keyEnc = keyEnc;
+		if (cipherAlgorithm.startsWith("DESede")) {
+			referenceProvider.cipherIv = new IvParameterSpec(new byte[8]);
+		} else {
+			referenceProvider.cipherIv = new IvParameterSpec(CryptoSupport.encryptWithIvZero(referenceProvider.cipher, dataProvider.getSsc().toByteArray(), keyEnc));
+		}
+
+		referenceProvider.mac = Mac.getInstance(macAlgorithm, Crypto.getCryptoProvider());
+		referenceProvider.keyMac = keyMac;
+		referenceProvider.macAuxiliaryData = dataProvider.getMacAuxiliaryData();
+		referenceProvider.macLength = 8;
+
+		return referenceProvider;
+	}
+
+	/**
+	 * This method wraps a response APDU containing the provided data using the provided {@link SmDataProvider}.
+	 */
+	private ResponseApdu wrapResponse(SmDataProvider dataProvider, byte[] responseData) throws Exception {
+		SecureMessaging secureMessaging = new SecureMessaging();
+		secureMessaging.dataProvider = dataProvider;
+
+		ProcessingData pData = new ProcessingData();
+		pData.updateCommandApdu(this, "test command APDU", CommandApduFactory.createCommandApdu(HexString.toByteArray("00B0000000")));
+		pData.updateResponseAPDU(this, "test response", new ResponseApdu(new TlvValuePlain(responseData), Iso7816.SW_9000_NO_ERROR));
+		Field f = Layer.class.getDeclaredField("processingData");
+		f.setAccessible(true);
+		f.set(secureMessaging, pData);
+
+		secureMessaging.processOutgoingSmApdu();
+
+		return pData.getResponseApdu();
+	}
+
+}
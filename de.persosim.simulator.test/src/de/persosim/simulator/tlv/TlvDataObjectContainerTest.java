@@ -2,8 +2,11 @@ package de.persosim.simulator.tlv;
 
 import static org.junit.Assert.*;
 
+import java.util.Iterator;
+
 import org.junit.Test;
 
+import de.persosim.simulator.exception.ISO7816Exception;
 import de.persosim.simulator.utils.HexString;
 
 public class TlvDataObjectContainerTest implements TlvConstants {
@@ -87,5 +90,245 @@ public class TlvDataObjectContainerTest implements TlvConstants {
 		}
 
 	}
+	
+	private static final String NESTED_STRUCTURE = "7F4E1A5F290100420E44454356434165494430303130327F490381010102020101" + "3003020103";
+	
+	/**
+	 * Positive test: a {@link TlvDataObjectContainer} in lazy mode is equal to
+	 * one created immediately and has the same encoding, hash code and
+	 * number of elements.
+	 */
+	@Test
+	public void testLazy_SameAsImmediate() {
+		byte[] encoding = HexString.toByteArray("00" + NESTED_STRUCTURE + "00");
+		
+		TlvDataObjectContainer immediate = new TlvDataObjectContainer(encoding, 1, encoding.length - 1);
+		TlvDataObjectContainer lazy = new TlvDataObjectContainer(encoding, 1, encoding.length - 1, true);
+		
+		assertEquals(immediate.getNoOfElements(), lazy.getNoOfElements());
+		assertEquals(immediate.getLength(), lazy.getLength());
+		assertArrayEquals(immediate.toByteArray(), lazy.toByteArray());
+		assertEquals(immediate.getNoOfElements(true), lazy.getNoOfElements(true));
+		assertEquals(immediate, lazy);
+		assertEquals(lazy, immediate);
+		assertEquals(immediate.hashCode(), new TlvDataObjectContainer(encoding, 1, encoding.length - 1, true).hashCode());
+		assertEquals(immediate.toString(), lazy.toString());
+	}
+	
+	/**
+	 * Positive test: lookups on a {@link TlvDataObjectContainer} in lazy mode
+	 * return objects equal to those of one created immediately.
+	 */
+	@Test
+	public void testLazy_GetTlvDataObject() {
+		byte[] encoding = HexString.toByteArray(NESTED_STRUCTURE + "020105");
+		
+		TlvDataObjectContainer immediate = new TlvDataObjectContainer(encoding, 0, encoding.length);
+		TlvDataObjectContainer lazy = new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+		
+		TlvPath path = new TlvPath(new TlvTag((short) 0x7F4E), new TlvTag((short) 0x7F49), new TlvTag((byte) 0x81));
+		assertEquals(immediate.getTlvDataObject(path), lazy.getTlvDataObject(path));
+		assertEquals(immediate.getTlvDataObject(TAG_INTEGER), lazy.getTlvDataObject(TAG_INTEGER));
+		assertEquals(immediate.getTlvDataObject(TAG_SEQUENCE), lazy.getTlvDataObject(TAG_SEQUENCE));
+		assertEquals(immediate.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 1)), lazy.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 1)));
+		assertNull(lazy.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 2)));
+		assertNull(lazy.getTlvDataObject(TAG_OCTET_STRING));
+		assertEquals(immediate, lazy);
+	}
+	
+	/**
+	 * Positive test: the encoding of a {@link TlvDataObjectContainer} in lazy
+	 * mode is not affected by later changes of the source array but reflects
+	 * changes of the contained objects.
+	 */
+	@Test
+	public void testLazy_Modification() {
+		byte[] encoding = HexString.toByteArray("020101" + NESTED_STRUCTURE);
+		
+		TlvDataObjectContainer lazy = new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+		encoding[2] = 0x02;
+		assertArrayEquals(HexString.toByteArray("020101" + NESTED_STRUCTURE), lazy.toByteArray());
+		
+		ConstructedTlvDataObject sequence = (ConstructedTlvDataObject) lazy.getTlvDataObject(TAG_SEQUENCE);
+		sequence.addTlvDataObject(new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {(byte) 0xFF}));
+		assertArrayEquals(HexString.toByteArray("020101" + NESTED_STRUCTURE.replace("3003020103", "30060201030101FF")), lazy.toByteArray());
+		assertEquals(lazy.toByteArray().length, lazy.getLength());
+		
+		lazy.removeTlvDataObject(TAG_INTEGER);
+		lazy.addTlvDataObject(new PrimitiveTlvDataObject(TAG_INTEGER, new byte[] {0x07}));
+		assertArrayEquals(HexString.toByteArray(NESTED_STRUCTURE.replace("3003020103", "30060201030101FF") + "020107"), lazy.toByteArray());
+	}
+	
+	/**
+	 * Positive test: a copy of a {@link TlvDataObjectContainer} in lazy mode
+	 * is equal to the original and modifications of either one do not affect
+	 * the other.
+	 */
+	@Test
+	public void testLazy_Copy() {
+		byte[] encoding = HexString.toByteArray("020101" + NESTED_STRUCTURE);
+		
+		TlvDataObjectContainer lazy = new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+		TlvDataObjectContainer copy = lazy.copy();
+		assertEquals(lazy, copy);
+		
+		copy.removeTlvDataObject(TAG_INTEGER);
+		((ConstructedTlvDataObject) lazy.getTlvDataObject(TAG_SEQUENCE)).addTlvDataObject(new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {(byte) 0xFF}));
+		
+		assertArrayEquals(HexString.toByteArray(NESTED_STRUCTURE), copy.toByteArray());
+		assertArrayEquals(HexString.toByteArray("020101" + NESTED_STRUCTURE.replace("3003020103", "30060201030101FF")), lazy.toByteArray());
+	}
+	
+	/**
+	 * Negative test: a {@link TlvDataObjectContainer} in lazy mode rejects a
+	 * malformed nested structure the same way as one created immediately.
+	 */
+	@Test
+	public void testLazy_MalformedNestedStructure() {
+		byte[] encoding = HexString.toByteArray("3006020103020503");
+		
+		ISO7816Exception immediateException = null;
+		try {
+			new TlvDataObjectContainer(encoding, 0, encoding.length);
+		} catch (ISO7816Exception e) {
+			immediateException = e;
+		}
+		
+		ISO7816Exception lazyException = null;
+		try {
+			new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+		} catch (ISO7816Exception e) {
+			lazyException = e;
+		}
+		
+		assertNotNull(immediateException);
+		assertNotNull(lazyException);
+		assertEquals(immediateException.getStatusWord(), lazyException.getStatusWord());
+	}
+	
+	/**
+	 * Creates a container with enough children to be indexed by tag. The
+	 * children are INTEGERs with values 0 to n-1, every third one being an
+	 * OCTET STRING instead.
+	 */
+	private static TlvDataObjectContainer createIndexedContainer(int noOfElements) {
+		TlvDataObjectContainer container = new TlvDataObjectContainer();
+		for (int i = 0; i < noOfElements; i++) {
+			container.addTlvDataObject(new PrimitiveTlvDataObject((i % 3 == 2) ? TAG_OCTET_STRING : TAG_INTEGER, new byte[] {(byte) i}));
+		}
+		return container;
+	}
+	
+	/**
+	 * Positive test: lookups of repeated tags in a {@link TlvDataObjectContainer}
+	 * indexed by tag return the occurrences in the order of the children.
+	 */
+	@Test
+	public void testGetTlvDataObject_TagIndex() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		
+		assertArrayEquals(new byte[] {0x00}, container.getTlvDataObject(TAG_INTEGER).getValueField());
+		assertArrayEquals(new byte[] {0x04}, container.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 3)).getValueField());
+		assertArrayEquals(new byte[] {0x05}, container.getTlvDataObject(new TlvTagIdentifier(TAG_OCTET_STRING, 1)).getValueField());
+		assertNull(container.getTlvDataObject(new TlvTagIdentifier(TAG_OCTET_STRING, 5)));
+		assertNull(container.getTlvDataObject(TAG_SEQUENCE));
+		assertNull(container.getTlvDataObject(new TlvTag(new byte[] {0x5F, (byte) 0x81, 0x01, 0x02, 0x03})));
+	}
+	
+	/**
+	 * Positive test: the tag index of a {@link TlvDataObjectContainer} reflects
+	 * added and removed children.
+	 */
+	@Test
+	public void testGetTlvDataObject_TagIndexAddRemove() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		assertNotNull(container.getTlvDataObject(TAG_INTEGER));
+		
+		PrimitiveTlvDataObject added = new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {(byte) 0xFF});
+		container.addTlvDataObject(added);
+		assertSame(added, container.getTlvDataObject(TAG_BOOLEAN));
+		
+		container.removeTlvDataObject(TAG_INTEGER);
+		assertArrayEquals(new byte[] {0x01}, container.getTlvDataObject(TAG_INTEGER).getValueField());
+		
+		container.remove(new PrimitiveTlvDataObject(TAG_OCTET_STRING, new byte[] {0x02}));
+		assertArrayEquals(new byte[] {0x05}, container.getTlvDataObject(TAG_OCTET_STRING).getValueField());
+		
+		Iterator<TlvDataObject> iterator = container.iterator();
+		iterator.next();
+		iterator.remove();
+		assertArrayEquals(new byte[] {0x03}, container.getTlvDataObject(TAG_INTEGER).getValueField());
+		assertTrue(container.isTagIndexed());
+	}
+	
+	/**
+	 * Negative test: the list of children handed out by a
+	 * {@link TlvDataObjectContainer} can not be modified, so the tag index can
+	 * not be bypassed.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetTlvObjects_Unmodifiable() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		assertNotNull(container.getTlvDataObject(TAG_INTEGER));
+		
+		container.getTlvObjects().add(0, new PrimitiveTlvDataObject(TAG_INTEGER, new byte[] {0x7F}));
+	}
+	
+	/**
+	 * Positive test: the tag index of a {@link TlvDataObjectContainer} reflects
+	 * tags changed after the index has been created.
+	 */
+	@Test
+	public void testGetTlvDataObject_TagIndexTagChanged() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		assertNull(container.getTlvDataObject(TAG_BOOLEAN));
+		
+		TlvDataObject changed = container.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 2));
+		changed.setTag(TAG_BOOLEAN);
+		
+		assertSame(changed, container.getTlvDataObject(TAG_BOOLEAN));
+		assertArrayEquals(new byte[] {0x04}, container.getTlvDataObject(new TlvTagIdentifier(TAG_INTEGER, 2)).getValueField());
+	}
+	
+	/**
+	 * Positive test: changing the tag of a child of one
+	 * {@link TlvDataObjectContainer} keeps the tag index of another container.
+	 */
+	@Test
+	public void testGetTlvDataObject_TagIndexTagChangedInOtherContainer() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		TlvDataObjectContainer otherContainer = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		assertNotNull(container.getTlvDataObject(TAG_INTEGER));
+		assertNotNull(otherContainer.getTlvDataObject(TAG_INTEGER));
+		
+		otherContainer.getTlvDataObject(TAG_INTEGER).setTag(TAG_BOOLEAN);
+		
+		assertTrue(container.isTagIndexed());
+		assertFalse(otherContainer.isTagIndexed());
+		assertNull(container.getTlvDataObject(TAG_BOOLEAN));
+		assertArrayEquals(new byte[] {0x00}, otherContainer.getTlvDataObject(TAG_BOOLEAN).getValueField());
+	}
+	
+	/**
+	 * Positive test: changing the tag of a child removed from a
+	 * {@link TlvDataObjectContainer} keeps the tag index of the container, while
+	 * all containers still holding the child reflect the change.
+	 */
+	@Test
+	public void testGetTlvDataObject_TagIndexTagChangedAfterRemoval() {
+		TlvDataObjectContainer container = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		TlvDataObjectContainer otherContainer = createIndexedContainer(2 * TlvDataObjectContainer.TAG_INDEX_MIN_NO_OF_ELEMENTS);
+		TlvDataObject shared = container.getTlvDataObject(TAG_OCTET_STRING);
+		otherContainer.addTlvDataObject(shared);
+		assertSame(shared, otherContainer.getTlvDataObject(new TlvTagIdentifier(TAG_OCTET_STRING, 5)));
+		
+		container.remove(shared);
+		shared.setTag(TAG_BOOLEAN);
+		
+		assertTrue(container.isTagIndexed());
+		assertFalse(otherContainer.isTagIndexed());
+		assertNull(container.getTlvDataObject(TAG_BOOLEAN));
+		assertSame(shared, otherContainer.getTlvDataObject(TAG_BOOLEAN));
+	}
 
 }
@@ -0,0 +1,90 @@
+package de.persosim.simulator.tlv;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.persosim.simulator.utils.HexString;
+
+public class TlvEncoderTest implements TlvConstants {
+
+	/**
+	 * Positive test: encode a nested structure and check that the length
+	 * fields of all levels are computed from the nested values.
+	 */
+	@Test
+	public void testEncode_Nested() {
+		ConstructedTlvDataObject inner = new ConstructedTlvDataObject(TAG_SEQUENCE,
+				new PrimitiveTlvDataObject(TAG_INTEGER, new byte[] {0x01}),
+				new PrimitiveTlvDataObject(TAG_OCTET_STRING, new byte[200]));
+		ConstructedTlvDataObject outer = new ConstructedTlvDataObject(TAG_SEQUENCE, inner, new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {(byte) 0xFF}));
+
+		byte[] expected = HexString.toByteArray("3081D4" + "3081CE" + "020101" + "0481C8" + HexString.encode(new byte[200]) + "0101FF");
+
+		assertArrayEquals(expected, outer.toByteArray());
+		assertEquals(expected.length, outer.getLength());
+		assertEquals(209, inner.getLength());
+	}
+
+	/**
+	 * Positive test: encode a deeply nested structure.
+	 */
+	@Test
+	public void testEncode_DeeplyNested() {
+		TlvDataObject tlvDataObject = new PrimitiveTlvDataObject(TAG_INTEGER, new byte[] {0x01});
+		int expectedLength = 3;
+		for (int i = 0; i < 500; i++) {
+			tlvDataObject = new ConstructedTlvDataObject(TAG_SEQUENCE, tlvDataObject);
+			expectedLength += 1 + TlvLength.getLengthEncoding(expectedLength).length;
+		}
+
+		byte[] encoding = tlvDataObject.toByteArray();
+
+		assertEquals(expectedLength, encoding.length);
+		assertEquals(expectedLength, tlvDataObject.getLength());
+		assertEquals(tlvDataObject, TlvDataObjectFactory.createTLVDataObject(encoding));
+	}
+
+	/**
+	 * Positive test: explicitly set length fields that match the value are
+	 * kept, mismatching ones are kept only if validity checks are disabled.
+	 */
+	@Test
+	public void testEncode_ExplicitLengthFields() {
+		PrimitiveTlvDataObject berLength = new PrimitiveTlvDataObject(TAG_INTEGER, new TlvLength(HexString.toByteArray("8101")), new TlvValuePlain((byte) 0x05));
+		PrimitiveTlvDataObject damagedLength = new PrimitiveTlvDataObject(TAG_INTEGER, new TlvLength(HexString.toByteArray("03")), new TlvValuePlain((byte) 0x06), false);
+		ConstructedTlvDataObject sequence = new ConstructedTlvDataObject(TAG_SEQUENCE, berLength, damagedLength);
+
+		assertArrayEquals(HexString.toByteArray("3007" + "02810105" + "020306"), sequence.toByteArray());
+		assertEquals(9, sequence.getLength());
+	}
+
+	/**
+	 * Positive test: objects of subclasses are encoded using their own
+	 * encoding while the length field of the parent is computed as before.
+	 */
+	@Test
+	public void testEncode_Subclass() {
+		BogusPrimitiveTlvDataObject bogus = new BogusPrimitiveTlvDataObject(TAG_INTEGER, new byte[] {0x01, 0x02}, true);
+		ConstructedTlvDataObject sequence = new ConstructedTlvDataObject(TAG_SEQUENCE, bogus, new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {0x00}));
+
+		assertArrayEquals(HexString.toByteArray("3007" + "0202" + "010100"), sequence.toByteArray());
+	}
+
+	/**
+	 * Positive test: the encoding of a lazily parsed container reflects
+	 * modifications of accessed objects while keeping the other objects.
+	 */
+	@Test
+	public void testEncode_LazyContainerModified() {
+		byte[] encoding = HexString.toByteArray("020101" + "3003020102" + "020103");
+		TlvDataObjectContainer container = new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+
+		ConstructedTlvDataObject sequence = (ConstructedTlvDataObject) container.getTlvDataObject(TAG_SEQUENCE);
+		sequence.addTlvDataObject(new PrimitiveTlvDataObject(TAG_BOOLEAN, new byte[] {(byte) 0xFF}));
+
+		assertArrayEquals(HexString.toByteArray("020101" + "30060201020101FF" + "020103"), container.toByteArray());
+		assertEquals(14, container.getLength());
+	}
+
+}
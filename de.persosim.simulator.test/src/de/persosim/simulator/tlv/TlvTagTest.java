@@ -2,6 +2,12 @@ package de.persosim.simulator.tlv;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -242,5 +248,74 @@ public class TlvTagTest {
 
 		assertEquals("Is valid DER encoding", tag.isValidDerEncoding(), true);
 	}
+	
+	/**
+	 * Positive test case: frequently used tags are returned as interned
+	 * objects equal to newly created ones.
+	 */
+	@Test
+	public void testGetInstance_Interned() {
+		byte[] byteArray = new byte[] { (byte) 0xFF, (byte) 0x7F, (byte) 0x4E, 0x00 };
+
+		assertSame(TlvConstants.TAG_7F4E, TlvTag.getInstance(byteArray, 1, byteArray.length));
+		assertSame(TlvConstants.TAG_INTEGER, TlvTag.getInstance(Asn1.INTEGER));
+		assertEquals(new TlvTag(byteArray, 1, byteArray.length), TlvTag.getInstance(byteArray, 1, byteArray.length));
+	}
+
+	/**
+	 * Positive test case: tags that are not interned are created with the
+	 * same contents as by the constructor.
+	 */
+	@Test
+	public void testGetInstance_NotInterned() {
+		byte[] tagExpected = new byte[] { (byte) 0x9F, (byte) 0x81, 0x01 };
+
+		TlvTag tag = TlvTag.getInstance(tagExpected);
+
+		assertArrayEquals(tagExpected, tag.toByteArray());
+		assertEquals(new TlvTag(tagExpected), tag);
+		assertEquals(3, tag.getLength());
+		assertEquals(0x81, tag.getIndicatedTagNo());
+		assertTrue(tag.isValidDerEncoding());
+	}
+
+	/**
+	 * Negative test case: getInstance rejects the same tag fields as the
+	 * constructor.
+	 */
+	@Test(expected = ISO7816Exception.class)
+	public void testGetInstance_TagTooLong() {
+		TlvTag.getInstance(new byte[] { (byte) 0x9F, (byte) 0x81, (byte) 0x81, 0x01 });
+	}
+
+	/**
+	 * Positive test case: tags not created from valid encodings keep their
+	 * contents independent of their length.
+	 */
+	@Test
+	public void testConstructor_SkipValidityChecksLongTag() {
+		byte[] tagExpected = new byte[] { (byte) 0x9F, (byte) 0x81, (byte) 0x81, (byte) 0x81, 0x01 };
+
+		TlvTag tag = new TlvTag(tagExpected, false);
+
+		assertArrayEquals(tagExpected, tag.toByteArray());
+		assertEquals(Arrays.hashCode(tagExpected), tag.hashCode());
+		assertEquals(tag, tag.clone());
+		assertNotEquals(new TlvTag(new byte[] { (byte) 0x9F, (byte) 0x81, (byte) 0x81, 0x01 }, false), tag);
+		assertFalse(tag.isValidBerEncoding());
+	}
+
+	/**
+	 * Positive test case: tags are equal iff their tag fields are equal,
+	 * including leading zero bytes.
+	 */
+	@Test
+	public void testEquals_LeadingZeroBytes() {
+		TlvTag tag = new TlvTag(new byte[] { 0x01 }, false);
+		TlvTag tagWithLeadingZero = new TlvTag(new byte[] { 0x00, 0x01 }, false);
+
+		assertNotEquals(tag, tagWithLeadingZero);
+		assertEquals(Arrays.hashCode(new byte[] { 0x00, 0x01 }), tagWithLeadingZero.hashCode());
+	}
 
 }
@@ -0,0 +1,126 @@
+package de.persosim.simulator.tlv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import de.persosim.simulator.utils.HexString;
+
+public class TlvValueViewTest implements TlvConstants {
+
+	/**
+	 * Positive test: a view on a range of an array provides exactly the bytes
+	 * of this range.
+	 */
+	@Test
+	public void testRange() {
+		TlvValueView view = new TlvValueView(HexString.toByteArray("0001020304"), 1, 4);
+
+		assertEquals(3, view.getLength());
+		assertEquals(0x02, view.get(1));
+		assertArrayEquals(HexString.toByteArray("010203"), view.toByteArray());
+		assertArrayEquals(HexString.toByteArray("0203"), view.subView(1, 3).toByteArray());
+		assertTrue(view.contentEquals(HexString.toByteArray("010203")));
+		assertFalse(view.contentEquals(HexString.toByteArray("0102")));
+
+		byte[] destination = new byte[5];
+		view.copyTo(destination, 2);
+		assertArrayEquals(HexString.toByteArray("0000010203"), destination);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		view.writeTo(outputStream);
+		assertArrayEquals(HexString.toByteArray("010203"), outputStream.toByteArray());
+	}
+
+	/**
+	 * Positive test: views with the same content are equal independent of
+	 * their backing arrays and offsets.
+	 */
+	@Test
+	public void testEquals() {
+		TlvValueView view = new TlvValueView(HexString.toByteArray("0001020304"), 1, 4);
+		TlvValueView other = new TlvValueView(HexString.toByteArray("010203"));
+
+		assertEquals(other, view);
+		assertEquals(other.hashCode(), view.hashCode());
+		assertNotEquals(other, view.subView(0, 2));
+		assertEquals(TlvValueView.empty(), view.subView(2, 2));
+	}
+
+	/**
+	 * Positive test: the buffer returned is read-only and only covers the viewed range.
+	 */
+	@Test
+	public void testAsByteBuffer() {
+		ByteBuffer buffer = new TlvValueView(HexString.toByteArray("0001020304"), 1, 4).asByteBuffer();
+
+		assertTrue(buffer.isReadOnly());
+		assertEquals(0, buffer.position());
+		assertEquals(3, buffer.remaining());
+		assertEquals(0x01, buffer.get());
+	}
+
+	/**
+	 * Negative test: accessing a byte outside of the view fails.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGet_OutsideOfView() {
+		new TlvValueView(HexString.toByteArray("0001020304"), 1, 4).get(3);
+	}
+
+	/**
+	 * Negative test: a view must not exceed its backing array.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_OutsideOfArray() {
+		new TlvValueView(HexString.toByteArray("0001020304"), 1, 6);
+	}
+
+	/**
+	 * Positive test: the value views of primitive and constructed TLV data
+	 * objects match their value fields.
+	 */
+	@Test
+	public void testGetValueView() {
+		TlvDataObject primitive = TlvDataObjectFactory.createTLVDataObject("0403010203");
+		TlvDataObject constructed = TlvDataObjectFactory.createTLVDataObject("30060201010101FF");
+
+		assertTrue(primitive.getValueView().contentEquals(primitive.getValueField()));
+		assertTrue(constructed.getValueView().contentEquals(constructed.getValueField()));
+	}
+
+	/**
+	 * Positive test: the view on a value field is not affected by later
+	 * changes of the value field.
+	 */
+	@Test
+	public void testGetView_ValueFieldReplaced() {
+		TlvValuePlain value = new TlvValuePlain(HexString.toByteArray("010203"));
+		TlvValueView view = value.getView();
+
+		value.setValueField(new TlvValuePlain(HexString.toByteArray("0405")));
+
+		assertArrayEquals(HexString.toByteArray("010203"), view.toByteArray());
+		assertArrayEquals(HexString.toByteArray("0405"), value.getView().toByteArray());
+	}
+
+	/**
+	 * Positive test: the view on a lazily parsed container matches its
+	 * encoding before and after accessing its contained objects.
+	 */
+	@Test
+	public void testGetView_LazyContainer() {
+		byte[] encoding = HexString.toByteArray("30060201010101FF020102");
+		TlvDataObjectContainer container = new TlvDataObjectContainer(encoding, 0, encoding.length, true);
+
+		assertTrue(container.getView().contentEquals(encoding));
+
+		((ConstructedTlvDataObject) container.getTlvDataObject(TAG_SEQUENCE)).removeTlvDataObject(TAG_BOOLEAN);
+
+		assertTrue(container.getView().contentEquals(HexString.toByteArray("3003020101020102")));
+	}
+
+}
@@ -79,6 +79,7 @@ public class PersoSimPart
 	private boolean wasDragging = false;
 	private boolean isProgrammaticSelection = false;
 	private int lastLogCount = 0;
+	private long lastLogSequenceNumber = -1;
 	private boolean isMultiLineLogEnabled = false;
 
 	private Composite loggingArea;
@@ -119,6 +120,7 @@ public class PersoSimPart
 		wasDragging = false;
 		isProgrammaticSelection = false;
 		lastLogCount = 0;
+		lastLogSequenceNumber = -1;
 
 		logTableViewer = new TableViewer(tableArea, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL | SWT.MULTI | SWT.VIRTUAL);
 		table = logTableViewer.getTable();
@@ -673,10 +675,9 @@ public class PersoSimPart
 					String logFileName = "PersoSim_" + new SimpleDateFormat("yyyyMMddHHmmss").format(Calendar.getInstance().getTime()) + ".log";
 					File file = new File(logFileName);
 					LinkedListLogListener listener = de.persosim.simulator.ui.Activator.getListLogListener();
-					int count = listener.getNumberOfCachedEntries();
 					try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
-						for (int i = 0; i < count; i++) {
-							writer.write(PersoSimLogFormatter.format(listener.getEntry(i)));
+						for (PersoSimLogEntry entry : listener.getEntriesSince(0)) {
+							writer.write(PersoSimLogFormatter.format(entry));
 							writer.write('\n');
 						}
 					}
@@ -733,9 +734,14 @@ public class PersoSimPart
 	{
 		LinkedListLogListener listener = de.persosim.simulator.ui.Activator.getListLogListener();
 		if (listener != null && !isLocked) {
+			// nothing to do if no entries have been added since the last refresh
+			long sequenceNumber = listener.getNextSequenceNumber();
+			if (sequenceNumber == lastLogSequenceNumber)
+				return;
 			int count = listener.getNumberOfCachedEntries();
 			if (count == 0)
 				return;
+			lastLogSequenceNumber = sequenceNumber;
 			if (count != lastLogCount) {
 				logTableViewer.setItemCount(count);
 				lastLogCount = count;
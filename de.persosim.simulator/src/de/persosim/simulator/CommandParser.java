@@ -579,6 +579,7 @@ public class CommandParser
 
 	private static PersoSim getPersoSim()
 	{
-		return de.persosim.simulator.Activator.getDefault().getSim();
+		de.persosim.simulator.Activator activator = de.persosim.simulator.Activator.getDefault();
+		return activator != null ? activator.getSim() : null;
 	}
 }
@@ -25,6 +25,10 @@ import de.persosim.simulator.platform.PersoSimKernel;
  * simulator are implicitly set to default values by fall-through, no explicit
  * configuration is required.
  *
+ * All access to the kernel is serialized, so a single instance may be used by
+ * several threads. Independent instances do not share any card state, see
+ * {@link PersoSimPool}.
+ *
  * @author slutters
  *
  */
@@ -65,7 +69,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public boolean startSimulator()
+	public synchronized boolean startSimulator()
 	{
 		if (kernel != null) {
 			log("Simulator already running", LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
@@ -83,7 +87,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public boolean stopSimulator()
+	public synchronized boolean stopSimulator()
 	{
 		if (kernel != null) {
 			kernel = null;
@@ -96,7 +100,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public boolean restartSimulator()
+	public synchronized boolean restartSimulator()
 	{
 		stopSimulator();
 		return startSimulator();
@@ -109,7 +113,7 @@ public class PersoSim implements Simulator
 	 *            the personalization to load
 	 * @return true, if the profile loading was successful, otherwise false
 	 */
-	public boolean loadPersonalization(Personalization personalization)
+	public synchronized boolean loadPersonalization(Personalization personalization)
 	{
 		try {
 			kernel = new PersoSimKernel();
@@ -124,7 +128,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public byte[] processCommand(byte[] apdu)
+	public synchronized byte[] processCommand(byte[] apdu)
 	{
 		if (kernel == null) {
 			log("The simulator is not initialized and the APDU was ignored", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
@@ -135,13 +139,13 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public boolean isRunning()
+	public synchronized boolean isRunning()
 	{
 		return kernel != null;
 	}
 
 	@Override
-	public byte[] cardPowerUp()
+	public synchronized byte[] cardPowerUp()
 	{
 		if (kernel == null) {
 			log("The simulator is not initialized, attempt to power up ignored", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
@@ -151,7 +155,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public byte[] cardPowerDown()
+	public synchronized byte[] cardPowerDown()
 	{
 		if (kernel == null) {
 			log("The simulator is not initialized, attempt to power down ignored", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
@@ -161,7 +165,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public byte[] cardReset()
+	public synchronized byte[] cardReset()
 	{
 		if (kernel == null) {
 			log("The simulator is not initialized, reset attempt ignored", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
@@ -171,7 +175,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public void addEventListener(SimulatorEventListener... newListeners)
+	public synchronized void addEventListener(SimulatorEventListener... newListeners)
 	{
 		simEventListeners.addAll(Arrays.asList(newListeners));
 
@@ -181,7 +185,7 @@ public class PersoSim implements Simulator
 	}
 
 	@Override
-	public void removeEventListener(SimulatorEventListener oldListener)
+	public synchronized void removeEventListener(SimulatorEventListener oldListener)
 	{
 		simEventListeners.remove(oldListener);
 
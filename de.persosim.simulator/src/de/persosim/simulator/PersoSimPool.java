@@ -0,0 +1,202 @@
+package de.persosim.simulator;
+
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.globaltester.logging.BasicLogger;
+import org.globaltester.logging.tags.LogLevel;
+import org.globaltester.logging.tags.LogTag;
+
+import de.persosim.simulator.log.PersoSimLogTags;
+import de.persosim.simulator.perso.Personalization;
+
+/**
+ * This class provides a bounded number of independent {@link PersoSim}
+ * instances within a single JVM, e.g. for load tests with many parallel
+ * readers.
+ *
+ * Each simulator is loaded with its own {@link Personalization} as provided by
+ * the supplier, so card object tree, security status and protocol state are
+ * not shared between them. A simulator is dedicated to a single user, i.e. a
+ * connection or a session, until it is released. Access to each simulator is
+ * serialized by the {@link PersoSim} itself.
+ */
+public class PersoSimPool
+{
+	private final Supplier<Personalization> personalizationSupplier;
+	private final int maxNoOfSimulators;
+
+	private final Set<PersoSim> simulators = new HashSet<>();
+	private final Map<String, PersoSim> sessions = new HashMap<>();
+	/* number of simulators currently being personalized, these are not contained in simulators yet */
+	private int noOfReservedSimulators = 0;
+	/* serializes the calls of the personalization supplier */
+	private final Object supplierLock = new Object();
+
+	/**
+	 * Create new instance.
+	 *
+	 * @param personalizationSupplier
+	 *            provides a new personalization for each simulator, the
+	 *            returned objects must not be shared between calls
+	 * @param maxNoOfSimulators
+	 *            the maximum number of simulators in use at the same time
+	 */
+	public PersoSimPool(Supplier<Personalization> personalizationSupplier, int maxNoOfSimulators)
+	{
+		if (maxNoOfSimulators < 1) {
+			throw new IllegalArgumentException("the pool must provide at least one simulator");
+		}
+		this.personalizationSupplier = personalizationSupplier;
+		this.maxNoOfSimulators = maxNoOfSimulators;
+	}
+
+	/**
+	 * This method returns a new simulator that is dedicated to the caller
+	 * until it is released. The place in the pool is reserved first, the
+	 * simulator is personalized afterwards without blocking other callers of
+	 * the pool. The personalizations are created one after the other, so the
+	 * supplier does not need to be thread safe.
+	 *
+	 * @return a newly personalized simulator
+	 * @throws IllegalStateException
+	 *             if all simulators are in use or the personalization fails
+	 */
+	public PersoSim acquire()
+	{
+		synchronized (this) {
+			if (simulators.size() + noOfReservedSimulators >= maxNoOfSimulators) {
+				throw new IllegalStateException("all " + maxNoOfSimulators + " simulators of the pool are in use");
+			}
+			noOfReservedSimulators++;
+		}
+
+		PersoSim simulator = null;
+		try {
+			Personalization personalization;
+			synchronized (supplierLock) {
+				personalization = personalizationSupplier.get();
+			}
+
+			PersoSim newSimulator = new PersoSim();
+			if (!newSimulator.loadPersonalization(personalization)) {
+				throw new IllegalStateException("the personalization of a new simulator failed");
+			}
+			simulator = newSimulator;
+		}
+		finally {
+			synchronized (this) {
+				noOfReservedSimulators--;
+				if (simulator != null) {
+					simulators.add(simulator);
+					log("Acquired simulator " + simulators.size() + " of " + maxNoOfSimulators, LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
+				}
+			}
+		}
+
+		return simulator;
+	}
+
+	/**
+	 * This method stops the provided simulator and frees its place in the
+	 * pool. Sessions bound to the simulator are closed.
+	 *
+	 * @param simulator
+	 *            a simulator acquired from this pool
+	 * @return true, iff the simulator belonged to this pool
+	 */
+	public boolean release(PersoSim simulator)
+	{
+		synchronized (this) {
+			if (!simulators.remove(simulator)) {
+				return false;
+			}
+
+			Iterator<PersoSim> sessionSimulators = sessions.values().iterator();
+			while (sessionSimulators.hasNext()) {
+				if (sessionSimulators.next() == simulator) {
+					sessionSimulators.remove();
+				}
+			}
+		}
+
+		simulator.stopSimulator();
+		return true;
+	}
+
+	/**
+	 * This method returns the simulator dedicated to the session with the
+	 * provided id. The first call for an id acquires a new simulator. If
+	 * several threads open the same session at the same time, only one of the
+	 * acquired simulators is kept.
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @return the simulator of the session
+	 * @throws IllegalStateException
+	 *             if a new simulator is needed and none can be acquired
+	 */
+	public PersoSim getSession(String sessionId)
+	{
+		synchronized (this) {
+			PersoSim simulator = sessions.get(sessionId);
+			if (simulator != null) {
+				return simulator;
+			}
+		}
+
+		PersoSim newSimulator = acquire();
+		PersoSim simulator;
+		synchronized (this) {
+			simulator = sessions.putIfAbsent(sessionId, newSimulator);
+		}
+		if (simulator != null) {
+			// the session has been opened concurrently
+			release(newSimulator);
+			return simulator;
+		}
+		return newSimulator;
+	}
+
+	/**
+	 * This method releases the simulator of the session with the provided id.
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @return true, iff the session existed
+	 */
+	public boolean closeSession(String sessionId)
+	{
+		PersoSim simulator;
+		synchronized (this) {
+			simulator = sessions.remove(sessionId);
+		}
+		if (simulator == null) {
+			return false;
+		}
+		return release(simulator);
+	}
+
+	/**
+	 * @return the number of simulators currently in use
+	 */
+	public synchronized int getNoOfSimulators()
+	{
+		return simulators.size();
+	}
+
+	/**
+	 * @return the maximum number of simulators in use at the same time
+	 */
+	public int getMaxNoOfSimulators()
+	{
+		return maxNoOfSimulators;
+	}
+
+}
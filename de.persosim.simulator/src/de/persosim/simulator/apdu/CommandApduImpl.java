@@ -38,6 +38,8 @@ public class CommandApduImpl implements CommandApdu {
 	private final int ne;
 	private final short nc;
 	private final TlvValue commandData;
+	/* the parsed command data, created on first request and never handed out directly */
+	private transient TlvDataObjectContainer commandDataObjectContainer;
 
 	private CommandApdu predecessor = null;
 
@@ -165,13 +167,16 @@ public class CommandApduImpl implements CommandApdu {
 	 */
 	@Override
 	public TlvDataObjectContainer getCommandDataObjectContainer() {
-		TlvDataObjectContainer commandDataRet;
-		if (!(commandData instanceof TlvDataObjectContainer)) {
-			commandDataRet = new TlvDataObjectContainer(commandData);
-		} else {
-			commandDataRet = (TlvDataObjectContainer) commandData;
+		if (commandData instanceof TlvDataObjectContainer) {
+			return Serializer.deepCopy((TlvDataObjectContainer) commandData);
+		}
+		
+		//parse the immutable command data only once, callers receive independent copies sharing the parsed encoding
+		if (commandDataObjectContainer == null) {
+			byte[] commandDataBytes = commandData.toByteArray();
+			commandDataObjectContainer = new TlvDataObjectContainer(commandDataBytes, 0, commandDataBytes.length, true);
 		}
-		return Serializer.deepCopy(commandDataRet);
+		return commandDataObjectContainer.copy();
 	}
 
 	/* (non-Javadoc)
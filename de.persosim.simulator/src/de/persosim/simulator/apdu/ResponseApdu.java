@@ -2,6 +2,7 @@ package de.persosim.simulator.apdu;
 
 import de.persosim.simulator.platform.Iso7816Lib;
 import de.persosim.simulator.tlv.TlvValue;
+import de.persosim.simulator.tlv.TlvValueView;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
 
@@ -57,7 +58,12 @@ public class ResponseApdu {
 		byte[] swArray = Utils.toUnsignedByteArray(statusWord);
 		
 		if (data != null) {
-			return Utils.concatByteArrays(data.toByteArray(), swArray);
+			/* copy the data field only once */
+			TlvValueView dataView = data.getView();
+			byte[] responseApdu = new byte[dataView.getLength() + swArray.length];
+			dataView.copyTo(responseApdu, 0);
+			System.arraycopy(swArray, 0, responseApdu, dataView.getLength(), swArray.length);
+			return responseApdu;
 		} else {
 			return swArray;
 		}
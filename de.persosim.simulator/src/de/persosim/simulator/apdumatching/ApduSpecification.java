@@ -369,7 +369,7 @@ public class ApduSpecification implements Iso7816, ApduSpecificationConstants
 			byte[] commandDataBytes = apdu.getCommandData().toByteArray();
 
 			try {
-				constructedDataField = new TlvDataObjectContainer(commandDataBytes, 0, commandDataBytes.length);
+				constructedDataField = new TlvDataObjectContainer(commandDataBytes, 0, commandDataBytes.length, true);
 
 				return tags.matches(constructedDataField);
 			}
@@ -383,6 +383,50 @@ public class ApduSpecification implements Iso7816, ApduSpecificationConstants
 		return true;
 	}
 
+	/**
+	 * This method performs a matching of the header parameters (ISO format,
+	 * INS, P1 and P2) defined within this object against the provided
+	 * {@link CommandApdu}. In contrast to {@link #matchesFullApdu(CommandApdu)}
+	 * nothing is logged.
+	 * <p/>
+	 * A matching header is a necessary condition for a full match, i.e. an
+	 * APDU for which this method returns false never matches the full
+	 * specification.
+	 *
+	 * @param apdu
+	 *            the {@link CommandApdu} to match
+	 * @return whether the header parameters defined within this object match
+	 *         against the provided {@link CommandApdu}
+	 */
+	public boolean matchesHeader(CommandApdu apdu)
+	{
+		return matchesByte(isoFormat, apdu.getIsoFormat(), reqIsoFormat)
+				&& matchesByte(ins, apdu.getIns(), reqIns)
+				&& matchesByte(p1, apdu.getP1(), reqP1)
+				&& matchesByte(p2, apdu.getP2(), reqP2);
+	}
+
+	private static boolean matchesByte(byte expected, byte received, byte required)
+	{
+		if (expected == received) {
+			return required != REQ_MISMATCH;
+		}
+		return required != REQ_MATCH;
+	}
+
+	/**
+	 * This method compiles the specification defined within this object into
+	 * a form that does not need to be interpreted on every matching (see
+	 * {@link CompiledApduSpecification}). Later changes of this object are
+	 * not reflected by the returned object.
+	 *
+	 * @return the compiled specification
+	 */
+	public CompiledApduSpecification compile()
+	{
+		return new CompiledApduSpecification(this);
+	}
+
 	/*--------------------------------------------------------------------------------*/
 
 	/**
@@ -0,0 +1,321 @@
+package de.persosim.simulator.apdumatching;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdu.InterindustryCommandApdu;
+import de.persosim.simulator.apdu.IsoSecureMessagingCommandApdu;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvTag;
+import de.persosim.simulator.tlv.TlvValue;
+
+/**
+ * This class implements the compiled form of an {@link ApduSpecification}
+ * (see {@link ApduSpecification#compile()}). It matches APDUs exactly like
+ * {@link ApduSpecification#matchesFullApdu(CommandApdu)} but does not
+ * interpret the specification on every call.
+ * <p/>
+ * The requirements concerning ISO format, INS, P1 and P2 are combined into a
+ * mask and value that are checked at once. The requirements concerning the
+ * command data field are transformed into tables that map each specified tag
+ * to its requirement and the table of its sub tags, so each received TLV data
+ * object is checked by a single lookup.
+ * <p/>
+ * The compiled form is a snapshot of the specification, i.e. later changes of
+ * the specification are not reflected. In contrast to
+ * {@link ApduSpecification#matchesFullApdu(CommandApdu)} the reasons for a
+ * mismatch are not logged.
+ */
+public final class CompiledApduSpecification implements ApduSpecificationConstants
+{
+
+	private final String id;
+
+	/* ISO format, INS, P1 and P2 are packed into one int, one byte each */
+	private final int headerMatchMask;
+	private final int headerValue;
+	/* one mask for each of the packed bytes required to mismatch */
+	private final int[] headerMismatchMasks;
+
+	private final boolean chaining;
+	private final byte reqChaining;
+	private final byte secureMessaging;
+	private final byte reqSecureMessaging;
+	private final byte channel;
+	private final byte reqChannel;
+	private final byte isoCase;
+	private final byte reqIsoCase;
+	private final boolean isExtendedLengthLCLE;
+	private final byte reqIsExtendedLengthLCLE;
+
+	private final TagTable tags;
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * This class holds the compiled form of a {@link TlvSpecificationContainer}.
+	 */
+	private static final class TagTable
+	{
+		/* the index of the first specification for each specified tag */
+		private final Map<TlvTag, Integer> indices = new HashMap<>();
+		private final byte[] required;
+		private final TagTable[] subTags;
+		private final boolean allowUnspecifiedSubTags;
+		private final boolean isStrictOrder;
+		private final int noOfRequiredTags;
+
+		TagTable(TlvSpecificationContainer container)
+		{
+			required = new byte[container.size()];
+			subTags = new TagTable[container.size()];
+			allowUnspecifiedSubTags = container.allowUnspecifiedSubTags;
+			isStrictOrder = container.isStrictOrder;
+			noOfRequiredTags = container.getNoOfTagsMatchingRequirement(REQ_MATCH);
+
+			for (int i = 0; i < container.size(); i++) {
+				TlvSpecification tlvSpecification = container.get(i);
+				indices.putIfAbsent(tlvSpecification.tlvTag, i);
+				required[i] = tlvSpecification.getRequired();
+				subTags[i] = new TagTable(tlvSpecification.getSubTags());
+			}
+		}
+
+		boolean isEmpty()
+		{
+			return required.length == 0;
+		}
+
+		/**
+		 * @see TlvSpecificationContainer#matches(TlvDataObjectContainer)
+		 */
+		boolean matches(TlvDataObjectContainer tlvContainer)
+		{
+			int counter = 0;
+			int highestAlreadyEncounteredIndex = 0;
+
+			for (TlvDataObject tlvDataObject : tlvContainer) {
+				Integer index = indices.get(tlvDataObject.getTlvTag());
+
+				if (index == null) {
+					if (!allowUnspecifiedSubTags) {
+						return false;
+					}
+					continue;
+				}
+
+				int currentWorkingIndex = index;
+
+				if (required[currentWorkingIndex] == REQ_MISMATCH) {
+					return false;
+				}
+
+				if (required[currentWorkingIndex] == REQ_MATCH) {
+					counter++;
+				}
+
+				if (isStrictOrder) {
+					if (currentWorkingIndex < highestAlreadyEncounteredIndex) {
+						return false;
+					}
+					highestAlreadyEncounteredIndex = currentWorkingIndex;
+				}
+
+				TlvValue value = tlvDataObject.getTlvValue();
+				if (value instanceof TlvDataObjectContainer) {
+					if (!subTags[currentWorkingIndex].matches((TlvDataObjectContainer) value)) {
+						return false;
+					}
+				}
+				else if (!subTags[currentWorkingIndex].isEmpty()) {
+					return false;
+				}
+			}
+
+			return counter >= noOfRequiredTags;
+		}
+	}
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * Compiles the provided specification.
+	 *
+	 * @param apduSpecification
+	 *            the specification to compile
+	 */
+	CompiledApduSpecification(ApduSpecification apduSpecification)
+	{
+		id = apduSpecification.id;
+
+		byte[] expected = {apduSpecification.isoFormat, apduSpecification.ins, apduSpecification.p1, apduSpecification.p2};
+		byte[] required = {apduSpecification.reqIsoFormat, apduSpecification.reqIns, apduSpecification.reqP1, apduSpecification.reqP2};
+
+		int matchMask = 0;
+		int noOfMismatches = 0;
+		int[] mismatchMasks = new int[required.length];
+		for (int i = 0; i < required.length; i++) {
+			int byteMask = 0xFF << (8 * (required.length - 1 - i));
+			if (required[i] == REQ_MATCH) {
+				matchMask |= byteMask;
+			}
+			else if (required[i] == REQ_MISMATCH) {
+				mismatchMasks[noOfMismatches++] = byteMask;
+			}
+		}
+		headerMatchMask = matchMask;
+		headerValue = packHeader(expected[0], expected[1], expected[2], expected[3]);
+		headerMismatchMasks = Arrays.copyOf(mismatchMasks, noOfMismatches);
+
+		chaining = apduSpecification.chaining;
+		reqChaining = apduSpecification.reqChaining;
+		secureMessaging = apduSpecification.secureMessaging;
+		reqSecureMessaging = apduSpecification.reqSecureMessaging;
+		channel = apduSpecification.channel;
+		reqChannel = apduSpecification.reqChannel;
+		isoCase = apduSpecification.isoCase;
+		reqIsoCase = apduSpecification.reqIsoCase;
+		isExtendedLengthLCLE = apduSpecification.isExtendedLengthLCLE;
+		reqIsExtendedLengthLCLE = apduSpecification.reqIsExtendedLengthLCLE;
+
+		tags = apduSpecification.tags.isEmpty() ? null : new TagTable(apduSpecification.tags);
+	}
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * @return the id of the compiled specification
+	 */
+	public String getId()
+	{
+		return id;
+	}
+
+	/**
+	 * This method performs a matching of the compiled specification against
+	 * the provided {@link CommandApdu}. The result is the same as the one of
+	 * {@link ApduSpecification#matchesFullApdu(CommandApdu)} for the
+	 * specification at the time of compilation.
+	 *
+	 * @param apdu
+	 *            the {@link CommandApdu} to match
+	 * @return whether the compiled specification matches against the provided
+	 *         {@link CommandApdu}
+	 */
+	public boolean matches(CommandApdu apdu)
+	{
+		if (!matchesHeader(apdu)) {
+			return false;
+		}
+
+		if (reqChaining != REQ_OPTIONAL) {
+			if (!(apdu instanceof InterindustryCommandApdu interindustryApdu) || !matchesBoolean(chaining, interindustryApdu.isChaining(), reqChaining)) {
+				return false;
+			}
+		}
+
+		if (reqSecureMessaging != REQ_OPTIONAL && !matchesSecureMessaging(apdu)) {
+			return false;
+		}
+
+		if (reqChannel != REQ_OPTIONAL) {
+			if (!(apdu instanceof InterindustryCommandApdu interindustryApdu) || !matchesByte(channel, interindustryApdu.getChannel(), reqChannel)) {
+				return false;
+			}
+		}
+
+		byte isoCaseReceived = apdu.getIsoCase();
+		if (!matchesByte(isoCase, isoCaseReceived, reqIsoCase)) {
+			return false;
+		}
+
+		if (reqIsExtendedLengthLCLE != REQ_OPTIONAL) {
+			if ((isoCaseReceived == 1) || !matchesBoolean(isExtendedLengthLCLE, apdu.isExtendedLength(), reqIsExtendedLengthLCLE)) {
+				return false;
+			}
+		}
+
+		if (tags != null) {
+			TlvDataObjectContainer constructedDataField;
+			try {
+				constructedDataField = apdu.getCommandDataObjectContainer();
+			}
+			catch (IllegalArgumentException e) {
+				return false;
+			}
+			return tags.matches(constructedDataField);
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method performs a matching of the header parameters (ISO format,
+	 * INS, P1 and P2) of the compiled specification against the provided
+	 * {@link CommandApdu}.
+	 *
+	 * @param apdu
+	 *            the {@link CommandApdu} to match
+	 * @return whether the header parameters match against the provided
+	 *         {@link CommandApdu}
+	 * @see ApduSpecification#matchesHeader(CommandApdu)
+	 */
+	public boolean matchesHeader(CommandApdu apdu)
+	{
+		int difference = packHeader(apdu.getIsoFormat(), apdu.getIns(), apdu.getP1(), apdu.getP2()) ^ headerValue;
+
+		if ((difference & headerMatchMask) != 0) {
+			return false;
+		}
+
+		for (int mismatchMask : headerMismatchMasks) {
+			if ((difference & mismatchMask) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @see ApduSpecification#matchesFullApdu(CommandApdu)
+	 */
+	private boolean matchesSecureMessaging(CommandApdu apdu)
+	{
+		CommandApdu curApdu = apdu;
+		while (curApdu != null) {
+			if (curApdu instanceof IsoSecureMessagingCommandApdu smApdu && secureMessaging == smApdu.getSecureMessaging()) {
+				return reqSecureMessaging == REQ_MATCH;
+			}
+
+			curApdu = curApdu.getPredecessor();
+		}
+
+		return true;
+	}
+
+	private static int packHeader(byte isoFormat, byte ins, byte p1, byte p2)
+	{
+		return ((isoFormat & 0xFF) << 24) | ((ins & 0xFF) << 16) | ((p1 & 0xFF) << 8) | (p2 & 0xFF);
+	}
+
+	private static boolean matchesByte(byte expected, byte received, byte required)
+	{
+		if (expected == received) {
+			return required != REQ_MISMATCH;
+		}
+		return required != REQ_MATCH;
+	}
+
+	private static boolean matchesBoolean(boolean expected, boolean received, byte required)
+	{
+		if (expected == received) {
+			return required != REQ_MISMATCH;
+		}
+		return required != REQ_MATCH;
+	}
+
+}
@@ -1,13 +1,18 @@
 package de.persosim.simulator.cardobjects;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import de.persosim.simulator.exception.AccessDeniedException;
 import de.persosim.simulator.exception.LifeCycleChangeException;
 import de.persosim.simulator.exception.ObjectNotModifiedException;
+import de.persosim.simulator.protocols.GenericOid;
+import de.persosim.simulator.protocols.Oid;
 import de.persosim.simulator.secstatus.SecStatus;
 
 /**
@@ -23,6 +28,17 @@ public abstract class AbstractCardObject implements CardObject {
 	private List<CardObject> children = new ArrayList<>();
 	protected transient SecStatus securityStatus;
 
+	/*
+	 * The children indexed by their FileIdentifier, ShortFileIdentifier and
+	 * DedicatedFileIdentifier as well as by all prefixes of the encodings of
+	 * their OIDs, each list in the order of the children. The index is created
+	 * on first use and dropped whenever the identifiers of a child change, see
+	 * identifiersChanged().
+	 */
+	private transient Map<Object, List<CardObject>> childIndex;
+	/* whether all OIDs of the children are indexed, i.e. OID prefixes can be looked up */
+	private transient boolean childIndexCoversOids;
+
 	private Iso7816LifeCycleState lifeCycleState = Iso7816LifeCycleState.CREATION;
 
 	@Override
@@ -64,6 +80,16 @@ public abstract class AbstractCardObject implements CardObject {
 	 */
 	public void addChild(CardObject newChild) throws AccessDeniedException {
 		children.add(newChild);
+		if (childIndex != null) {
+			try {
+				if (!addToChildIndex(childIndex, newChild)) {
+					childIndexCoversOids = false;
+				}
+			} catch (RuntimeException e) {
+				// the identifiers of the new child are not available yet, the index is recreated on next use
+				childIndex = null;
+			}
+		}
 		if (newChild instanceof AbstractCardObject) {
 			((AbstractCardObject) newChild).parent = this;
 		}
@@ -78,6 +104,9 @@ public abstract class AbstractCardObject implements CardObject {
 	public CardObject removeChild(CardObject child) throws AccessDeniedException {
 		if (children.contains(child)) {
 			children.remove(child);
+			if (childIndex != null) {
+				removeFromChildIndex(child);
+			}
 			if (child instanceof AbstractCardObject) {
 				((AbstractCardObject) child).parent = null;
 			}
@@ -139,8 +168,14 @@ public abstract class AbstractCardObject implements CardObject {
 
 		Collection<CardObject> matchingChildren = new ArrayList<>();
 
+		// restrict the search to the indexed children if possible
+		Collection<CardObject> candidates = getIndexedChildren(cardObjectIdentifiers);
+		if (candidates == null) {
+			candidates = getChildren();
+		}
+
 		// check the immediate children of the current DF
-		for (CardObject curChild : getChildren()) {
+		for (CardObject curChild : candidates) {
 			if (CardObjectUtils.matches(curChild, cardObjectIdentifiers)) {
 				matchingChildren.add(curChild);
 			}
@@ -156,4 +191,140 @@ public abstract class AbstractCardObject implements CardObject {
 		return set;
 	}
 
+	/**
+	 * This method must be called whenever the identifiers returned by
+	 * {@link #getAllIdentifiers()} of a card object change after its creation,
+	 * e.g. when a short file identifier is set. It invalidates the index
+	 * used by {@link #findChildren(CardObjectIdentifier...)} of the parent.
+	 */
+	protected void identifiersChanged() {
+		if (parent instanceof AbstractCardObject) {
+			((AbstractCardObject) parent).childIndex = null;
+		}
+	}
+
+	/**
+	 * This method returns the children that possibly match all provided
+	 * identifiers using the child index. This is possible if at least one of
+	 * the identifiers is a {@link FileIdentifier}, {@link ShortFileIdentifier},
+	 * {@link DedicatedFileIdentifier} or {@link OidIdentifier}.
+	 * 
+	 * @param cardObjectIdentifiers
+	 *            the identifiers to be matched
+	 * @return the candidates in the order of the children or null if the index
+	 *         can not be used for the provided identifiers
+	 */
+	private Collection<CardObject> getIndexedChildren(CardObjectIdentifier... cardObjectIdentifiers) {
+		Collection<CardObject> candidates = null;
+
+		for (CardObjectIdentifier cardObjectIdentifier : cardObjectIdentifiers) {
+			Object key = getIndexKey(cardObjectIdentifier);
+			if (key == null) {
+				continue;
+			}
+
+			Map<Object, List<CardObject>> index = getChildIndex();
+			if ((key instanceof ByteBuffer) && !childIndexCoversOids) {
+				continue;
+			}
+
+			List<CardObject> indexedChildren = index.getOrDefault(key, List.of());
+			if ((candidates == null) || (indexedChildren.size() < candidates.size())) {
+				candidates = indexedChildren;
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * @return the key used within the child index for the provided query identifier or null if it can not be looked up
+	 */
+	private static Object getIndexKey(CardObjectIdentifier cardObjectIdentifier) {
+		if (cardObjectIdentifier == null) {
+			return null;
+		}
+
+		Class<?> identifierClass = cardObjectIdentifier.getClass();
+		if ((identifierClass == FileIdentifier.class) || (identifierClass == ShortFileIdentifier.class) || (identifierClass == DedicatedFileIdentifier.class)) {
+			// these match on equal identifiers only
+			return cardObjectIdentifier;
+		}
+
+		if ((identifierClass == OidIdentifier.class) && (((OidIdentifier) cardObjectIdentifier).getOid() != null)) {
+			// this matches on OIDs starting with the provided one
+			return ByteBuffer.wrap(((OidIdentifier) cardObjectIdentifier).getOid().toByteArray());
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method returns the child index, creating it if necessary. A new
+	 * index is built completely before it is published, so a failure while
+	 * collecting the identifiers does not leave an incomplete index marked as
+	 * valid.
+	 */
+	private Map<Object, List<CardObject>> getChildIndex() {
+		if (childIndex != null) {
+			return childIndex;
+		}
+
+		Map<Object, List<CardObject>> index = new HashMap<>();
+		boolean coversOids = true;
+		for (CardObject curChild : children) {
+			coversOids &= addToChildIndex(index, curChild);
+		}
+
+		childIndexCoversOids = coversOids;
+		childIndex = index;
+		return index;
+	}
+
+	/**
+	 * @return whether all OIDs of the child have been indexed
+	 */
+	private static boolean addToChildIndex(Map<Object, List<CardObject>> index, CardObject child) {
+		boolean coversOids = true;
+		for (CardObjectIdentifier curIdentifier : child.getAllIdentifiers()) {
+			if (curIdentifier == null) {
+				continue;
+			}
+
+			Class<?> identifierClass = curIdentifier.getClass();
+			if ((identifierClass == FileIdentifier.class) || (identifierClass == ShortFileIdentifier.class) || (identifierClass == DedicatedFileIdentifier.class)) {
+				addToChildIndex(index, curIdentifier, child);
+			}
+			else if (curIdentifier instanceof OidIdentifier) {
+				Oid oid = ((OidIdentifier) curIdentifier).getOid();
+				if (oid instanceof GenericOid) {
+					// GenericOid matches prefixes of its encoding, so all of them are indexed
+					byte[] oidBytes = oid.toByteArray();
+					for (int i = 0; i <= oidBytes.length; i++) {
+						addToChildIndex(index, ByteBuffer.wrap(oidBytes, 0, i).slice(), child);
+					}
+				}
+				else if (oid != null) {
+					coversOids = false;
+				}
+			}
+		}
+		return coversOids;
+	}
+
+	private static void addToChildIndex(Map<Object, List<CardObject>> index, Object key, CardObject child) {
+		List<CardObject> indexedChildren = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+		// a child may provide several identifiers with the same key
+		if (indexedChildren.isEmpty() || (indexedChildren.get(indexedChildren.size() - 1) != child)) {
+			indexedChildren.add(child);
+		}
+	}
+
+	private void removeFromChildIndex(CardObject child) {
+		childIndex.values().removeIf(indexedChildren -> {
+			indexedChildren.removeIf(indexedChild -> indexedChild == child);
+			return indexedChildren.isEmpty();
+		});
+	}
+
 }
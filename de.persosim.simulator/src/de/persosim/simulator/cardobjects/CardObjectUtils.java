@@ -2,8 +2,8 @@ package de.persosim.simulator.cardobjects;
 
 import static org.globaltester.logging.BasicLogger.log;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.LinkedList;
 
 import org.globaltester.logging.BasicLogger;
 import org.globaltester.logging.tags.LogLevel;
@@ -28,7 +28,7 @@ public class CardObjectUtils {
 	 *         {@link NullCardObject} if no matching object can be found
 	 */
 	public static CardObject findObject(CardObject searchRoot, CardObjectIdentifier... identifiers) {
-		LinkedList<CardObject> objectsToSearch = new LinkedList<>();
+		ArrayDeque<CardObject> objectsToSearch = new ArrayDeque<>();
 
 		objectsToSearch.add(searchRoot);
 
@@ -111,7 +111,7 @@ public class CardObjectUtils {
 	 * @return true iff element is part of the tree
 	 */
 	public static boolean isObjectPartOfTree(CardObject tree, CardObject element) {
-		LinkedList<CardObject> objectsToSearch = new LinkedList<>();
+		ArrayDeque<CardObject> objectsToSearch = new ArrayDeque<>();
 
 		objectsToSearch.add(tree);
 
@@ -157,12 +157,59 @@ public class ElementaryFile extends AbstractFile {
 	 * @return stored data as byte array
 	 */
 	public byte[] getContent() throws AccessDeniedException {
-		if (securityStatus == null || (readingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), readingConditions))) {
+		if (isReadingAllowed()) {
 			return Arrays.copyOf(content, content.length);
 		}
 		throw new AccessDeniedException("Reading forbidden");
 	}
 
+	/**
+	 * Reads a range of the files internal data. In contrast to
+	 * {@link #getContent()} only the requested range is copied.
+	 * 
+	 * @param offset
+	 *            the offset of the first byte to be read, must address a byte
+	 *            within the file
+	 * @param maxLength
+	 *            the maximum number of bytes to be read
+	 * @return stored data starting at offset, shorter than maxLength iff the
+	 *         end of the file is reached
+	 * @throws AccessDeniedException
+	 *             if reading is forbidden
+	 * @throws IndexOutOfBoundsException
+	 *             if offset does not address a byte within the file
+	 */
+	public byte[] getContent(int offset, int maxLength) throws AccessDeniedException {
+		if (isReadingAllowed()) {
+			if (offset < 0 || offset >= content.length) {
+				throw new IndexOutOfBoundsException("offset " + offset + " outside of file of length " + content.length);
+			}
+			if (maxLength < 0) {
+				throw new IllegalArgumentException("max length must not be less than 0");
+			}
+			return Arrays.copyOfRange(content, offset, offset + Math.min(maxLength, content.length - offset));
+		}
+		throw new AccessDeniedException("Reading forbidden");
+	}
+
+	/**
+	 * Returns the length of the files internal data without copying it.
+	 * 
+	 * @return the number of bytes stored in this file
+	 * @throws AccessDeniedException
+	 *             if reading is forbidden
+	 */
+	public int getContentLength() throws AccessDeniedException {
+		if (isReadingAllowed()) {
+			return content.length;
+		}
+		throw new AccessDeniedException("Reading forbidden");
+	}
+
+	private boolean isReadingAllowed() {
+		return securityStatus == null || (readingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), readingConditions));
+	}
+
 	/**
 	 * Replaces the files internal data.
 	 * 
@@ -214,6 +261,7 @@ public class ElementaryFile extends AbstractFile {
 	public void setShortFileIdentifier(ShortFileIdentifier shortFileIdentifier) throws AccessDeniedException {
 		if (SecStatus.checkAccessConditions(getLifeCycleState())) {
 			this.shortFileIdentifier = shortFileIdentifier;
+			identifiersChanged();
 			return;
 		}
 		throw new AccessDeniedException("Setting SFI forbidden");
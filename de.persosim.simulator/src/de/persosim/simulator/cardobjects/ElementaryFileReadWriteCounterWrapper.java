@@ -41,6 +41,7 @@ public class ElementaryFileReadWriteCounterWrapper extends ElementaryFile implem
 	public void setWrappedObject(CardObject cardObjectToWrap) {
 		if (cardObjectToWrap instanceof ElementaryFile) {
 			containedFile = (ElementaryFile) cardObjectToWrap;
+			identifiersChanged();
 		}
 		
 	}
@@ -58,6 +59,28 @@ public class ElementaryFileReadWriteCounterWrapper extends ElementaryFile implem
 		return content;
 	}
 	
+	@Override
+	public byte[] getContent(int offset, int maxLength) throws AccessDeniedException {
+		if (containedFile == null) {
+			throw new ISO7816Exception(Iso7816.SW_6A88_REFERENCE_DATA_NOT_FOUND, "Wraper object not correctly initialized");
+		}
+		
+		byte[] content = containedFile.getContent(offset, maxLength);
+		if(getLifeCycleState().isOperational()) {
+			readCounter++;
+		}
+		return content;
+	}
+	
+	@Override
+	public int getContentLength() throws AccessDeniedException {
+		if (containedFile == null) {
+			throw new ISO7816Exception(Iso7816.SW_6A88_REFERENCE_DATA_NOT_FOUND, "Wraper object not correctly initialized");
+		}
+		
+		return containedFile.getContentLength();
+	}
+	
 	@Override
 	public void update(int offset, byte[] data) throws AccessDeniedException {
 		if (containedFile == null) {
@@ -124,6 +147,7 @@ public class ElementaryFileReadWriteCounterWrapper extends ElementaryFile implem
 		}
 		
 		containedFile.setShortFileIdentifier(shortFileIdentifier);
+		identifiersChanged();
 	}
 
 	@Override
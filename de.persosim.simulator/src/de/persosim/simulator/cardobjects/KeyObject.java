@@ -36,6 +36,7 @@ public abstract class KeyObject extends AbstractCardObject {
 	 */
 	public void addOidIdentifier(OidIdentifier oidIdentifier) {
 		furtherIdentifiers.add(oidIdentifier);
+		identifiersChanged();
 	}
 	
 	/**
@@ -44,6 +45,7 @@ public abstract class KeyObject extends AbstractCardObject {
 	 */
 	public void addFurtherIdentifiers(Collection<CardObjectIdentifier> cardObjectIdentifiers) {
 		furtherIdentifiers.addAll(cardObjectIdentifiers);
+		identifiersChanged();
 	}
 	
 	/**
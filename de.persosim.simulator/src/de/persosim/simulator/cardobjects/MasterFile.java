@@ -20,5 +20,6 @@ public class MasterFile extends DedicatedFile {
 	public void setIdentity(FileIdentifier identifier, DedicatedFileIdentifier name) {
 		fileIdentifier = identifier;
 		dedicatedFileName = name;
+		identifiersChanged();
 	}
 }
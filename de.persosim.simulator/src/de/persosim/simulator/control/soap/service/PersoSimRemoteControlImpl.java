@@ -26,7 +26,6 @@ import de.persosim.simulator.CommandParserResult;
 import de.persosim.simulator.PersoSim;
 import de.persosim.simulator.log.PersoSimLogTags;
 import de.persosim.simulator.perso.export.ProfileHelper;
-import de.persosim.simulator.preferences.PersoSimPreferenceManager;
 import de.persosim.simulator.utils.HexString;
 
 
@@ -48,8 +47,6 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 		String command = CommandParser.CMD_LOAD_PERSONALIZATION + " " + filePath;
 		log("Executing command: '" + command + "'", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.TRUE.toString());
-
 		String[] commands = CommandParser.parseCommand(command);
 
 		Path rootPathPersoFiles = ProfileHelper.getRootPathPersoFiles();
@@ -74,20 +71,17 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 			logException("Invalid file path: '" + filePath + "'", e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 			String resultMessage = "NOT OK. Perso '" + filePath + "' could not be loaded. Invalid file path: '" + filePath + "'.";
 			log(resultMessage, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
-			PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 			return createResult(1, resultMessage);
 		}
 
 		if (!Files.exists(pathPerso)) {
 			String resultMessage = "NOT OK. Perso '" + filePath + "' could not be loaded. File does not exist.";
 			log(resultMessage, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
-			PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 			return createResult(1, resultMessage);
 		}
 		if (Files.isDirectory(pathPerso)) {
 			String resultMessage = "NOT OK. Perso '" + filePath + "' could not be loaded. Path is a directory.";
 			log(resultMessage, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
-			PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 			return createResult(1, resultMessage);
 		}
 
@@ -106,7 +100,7 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 			}
 		}
 
-		PersoSim persoSim = de.persosim.simulator.Activator.getDefault().getSim();
+		PersoSim persoSim = getSim();
 		if (persoSim != null && !persoSim.isRunning()) {
 			persoSim.startSimulator();
 		}
@@ -126,7 +120,6 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 			log(resultMessage, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 		}
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 		return createResult(resultCode, resultMessage);
 	}
 
@@ -138,9 +131,7 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 		String command = CommandParser.CMD_SEND_APDU + " " + apduAsHexString;
 		log("Executing command: '" + command + "'", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.TRUE.toString());
-
-		PersoSim persoSim = de.persosim.simulator.Activator.getDefault().getSim();
+		PersoSim persoSim = getSim();
 		if (persoSim != null && !persoSim.isRunning()) {
 			persoSim.startSimulator();
 		}
@@ -165,7 +156,6 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 			log(resultMessage, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 		}
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 		return createResult(resultCode, resultMessage, resultAsHex, resultPrettyPrint);
 	}
 
@@ -176,9 +166,7 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 	{
 		log("Executing reset card", LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.TRUE.toString());
-
-		PersoSim persoSim = de.persosim.simulator.Activator.getDefault().getSim();
+		PersoSim persoSim = getSim();
 		int resultCode = 0;
 		String resultMessage = null;
 		String resultPrettyPrint = null;
@@ -195,10 +183,18 @@ public class PersoSimRemoteControlImpl extends AbstractRemoteControlHandler impl
 		}
 		log(resultMessage, LogLevel.INFO, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.PERSO_TAG_ID));
 
-		PersoSimPreferenceManager.storePreference("PREF_NON_INTERACTIVE", Boolean.FALSE.toString());
 		return createResult(resultCode, resultMessage, resultHex, resultPrettyPrint);
 	}
 
+	/**
+	 * @return the simulator of the running bundle or null if there is none
+	 */
+	private static PersoSim getSim()
+	{
+		de.persosim.simulator.Activator activator = de.persosim.simulator.Activator.getDefault();
+		return activator != null ? activator.getSim() : null;
+	}
+
 	@Override
 	public <T> T getAdapter(Class<T> c)
 	{
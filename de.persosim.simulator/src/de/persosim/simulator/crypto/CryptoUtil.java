@@ -49,6 +49,9 @@ public class CryptoUtil {
 	public static final BigInteger TWO = ONE.add(ONE);
 	public static final BigInteger THREE = TWO.add(ONE);
 	
+	public static final int DEFAULT_WNAF_WINDOW = 4;
+	public static final int MAX_WNAF_WINDOW = 8;
+	
 	public static final String CIPHER_DELIMITER = "/";
 	
 	public static final byte[] BITMASK            = new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x04, (byte) 0x08, (byte) 0x10, (byte) 0x20, (byte) 0x40, (byte) 0x80};
@@ -207,8 +210,29 @@ public class CryptoUtil {
 	}
 	
 	/**
-	 * This method performs EC scalar point multiplication using Double-and-add
-	 * method. For improved performance preferably use
+	 * This method performs EC scalar point multiplication with the provided
+	 * domain parameters. If the point to be multiplied is the generator of the
+	 * domain parameters, the precomputations provided by
+	 * {@link DomainParameterSetEcdh#getGeneratorTable()} are used.
+	 * @param domParams the domain parameters to be used
+	 * @param ecPointP the point to be multiplied
+	 * @param scalar the scalar multiplier
+	 * @return the multiplied EC point
+	 */
+	public static ECPoint scalarPointMultiplication(DomainParameterSetEcdh domParams, ECPoint ecPointP, BigInteger scalar) {
+		BigInteger reducedScalar = scalar.mod(domParams.getOrder());
+		
+		if (ecPointP.equals(domParams.getGenerator())) {
+			return domParams.getGeneratorTable().multiply(reducedScalar);
+		}
+		
+		return scalarPointMultiplication(domParams.getCurve(), ecPointP, reducedScalar);
+	}
+	
+	/**
+	 * This method performs EC scalar point multiplication using the width-w
+	 * NAF method with a window width of {@link #DEFAULT_WNAF_WINDOW}. For
+	 * improved performance preferably use
 	 * {@link #scalarPointMultiplication(EllipticCurve, BigInteger, ECPoint, BigInteger)}
 	 * or make sure the scalar you provide already is taken modulo the order of the
 	 * field (scalar.mod(order)).
@@ -222,6 +246,198 @@ public class CryptoUtil {
 	 * @return the multiplied EC point
 	 */
 	public static ECPoint scalarPointMultiplication(EllipticCurve curve, ECPoint ecPointP, BigInteger scalar) {
+		return scalarPointMultiplicationWnaf(curve, ecPointP, scalar, DEFAULT_WNAF_WINDOW);
+	}
+	
+	/**
+	 * This method performs EC scalar point multiplication using the width-w
+	 * NAF method. The odd multiples P, 3P, ..., (2^(w-1)-1)P are precomputed
+	 * once per call, so that on average only one point addition per w+1 bits
+	 * of the scalar is required instead of one per two bits needed by
+	 * Double-and-add.
+	 * <p/>
+	 * All intermediate results are kept in Jacobian coordinates (see
+	 * {@link JacobianPoint}) so that only a single modular inversion is
+	 * needed for converting the final result back to affine coordinates.
+	 * 
+	 * @param curve
+	 *            the elliptic curve to be used
+	 * @param ecPointP
+	 *            the point to be multiplied
+	 * @param scalar
+	 *            the scalar multiplier
+	 * @param window
+	 *            the window width w, must be between 2 and
+	 *            {@link #MAX_WNAF_WINDOW}
+	 * @return the multiplied EC point
+	 */
+	public static ECPoint scalarPointMultiplicationWnaf(EllipticCurve curve, ECPoint ecPointP, BigInteger scalar, int window) {
+		return multiScalarPointMultiplication(curve, new ECPoint[] {ecPointP}, new BigInteger[] {scalar}, window);
+	}
+	
+	/**
+	 * This method computes the sum k1*P1 + k2*P2 + ... + kn*Pn using
+	 * {@link #DEFAULT_WNAF_WINDOW} as window width.
+	 * 
+	 * @see #multiScalarPointMultiplication(EllipticCurve, ECPoint[], BigInteger[], int)
+	 * @param curve
+	 *            the elliptic curve to be used
+	 * @param ecPoints
+	 *            the points to be multiplied
+	 * @param scalars
+	 *            the scalar multipliers, one for each point
+	 * @return the sum of all multiplied EC points
+	 */
+	public static ECPoint multiScalarPointMultiplication(EllipticCurve curve, ECPoint[] ecPoints, BigInteger[] scalars) {
+		return multiScalarPointMultiplication(curve, ecPoints, scalars, DEFAULT_WNAF_WINDOW);
+	}
+	
+	/**
+	 * This method computes the sum k1*P1 + k2*P2 + ... + kn*Pn using
+	 * simultaneous multiplication (Straus/Shamir trick) with interleaved
+	 * width-w NAF representations of the scalars. All multiplications share a
+	 * single chain of point doublings, so the sum costs about as many
+	 * doublings as a single multiplication.
+	 * <p/>
+	 * Negative scalars are supported and result in multiplication of the
+	 * negated point.
+	 * 
+	 * @param curve
+	 *            the elliptic curve to be used
+	 * @param ecPoints
+	 *            the points to be multiplied
+	 * @param scalars
+	 *            the scalar multipliers, one for each point
+	 * @param window
+	 *            the window width w, must be between 2 and
+	 *            {@link #MAX_WNAF_WINDOW}
+	 * @return the sum of all multiplied EC points
+	 */
+	public static ECPoint multiScalarPointMultiplication(EllipticCurve curve, ECPoint[] ecPoints, BigInteger[] scalars, int window) {
+		if (ecPoints.length != scalars.length) {throw new IllegalArgumentException("number of points and scalars must match");}
+		if ((window < 2) || (window > MAX_WNAF_WINDOW)) {throw new IllegalArgumentException("window width must be between 2 and " + MAX_WNAF_WINDOW);}
+		
+		BigInteger p = ((ECFieldFp) curve.getField()).getP();
+		
+		JacobianPoint[][] oddMultiples = new JacobianPoint[ecPoints.length][];
+		byte[][] nafs = new byte[ecPoints.length][];
+		int maxLength = 0;
+		
+		for (int i = 0; i < ecPoints.length; i++) {
+			if (ecPoints[i].equals(ECPoint.POINT_INFINITY) || (scalars[i].signum() == 0)) {
+				nafs[i] = new byte[0];
+				continue;
+			}
+			
+			JacobianPoint point = JacobianPoint.fromAffine(ecPoints[i]);
+			if (scalars[i].signum() < 0) {
+				point = point.negate(p);
+			}
+			
+			oddMultiples[i] = computeOddMultiples(curve, point, window);
+			nafs[i] = computeWnaf(scalars[i].abs(), window);
+			maxLength = Math.max(maxLength, nafs[i].length);
+		}
+		
+		JacobianPoint pointR = JacobianPoint.INFINITY;
+		
+		for (int bit = maxLength - 1; bit >= 0; bit--) {
+			pointR = pointR.twice(curve);
+			
+			for (int i = 0; i < nafs.length; i++) {
+				if (bit >= nafs[i].length) {continue;}
+				
+				int digit = nafs[i][bit];
+				if (digit > 0) {
+					pointR = pointR.add(curve, oddMultiples[i][digit >> 1]);
+				} else if (digit < 0) {
+					pointR = pointR.add(curve, oddMultiples[i][(-digit) >> 1].negate(p));
+				}
+			}
+		}
+		
+		return pointR.toAffine(p);
+	}
+	
+	/**
+	 * This method computes the width-w NAF representation of a non-negative
+	 * scalar, i.e. the digits d_i with k = sum(d_i * 2^i) where each non-zero
+	 * digit is odd, |d_i| < 2^(w-1) and at most one of any w consecutive
+	 * digits is non-zero.
+	 * 
+	 * @param scalar the non-negative scalar
+	 * @param window the window width w
+	 * @return the digits of the width-w NAF, least significant digit first
+	 */
+	private static byte[] computeWnaf(BigInteger scalar, int window) {
+		byte[] naf = new byte[scalar.bitLength() + 1];
+		int modulus = 1 << window;
+		int length = 0;
+		
+		BigInteger remaining = scalar;
+		int position = 0;
+		while (remaining.signum() > 0) {
+			if (remaining.testBit(0)) {
+				int digit = remaining.intValue() & (modulus - 1);
+				if (digit >= (modulus >> 1)) {
+					digit -= modulus;
+				}
+				naf[position] = (byte) digit;
+				length = position + 1;
+				remaining = remaining.subtract(BigInteger.valueOf(digit));
+			}
+			
+			// the next w-1 digits are guaranteed to be zero
+			int shift = remaining.signum() > 0 ? Math.max(1, remaining.getLowestSetBit()) : 1;
+			remaining = remaining.shiftRight(shift);
+			position += shift;
+		}
+		
+		return Arrays.copyOf(naf, length);
+	}
+	
+	/**
+	 * This method computes the odd multiples P, 3P, 5P, ..., (2^(w-1)-1)P of
+	 * the provided point, normalized to Z = 1 so that they can be used in mixed
+	 * additions.
+	 * 
+	 * @param curve the elliptic curve to be used
+	 * @param point the point to be multiplied
+	 * @param window the window width w
+	 * @return the odd multiples, the entry at index i contains (2i+1)P
+	 */
+	private static JacobianPoint[] computeOddMultiples(EllipticCurve curve, JacobianPoint point, int window) {
+		JacobianPoint[] oddMultiples = new JacobianPoint[1 << (window - 2)];
+		oddMultiples[0] = point;
+		
+		if (oddMultiples.length > 1) {
+			JacobianPoint doubled = point.twice(curve);
+			for (int i = 1; i < oddMultiples.length; i++) {
+				oddMultiples[i] = oddMultiples[i - 1].add(curve, doubled);
+			}
+			JacobianPoint.normalize(oddMultiples, ((ECFieldFp) curve.getField()).getP());
+		}
+		
+		return oddMultiples;
+	}
+	
+	/**
+	 * This method performs EC scalar point multiplication using Double-and-add
+	 * method in affine coordinates, i.e. each point addition and doubling
+	 * requires a modular inversion. This is the straightforward reference
+	 * implementation of
+	 * {@link #scalarPointMultiplication(EllipticCurve, ECPoint, BigInteger)}
+	 * which should be preferred for all productive purposes.
+	 * 
+	 * @param curve
+	 *            the elliptic curve to be used
+	 * @param ecPointP
+	 *            the point to be multiplied
+	 * @param scalar
+	 *            the scalar multiplier
+	 * @return the multiplied EC point
+	 */
+	public static ECPoint scalarPointMultiplicationAffine(EllipticCurve curve, ECPoint ecPointP, BigInteger scalar) {
 		if (ecPointP.equals(ECPoint.POINT_INFINITY)) {return ecPointP;}
 		
 		ECPoint ecPointR = ECPoint.POINT_INFINITY;
@@ -560,10 +776,11 @@ public class CryptoUtil {
 			nrOfZeros = 0;
 		}
 		
-		byte[] paddingZeros = new byte[nrOfZeros];
-		Arrays.fill(paddingZeros, (byte) 0x00);
+		// the padding zeros are already provided by the newly allocated array
+		byte[] paddedData = Arrays.copyOf(unpaddedData, unpaddedData.length + 1 + nrOfZeros);
+		paddedData[unpaddedData.length] = (byte) 0x80;
 		
-		return Utils.concatByteArrays(unpaddedData, new byte[]{(byte) 0x80}, paddingZeros);
+		return paddedData;
 		
 	}
 	
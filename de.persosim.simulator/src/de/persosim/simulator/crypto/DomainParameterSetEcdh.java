@@ -46,6 +46,9 @@ public class DomainParameterSetEcdh implements DomainParameterSet, TlvConstants
 
 	protected ECParameterSpec ecParameterSpec;
 
+	// lazily created precomputations for multiples of the generator, not to be serialized
+	private transient volatile FixedBaseCombTable generatorTable;
+
 	public DomainParameterSetEcdh() {}
 
 	/**
@@ -192,7 +195,7 @@ public class DomainParameterSetEcdh implements DomainParameterSet, TlvConstants
 		BigInteger publicPointWx = publicPointW.getAffineX();
 		BigInteger publicPointWy = publicPointW.getAffineY();
 
-		ECPoint publicPointWmapped = CryptoUtil.scalarPointMultiplication(ec, getOrder(), gMapped, piccPrivateKeyD);
+		ECPoint publicPointWmapped = CryptoUtil.scalarPointMultiplication(this, gMapped, piccPrivateKeyD);
 
 		BigInteger publicPointWmappedX = publicPointWmapped.getAffineX();
 		BigInteger publicPointWmappedY = publicPointWmapped.getAffineY();
@@ -470,6 +473,20 @@ public class DomainParameterSetEcdh implements DomainParameterSet, TlvConstants
 		return ecParameterSpec.getGenerator();
 	}
 
+	/**
+	 * This method returns the precomputations for multiples of the generator.
+	 * They are created on first use and kept for the lifetime of this object.
+	 * @return the precomputations for multiples of the generator
+	 */
+	public FixedBaseCombTable getGeneratorTable() {
+		FixedBaseCombTable table = generatorTable;
+		if (table == null) {
+			table = new FixedBaseCombTable(getCurve(), getGenerator(), getOrder());
+			generatorTable = table;
+		}
+		return table;
+	}
+
 	@Override
 	public ECParameterSpec getKeySpec() {
 		return ecParameterSpec;
@@ -617,7 +634,7 @@ public class DomainParameterSetEcdh implements DomainParameterSet, TlvConstants
 	 * @return the public component
 	 */
 	public ECPoint computePublicPoint(BigInteger privateS) {
-		return CryptoUtil.scalarPointMultiplication(getCurve(), getGenerator(), privateS);
+		return CryptoUtil.scalarPointMultiplication(this, getGenerator(), privateS);
 	}
 
 	/**
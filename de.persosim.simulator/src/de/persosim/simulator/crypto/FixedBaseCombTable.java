@@ -0,0 +1,118 @@
+package de.persosim.simulator.crypto;
+
+import java.math.BigInteger;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+
+/**
+ * This class provides scalar multiplication of a fixed EC base point, e.g. the
+ * generator of a {@link DomainParameterSetEcdh}, using the (single table)
+ * comb method by Lim and Lee.
+ * <p/>
+ * For a comb of width w and a scalar of at most t bits the scalar is split
+ * into w rows of d = ceil(t/w) bits each. All 2^w - 1 combinations of the
+ * points 2^(j*d) * P (0 <= j < w) are precomputed once, so that each
+ * multiplication only needs d point doublings and at most d point additions
+ * instead of t doublings and t/2 additions required by double-and-add.
+ * <p/>
+ * The precomputed points are stored with Z = 1 so that all additions are mixed
+ * additions. Instances of this class are immutable and may be shared between
+ * threads.
+ */
+public class FixedBaseCombTable {
+
+	public static final int DEFAULT_WIDTH = 4;
+
+	private final EllipticCurve curve;
+	private final BigInteger p;
+	private final int width;
+	private final int spacing;
+	private final JacobianPoint[] table;
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * This constructor constructs a {@link FixedBaseCombTable} of {@link #DEFAULT_WIDTH}
+	 * @param curve the elliptic curve to be used
+	 * @param basePoint the fixed point to be multiplied
+	 * @param order the order of the base point
+	 */
+	public FixedBaseCombTable(EllipticCurve curve, ECPoint basePoint, BigInteger order) {
+		this(curve, basePoint, order, DEFAULT_WIDTH);
+	}
+
+	/**
+	 * This constructor constructs a {@link FixedBaseCombTable} and performs all precomputations
+	 * @param curve the elliptic curve to be used
+	 * @param basePoint the fixed point to be multiplied
+	 * @param order the order of the base point
+	 * @param width the width w of the comb, the table contains 2^w points
+	 */
+	public FixedBaseCombTable(EllipticCurve curve, ECPoint basePoint, BigInteger order, int width) {
+		if ((width < 1) || (width > 8)) {throw new IllegalArgumentException("comb width must be between 1 and 8");}
+		if (basePoint.equals(ECPoint.POINT_INFINITY)) {throw new IllegalArgumentException("base point must not be the point at infinity");}
+
+		this.curve = curve;
+		this.p = ((ECFieldFp) curve.getField()).getP();
+		this.width = width;
+		this.spacing = (order.bitLength() + width - 1) / width;
+
+		// rowBasePoints[j] = 2^(j*d) * P
+		JacobianPoint[] rowBasePoints = new JacobianPoint[width];
+		JacobianPoint current = JacobianPoint.fromAffine(basePoint);
+		for (int j = 0; j < width; j++) {
+			rowBasePoints[j] = current;
+			for (int i = 0; i < spacing; i++) {
+				current = current.twice(curve);
+			}
+		}
+
+		// table[i] = sum of all rowBasePoints[j] with bit j set in i
+		table = new JacobianPoint[1 << width];
+		table[0] = JacobianPoint.INFINITY;
+		for (int i = 1; i < table.length; i++) {
+			int lowestBit = Integer.numberOfTrailingZeros(i);
+			table[i] = table[i & (i - 1)].add(curve, rowBasePoints[lowestBit]);
+		}
+		JacobianPoint.normalize(table, p);
+	}
+
+	/**
+	 * This method performs EC scalar point multiplication of the base point.
+	 * @param scalar the scalar multiplier, must be non-negative and not exceed the bit length of the order
+	 * @return the multiplied EC point
+	 */
+	public ECPoint multiply(BigInteger scalar) {
+		if (scalar.signum() < 0) {throw new IllegalArgumentException("scalar must not be negative");}
+		if (scalar.bitLength() > (spacing * width)) {throw new IllegalArgumentException("scalar must not be larger than the order");}
+
+		JacobianPoint result = JacobianPoint.INFINITY;
+
+		for (int column = spacing - 1; column >= 0; column--) {
+			result = result.twice(curve);
+
+			int index = 0;
+			for (int row = width - 1; row >= 0; row--) {
+				index <<= 1;
+				if (scalar.testBit((row * spacing) + column)) {
+					index |= 1;
+				}
+			}
+
+			if (index != 0) {
+				result = result.add(curve, table[index]);
+			}
+		}
+
+		return result.toAffine(p);
+	}
+
+	/**
+	 * @return the width w of the comb
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+}
@@ -0,0 +1,224 @@
+package de.persosim.simulator.crypto;
+
+import java.math.BigInteger;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+
+/**
+ * This class represents a point on an elliptic curve over a prime field in
+ * Jacobian projective coordinates (X, Y, Z), i.e. the affine point (X/Z^2,
+ * Y/Z^3). The point at infinity is represented by Z = 0.
+ * <p/>
+ * Point addition and doubling in Jacobian coordinates do not require any
+ * modular inversion. Only the final conversion back to affine coordinates
+ * (see {@link #toAffine(BigInteger)}) needs a single inversion, which makes
+ * this representation well suited for scalar point multiplication.
+ * <p/>
+ * Instances of this class are immutable.
+ */
+public final class JacobianPoint {
+
+	public static final JacobianPoint INFINITY = new JacobianPoint(BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO);
+
+	private final BigInteger x;
+	private final BigInteger y;
+	private final BigInteger z;
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * This constructor constructs a {@link JacobianPoint} from its projective coordinates
+	 * @param x the projective X-coordinate
+	 * @param y the projective Y-coordinate
+	 * @param z the projective Z-coordinate
+	 */
+	public JacobianPoint(BigInteger x, BigInteger y, BigInteger z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * This method returns the Jacobian representation (X, Y, 1) of the provided affine point.
+	 * @param ecPoint the affine point
+	 * @return the Jacobian representation of the provided point
+	 */
+	public static JacobianPoint fromAffine(ECPoint ecPoint) {
+		if (ecPoint.equals(ECPoint.POINT_INFINITY)) {return INFINITY;}
+
+		return new JacobianPoint(ecPoint.getAffineX(), ecPoint.getAffineY(), BigInteger.ONE);
+	}
+
+	/**
+	 * This method converts this point to affine coordinates. This requires a single modular inversion.
+	 * @param p the prime used by the curve
+	 * @return the affine representation of this point
+	 */
+	public ECPoint toAffine(BigInteger p) {
+		if (isInfinity()) {return ECPoint.POINT_INFINITY;}
+
+		BigInteger zInv = z.modInverse(p);
+		BigInteger zInv2 = zInv.multiply(zInv).mod(p);
+		BigInteger zInv3 = zInv2.multiply(zInv).mod(p);
+
+		return new ECPoint(x.multiply(zInv2).mod(p), y.multiply(zInv3).mod(p));
+	}
+
+	/**
+	 * This method converts all provided points to the equivalent Jacobian
+	 * representation with Z = 1. All required inversions are combined into a
+	 * single modular inversion (Montgomery's trick). The point at infinity is
+	 * kept as is.
+	 * 
+	 * @param points the points to be normalized, the array is updated in place
+	 * @param p the prime used by the curve
+	 */
+	public static void normalize(JacobianPoint[] points, BigInteger p) {
+		// products[i] = product of all Z-coordinates of points[0..i] not at infinity
+		BigInteger[] products = new BigInteger[points.length];
+		BigInteger product = BigInteger.ONE;
+		for (int i = 0; i < points.length; i++) {
+			if (!points[i].isInfinity()) {
+				product = product.multiply(points[i].z).mod(p);
+			}
+			products[i] = product;
+		}
+
+		BigInteger inverse = product.modInverse(p);
+
+		for (int i = points.length - 1; i >= 0; i--) {
+			JacobianPoint current = points[i];
+			if (current.isInfinity()) {
+				continue;
+			}
+
+			BigInteger previousProduct = (i > 0) ? products[i - 1] : BigInteger.ONE;
+			BigInteger zInv = inverse.multiply(previousProduct).mod(p);
+			inverse = inverse.multiply(current.z).mod(p);
+
+			BigInteger zInv2 = zInv.multiply(zInv).mod(p);
+			BigInteger zInv3 = zInv2.multiply(zInv).mod(p);
+			points[i] = new JacobianPoint(current.x.multiply(zInv2).mod(p), current.y.multiply(zInv3).mod(p), BigInteger.ONE);
+		}
+	}
+
+	/**
+	 * @return true iff this point is the point at infinity
+	 */
+	public boolean isInfinity() {
+		return z.signum() == 0;
+	}
+
+	/**
+	 * This method returns the additive inverse -P = (X, -Y, Z) of this point.
+	 * @param p the prime used by the curve
+	 * @return the negated point
+	 */
+	public JacobianPoint negate(BigInteger p) {
+		if (isInfinity()) {return this;}
+
+		return new JacobianPoint(x, p.subtract(y).mod(p), z);
+	}
+
+	/**
+	 * This method performs EC point doubling in Jacobian coordinates.
+	 * @param curve the elliptic curve to be used
+	 * @return the result of the point doubling
+	 */
+	public JacobianPoint twice(EllipticCurve curve) {
+		if (isInfinity() || (y.signum() == 0)) {return INFINITY;}
+
+		BigInteger p = ((ECFieldFp) curve.getField()).getP();
+
+		BigInteger yy = y.multiply(y).mod(p);
+		BigInteger zz = z.multiply(z).mod(p);
+
+		// S = 4 * X * Y^2
+		BigInteger s = x.multiply(yy).shiftLeft(2).mod(p);
+		// M = 3 * X^2 + a * Z^4
+		BigInteger m = x.multiply(x).multiply(CryptoUtil.THREE).add(curve.getA().multiply(zz.multiply(zz).mod(p))).mod(p);
+
+		BigInteger xr = m.multiply(m).subtract(s.shiftLeft(1)).mod(p);
+		BigInteger yr = m.multiply(s.subtract(xr)).subtract(yy.multiply(yy).shiftLeft(3)).mod(p);
+		BigInteger zr = y.multiply(z).shiftLeft(1).mod(p);
+
+		return new JacobianPoint(xr, yr, zr);
+	}
+
+	/**
+	 * This method performs EC point addition in Jacobian coordinates. If
+	 * either of the points has Z = 1 the corresponding multiplications are
+	 * skipped (mixed addition).
+	 *
+	 * @param curve the elliptic curve to be used
+	 * @param other the point to be added to this point
+	 * @return the result of the point addition
+	 */
+	public JacobianPoint add(EllipticCurve curve, JacobianPoint other) {
+		if (isInfinity()) {return other;}
+		if (other.isInfinity()) {return this;}
+
+		BigInteger p = ((ECFieldFp) curve.getField()).getP();
+
+		BigInteger u1 = x;
+		BigInteger s1 = y;
+		if (!other.z.equals(BigInteger.ONE)) {
+			BigInteger z2z2 = other.z.multiply(other.z).mod(p);
+			u1 = x.multiply(z2z2).mod(p);
+			s1 = y.multiply(other.z).multiply(z2z2).mod(p);
+		}
+
+		BigInteger u2 = other.x;
+		BigInteger s2 = other.y;
+		if (!z.equals(BigInteger.ONE)) {
+			BigInteger z1z1 = z.multiply(z).mod(p);
+			u2 = other.x.multiply(z1z1).mod(p);
+			s2 = other.y.multiply(z).multiply(z1z1).mod(p);
+		}
+
+		BigInteger h = u2.subtract(u1).mod(p);
+		BigInteger r = s2.subtract(s1).mod(p);
+
+		if (h.signum() == 0) {
+			if (r.signum() == 0) {
+				// both points are identical
+				return twice(curve);
+			}
+			// points are inverse to each other
+			return INFINITY;
+		}
+
+		BigInteger hh = h.multiply(h).mod(p);
+		BigInteger hhh = hh.multiply(h).mod(p);
+		BigInteger v = u1.multiply(hh).mod(p);
+
+		BigInteger xr = r.multiply(r).subtract(hhh).subtract(v.shiftLeft(1)).mod(p);
+		BigInteger yr = r.multiply(v.subtract(xr)).subtract(s1.multiply(hhh)).mod(p);
+		BigInteger zr = h.multiply(z).multiply(other.z).mod(p);
+
+		return new JacobianPoint(xr, yr, zr);
+	}
+
+	/**
+	 * @return the projective X-coordinate
+	 */
+	public BigInteger getX() {
+		return x;
+	}
+
+	/**
+	 * @return the projective Y-coordinate
+	 */
+	public BigInteger getY() {
+		return y;
+	}
+
+	/**
+	 * @return the projective Z-coordinate
+	 */
+	public BigInteger getZ() {
+		return z;
+	}
+
+}
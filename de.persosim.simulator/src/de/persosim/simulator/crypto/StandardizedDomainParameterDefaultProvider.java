@@ -6,6 +6,8 @@ import java.security.spec.ECPoint;
 import java.security.spec.EllipticCurve;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StandardizedDomainParameterDefaultProvider implements
 		StandardizedDomainParameterProvider {
@@ -107,6 +109,8 @@ public class StandardizedDomainParameterDefaultProvider implements
 	static final BigInteger P521_H = new BigInteger("01",16);
 	// END ECDH
 
+	private final Map<Integer, DomainParameterSet> domainParameterSets = new ConcurrentHashMap<>();
+
 	/*--------------------------------------------------------------------------------*/
 	
 	@Override
@@ -120,6 +124,16 @@ public class StandardizedDomainParameterDefaultProvider implements
 
 	@Override
 	public DomainParameterSet getDomainParameterSet(int id) {
+		// domain parameter sets are immutable, sharing them allows reuse of their lazily created precomputations
+		return domainParameterSets.computeIfAbsent(id, this::createDomainParameterSet);
+	}
+	
+	/**
+	 * This method creates the standardized domain parameter set with the provided id.
+	 * @param id the id of the standardized domain parameters
+	 * @return the domain parameter set or null if the id is not supported
+	 */
+	private DomainParameterSet createDomainParameterSet(int id) {
 		switch(id){
 			case 8:
 				return new DomainParameterSetEcdh(generateCurveFrom(P192_P, P192_A, P192_B), new ECPoint(P192_X, P192_Y), P192_Q, P192_H.intValue());
@@ -14,6 +14,7 @@ import org.globaltester.lib.xstream.XstreamFactory;
 import org.globaltester.logging.BasicLogger;
 import org.globaltester.logging.tags.LogLevel;
 import org.globaltester.logging.tags.LogTag;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 
@@ -35,12 +36,24 @@ import de.persosim.simulator.perso.xstream.TlvConverter;
 
 /**
  * This class provides methods that serializes/deserializes personalization objects
+ * <p/>
+ * The configured {@link XStream} instances are cached and shared between all
+ * calls. They are only rebuilt if the set of {@link Converter} services
+ * provided by the OSGi framework changes.
  *
  * @author jgoeke
  *
  */
 public class PersonalizationFactory
 {
+	private static final Object LOCK = new Object();
+
+	private static BundleContext converterTrackerContext;
+	private static ServiceTracker<Converter, Converter> converterTracker;
+
+	private static CachedXStream unmarshallingXStream;
+	private static CachedXStream marshallingXStream;
+
 	private PersonalizationFactory()
 	{
 		// hide implicit public constructor
@@ -59,11 +72,13 @@ public class PersonalizationFactory
 		if (pers == null) {
 			throw new NullPointerException("Personalization object is null!");
 		}
-		XStream xstream = getXStream();
-		xstream.autodetectAnnotations(true);
+		XStream xstream = getXStream(true);
 
 		StringWriter xmlWriter = new StringWriter();
-		xstream.toXML(pers, xmlWriter);
+		// annotation autodetection is not thread-safe, so marshalling calls are serialized
+		synchronized (xstream) {
+			xstream.toXML(pers, xmlWriter);
+		}
 
 		// IMPL find a alternative to suppress the class attribute, created by xStream, if element is a type of Key
 		String xmlRepresentation = xmlWriter.toString();
@@ -112,7 +127,7 @@ public class PersonalizationFactory
 		if (reader == null) {
 			throw new NullPointerException("Reader object is null!");
 		}
-		XStream xstream = getXStream();
+		XStream xstream = getXStream(false);
 		return xstream.fromXML(reader);
 	}
 
@@ -133,12 +148,84 @@ public class PersonalizationFactory
 		return unmarshal(new FileReader(path));
 	}
 
+	/**
+	 * This method returns the cached xStream object for the requested purpose.
+	 * A new object is created if none is cached yet or if the converter
+	 * services changed since the cached object was created.
+	 *
+	 * @param autodetectAnnotations
+	 *            true for an xStream object used for marshalling, which
+	 *            processes annotations of the marshalled classes
+	 * @return a xStream object
+	 */
+	static XStream getXStream(boolean autodetectAnnotations)
+	{
+		synchronized (LOCK) {
+			ServiceTracker<Converter, Converter> tracker = getConverterTracker();
+			int trackingCount = tracker != null ? tracker.getTrackingCount() : -1;
+
+			CachedXStream cached = autodetectAnnotations ? marshallingXStream : unmarshallingXStream;
+			if (cached == null || cached.trackingCount != trackingCount) {
+				XStream xstream = createXStream(tracker);
+				if (autodetectAnnotations) {
+					xstream.autodetectAnnotations(true);
+				}
+				cached = new CachedXStream(xstream, trackingCount);
+
+				if (autodetectAnnotations) {
+					marshallingXStream = cached;
+				}
+				else {
+					unmarshallingXStream = cached;
+				}
+			}
+			return cached.xstream;
+		}
+	}
+
+	/**
+	 * This method returns the {@link ServiceTracker} for {@link Converter}
+	 * services of the current bundle context. The tracker is (re)opened if
+	 * the bundle context changed, e.g. after the bundle has been restarted.
+	 * Must be called while holding {@link #LOCK}.
+	 *
+	 * @return the opened tracker or null if no bundle context is available
+	 */
+	private static ServiceTracker<Converter, Converter> getConverterTracker()
+	{
+		BundleContext context = Activator.getContext();
+		if (context != converterTrackerContext) {
+			if (converterTracker != null) {
+				try {
+					converterTracker.close();
+				}
+				catch (IllegalStateException e) {
+					// the previous bundle context is no longer valid, nothing to close
+				}
+			}
+
+			converterTrackerContext = context;
+			converterTracker = null;
+			if (context != null) {
+				converterTracker = new ServiceTracker<>(context, Converter.class.getName(), null);
+				converterTracker.open();
+			}
+
+			// the cached objects use converters of the previous context
+			unmarshallingXStream = null;
+			marshallingXStream = null;
+		}
+		return converterTracker;
+	}
+
 	/**
 	 * This method creates a xStream object with all necessary configuration
 	 *
+	 * @param tracker
+	 *            the tracker providing the converter services, may be null
 	 * @return a xStream object
 	 */
-	private static XStream getXStream()
+	private static XStream createXStream(ServiceTracker<Converter, Converter> tracker)
 	{
 		DomDriver domDriver = new DomDriver("UTF-8");
 		ShouldSerializeMemberImpl ssm = new ShouldSerializeMemberImpl();
@@ -159,15 +246,17 @@ public class PersonalizationFactory
 		xstream.registerConverter(new CommandProcessorConverter());
 
 		// get converters as services
-		if (Activator.getContext() != null) {
-			ServiceTracker<Converter, Converter> serviceTracker = new ServiceTracker<>(Activator.getContext(), Converter.class.getName(), null);
-			serviceTracker.open();
-			ServiceReference<Converter>[] allServiceReferences = serviceTracker.getServiceReferences();
+		if (tracker != null) {
+			ServiceReference<Converter>[] allServiceReferences = tracker.getServiceReferences();
 			StringBuilder availableConverters = new StringBuilder();
 			availableConverters.append("Available xstream converter services:");
 			if (allServiceReferences != null) {
 				for (ServiceReference<Converter> serviceReference : allServiceReferences) {
-					Converter service = serviceTracker.getService(serviceReference);
+					Converter service = tracker.getService(serviceReference);
+					if (service == null) {
+						// service has been unregistered meanwhile
+						continue;
+					}
 					availableConverters.append("\n " + service.getClass() + " from bundle: " + serviceReference.getBundle().getSymbolicName());
 					((CompositeClassLoader) xstream.getClassLoader()).add(service.getClass().getClassLoader());
 					xstream.registerConverter(service, 10);
@@ -176,7 +265,6 @@ public class PersonalizationFactory
 			else {
 				availableConverters.append(" none");
 			}
-			serviceTracker.close();
 
 			BasicLogger.log(availableConverters.toString(), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
 		}
@@ -186,4 +274,20 @@ public class PersonalizationFactory
 
 		return xstream;
 	}
+
+	/**
+	 * This class holds a configured xStream object together with the tracking
+	 * count of the converter services it has been created with.
+	 */
+	private static final class CachedXStream
+	{
+		private final XStream xstream;
+		private final int trackingCount;
+
+		private CachedXStream(XStream xstream, int trackingCount)
+		{
+			this.xstream = xstream;
+			this.trackingCount = trackingCount;
+		}
+	}
 }
@@ -76,17 +76,19 @@ public class CommandProcessorConverter implements Converter {
 
 	@Override
 	public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+		// collect the values within a fresh instance as converters are shared between calls of a cached XStream
+		CommandProcessorConverter values = new CommandProcessorConverter();
 		if (reader.getNodeName().toLowerCase().endsWith("commandprocessor")) {
-			getValuesFromXML(reader, context);
+			values.getValuesFromXML(reader, context);
 		}
 
-		if (masterFile == null || protocols == null) {
+		if (values.masterFile == null || values.protocols == null) {
 			String message = "can not create CommandProcessor object, unmarshal failed!";
 			log(getClass(), message, LogLevel.ERROR);
 			throw new XStreamException(message);
 		}
 		try {
-			return new CommandProcessor(protocols, masterFile);
+			return new CommandProcessor(values.protocols, values.masterFile);
 		} catch (AccessDeniedException e) {
 			String message = "can not create CommandProcessor object, unmarshal failed!";
 			log(getClass(), message, LogLevel.ERROR);
@@ -91,15 +91,17 @@ public class ECParameterSpecConverter implements Converter {
 	public Object unmarshal(HierarchicalStreamReader reader,
 			UnmarshallingContext context) {
 		
+		// collect the values within a fresh instance as converters are shared between calls of a cached XStream
+		ECParameterSpecConverter values = new ECParameterSpecConverter();
 		if (reader.getNodeName().toLowerCase().endsWith("ecparameterspec")) {
-			getValuesFromXML(reader, context);
+			values.getValuesFromXML(reader, context);
 		}
 
-		if(point == null || curve == null || n == null) {
+		if(values.point == null || values.curve == null || values.n == null) {
 			String message = "can not create ParameterSpec object, unmarshal failed!";
 			log(getClass(), message, LogLevel.ERROR);
 			throw new XStreamException (message);
 		}
-		return new ECParameterSpec(curve, point, n, h);
+		return new ECParameterSpec(values.curve, values.point, values.n, values.h);
 	}
 }
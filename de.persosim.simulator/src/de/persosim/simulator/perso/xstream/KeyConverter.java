@@ -95,7 +95,13 @@ public class KeyConverter implements Converter
 		PrivateKey sk = null;
 		PublicKey pk = null;
 
-		getValuesFromXML(reader, context);
+		// collect the values within a fresh instance as converters are shared between calls of a cached XStream
+		KeyConverter values = new KeyConverter();
+		values.getValuesFromXML(reader, context);
+
+		String keyType = values.keyType;
+		String algorithmValue = values.algorithmValue;
+		String byteValue = values.byteValue;
 
 		if (byteValue == null || algorithmValue == null || algorithmValue.equals("") || byteValue.equals("")) {
 			log("can not create " + keyType + " object, unmarshal failed", LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.SYSTEM_TAG_ID));
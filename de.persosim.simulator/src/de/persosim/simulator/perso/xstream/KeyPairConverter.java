@@ -71,16 +71,18 @@ public class KeyPairConverter implements Converter {
 	public Object unmarshal(HierarchicalStreamReader reader,
 			UnmarshallingContext context) {
 
+		// collect the values within a fresh instance as converters are shared between calls of a cached XStream
+		KeyPairConverter values = new KeyPairConverter();
 		if (reader.getNodeName().toLowerCase().endsWith("keypair")) {
-			getValuesFromXML (reader, context);
+			values.getValuesFromXML (reader, context);
 		}
 		
-		if (pk == null || sk == null) {
+		if (values.pk == null || values.sk == null) {
 			String message = "can not create keypair object, unmarshal failed!";
 			log(getClass(), message, LogLevel.ERROR);
 			throw new XStreamException (message);
 		}
-		return new KeyPair(pk, sk);
+		return new KeyPair(values.pk, values.sk);
 	}
 
 }
@@ -10,6 +10,7 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 
 import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.statemachine.StateMachine;
 
 /**
  * This class is a converter which is responsible for serializing/deserializing all kind of protocol objects.
@@ -39,7 +40,12 @@ public class ProtocolConverter implements Converter {
 			if (!Protocol.class.isAssignableFrom(protocol)){
 				throw new XStreamException("Class " + protocol + " is not assignable to " + Protocol.class);
 			}
-			return protocol.getDeclaredConstructor().newInstance();
+			Object protocolInstance = protocol.getDeclaredConstructor().newInstance();
+			if (protocolInstance instanceof StateMachine) {
+				// initialize right after construction as required by StateMachine
+				((StateMachine) protocolInstance).init();
+			}
+			return protocolInstance;
 		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
 			throw new XStreamException (protocolName + " is unknown, unmarshaling failed!");
 		}
@@ -4,6 +4,7 @@ import static org.globaltester.logging.BasicLogger.log;
 import static org.globaltester.logging.BasicLogger.logException;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -131,6 +132,7 @@ public abstract class AbstractCommandProcessor extends Layer implements CardStat
 	public void addProtocol(Protocol newProtocol)
 	{
 		protocols.add(newProtocol);
+		protocolDispatchIndex = null;
 	}
 
 	// --------------------------------------------------------
@@ -176,6 +178,16 @@ public abstract class AbstractCommandProcessor extends Layer implements CardStat
 	 */
 	protected transient int protocolPointer;
 
+	/**
+	 * the protocols (as indices into {@link #protocols}) to be consulted for
+	 * the current APDU, null if all protocols need to be consulted
+	 */
+	private transient BitSet protocolCandidates;
+
+	private transient ProtocolDispatchIndex protocolDispatchIndex;
+
+	private transient boolean linearProtocolDispatch;
+
 	public void setStackPointerToBottom()
 	{
 		this.stackPointer = 0;
@@ -309,7 +321,8 @@ public abstract class AbstractCommandProcessor extends Layer implements CardStat
 	 */
 	public void setProtocolPointerToFirstElementOfProtocolList()
 	{
-		protocolPointer = 0;
+		protocolCandidates = getProtocolCandidates();
+		protocolPointer = nextProtocolCandidate(0);
 	}
 
 	/**
@@ -320,7 +333,80 @@ public abstract class AbstractCommandProcessor extends Layer implements CardStat
 	 */
 	public void setProtocolPointerToNextElementOfProtocolList()
 	{
-		protocolPointer++;
+		protocolPointer = nextProtocolCandidate(protocolPointer + 1);
+	}
+
+	/**
+	 * Returns the protocols of the {@link #protocols protocol list} that need
+	 * to be consulted for the current APDU, i.e. the candidates provided by the
+	 * {@link ProtocolDispatchIndex} and all protocols referenced from the
+	 * {@link #protocolStack}.
+	 *
+	 * @return the candidate protocols as indices into the protocol list or
+	 *         null if all protocols need to be consulted
+	 */
+	private BitSet getProtocolCandidates()
+	{
+		if (linearProtocolDispatch || processingData.isReportingError() || processingData.getCommandApdu() == null) {
+			return null;
+		}
+
+		if (protocolDispatchIndex == null || !protocolDispatchIndex.isIndexOf(protocols)) {
+			protocolDispatchIndex = new ProtocolDispatchIndex(protocols);
+		}
+
+		BitSet candidates = protocolDispatchIndex.getCandidates(processingData.getCommandApdu());
+
+		// protocols on the stack are reset when consulted from the list, so they are always candidates
+		for (Protocol protocol : protocolStack) {
+			for (int i = 0; i < protocols.size(); i++) {
+				if (protocols.get(i) == protocol) {
+					candidates.set(i);
+				}
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Returns the index of the first candidate protocol at or after the given
+	 * index. If no further candidate exists, the size of the protocol list is
+	 * returned.
+	 * <p/>
+	 * If the last protocol of the list is skipped, it is made the currently
+	 * active protocol nonetheless, so that the security status is the same as
+	 * if all protocols had been consulted.
+	 */
+	private int nextProtocolCandidate(int fromIndex)
+	{
+		if (protocolCandidates == null) {
+			return fromIndex;
+		}
+
+		int next = protocolCandidates.nextSetBit(fromIndex);
+		if (next >= 0 && next < protocols.size()) {
+			return next;
+		}
+
+		int last = protocols.size() - 1;
+		if (last >= fromIndex) {
+			setCurrentlyActiveProtocol(protocols.get(last));
+		}
+		return protocols.size();
+	}
+
+	/**
+	 * Disables or enables the preselection of protocols by INS byte (see
+	 * {@link ProtocolDispatchIndex}). If disabled, all protocols of the
+	 * {@link #protocols protocol list} are consulted for every APDU.
+	 *
+	 * @param linearProtocolDispatch
+	 *            whether all protocols are consulted for every APDU
+	 */
+	void setLinearProtocolDispatch(boolean linearProtocolDispatch)
+	{
+		this.linearProtocolDispatch = linearProtocolDispatch;
 	}
 
 	/**
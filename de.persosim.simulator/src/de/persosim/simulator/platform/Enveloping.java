@@ -1,5 +1,6 @@
 package de.persosim.simulator.platform;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 
 import de.persosim.simulator.apdu.CommandApdu;
@@ -18,8 +19,11 @@ public class Enveloping extends Layer{
 		IDLE, RECEIVING_COMMANDS, LAST_COMMAND, FIRST_RESPONSE, RESPONDING
 	}
 
-	private byte [] currentCommandApduData = null;
-	private byte [] currentResponseApduData = null;
+	/* collects the command data of all ENVELOPE commands of the current chain */
+	private transient ByteArrayOutputStream currentCommandApduData = null;
+	/* the response data is not shortened on GET RESPONSE, instead the offset of the remaining data is moved */
+	private transient byte [] currentResponseApduData = null;
+	private transient int currentResponseApduDataOffset = 0;
 	
 	int neFromLastChainElement = 0;
 	
@@ -27,8 +31,8 @@ public class Enveloping extends Layer{
 		
 	@Override
 	public void initializeForUse() {
-		currentCommandApduData = new byte [0];
-		currentResponseApduData = new byte [0];
+		currentCommandApduData = new ByteArrayOutputStream();
+		setCurrentResponseApduData(new byte [0]);
 	}
 
 	@Override
@@ -57,18 +61,16 @@ public class Enveloping extends Layer{
 		if (currentState == State.FIRST_RESPONSE || currentState == State.RESPONDING) {
 			int neToUse = processingData.getCommandApdu().getNe();
 			
-			int bytesToSend = neToUse;
-			if (processingData.getCommandApdu().isNeZeroEncoded() && currentResponseApduData.length <= neToUse) {
-				bytesToSend = currentResponseApduData.length;
-			}
+			int bytesToSend = Math.min(neToUse, getRemainingResponseApduDataLength());
 			
-			byte [] portionToSend = Arrays.copyOfRange(currentResponseApduData, 0, bytesToSend);
-			currentResponseApduData = Arrays.copyOfRange(currentResponseApduData, bytesToSend, currentResponseApduData.length);
+			byte [] portionToSend = Arrays.copyOfRange(currentResponseApduData, currentResponseApduDataOffset, currentResponseApduDataOffset + bytesToSend);
+			currentResponseApduDataOffset += bytesToSend;
 			
+			int remainingLength = getRemainingResponseApduDataLength();
 			short sw;
-			if (currentResponseApduData.length > 0) {
+			if (remainingLength > 0) {
 				currentState = State.RESPONDING;
-				sw = Utils.concatenate((byte)0x61, (byte)(currentResponseApduData.length > 255 ? 0 : currentResponseApduData.length));
+				sw = Utils.concatenate((byte)0x61, (byte)(remainingLength > 255 ? 0 : remainingLength));
 			} else {
 				sw = Iso7816.SW_9000_NO_ERROR;
 				reset();
@@ -99,24 +101,51 @@ public class Enveloping extends Layer{
 		}
 		
 		if (currentState == State.RECEIVING_COMMANDS) {
-			currentCommandApduData = Utils.concatByteArrays(currentCommandApduData, processingData.getCommandApdu().getCommandData().toByteArray());
+			appendCommandApduData(processingData.getCommandApdu().getCommandData().toByteArray());
 			processingData.updateResponseAPDU(this, "C-PR successfully processed so far", new ResponseApdu(SW_9000_NO_ERROR));
 			return false;
 		}
 		
 		if (currentState == State.LAST_COMMAND) {
-			currentCommandApduData = Utils.concatByteArrays(currentCommandApduData, processingData.getCommandApdu().getCommandData().toByteArray());
-			currentResponseApduData = new byte [0];
-			processingData.updateCommandApdu(this, "Completed chained command apdu", CommandApduFactory.createCommandApdu(currentCommandApduData, processingData.getCommandApdu()));
+			appendCommandApduData(processingData.getCommandApdu().getCommandData().toByteArray());
+			setCurrentResponseApduData(new byte [0]);
+			processingData.updateCommandApdu(this, "Completed chained command apdu", CommandApduFactory.createCommandApdu(currentCommandApduData.toByteArray(), processingData.getCommandApdu()));
 			return true;
 		}
 		
 		return true;
 	}
 
+	/**
+	 * This method appends the provided data to the command data of the current chain.
+	 * @param data the command data of a single ENVELOPE command
+	 */
+	private void appendCommandApduData(byte [] data) {
+		if (currentCommandApduData == null) {
+			currentCommandApduData = new ByteArrayOutputStream();
+		}
+		currentCommandApduData.write(data, 0, data.length);
+	}
+
+	/**
+	 * This method sets the response data to be returned by GET RESPONSE commands.
+	 * @param data the complete response data
+	 */
+	private void setCurrentResponseApduData(byte [] data) {
+		currentResponseApduData = data;
+		currentResponseApduDataOffset = 0;
+	}
+
+	/**
+	 * @return the number of bytes of the response data not yet returned by GET RESPONSE commands
+	 */
+	private int getRemainingResponseApduDataLength() {
+		return currentResponseApduData.length - currentResponseApduDataOffset;
+	}
+
 	private void reset() {
 		currentCommandApduData = null;
-		currentResponseApduData = null;
+		setCurrentResponseApduData(null);
 		currentState = State.IDLE;
 	}
 
@@ -131,16 +160,16 @@ public class Enveloping extends Layer{
 		}
 		
 		if (currentState == State.LAST_COMMAND) {
-			currentResponseApduData = processingData.getResponseApdu().getData() != null ? processingData.getResponseApdu().getData().toByteArray() : new byte [0];
-			currentResponseApduData = Utils.concatByteArrays(currentResponseApduData, Utils.toUnsignedByteArray(processingData.getResponseApdu().getStatusWord()));
+			byte [] responseData = processingData.getResponseApdu().getData() != null ? processingData.getResponseApdu().getData().toByteArray() : new byte [0];
+			setCurrentResponseApduData(Utils.concatByteArrays(responseData, Utils.toUnsignedByteArray(processingData.getResponseApdu().getStatusWord())));
 			processingData.updateResponseAPDU(this, "Replaced response apdu, " + currentResponseApduData.length + " bytes response data", new ResponseApdu(Utils.concatenate((byte) 0x61, (byte) (currentResponseApduData.length > 255 ? 0 : (byte) currentResponseApduData.length))));
 			currentState = State.FIRST_RESPONSE;
 			return;
 		}
 
 		if (currentState == State.FIRST_RESPONSE) {
-			currentCommandApduData = new byte [0];
-			currentResponseApduData = processingData.getResponseApdu().getData().toByteArray();
+			currentCommandApduData = new ByteArrayOutputStream();
+			setCurrentResponseApduData(processingData.getResponseApdu().getData().toByteArray());
 		}
 
 	}
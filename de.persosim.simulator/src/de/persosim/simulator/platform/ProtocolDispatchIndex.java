@@ -0,0 +1,127 @@
+package de.persosim.simulator.platform;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdumatching.ApduSpecification;
+import de.persosim.simulator.apdumatching.ApduSpecificationConstants;
+import de.persosim.simulator.apdumatching.CompiledApduSpecification;
+import de.persosim.simulator.protocols.Protocol;
+
+/**
+ * This class indexes a list of protocols by the INS bytes of the APDUs they
+ * support (see {@link Protocol#getApduSet()}). It is used by the
+ * {@link AbstractCommandProcessor} to determine the protocols that need to be
+ * consulted for a given APDU instead of consulting all of them.
+ * <p/>
+ * Protocols that do not provide their supported APDUs or that support APDUs
+ * without a fixed INS byte are candidates for every APDU.
+ */
+class ProtocolDispatchIndex implements ApduSpecificationConstants
+{
+
+	private final List<Protocol> protocols;
+
+	/**
+	 * the protocols (as index into {@link #protocols}) to be consulted for every APDU
+	 */
+	private final BitSet wildcards = new BitSet();
+
+	/**
+	 * the APDU specifications indexed by INS byte
+	 */
+	private final List<List<Entry>> entriesByIns = new ArrayList<>(256);
+
+	private static class Entry
+	{
+		final int protocolIndex;
+		final CompiledApduSpecification apduSpecification;
+
+		Entry(int protocolIndex, ApduSpecification apduSpecification)
+		{
+			this.protocolIndex = protocolIndex;
+			this.apduSpecification = apduSpecification.compile();
+		}
+	}
+
+	/**
+	 * Creates the index for the given protocols. The list is copied, i.e.
+	 * later changes of the list are not reflected by this index.
+	 *
+	 * @param protocols
+	 *            the protocols to index
+	 */
+	ProtocolDispatchIndex(List<Protocol> protocols)
+	{
+		this.protocols = new ArrayList<>(protocols);
+
+		for (int i = 0; i < 256; i++) {
+			entriesByIns.add(new ArrayList<>());
+		}
+
+		for (int protocolIndex = 0; protocolIndex < this.protocols.size(); protocolIndex++) {
+			Collection<ApduSpecification> apduSet = this.protocols.get(protocolIndex).getApduSet();
+			if (apduSet == null) {
+				wildcards.set(protocolIndex);
+				continue;
+			}
+
+			for (ApduSpecification apduSpecification : apduSet) {
+				if (apduSpecification.getReqIns() != REQ_MATCH) {
+					wildcards.set(protocolIndex);
+					break;
+				}
+				entriesByIns.get(apduSpecification.getIns() & 0xFF).add(new Entry(protocolIndex, apduSpecification));
+			}
+		}
+	}
+
+	/**
+	 * This method checks whether this index was created for the given
+	 * protocols.
+	 *
+	 * @param protocols
+	 *            the current list of protocols
+	 * @return true, iff the given list contains the same protocols in the same
+	 *         order as the one used to create this index
+	 */
+	boolean isIndexOf(List<Protocol> protocols)
+	{
+		if (protocols.size() != this.protocols.size()) {
+			return false;
+		}
+		for (int i = 0; i < protocols.size(); i++) {
+			if (protocols.get(i) != this.protocols.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method returns the protocols that need to be consulted for the
+	 * given APDU. These are all protocols that need to be consulted for every
+	 * APDU and all protocols providing at least one APDU specification whose
+	 * header matches the APDU.
+	 *
+	 * @param apdu
+	 *            the APDU to dispatch
+	 * @return the candidate protocols as indices into the indexed protocol list
+	 */
+	BitSet getCandidates(CommandApdu apdu)
+	{
+		BitSet candidates = (BitSet) wildcards.clone();
+
+		for (Entry entry : entriesByIns.get(apdu.getIns() & 0xFF)) {
+			if (!candidates.get(entry.protocolIndex) && entry.apduSpecification.matchesHeader(apdu)) {
+				candidates.set(entry.protocolIndex);
+			}
+		}
+
+		return candidates;
+	}
+
+}
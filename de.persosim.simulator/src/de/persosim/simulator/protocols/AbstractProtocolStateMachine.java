@@ -2,6 +2,7 @@ package de.persosim.simulator.protocols;
 
 import static org.globaltester.logging.BasicLogger.log;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,6 +16,7 @@ import de.persosim.simulator.apdu.CommandApdu;
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.apdumatching.ApduSpecificationConstants;
+import de.persosim.simulator.apdumatching.CompiledApduSpecification;
 import de.persosim.simulator.apdumatching.TlvSpecification;
 import de.persosim.simulator.cardobjects.MasterFile;
 import de.persosim.simulator.log.PersoSimLogTags;
@@ -43,6 +45,8 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 	protected boolean continueProcessing;
 
 	protected HashMap<String, ApduSpecification> apdus = new HashMap<>();
+	/* the compiled forms of the registered APDU specifications, created on first matching */
+	private transient HashMap<String, CompiledApduSpecification> compiledApdus;
 
 	protected ApduSpecification apduSpecification;
 	protected TlvSpecification tagSpecification;
@@ -87,6 +91,21 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 		return new HashSet<>();
 	}
 
+	/**
+	 * This method returns the APDU specifications registered by the state
+	 * machine. The registration is performed by the first transition after
+	 * {@link #init()}, if no specification has been registered yet, this
+	 * protocol needs to be consulted for every APDU and null is returned.
+	 */
+	@Override
+	public Collection<ApduSpecification> getApduSet()
+	{
+		if (apdus.isEmpty()) {
+			return null;
+		}
+		return new ArrayList<>(apdus.values());
+	}
+
 	@Override
 	public void process(ProcessingData processingData)
 	{
@@ -113,6 +132,9 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 	public void registerApduSpecification(ApduSpecification apduSpecification)
 	{
 		this.apdus.put(apduSpecification.getId(), apduSpecification);
+		if (compiledApdus != null) {
+			compiledApdus.remove(apduSpecification.getId());
+		}
 	}
 
 	@Override
@@ -179,7 +201,7 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 	{
 		CommandApdu apdu;
 
-		ApduSpecification apduSpec = apdus.get(apduId);
+		CompiledApduSpecification apduSpec = getCompiledApduSpecification(apduId);
 
 		if (apduSpec == null) {
 			log("APDU matching failed due to command \"" + apduId + "\" being unknown", LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
@@ -191,7 +213,7 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 			return false;
 		}
 		apdu = processingData.getCommandApdu();
-		boolean match = apduSpec.matchesFullApdu(apdu);
+		boolean match = apduSpec.matches(apdu);
 
 		if (match) {
 			log("Received APDU matches definition of command \"" + apduId + "\"", LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
@@ -200,6 +222,33 @@ public abstract class AbstractProtocolStateMachine extends AbstractStateMachine
 		return match;
 	}
 
+	/**
+	 * This method returns the compiled form of the registered APDU
+	 * specification with the given id, compiling it if necessary.
+	 *
+	 * @param apduId
+	 *            the id of the APDU specification
+	 * @return the compiled specification or null if no specification is
+	 *         registered for the given id
+	 */
+	private CompiledApduSpecification getCompiledApduSpecification(String apduId)
+	{
+		if (compiledApdus == null) {
+			compiledApdus = new HashMap<>();
+		}
+
+		CompiledApduSpecification compiledApduSpecification = compiledApdus.get(apduId);
+		if (compiledApduSpecification == null) {
+			ApduSpecification apduSpecification = apdus.get(apduId);
+			if (apduSpecification != null) {
+				compiledApduSpecification = apduSpecification.compile();
+				compiledApdus.put(apduId, compiledApduSpecification);
+			}
+		}
+
+		return compiledApduSpecification;
+	}
+
 	@Override
 	public boolean isMoveToStackRequested()
 	{
@@ -5,6 +5,7 @@ import static org.globaltester.logging.BasicLogger.logException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 import org.globaltester.cryptoprovider.Crypto;
@@ -13,6 +14,7 @@ import org.globaltester.logging.InfoSource;
 import org.globaltester.logging.tags.LogLevel;
 import org.globaltester.logging.tags.LogTag;
 
+import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.cardobjects.CardObject;
 import de.persosim.simulator.cardobjects.CardObjectIdentifier;
 import de.persosim.simulator.cardobjects.DedicatedFile;
@@ -152,6 +154,11 @@ public class NpaProtocol implements Protocol, Iso7816, InfoSource, TlvConstants
 		}
 	}
 
+	@Override
+	public Collection<ApduSpecification> getApduSet() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public void process(ProcessingData processingData) {
 		//nothing to process
@@ -2,6 +2,8 @@ package de.persosim.simulator.protocols;
 
 import java.util.Collection;
 
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.cardobjects.MasterFile;
 import de.persosim.simulator.platform.CardStateAccessor;
 import de.persosim.simulator.platform.CommandProcessor;
@@ -52,9 +54,29 @@ public interface Protocol {
 	 * @return set of SecurityInfos. May be an immutable collection.
 	 */
 	public abstract Collection<? extends TlvDataObject> getSecInfos(SecInfoPublicity publicity, MasterFile mf);
-	
-
 
+	/**
+	 * Return the {@link ApduSpecification}s of all APDUs this protocol may
+	 * process when it is not referenced from the protocol stack.
+	 * <p/>
+	 * The {@link CommandProcessor} uses these specifications to index the
+	 * protocols by INS byte and only passes an APDU to protocols having at
+	 * least one specification with a matching header (see
+	 * {@link ApduSpecification#matchesHeader(CommandApdu)}). Protocols on the
+	 * stack are always consulted.
+	 * <p/>
+	 * The default implementation returns null which means that the supported
+	 * APDUs are unknown and the protocol is consulted for every APDU. This is
+	 * also required for protocols that inspect APDUs they do not process or
+	 * that may request to be moved to the stack (see
+	 * {@link #isMoveToStackRequested()}) without processing an APDU.
+	 *
+	 * @return specifications of all APDUs this protocol may process, an empty
+	 *         collection if it never processes APDUs, or null if unknown
+	 */
+	public default Collection<ApduSpecification> getApduSet() {
+		return null;
+	}
 
 	/**
 	 * Implements handling of APDUs.
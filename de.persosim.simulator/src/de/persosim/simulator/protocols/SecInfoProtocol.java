@@ -1,10 +1,12 @@
 package de.persosim.simulator.protocols;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 import org.globaltester.logging.InfoSource;
 
+import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.cardobjects.CardObject;
 import de.persosim.simulator.cardobjects.MasterFile;
 import de.persosim.simulator.cardobjects.SecInfoObject;
@@ -47,6 +49,11 @@ public class SecInfoProtocol implements Protocol, Iso7816, InfoSource, TlvConsta
 		return secInfos;
 	}
 
+	@Override
+	public Collection<ApduSpecification> getApduSet() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public void process(ProcessingData processingData) {
 		//nothing to process
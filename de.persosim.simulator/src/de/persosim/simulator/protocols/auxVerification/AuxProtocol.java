@@ -3,6 +3,7 @@ package de.persosim.simulator.protocols.auxVerification;
 import static org.globaltester.logging.BasicLogger.logException;
 
 import java.io.FileNotFoundException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -13,6 +14,7 @@ import org.globaltester.logging.tags.LogLevel;
 import org.globaltester.logging.tags.LogTag;
 
 import de.persosim.simulator.apdu.ResponseApdu;
+import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.cardobjects.AuxDataObject;
 import de.persosim.simulator.cardobjects.CardObject;
 import de.persosim.simulator.cardobjects.OidIdentifier;
@@ -33,6 +35,17 @@ import de.persosim.simulator.tlv.TlvConstants;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
 
 public class AuxProtocol extends AbstractProtocol implements Iso7816, TlvConstants {
+	@Override
+	public Collection<ApduSpecification> getApduSet() {
+		ApduSpecification verify = new ApduSpecification("Verify");
+		verify.setIns(INS_20_VERIFY);
+
+		ApduSpecification compare = new ApduSpecification("Compare");
+		compare.setIns(INS_33_COMPARE);
+
+		return Arrays.asList(verify, compare);
+	}
+
 	@Override
 	public void process(ProcessingData processingData) {
 		if (((processingData.getCommandApdu().getCla() == (byte) 0x80) && (processingData.getCommandApdu().getIns() == INS_20_VERIFY)) || (processingData.getCommandApdu().getIns() == INS_33_COMPARE)){
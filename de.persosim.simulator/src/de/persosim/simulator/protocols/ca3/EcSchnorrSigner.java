@@ -40,7 +40,7 @@ public class EcSchnorrSigner {
 		this.privateKey = privateKey;
 		this.messageDigest = messageDigest;
 		
-		publicKey = CryptoUtil.scalarPointMultiplication(domParams.getCurve(), domParams.getOrder(), domParams.getGenerator(), this.privateKey);
+		publicKey = CryptoUtil.scalarPointMultiplication(domParams, domParams.getGenerator(), this.privateKey);
 	}
 	
 	/**
@@ -55,7 +55,7 @@ public class EcSchnorrSigner {
     	log(getClass(), "random v is: " +  HexString.encode(k.toByteArray()));
     	
     	// Compute Q = k*G
-    	ECPoint pointQ = CryptoUtil.scalarPointMultiplication(domParams.getCurve(), domParams.getOrder(), pointGenerator, k);
+    	ECPoint pointQ = CryptoUtil.scalarPointMultiplication(domParams, pointGenerator, k);
     	
     	BigInteger r = performHash(messageDigest, domParams, pointQ, message);
     	
@@ -159,9 +159,8 @@ public class EcSchnorrSigner {
 			throw new IllegalArgumentException("private key too small or too large");
 		}
 		
-		EllipticCurve curve = domainParameters.getCurve();
 		ECPoint generator = domainParameters.getGenerator();
-		ECPoint publicKey = CryptoUtil.scalarPointMultiplication(curve, domainParameters.getOrder(), generator, privateKey);
+		ECPoint publicKey = CryptoUtil.scalarPointMultiplication(domainParameters, generator, privateKey);
 		
 		return publicKey;
 	}
@@ -253,9 +252,8 @@ public class EcSchnorrSigner {
     		return false;
     	}
     	
-    	ECPoint sG = CryptoUtil.scalarPointMultiplication(curve, order, generator, s);
-    	ECPoint rPa = CryptoUtil.scalarPointMultiplication(curve, order, publicKey, r);
-    	ECPoint q = CryptoUtil.addPoint(domainParameters.getCurve(), sG, rPa);
+    	// compute Q = sG + rPa in a single simultaneous multiplication
+    	ECPoint q = CryptoUtil.multiScalarPointMultiplication(curve, new ECPoint[] {generator, publicKey}, new BigInteger[] {s, r.mod(order)});
     	
     	// check that Q != infinity.
     	if (q.equals(ECPoint.POINT_INFINITY)) { 
@@ -235,12 +235,10 @@ public class PsSigner{
 	 */
 	private ECPoint calculateQForVerification(ECPoint publicKeyIcc,
 			PsSignature signature) {
-		ECPoint tmp1, tmp2, tmp3;
-		tmp1 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), publicKeyIcc, signature.getC());
-		tmp2 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), groupManagerDomainParameters.getGenerator(), signature.getS1());
-		tmp3 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), groupManagerPublicKey, signature.getS2());
+		ECPoint[] points = new ECPoint[] {publicKeyIcc, groupManagerDomainParameters.getGenerator(), groupManagerPublicKey};
+		BigInteger[] scalars = new BigInteger[] {signature.getC(), signature.getS1().mod(groupManagerDomainParameters.getOrder()), signature.getS2()};
 		
-		return CryptoUtil.addPoint(groupManagerDomainParameters.getCurve(), CryptoUtil.addPoint(groupManagerDomainParameters.getCurve(), tmp1, tmp2), tmp3);
+		return CryptoUtil.multiScalarPointMultiplication(groupManagerDomainParameters.getCurve(), points, scalars);
 	}
 
 	/**
@@ -254,10 +252,10 @@ public class PsSigner{
 	 * @return the Q value as {@link ECPoint}
 	 */
 	private ECPoint calculateQForSigning(BigInteger k1, BigInteger k2) {
-		ECPoint tmp1 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), groupManagerDomainParameters.getGenerator(), k1);
-		ECPoint tmp2 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), groupManagerPublicKey, k2);
+		ECPoint[] points = new ECPoint[] {groupManagerDomainParameters.getGenerator(), groupManagerPublicKey};
+		BigInteger[] scalars = new BigInteger[] {k1.mod(groupManagerDomainParameters.getOrder()), k2};
 		
-		return CryptoUtil.addPoint(groupManagerDomainParameters.getCurve(), tmp1, tmp2);
+		return CryptoUtil.multiScalarPointMultiplication(groupManagerDomainParameters.getCurve(), points, scalars);
 	}
 	
 	/**
@@ -420,8 +418,8 @@ public class PsSigner{
 	 * @return the A value as {@link ECPoint}
 	 */
 	private ECPoint calculateAforVerification(ECPoint sectorIdentifierIcc, ECPoint sectorPublicKey, BigInteger witness, BigInteger signatureComponent) {
-		ECPoint tmp1 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), sectorIdentifierIcc, witness);
-		ECPoint tmp2 = CryptoUtil.scalarPointMultiplication(groupManagerDomainParameters.getCurve(), sectorPublicKey, signatureComponent);
-		return CryptoUtil.addPoint(groupManagerDomainParameters.getCurve(), tmp1, tmp2);
+		ECPoint[] points = new ECPoint[] {sectorIdentifierIcc, sectorPublicKey};
+		BigInteger[] scalars = new BigInteger[] {witness, signatureComponent};
+		return CryptoUtil.multiScalarPointMultiplication(groupManagerDomainParameters.getCurve(), points, scalars);
 	}
 }
@@ -4,6 +4,7 @@ import static org.globaltester.logging.BasicLogger.log;
 import static org.globaltester.logging.BasicLogger.logException;
 
 import java.security.KeyPair;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 
@@ -13,6 +14,7 @@ import org.globaltester.logging.tags.LogTag;
 
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.apdumatching.ApduSpecification;
+import de.persosim.simulator.apdumatching.CompiledApduSpecification;
 import de.persosim.simulator.crypto.certificates.ExtensionOid;
 import de.persosim.simulator.exception.ProcessingException;
 import de.persosim.simulator.log.PersoSimLogTags;
@@ -48,6 +50,8 @@ public class PsaProtocol extends PsProtocol implements Psa {
 
 	private ApduSpecification apduSpecificationSetAt;
 	private ApduSpecification apduSpecificationSetGa;
+	private transient CompiledApduSpecification compiledApduSpecificationSetAt;
+	private transient CompiledApduSpecification compiledApduSpecificationSetGa;
 
 	public PsaProtocol()
 	{
@@ -73,16 +77,26 @@ public class PsaProtocol extends PsProtocol implements Psa {
 		return "Pseudonymous Signature Authentication (PSA)";
 	}
 
+	@Override
+	public Collection<ApduSpecification> getApduSet() {
+		return Arrays.asList(apduSpecificationSetAt, apduSpecificationSetGa);
+	}
+
 	@Override
 	public void process(ProcessingData processingData) {
 		this.processingData = processingData;
 
-		if (apduSpecificationSetAt.matchesFullApdu(processingData.getCommandApdu())){
+		if (compiledApduSpecificationSetAt == null) {
+			compiledApduSpecificationSetAt = apduSpecificationSetAt.compile();
+			compiledApduSpecificationSetGa = apduSpecificationSetGa.compile();
+		}
+
+		if (compiledApduSpecificationSetAt.matches(processingData.getCommandApdu())){
 			log(this, "starting processing of command " + apduSpecificationSetAt.getId() + " for protocol " + getProtocolName(), LogLevel.TRACE);
 			processCommandSetAt();
 			return;
 		}
-		if (apduSpecificationSetGa.matchesFullApdu(processingData.getCommandApdu())) {
+		if (compiledApduSpecificationSetGa.matches(processingData.getCommandApdu())) {
 			log(this, "starting processing of command " + apduSpecificationSetGa.getId() + " for protocol " + getProtocolName(), LogLevel.TRACE);
 			processCommandGeneralAuthenticate();
 		}
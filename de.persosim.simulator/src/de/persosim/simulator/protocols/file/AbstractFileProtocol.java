@@ -30,6 +30,7 @@ import de.persosim.simulator.secstatus.SecStatusMechanismUpdatePropagation;
 import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
 import de.persosim.simulator.tlv.TlvDataObject;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvLength;
 import de.persosim.simulator.tlv.TlvTag;
 import de.persosim.simulator.tlv.TlvValue;
 import de.persosim.simulator.tlv.TlvValuePlain;
@@ -568,32 +569,20 @@ public abstract class AbstractFileProtocol extends AbstractProtocolStateMachine
 
 				try {
 					ElementaryFile binaryFile = (ElementaryFile) file;
-					byte [] rawFileContents = binaryFile.getContent();
 
-					if (offset < rawFileContents.length) {
+					if (offset < binaryFile.getContentLength()) {
 
-						int bytesToBeRead = Math.min(ne, rawFileContents.length - offset);
-
-						byte [] data = Arrays.copyOfRange(rawFileContents, offset, offset + bytesToBeRead);
+						// only the requested range is copied
+						byte [] data = binaryFile.getContent(offset, ne);
 						TlvValue toSend = null;
 
 						if (isOddInstruction) {
 
-							int includedDataLegnth = data.length;
+							int includedDataLength = Math.min(data.length, getMaxOddInsResponseDataLength(ne));
 
 							toSend = new TlvDataObjectContainer(
 									new PrimitiveTlvDataObject(new TlvTag(
-											ODDINS_RESPONSE_TAG), Arrays.copyOf(data, includedDataLegnth)));
-
-
-							while (toSend.getLength()> ne) {
-								includedDataLegnth--;
-								toSend = new TlvDataObjectContainer(
-										new PrimitiveTlvDataObject(new TlvTag(
-												ODDINS_RESPONSE_TAG), Arrays.copyOf(data, includedDataLegnth)));
-							}
-
-
+											ODDINS_RESPONSE_TAG), Arrays.copyOf(data, includedDataLength)));
 
 						} else {
 							toSend = new TlvValuePlain(data);
@@ -635,6 +624,35 @@ public abstract class AbstractFileProtocol extends AbstractProtocolStateMachine
 				new ProtocolUpdate(true));
 	}
 
+	/**
+	 * This method returns the maximum number of data bytes that can be
+	 * included in a response to READ BINARY with odd INS, i.e. wrapped in a
+	 * {@link #ODDINS_RESPONSE_TAG} data object, without exceeding the
+	 * provided number of bytes.
+	 * 
+	 * @param ne
+	 *            the maximum length of the response data
+	 * @return the maximum number of data bytes, 0 if not even an empty data
+	 *         object fits
+	 */
+	static int getMaxOddInsResponseDataLength(int ne) {
+		int available = ne - 1; // tag field
+		if (available <= 0) {
+			return 0;
+		}
+
+		// the length field for the remaining bytes is at least as long as the one actually needed
+		int dataLength = available - TlvLength.getMinNoOfBytesEncodingLength(available);
+
+		// a longer value fits if it does not need a longer length field
+		int longerDataLength = available - TlvLength.getMinNoOfBytesEncodingLength(dataLength);
+		if (longerDataLength + TlvLength.getMinNoOfBytesEncodingLength(longerDataLength) <= available) {
+			dataLength = longerDataLength;
+		}
+
+		return Math.max(dataLength, 0);
+	}
+
 	private void selectFile(CardFile file) {
 		this.processingData.addUpdatePropagation(this, "select file",
 				new SecStatusMechanismUpdatePropagation(SecContext.GLOBAL, new CurrentFileSecMechanism(file)));
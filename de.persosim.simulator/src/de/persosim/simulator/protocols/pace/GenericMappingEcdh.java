@@ -56,7 +56,7 @@ public class GenericMappingEcdh extends GenericMapping
 		log("gUnMapped y: " + HexString.encode(Utils.toUnsignedByteArray(gUnMapped.getAffineY())), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 		log("nonce S: " + HexString.encode(nonceS), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-		ECPoint gspm = CryptoUtil.scalarPointMultiplication(curve, domainParameterSetEcdhUnMapped.getOrder(), gUnMapped, sNonceBigInt);
+		ECPoint gspm = CryptoUtil.scalarPointMultiplication(domainParameterSetEcdhUnMapped, gUnMapped, sNonceBigInt);
 
 		log("gspm x: " + HexString.encode(Utils.toUnsignedByteArray(gspm.getAffineX())), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 		log("gspm y: " + HexString.encode(Utils.toUnsignedByteArray(gspm.getAffineY())), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
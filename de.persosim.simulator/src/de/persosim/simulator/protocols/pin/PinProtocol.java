@@ -2,6 +2,7 @@ package de.persosim.simulator.protocols.pin;
 
 import static org.globaltester.logging.BasicLogger.log;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -68,6 +69,31 @@ public class PinProtocol implements Protocol, Iso7816, Tr03110, TlvConstants, Ap
 		return Collections.emptySet();
 	}
 
+	@Override
+	public Collection<ApduSpecification> getApduSet()
+	{
+		Collection<ApduSpecification> apduSet = new ArrayList<>();
+		apduSet.add(createApduSpecification("Verify", INS_20_VERIFY));
+		apduSet.add(createApduSpecification("Reset Retry Counter", INS_2C_RESET_RETRY_COUNTER));
+
+		ApduSpecification activate = createApduSpecification("Activate", INS_44_ACTIVATE_FILE);
+		activate.setP1((byte) 0x10);
+		apduSet.add(activate);
+
+		ApduSpecification deactivate = createApduSpecification("Deactivate", INS_04_DEACTIVATE_FILE);
+		deactivate.setP1((byte) 0x10);
+		apduSet.add(deactivate);
+
+		return apduSet;
+	}
+
+	private static ApduSpecification createApduSpecification(String id, byte ins)
+	{
+		ApduSpecification apduSpecification = new ApduSpecification(id);
+		apduSpecification.setIns(ins);
+		return apduSpecification;
+	}
+
 	@Override
 	public void process(ProcessingData processingData)
 	{
@@ -17,6 +17,7 @@ import org.globaltester.cryptoprovider.Crypto;
 import org.globaltester.logging.InfoSource;
 
 import de.persosim.simulator.apdu.ResponseApdu;
+import de.persosim.simulator.apdumatching.ApduSpecification;
 import de.persosim.simulator.apdumatching.ApduSpecificationConstants;
 import de.persosim.simulator.cardobjects.CardObject;
 import de.persosim.simulator.cardobjects.CardObjectIdentifier;
@@ -196,6 +197,18 @@ public class RiProtocol implements Protocol, Iso7816, ApduSpecificationConstants
 		}
 	}
 
+	@Override
+	public Collection<ApduSpecification> getApduSet() {
+		ApduSpecification setAt = new ApduSpecification("MSE Set AT");
+		setAt.setIns(INS_22_MANAGE_SECURITY_ENVIRONMENT);
+		setAt.setP1((byte) 0x41);
+
+		ApduSpecification generalAuthenticate = new ApduSpecification("General Authenticate");
+		generalAuthenticate.setIns(INS_86_GENERAL_AUTHENTICATE);
+
+		return Arrays.asList(setAt, generalAuthenticate);
+	}
+
 	@Override
 	public void process(ProcessingData processingData) {
 		
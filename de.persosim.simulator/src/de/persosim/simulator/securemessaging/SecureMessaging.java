@@ -19,6 +19,7 @@ import de.persosim.simulator.apdu.IsoSecureMessagingCommandApdu;
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.crypto.CryptoSupport;
 import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.log.PersoSimLogConfiguration;
 import de.persosim.simulator.log.PersoSimLogTags;
 import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.platform.Layer;
@@ -215,7 +216,7 @@ public class SecureMessaging extends Layer implements TlvConstants
 			log("padded data is: " + HexString.encode(paddedData), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 			log("block size is: " + dataProvider.getCipher().getBlockSize(), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-			byte[] encryptedData = CryptoSupport.encrypt(dataProvider.getCipher(), paddedData, dataProvider.getKeyEnc(), dataProvider.getCipherIv());
+			byte[] encryptedData = dataProvider.encrypt(paddedData);
 			log("encrypted data is: " + HexString.encode(encryptedData), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
 			// check for odd instruction byte
@@ -269,11 +270,14 @@ public class SecureMessaging extends Layer implements TlvConstants
 		log("Incoming SM APDU is ISO case: " + smApdu.getIsoCase(), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
 		try {
+			// parse the SM data objects only once for unwrapping and mac verification
+			TlvDataObjectContainer smDataObjects = smApdu.getCommandDataObjectContainer();
+			
 			// create new CommandAPDU
-			CommandApdu plainCommand = extractPlainTextAPDU();
+			CommandApdu plainCommand = extractPlainTextAPDU(smDataObjects);
 			log("plain text APDU is " + plainCommand, LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-			if (verifyMac()) {
+			if (verifyMac(smDataObjects)) {
 				log("verification of mac: correct", LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
 				// propagate new CommandAPDU
@@ -308,6 +312,18 @@ public class SecureMessaging extends Layer implements TlvConstants
 	 * @return a byte array representation of an SM secured APDU
 	 */
 	public CommandApdu extractPlainTextAPDU()
+	{
+		return extractPlainTextAPDU(processingData.getCommandApdu().getCommandDataObjectContainer());
+	}
+
+	/**
+	 * This method returns a plain APDU.
+	 *
+	 * @param constructedCommandDataField
+	 *            the already parsed SM data objects of the command APDU
+	 * @return a byte array representation of an SM secured APDU
+	 */
+	public CommandApdu extractPlainTextAPDU(TlvDataObjectContainer constructedCommandDataField)
 	{
 		log("started extracting SM APDU", LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
@@ -319,7 +335,6 @@ public class SecureMessaging extends Layer implements TlvConstants
 			throw new IllegalArgumentException("SM APDU is expected to be an IsoSecureMessagingCommandApdu");
 		}
 
-		TlvDataObjectContainer constructedCommandDataField = processingData.getCommandApdu().getCommandDataObjectContainer();
 		TlvDataObject tlvObject8E = constructedCommandDataField.getTlvDataObject(TAG_8E);
 		log("TLV object 8E is: " + tlvObject8E, LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
@@ -371,10 +386,13 @@ public class SecureMessaging extends Layer implements TlvConstants
 			log("encrypted data is: " + HexString.encode(encryptedData), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 			log("used cipher iv is     : " + HexString.encode(dataProvider.getCipherIv().getIV()), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-			byte[] dbgIv = CryptoSupport.decryptWithIvZero(dataProvider.getCipher(), dataProvider.getCipherIv().getIV(), dataProvider.getKeyEnc());
-			log("decrypted cipher iv is: " + HexString.encode(dbgIv), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
+			// this additional decryption is only needed for diagnostic purposes
+			if (PersoSimLogConfiguration.isEnabled(LogLevel.TRACE, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID)) {
+				byte[] dbgIv = CryptoSupport.decryptWithIvZero(dataProvider.getCipher(), dataProvider.getCipherIv().getIV(), dataProvider.getKeyEnc());
+				log("decrypted cipher iv is: " + HexString.encode(dbgIv), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
+			}
 
-			byte[] paddedData = CryptoSupport.decrypt(dataProvider.getCipher(), encryptedData, dataProvider.getKeyEnc(), dataProvider.getCipherIv());
+			byte[] paddedData = dataProvider.decrypt(encryptedData);
 			log("padded data is: " + HexString.encode(paddedData), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
 			byte[] data = this.unpadPlainTextData(paddedData);
@@ -427,19 +445,25 @@ public class SecureMessaging extends Layer implements TlvConstants
 	 * @return the result of mac verification: true if verified, false otherwise
 	 */
 	public boolean verifyMac()
+	{
+		return verifyMac(processingData.getCommandApdu().getCommandDataObjectContainer());
+	}
+
+	/**
+	 * This method performs the mac verification for an SM secured APDU.
+	 *
+	 * @param constructedCommandDataField
+	 *            the already parsed SM data objects of the command APDU
+	 * @return the result of mac verification: true if verified, false otherwise
+	 */
+	public boolean verifyMac(TlvDataObjectContainer constructedCommandDataField)
 	{
 		TlvDataObject cryptogram;
 		TlvDataObject tlvObject8E;
 		TlvDataObject tlvObject97;
 		byte[] extractedMac;
-		byte[] tlv97Plain;
-		byte[] tlv87Plain;
 		byte[] header;
-		byte[] paddingHeader;
 		byte[] macResult;
-		int paddingLengthHeader;
-		int blockSize;
-		ByteArrayOutputStream macInputStream;
 		int isoCaseOfPlainAPDU;
 
 		log("started verifying SM APDU", LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
@@ -450,7 +474,6 @@ public class SecureMessaging extends Layer implements TlvConstants
 			throw new IllegalArgumentException("SM APDU is expected to be ISO case 4");
 		}
 
-		TlvDataObjectContainer constructedCommandDataField = processingData.getCommandApdu().getCommandDataObjectContainer();
 		tlvObject8E = constructedCommandDataField.getTlvDataObject(TAG_8E);
 		log("TLV object 8E is: " + tlvObject8E, LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
@@ -493,56 +516,11 @@ public class SecureMessaging extends Layer implements TlvConstants
 
 		/* verify mac */
 
-		blockSize = dataProvider.getCipher().getBlockSize();
-		macInputStream = new ByteArrayOutputStream();
-
-		/* header must be padded to match block size */
-		paddingLengthHeader = blockSize - header.length;
-		paddingHeader = new byte[paddingLengthHeader];
-		Arrays.fill(paddingHeader, (byte) 0x00);
-		paddingHeader[0] = (byte) 0x80;
-
-		try {
-			macInputStream.write(header);
-			macInputStream.write(paddingHeader);
-		}
-		catch (IOException e) {
-			logException(e.getMessage(), e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-		}
-
-		if (isoCaseOfPlainAPDU > 2 && cryptogram != null) {
-			tlv87Plain = cryptogram.toByteArray();
-
-			try {
-				macInputStream.write(tlv87Plain);
-			}
-			catch (IOException e) {
-				logException(e.getMessage(), e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-			}
-		}
-
-		if ((isoCaseOfPlainAPDU == 2 || isoCaseOfPlainAPDU == 4) && tlvObject97 != null) {
-			tlv97Plain = tlvObject97.toByteArray();
-
-			try {
-				macInputStream.write(tlv97Plain);
-			}
-			catch (IOException e) {
-				logException(e.getMessage(), e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-			}
-		}
-
-		byte[] macInput = macInputStream.toByteArray();
-
-		if (isoCaseOfPlainAPDU > 1) {
-			macInput = padDataForMac(macInput);
-			log("padding of mac input data is " + HexString.encode(macInput), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-		}
-
+		byte[] macInput = buildMacInput(header, cryptogram, tlvObject97);
 
 		log("padded mac input is " + HexString.encode(macInput), LogLevel.TRACE, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-		macResult = CryptoSupport.mac(dataProvider.getMac(), dataProvider.getMacAuxiliaryData(), dataProvider.getCipher(), macInput, dataProvider.getKeyMac(), dataProvider.getMacLength());
+		macResult = dataProvider.mac(macInput);
 
 		log("expected mac is : " + HexString.encode(macResult), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 		extractedMac = tlvObject8E.getValueField();
@@ -560,6 +538,61 @@ public class SecureMessaging extends Layer implements TlvConstants
 
 	}
 
+	/**
+	 * This method builds the padded mac input of an SM secured command APDU
+	 * within a single buffer. The mac input consists of the padded header
+	 * followed by the data objects containing the cryptogram and Le (if
+	 * present). If at least one of these data objects is present the whole mac
+	 * input is padded according to ISO7816-4.
+	 *
+	 * @param header
+	 *            the header of the SM secured command APDU
+	 * @param cryptogram
+	 *            the data object containing the cryptogram, may be null
+	 * @param tlvObject97
+	 *            the data object containing Le, may be null
+	 * @return the padded mac input
+	 */
+	byte[] buildMacInput(byte[] header, TlvDataObject cryptogram, TlvDataObject tlvObject97)
+	{
+		int blockSize = dataProvider.getCipher().getBlockSize();
+
+		byte[] cryptogramPlain = (cryptogram != null) ? cryptogram.toByteArray() : null;
+		byte[] tlv97Plain = (tlvObject97 != null) ? tlvObject97.toByteArray() : null;
+
+		int unpaddedLength = blockSize;
+		if (cryptogramPlain != null) {
+			unpaddedLength += cryptogramPlain.length;
+		}
+		if (tlv97Plain != null) {
+			unpaddedLength += tlv97Plain.length;
+		}
+
+		boolean padMacInput = (cryptogramPlain != null) || (tlv97Plain != null);
+
+		byte[] macInput = new byte[padMacInput ? ((unpaddedLength / blockSize) + 1) * blockSize : unpaddedLength];
+
+		/* header must be padded to match block size */
+		System.arraycopy(header, 0, macInput, 0, header.length);
+		macInput[header.length] = (byte) 0x80;
+
+		int offset = blockSize;
+		if (cryptogramPlain != null) {
+			System.arraycopy(cryptogramPlain, 0, macInput, offset, cryptogramPlain.length);
+			offset += cryptogramPlain.length;
+		}
+		if (tlv97Plain != null) {
+			System.arraycopy(tlv97Plain, 0, macInput, offset, tlv97Plain.length);
+			offset += tlv97Plain.length;
+		}
+
+		if (padMacInput) {
+			macInput[offset] = (byte) 0x80;
+		}
+
+		return macInput;
+	}
+
 	/**
 	 * This method extracts the encrypted data from the formatted encrypted data
 	 *
@@ -611,7 +644,7 @@ public class SecureMessaging extends Layer implements TlvConstants
 		dataToBeMaced = padDataForMac(dataToBePadded);
 		log("data to be maced is: " + HexString.encode(dataToBeMaced), LogLevel.DEBUG, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
 
-		macedData = CryptoSupport.mac(dataProvider.getMac(), dataProvider.getMacAuxiliaryData(), dataProvider.getCipher(), dataToBeMaced, dataProvider.getKeyMac(), dataProvider.getMacLength());
+		macedData = dataProvider.mac(dataToBeMaced);
 
 		return macedData;
 	}
@@ -5,6 +5,7 @@ import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 
+import de.persosim.simulator.crypto.CryptoSupport;
 import de.persosim.simulator.processing.UpdatePropagation;
 
 /**
@@ -127,6 +128,45 @@ public interface SmDataProvider extends UpdatePropagation {
 	 */
 	public Integer getMacLength();
 	
+	/**
+	 * Encipher the provided (already padded) data of the currently handled
+	 * APDU. The default implementation uses the cipher, key and IV returned by
+	 * {@link #getCipher()}, {@link #getKeyEnc()} and {@link #getCipherIv()}.
+	 * 
+	 * @param plainText
+	 *            the padded plain text
+	 * @return the cryptogram
+	 */
+	public default byte[] encrypt(byte[] plainText) {
+		return CryptoSupport.encrypt(getCipher(), plainText, getKeyEnc(), getCipherIv());
+	}
+	
+	/**
+	 * Decipher the provided cryptogram of the currently handled APDU. The
+	 * default implementation uses the cipher, key and IV returned by
+	 * {@link #getCipher()}, {@link #getKeyEnc()} and {@link #getCipherIv()}.
+	 * 
+	 * @param cipherText
+	 *            the cryptogram
+	 * @return the padded plain text
+	 */
+	public default byte[] decrypt(byte[] cipherText) {
+		return CryptoSupport.decrypt(getCipher(), cipherText, getKeyEnc(), getCipherIv());
+	}
+	
+	/**
+	 * Compute the MAC of the currently handled APDU, including the auxiliary
+	 * data returned by {@link #getMacAuxiliaryData()} and truncated to
+	 * {@link #getMacLength()}.
+	 * 
+	 * @param macInput
+	 *            the padded mac input
+	 * @return the mac
+	 */
+	public default byte[] mac(byte[] macInput) {
+		return CryptoSupport.mac(getMac(), getMacAuxiliaryData(), getCipher(), macInput, getKeyMac(), getMacLength());
+	}
+	
 	/**
 	 * Return an {@link SmDataProviderGenerator} able to reconstruct a fully
 	 * functional clone of an object of the implementing {@link SmDataProvider}.
@@ -1,6 +1,9 @@
 package de.persosim.simulator.securemessaging;
 
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
@@ -17,6 +20,16 @@ import de.persosim.simulator.exception.CryptoException;
 import de.persosim.simulator.processing.UpdatePropagation;
 import de.persosim.simulator.utils.HexString;
 
+/**
+ * {@link SmDataProvider} implementation according to BSI TR-03110.
+ * <p/>
+ * As the session keys do not change during the lifetime of an instance, all
+ * cipher and MAC contexts are initialized only once within the constructor.
+ * CBC en-/decryption is performed on a block cipher initialized in ECB mode
+ * with the chaining done here, so that the IV derived from the
+ * {@link SendSequenceCounter} can be changed for each APDU without another
+ * (costly) initialization of the cipher.
+ */
 public class SmDataProviderTr03110 implements SmDataProvider {
 	
 	@Override
@@ -30,6 +43,19 @@ public class SmDataProviderTr03110 implements SmDataProvider {
 	private Mac mac;
 	private SecretKeySpec keyMac;
 	
+	/**
+	 * Block ciphers initialized with {@link #keyEnc} in ECB mode, these are
+	 * null if the cipher is not used in CBC mode without padding
+	 */
+	private Cipher blockCipherEnc;
+	private Cipher blockCipherDec;
+	
+	/**
+	 * The IV computed for the SSC value stored in {@link #cipherIvSsc}
+	 */
+	private IvParameterSpec cipherIv;
+	private byte[] cipherIvSsc;
+	
 	private boolean pendingCommandApdu;
 	
 	/**
@@ -61,7 +87,17 @@ public class SmDataProviderTr03110 implements SmDataProvider {
 				//AES
 				mac = Mac.getInstance(keyMac.getAlgorithm(), Crypto.getCryptoProvider());
 			}
-		} catch (NoSuchAlgorithmException e) {
+			mac.init(keyMac);
+			
+			String cipherAlgorithm = keyEnc.getAlgorithm();
+			if (cipherAlgorithm.endsWith(CryptoUtil.CIPHER_DELIMITER + "NoPadding") && CryptoUtil.getCipherAlgorithmModeAsString(cipherAlgorithm).equals("CBC")) {
+				String blockCipherAlgorithm = CryptoUtil.getCipherNameAsString(cipherAlgorithm) + "/ECB/NoPadding";
+				blockCipherEnc = getCipher(blockCipherAlgorithm);
+				blockCipherEnc.init(Cipher.ENCRYPT_MODE, keyEnc);
+				blockCipherDec = getCipher(blockCipherAlgorithm);
+				blockCipherDec.init(Cipher.DECRYPT_MODE, keyEnc);
+			}
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
 			throw new CryptoException(e);
 		}
 		
@@ -111,15 +147,98 @@ public class SmDataProviderTr03110 implements SmDataProvider {
 
 	@Override
 	public IvParameterSpec getCipherIv() {
+		byte[] sscPlain = ssc.toByteArray();
+		if ((cipherIv != null) && Arrays.equals(sscPlain, cipherIvSsc)) {
+			return cipherIv;
+		}
+		
 		byte[] cipherIvPlain;
 		if (CryptoUtil.getCipherNameAsString(cipher.getAlgorithm()).equals("DESede")) {
 			//3DES
 			cipherIvPlain = new byte[8];
+		} else if (blockCipherEnc != null) {
+			//AES, encryption of a single block with IV zero equals ECB mode
+			cipherIvPlain = processBlocks(blockCipherEnc, sscPlain);
 		} else {
 			//AES
-			cipherIvPlain = CryptoSupport.encryptWithIvZero(cipher, ssc.toByteArray(), keyEnc);
+			cipherIvPlain = CryptoSupport.encryptWithIvZero(cipher, sscPlain, keyEnc);
+		}
+		
+		cipherIv = new IvParameterSpec(cipherIvPlain);
+		cipherIvSsc = sscPlain;
+		return cipherIv;
+	}
+	
+	@Override
+	public byte[] encrypt(byte[] plainText) {
+		if (blockCipherEnc == null) {
+			return CryptoSupport.encrypt(cipher, plainText, keyEnc, getCipherIv());
+		}
+		
+		int blockSize = blockCipherEnc.getBlockSize();
+		if (plainText.length % blockSize != 0) {
+			throw new IllegalArgumentException("illegal blocksize");
+		}
+		
+		byte[] cipherText = new byte[plainText.length];
+		byte[] chainingBlock = getCipherIv().getIV().clone();
+		
+		try {
+			for (int offset = 0; offset < plainText.length; offset += blockSize) {
+				for (int i = 0; i < blockSize; i++) {
+					chainingBlock[i] ^= plainText[offset + i];
+				}
+				blockCipherEnc.doFinal(chainingBlock, 0, blockSize, cipherText, offset);
+				System.arraycopy(cipherText, offset, chainingBlock, 0, blockSize);
+			}
+		} catch (GeneralSecurityException e) {
+			throw new CryptoException(e);
+		}
+		
+		return cipherText;
+	}
+	
+	@Override
+	public byte[] decrypt(byte[] cipherText) {
+		if (blockCipherDec == null) {
+			return CryptoSupport.decrypt(cipher, cipherText, keyEnc, getCipherIv());
+		}
+		
+		int blockSize = blockCipherDec.getBlockSize();
+		if (cipherText.length % blockSize != 0) {
+			throw new IllegalArgumentException("illegal blocksize");
+		}
+		
+		byte[] plainText = processBlocks(blockCipherDec, cipherText);
+		byte[] iv = getCipherIv().getIV();
+		
+		for (int i = 0; i < plainText.length; i++) {
+			plainText[i] ^= (i < blockSize) ? iv[i] : cipherText[i - blockSize];
+		}
+		
+		return plainText;
+	}
+	
+	@Override
+	public byte[] mac(byte[] macInput) {
+		// the mac object is initialized within the constructor and reset after each doFinal
+		mac.update(getMacAuxiliaryData());
+		byte[] macResult = mac.doFinal(macInput);
+		return Arrays.copyOf(macResult, getMacLength());
+	}
+	
+	/**
+	 * This method en-/decrypts the provided data using the provided block cipher initialized in ECB mode.
+	 * @param blockCipher the initialized block cipher
+	 * @param input the data to be processed, must be a multiple of the block size
+	 * @return the processed data
+	 */
+	private static byte[] processBlocks(Cipher blockCipher, byte[] input) {
+		try {
+			return blockCipher.doFinal(input);
+		} catch (GeneralSecurityException e) {
+			throw new CryptoException(e);
 		}
-		return new IvParameterSpec(cipherIvPlain);
 	}
 
 	@Override
@@ -55,7 +55,7 @@ public class BogusPrimitiveTlvDataObject extends PrimitiveTlvDataObject {
 		 * The tag must only be set by methods offered by this class e.g. to
 		 * prevent setting the primitive tag to be a constructed tag.
 		 */
-		tlvTag = tlvTagInput.clone();
+		replaceTag(tlvTagInput.clone());
 	}
 
 	@Override
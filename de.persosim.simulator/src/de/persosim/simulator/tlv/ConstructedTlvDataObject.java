@@ -71,6 +71,28 @@ public class ConstructedTlvDataObject extends TlvDataObject implements TlvDataSt
 		tlvDataObjectContainer = new TlvDataObjectContainer(byteArray, minOffsetSub, maxOffsetSub);
 	}
 	
+	/**
+	 * Constructor for a TLV data object with constructed encoding based on a
+	 * range from an array of raw bytes that has already been checked to
+	 * contain a valid TLV structure and that is not modified afterwards. The
+	 * contained TLV data objects are created on first access.
+	 * 
+	 * @param checkedEncoding the array that contains the TLV data object
+	 * @param minOffset the first offset of the range to contain the TLV data object (inclusive)
+	 * @param maxOffset the first offset of the range to not contain the TLV data object (exclusive)
+	 * @param lazy must be true, only used to distinguish this constructor
+	 */
+	ConstructedTlvDataObject(byte[] checkedEncoding, int minOffset, int maxOffset, boolean lazy) {
+		super(checkedEncoding, minOffset, maxOffset);
+		
+		if(!tlvTag.indicatesEncodingConstructed()) {throw new IllegalArgumentException("tag must be constructed");}
+		
+		int minOffsetSub = minOffset + tlvTag.getLength() + tlvLength.getLength();
+		int maxOffsetSub = (minOffsetSub + tlvLength.getIndicatedLength());
+		
+		tlvDataObjectContainer = TlvDataObjectContainer.createLazy(checkedEncoding, minOffsetSub, maxOffsetSub);
+	}
+	
 	@Override
 	public int hashCode() {
 		return super.hashCode(); //super implementation already covers tlvDataObjectContainer implicitly through getValue()
@@ -183,7 +205,7 @@ public class ConstructedTlvDataObject extends TlvDataObject implements TlvDataSt
 		 * The tag must only be set by methods offered by this class e.g. to
 		 * prevent setting the primitive tag to be a constructed tag.
 		 */
-		tlvTag = tlvTagInput.clone();
+		replaceTag(tlvTagInput.clone());
 	}
 	
 	/**
@@ -333,7 +355,7 @@ public class ConstructedTlvDataObject extends TlvDataObject implements TlvDataSt
 	}
 
 	public TlvDataObject getChild(int index) {
-		return tlvDataObjectContainer.getTlvObjects().get(index);
+		return tlvDataObjectContainer.getTlvObject(index);
 	}
 	
 }
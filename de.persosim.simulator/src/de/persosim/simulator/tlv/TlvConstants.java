@@ -7,68 +7,68 @@ package de.persosim.simulator.tlv;
  *
  */
 public interface TlvConstants {
-	public static final TlvTag TAG_06 = new TlvTag((byte) 0x06);
-	public static final TlvTag TAG_42 = new TlvTag((byte) 0x42);
-	public static final TlvTag TAG_53 = new TlvTag((byte) 0x53);
-	public static final TlvTag TAG_65 = new TlvTag((byte) 0x65);
-	public static final TlvTag TAG_67 = new TlvTag((byte) 0x67);
-	public static final TlvTag TAG_6E = new TlvTag((byte) 0x6E);
-	public static final TlvTag TAG_73 = new TlvTag((byte) 0x73);
-	public static final TlvTag TAG_7C = new TlvTag((byte) 0x7C);
-	public static final TlvTag TAG_80 = new TlvTag((byte) 0x80);
-	public static final TlvTag TAG_81 = new TlvTag((byte) 0x81);
-	public static final TlvTag TAG_82 = new TlvTag((byte) 0x82);
-	public static final TlvTag TAG_83 = new TlvTag((byte) 0x83);
-	public static final TlvTag TAG_84 = new TlvTag((byte) 0x84);
-	public static final TlvTag TAG_85 = new TlvTag((byte) 0x85);
-	public static final TlvTag TAG_86 = new TlvTag((byte) 0x86);
-	public static final TlvTag TAG_87 = new TlvTag((byte) 0x87);
-	public static final TlvTag TAG_88 = new TlvTag((byte) 0x88);
-	public static final TlvTag TAG_8A = new TlvTag((byte) 0x8A);
-	public static final TlvTag TAG_8E = new TlvTag((byte) 0x8E);
-	public static final TlvTag TAG_91 = new TlvTag((byte) 0x91);
-	public static final TlvTag TAG_92 = new TlvTag((byte) 0x92);
-	public static final TlvTag TAG_97 = new TlvTag((byte) 0x97);
-	public static final TlvTag TAG_99 = new TlvTag((byte) 0x99);
-	public static final TlvTag TAG_A0 = new TlvTag((byte) 0xA0);
-	public static final TlvTag TAG_A1 = new TlvTag((byte) 0xA1);
-	public static final TlvTag TAG_A2 = new TlvTag((byte) 0xA2);
-	public static final TlvTag TAG_A3 = new TlvTag((byte) 0xA3);
-	public static final TlvTag TAG_A4 = new TlvTag((byte) 0xA4);
-	public static final TlvTag TAG_A5 = new TlvTag((byte) 0xA5);
-	public static final TlvTag TAG_A6 = new TlvTag((byte) 0xA6);
-	public static final TlvTag TAG_AA = new TlvTag((byte) 0xAA);
-	public static final TlvTag TAG_AB = new TlvTag((byte) 0xAB);
-	public static final TlvTag TAG_AC = new TlvTag((byte) 0xAC);
-	public static final TlvTag TAG_AD = new TlvTag((byte) 0xAD);
-	public static final TlvTag TAG_AE = new TlvTag((byte) 0xAE);
-	public static final TlvTag TAG_E1 = new TlvTag((byte) 0xE1);
-	public static final TlvTag TAG_E0 = new TlvTag((byte) 0xE0);
-	public static final TlvTag TAG_AltSet = new TlvTag((byte) 0x31);
-	public static final TlvTag TAG_AltSequence = new TlvTag((byte) 0x30);
-	public static final TlvTag TAG_5F1F = new TlvTag(new byte []{0x5F, 0x1F});
-	public static final TlvTag TAG_5F20 = new TlvTag(new byte []{0x5F, 0x20});
-	public static final TlvTag TAG_5F24 = new TlvTag(new byte []{0x5F, 0x24});
-	public static final TlvTag TAG_5F25 = new TlvTag(new byte []{0x5F, 0x25});
-	public static final TlvTag TAG_5F29 = new TlvTag(new byte []{0x5F, 0x29});
-	public static final TlvTag TAG_5F37 = new TlvTag(new byte []{0x5F, 0x37});
-	public static final TlvTag TAG_7F21 = new TlvTag(new byte []{0x7F, 0x21});
-	public static final TlvTag TAG_7F49 = new TlvTag(new byte []{0x7F, 0x49});
-	public static final TlvTag TAG_7F4C = new TlvTag(new byte []{0x7F, 0x4C});
-	public static final TlvTag TAG_7F4E = new TlvTag(new byte []{0x7F, 0x4E});
+	public static final TlvTag TAG_06 = TlvTag.getInstance((byte) 0x06);
+	public static final TlvTag TAG_42 = TlvTag.getInstance((byte) 0x42);
+	public static final TlvTag TAG_53 = TlvTag.getInstance((byte) 0x53);
+	public static final TlvTag TAG_65 = TlvTag.getInstance((byte) 0x65);
+	public static final TlvTag TAG_67 = TlvTag.getInstance((byte) 0x67);
+	public static final TlvTag TAG_6E = TlvTag.getInstance((byte) 0x6E);
+	public static final TlvTag TAG_73 = TlvTag.getInstance((byte) 0x73);
+	public static final TlvTag TAG_7C = TlvTag.getInstance((byte) 0x7C);
+	public static final TlvTag TAG_80 = TlvTag.getInstance((byte) 0x80);
+	public static final TlvTag TAG_81 = TlvTag.getInstance((byte) 0x81);
+	public static final TlvTag TAG_82 = TlvTag.getInstance((byte) 0x82);
+	public static final TlvTag TAG_83 = TlvTag.getInstance((byte) 0x83);
+	public static final TlvTag TAG_84 = TlvTag.getInstance((byte) 0x84);
+	public static final TlvTag TAG_85 = TlvTag.getInstance((byte) 0x85);
+	public static final TlvTag TAG_86 = TlvTag.getInstance((byte) 0x86);
+	public static final TlvTag TAG_87 = TlvTag.getInstance((byte) 0x87);
+	public static final TlvTag TAG_88 = TlvTag.getInstance((byte) 0x88);
+	public static final TlvTag TAG_8A = TlvTag.getInstance((byte) 0x8A);
+	public static final TlvTag TAG_8E = TlvTag.getInstance((byte) 0x8E);
+	public static final TlvTag TAG_91 = TlvTag.getInstance((byte) 0x91);
+	public static final TlvTag TAG_92 = TlvTag.getInstance((byte) 0x92);
+	public static final TlvTag TAG_97 = TlvTag.getInstance((byte) 0x97);
+	public static final TlvTag TAG_99 = TlvTag.getInstance((byte) 0x99);
+	public static final TlvTag TAG_A0 = TlvTag.getInstance((byte) 0xA0);
+	public static final TlvTag TAG_A1 = TlvTag.getInstance((byte) 0xA1);
+	public static final TlvTag TAG_A2 = TlvTag.getInstance((byte) 0xA2);
+	public static final TlvTag TAG_A3 = TlvTag.getInstance((byte) 0xA3);
+	public static final TlvTag TAG_A4 = TlvTag.getInstance((byte) 0xA4);
+	public static final TlvTag TAG_A5 = TlvTag.getInstance((byte) 0xA5);
+	public static final TlvTag TAG_A6 = TlvTag.getInstance((byte) 0xA6);
+	public static final TlvTag TAG_AA = TlvTag.getInstance((byte) 0xAA);
+	public static final TlvTag TAG_AB = TlvTag.getInstance((byte) 0xAB);
+	public static final TlvTag TAG_AC = TlvTag.getInstance((byte) 0xAC);
+	public static final TlvTag TAG_AD = TlvTag.getInstance((byte) 0xAD);
+	public static final TlvTag TAG_AE = TlvTag.getInstance((byte) 0xAE);
+	public static final TlvTag TAG_E1 = TlvTag.getInstance((byte) 0xE1);
+	public static final TlvTag TAG_E0 = TlvTag.getInstance((byte) 0xE0);
+	public static final TlvTag TAG_AltSet = TlvTag.getInstance((byte) 0x31);
+	public static final TlvTag TAG_AltSequence = TlvTag.getInstance((byte) 0x30);
+	public static final TlvTag TAG_5F1F = TlvTag.getInstance(new byte []{0x5F, 0x1F});
+	public static final TlvTag TAG_5F20 = TlvTag.getInstance(new byte []{0x5F, 0x20});
+	public static final TlvTag TAG_5F24 = TlvTag.getInstance(new byte []{0x5F, 0x24});
+	public static final TlvTag TAG_5F25 = TlvTag.getInstance(new byte []{0x5F, 0x25});
+	public static final TlvTag TAG_5F29 = TlvTag.getInstance(new byte []{0x5F, 0x29});
+	public static final TlvTag TAG_5F37 = TlvTag.getInstance(new byte []{0x5F, 0x37});
+	public static final TlvTag TAG_7F21 = TlvTag.getInstance(new byte []{0x7F, 0x21});
+	public static final TlvTag TAG_7F49 = TlvTag.getInstance(new byte []{0x7F, 0x49});
+	public static final TlvTag TAG_7F4C = TlvTag.getInstance(new byte []{0x7F, 0x4C});
+	public static final TlvTag TAG_7F4E = TlvTag.getInstance(new byte []{0x7F, 0x4E});
 
-	public static final TlvTag TAG_NULL = new TlvTag(Asn1.UNIVERSAL_NULL);
-	public static final TlvTag TAG_BOOLEAN = new TlvTag(Asn1.BOOLEAN);
-	public static final TlvTag TAG_INTEGER = new TlvTag(Asn1.INTEGER);
-	public static final TlvTag TAG_NUMERIC_STRING = new TlvTag(Asn1.UNIVERSAL_NUMERIC_STRING);
-	public static final TlvTag TAG_BIT_STRING = new TlvTag(Asn1.BIT_STRING);
-	public static final TlvTag TAG_OCTET_STRING = new TlvTag(Asn1.OCTET_STRING);
-	public static final TlvTag TAG_OID = new TlvTag(Asn1.OBJECT_IDENTIFIER);
-	public static final TlvTag TAG_SEQUENCE = new TlvTag(Asn1.SEQUENCE);
-	public static final TlvTag TAG_SET = new TlvTag(Asn1.SET);
-	public static final TlvTag TAG_IA5_STRING = new TlvTag(Asn1.IA5_STRING);
-	public static final TlvTag TAG_PRINTABLE_STRING = new TlvTag(Asn1.UNIVERSAL_PRINTABLE_STRING);
-	public static final TlvTag TAG_UTF8_STRING = new TlvTag(Asn1.UNIVERSAL_UTF8String);
+	public static final TlvTag TAG_NULL = TlvTag.getInstance(Asn1.UNIVERSAL_NULL);
+	public static final TlvTag TAG_BOOLEAN = TlvTag.getInstance(Asn1.BOOLEAN);
+	public static final TlvTag TAG_INTEGER = TlvTag.getInstance(Asn1.INTEGER);
+	public static final TlvTag TAG_NUMERIC_STRING = TlvTag.getInstance(Asn1.UNIVERSAL_NUMERIC_STRING);
+	public static final TlvTag TAG_BIT_STRING = TlvTag.getInstance(Asn1.BIT_STRING);
+	public static final TlvTag TAG_OCTET_STRING = TlvTag.getInstance(Asn1.OCTET_STRING);
+	public static final TlvTag TAG_OID = TlvTag.getInstance(Asn1.OBJECT_IDENTIFIER);
+	public static final TlvTag TAG_SEQUENCE = TlvTag.getInstance(Asn1.SEQUENCE);
+	public static final TlvTag TAG_SET = TlvTag.getInstance(Asn1.SET);
+	public static final TlvTag TAG_IA5_STRING = TlvTag.getInstance(Asn1.IA5_STRING);
+	public static final TlvTag TAG_PRINTABLE_STRING = TlvTag.getInstance(Asn1.UNIVERSAL_PRINTABLE_STRING);
+	public static final TlvTag TAG_UTF8_STRING = TlvTag.getInstance(Asn1.UNIVERSAL_UTF8String);
 	
 	
 	public static final TlvValuePlain DER_BOOLEAN_TRUE = new TlvValuePlain(new byte [] {(byte) 0xFF});
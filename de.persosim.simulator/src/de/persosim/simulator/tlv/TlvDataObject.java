@@ -1,17 +1,11 @@
 package de.persosim.simulator.tlv;
 
-import static org.globaltester.logging.BasicLogger.logException;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
-
-import org.globaltester.logging.BasicLogger;
-import org.globaltester.logging.tags.LogLevel;
-import org.globaltester.logging.tags.LogTag;
+import java.util.List;
 
 import de.persosim.simulator.exception.ISO7816Exception;
-import de.persosim.simulator.log.PersoSimLogTags;
 import de.persosim.simulator.platform.Iso7816;
 
 /**
@@ -78,6 +72,9 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 
 	protected boolean performValidityChecks;
 
+	/* The containers whose tag index contains this object, notified when the tag of this object is changed */
+	private transient List<WeakReference<TlvDataObjectContainer>> tagIndexingContainers;
+
 	/*--------------------------------------------------------------------------------*/
 
 	/**
@@ -108,7 +105,7 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 		 */
 		int currentOffset = minOffset;
 
-		tlvTag = new TlvTag(dataField, currentOffset, maxOffset);
+		tlvTag = TlvTag.getInstance(dataField, currentOffset, maxOffset);
 
 		/*
 		 * Determine Length
@@ -151,6 +148,63 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 		setTag(tlvTag, PERFORM_VALIDITY_CHECKS);
 	}
 
+	/**
+	 * This method sets the already checked and cloned tag of this object.
+	 * Subclasses must use this method to change the tag of an existing
+	 * object so that containers indexing their contents by tag are
+	 * notified about the change.
+	 * @param tlvTagInput the tag to be set
+	 */
+	protected final void replaceTag(TlvTag tlvTagInput) {
+		if(tagIndexingContainers != null) {
+			/* the containers drop their tag index and thereby unregister from this object */
+			for(WeakReference<TlvDataObjectContainer> reference : new ArrayList<>(tagIndexingContainers)) {
+				TlvDataObjectContainer container = reference.get();
+				if(container != null) {
+					container.tagChanged();
+				}
+			}
+			tagIndexingContainers = null;
+		}
+		tlvTag = tlvTagInput;
+	}
+
+	/**
+	 * This method registers a container whose tag index contains this object.
+	 * Registrations of containers no longer in use are purged.
+	 * @param container the container to be notified about tag changes
+	 */
+	void addTagIndexingContainer(TlvDataObjectContainer container) {
+		if(tagIndexingContainers == null) {
+			tagIndexingContainers = new ArrayList<>(1);
+		} else {
+			tagIndexingContainers.removeIf(reference -> reference.get() == null);
+		}
+		tagIndexingContainers.add(new WeakReference<>(container));
+	}
+
+	/**
+	 * This method removes one registration of a container whose tag index no
+	 * longer contains this object.
+	 * @param container the container not to be notified any more
+	 */
+	void removeTagIndexingContainer(TlvDataObjectContainer container) {
+		if(tagIndexingContainers == null) {
+			return;
+		}
+
+		for(int i = 0; i < tagIndexingContainers.size(); i++) {
+			if(tagIndexingContainers.get(i).get() == container) {
+				tagIndexingContainers.remove(i);
+				break;
+			}
+		}
+
+		if(tagIndexingContainers.isEmpty()) {
+			tagIndexingContainers = null;
+		}
+	}
+
 	/**
 	 * Set the length of this object
 	 * @param tlvLengthInput the length
@@ -200,29 +254,16 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 
 	@Override
 	public int getLength() {
-		return getNoOfTagBytes() + getNoOfLengthBytes() + getNoOfValueBytes();
+		/* the length field depends on the value field, so its length is only computed once */
+		int noOfValueBytes = getNoOfValueBytes();
+		return getNoOfTagBytes() + getTlvLength(noOfValueBytes).getLength() + noOfValueBytes;
 	}
 
 	/*--------------------------------------------------------------------------------*/
 
 	@Override
 	public byte[] toByteArray() {
-		ByteArrayOutputStream outputStream;
-
-		outputStream = new ByteArrayOutputStream();
-
-		try {
-			/* tag can be accessed directly */
-			outputStream.write(tlvTag.toByteArray());
-			/* length must be accessed by getter in case there is a valid override */
-			outputStream.write(getTlvLength().toByteArray());
-			/* value must be accessed by getter as values are only specified by sub classes */
-			outputStream.write(getTlvValue().toByteArray());
-		} catch (IOException e) {
-			logException(e.getMessage(), e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-		}
-
-		return outputStream.toByteArray();
+		return TlvEncoder.encode(this);
 	}
 
 	/**
@@ -246,6 +287,15 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 	 */
 	public abstract byte[] getValueField();
 
+	/**
+	 * Returns a read-only view on the value field. In contrast to
+	 * {@link #getValueField()} the value field is not copied if avoidable.
+	 * @return a read-only view on the value field
+	 */
+	public TlvValueView getValueView() {
+		return getTlvValue().getView();
+	}
+
 	/**
 	 * The tag returned is a clone of the original object.
 	 * This is necessary for the following reasons:
@@ -273,14 +323,26 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 	 * @return the tlvLength
 	 */
 	public TlvLength getTlvLength() {
+		return getTlvLength(getTlvValue().getLength());
+	}
+
+	/**
+	 * Returns the length field for this TLV data object as described for
+	 * {@link #getTlvLength()} based on the already known actual length of the
+	 * value field.
+	 *
+	 * @param valueLength the actual length of the current value field
+	 * @return the tlvLength
+	 */
+	TlvLength getTlvLength(int valueLength) {
 		if(tlvLength == null) {
 			/* A TLV length field has NOT been explicitly set */
-			return new TlvLength(getTlvValue().getLength());
+			return new TlvLength(valueLength);
 		} else{
 			/* A TLV length field has been explicitly set */
 			int indicatedLength = tlvLength.getIndicatedLength();
 
-			if(indicatedLength == getTlvValue().getLength()) {
+			if(indicatedLength == valueLength) {
 				/* The length indicated by the length field matches the actual length of the value field */
 				return tlvLength;
 			} else{
@@ -288,7 +350,7 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 				if(performValidityChecks) {
 					/* discard invalid length field */
 					tlvLength = null;
-					return new TlvLength(getTlvValue().getLength());
+					return new TlvLength(valueLength);
 				} else{
 					return tlvLength;
 				}
@@ -1,21 +1,16 @@
 package de.persosim.simulator.tlv;
 
-import static org.globaltester.logging.BasicLogger.logException;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
-import org.globaltester.logging.BasicLogger;
-import org.globaltester.logging.tags.LogLevel;
-import org.globaltester.logging.tags.LogTag;
-
-import de.persosim.simulator.log.PersoSimLogTags;
+import de.persosim.simulator.exception.ISO7816Exception;
 import de.persosim.simulator.platform.Iso7816;
 
 /**
@@ -30,6 +25,12 @@ import de.persosim.simulator.platform.Iso7816;
  * dedicated tag or explicit length field. Objects of this class may also be
  * used as a representation of APDU command data fields.
  *
+ * Objects of this class may be constructed in lazy mode. In this mode the TLV
+ * structure is checked completely during construction but only the boundaries
+ * of the contained TLV data objects are recorded. The objects themselves are
+ * created from the recorded boundaries when they are accessed for the first
+ * time. Apart from that the mode is not observable.
+ *
  * @author slutters
  *
  */
@@ -37,6 +38,31 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 	protected List<TlvDataObject> tlvObjects;
 
+	/*
+	 * Lazy mode: the encoding of the contained TLV data objects, the offsets of
+	 * their boundaries within this encoding (the last entry being the end of
+	 * the last object), the lengths of their tags and the objects already
+	 * created. These fields are null unless this container is in lazy mode
+	 * and not all objects have been added to tlvObjects yet.
+	 */
+	private byte[] lazyEncoding;
+	private int[] lazyOffsets;
+	private int[] lazyTagLengths;
+	private TlvDataObject[] lazyObjects;
+
+	/*
+	 * Tag index: the contained objects grouped by the int encoding of their
+	 * tags (see TlvTag#getTagKey()) in the order of tlvObjects. The index is
+	 * created on the first lookup if at least TAG_INDEX_MIN_NO_OF_ELEMENTS
+	 * objects are contained and kept up to date while objects are added or
+	 * removed. The indexed objects notify this container about changes of
+	 * their tags. The index is dropped if it can not be kept up to date,
+	 * e.g. when the objects are sorted or the tag of an indexed object is
+	 * changed, and re-created on the next lookup.
+	 */
+	static final int TAG_INDEX_MIN_NO_OF_ELEMENTS = 8;
+	private transient Map<Integer, List<TlvDataObject>> tagIndex;
+
 	/*--------------------------------------------------------------------------------*/
 
 	/**
@@ -56,6 +82,17 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	 * @param maxOffset the last offset to be used (exclusive)
 	 */
 	public TlvDataObjectContainer(byte[] dataField, int minOffset, int maxOffset) {
+		this(dataField, minOffset, maxOffset, false);
+	}
+
+	/**
+	 * Constructor for all TLV structures with indicated length > 0.
+	 * @param dataField the data field that contains the TLV structure
+	 * @param minOffset the first offset to be used (inclusive)
+	 * @param maxOffset the last offset to be used (exclusive)
+	 * @param lazy true: create contained TLV data objects on first access (lazy mode), false: create them immediately
+	 */
+	public TlvDataObjectContainer(byte[] dataField, int minOffset, int maxOffset, boolean lazy) {
 		if(dataField == null) {throw new IllegalArgumentException("dataField must not be null");}
 		if(minOffset < 0) {throw new IllegalArgumentException("min offset must not be less than 0");}
 		if(maxOffset < minOffset) {throw new IllegalArgumentException("max offset must not be smaller than min offset");}
@@ -68,6 +105,18 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 			return;
 		}
 
+		if(lazy) {
+			/* check the whole structure in order to reject the same data as the immediate creation of all objects */
+			int currentOffset = minOffset;
+			while(currentOffset < maxOffset) {
+				currentOffset = checkTlvDataObject(dataField, currentOffset, maxOffset);
+			}
+
+			/* keep a copy as the provided data field may be modified by the caller */
+			setLazyEncoding(Arrays.copyOfRange(dataField, minOffset, maxOffset), 0, maxOffset - minOffset);
+			return;
+		}
+
 		int currentOffset = minOffset;
 		TlvDataObject tlvObject;
 
@@ -96,6 +145,147 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 		this(dataField, 0, dataField.length);
 	}
 
+	/**
+	 * Constructs an object in lazy mode from a range of the provided encoding
+	 * that has already been checked to contain a valid TLV structure and that
+	 * is not modified afterwards.
+	 * @param checkedEncoding the encoding that contains the TLV structure
+	 * @param minOffset the first offset to be used (inclusive)
+	 * @param maxOffset the last offset to be used (exclusive)
+	 * @return the lazy container
+	 */
+	static TlvDataObjectContainer createLazy(byte[] checkedEncoding, int minOffset, int maxOffset) {
+		TlvDataObjectContainer container = new TlvDataObjectContainer();
+		container.setLazyEncoding(checkedEncoding, minOffset, maxOffset);
+		return container;
+	}
+
+	/**
+	 * This method checks the TLV data object starting at the given offset
+	 * including all of its sub-objects. The checks are the same as the ones
+	 * performed while creating the object using
+	 * {@link TlvDataObjectFactory#createTLVDataObject(byte[], int, int)}.
+	 * @param dataField the data field that contains the TLV data object
+	 * @param minOffset the first offset of the TLV data object (inclusive)
+	 * @param maxOffset the last offset the TLV data object may use (exclusive)
+	 * @return the first offset after the TLV data object
+	 */
+	private static int checkTlvDataObject(byte[] dataField, int minOffset, int maxOffset) {
+		TlvTag tlvTag = TlvTag.getInstance(dataField, minOffset, maxOffset);
+		int valueOffset = minOffset + tlvTag.getLength();
+		TlvLength tlvLength = new TlvLength(dataField, valueOffset, maxOffset);
+		valueOffset += tlvLength.getLength();
+		int endOffset = valueOffset + tlvLength.getIndicatedLength();
+
+		if(endOffset > maxOffset) {
+			/* error, length indicated by TLV would exceed expected length */
+			ISO7816Exception.throwIt(SW_6A85_NC_INCONSISTENT_WITH_TLV_STRUCTURE, "offset outside data array");
+		}
+
+		if(tlvTag.indicatesEncodingConstructed()) {
+			int currentOffset = valueOffset;
+			while(currentOffset < endOffset) {
+				currentOffset = checkTlvDataObject(dataField, currentOffset, endOffset);
+			}
+		}
+
+		return endOffset;
+	}
+
+	/**
+	 * This method records the boundaries of the TLV data objects contained in
+	 * the provided, already checked encoding and switches this object to lazy
+	 * mode.
+	 */
+	private void setLazyEncoding(byte[] checkedEncoding, int minOffset, int maxOffset) {
+		int[] offsets = new int[8];
+		int[] tagLengths = new int[8];
+		int noOfObjects = 0;
+
+		int currentOffset = minOffset;
+		while(currentOffset < maxOffset) {
+			if(noOfObjects + 1 >= offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				tagLengths = Arrays.copyOf(tagLengths, tagLengths.length * 2);
+			}
+
+			TlvTag tlvTag = TlvTag.getInstance(checkedEncoding, currentOffset, maxOffset);
+			TlvLength tlvLength = new TlvLength(checkedEncoding, currentOffset + tlvTag.getLength(), maxOffset);
+
+			offsets[noOfObjects] = currentOffset;
+			tagLengths[noOfObjects] = tlvTag.getLength();
+			noOfObjects++;
+
+			currentOffset += tlvTag.getLength() + tlvLength.getLength() + tlvLength.getIndicatedLength();
+		}
+
+		if(noOfObjects == 0) {
+			tlvObjects = new ArrayList<>();
+			return;
+		}
+
+		offsets[noOfObjects] = currentOffset;
+
+		tlvObjects = null;
+		lazyEncoding = checkedEncoding;
+		lazyOffsets = Arrays.copyOf(offsets, noOfObjects + 1);
+		lazyTagLengths = Arrays.copyOf(tagLengths, noOfObjects);
+		lazyObjects = new TlvDataObject[noOfObjects];
+	}
+
+	/**
+	 * @return whether this object is in lazy mode and not all contained objects have been created yet
+	 */
+	private boolean isLazy() {
+		return lazyEncoding != null;
+	}
+
+	/**
+	 * This method returns the contained object at the given index, creating it if necessary. This object must be in lazy mode.
+	 */
+	private TlvDataObject getLazyObject(int index) {
+		if(lazyObjects[index] == null) {
+			lazyObjects[index] = TlvDataObjectFactory.createCheckedTlvDataObject(lazyEncoding, lazyOffsets[index], lazyOffsets[index + 1]);
+		}
+		return lazyObjects[index];
+	}
+
+	/**
+	 * This method returns whether the contained object at the given index has the provided tag. This object must be in lazy mode.
+	 */
+	private boolean lazyObjectHasTag(int index, TlvTag tlvTag) {
+		if(lazyObjects[index] != null) {
+			return lazyObjects[index].getTlvTag().equals(tlvTag);
+		}
+
+		byte[] tagField = tlvTag.toByteArray();
+		int offset = lazyOffsets[index];
+		return (lazyTagLengths[index] == tagField.length) && Arrays.equals(lazyEncoding, offset, offset + tagField.length, tagField, 0, tagField.length);
+	}
+
+	/**
+	 * This method returns the list of contained objects. If this object is in
+	 * lazy mode all objects not accessed so far are created and lazy mode is
+	 * left.
+	 * @return the list of contained objects
+	 */
+	private List<TlvDataObject> getAllTlvObjects() {
+		if(isLazy()) {
+			List<TlvDataObject> allTlvObjects = new ArrayList<>(lazyObjects.length);
+			for(int i = 0; i < lazyObjects.length; i++) {
+				allTlvObjects.add(getLazyObject(i));
+			}
+
+			tlvObjects = allTlvObjects;
+			lazyEncoding = null;
+			lazyOffsets = null;
+			lazyTagLengths = null;
+			lazyObjects = null;
+		}
+
+		return tlvObjects;
+	}
+
 	/**
 	 * Constructs an object only containing the provided object
 	 * @param tlvDataObject the object to contain
@@ -118,7 +308,8 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((tlvObjects == null) ? 0 : tlvObjects.hashCode());
+		List<TlvDataObject> allTlvObjects = getAllTlvObjects();
+		result = prime * result + ((allTlvObjects == null) ? 0 : allTlvObjects.hashCode());
 		return result;
 	}
 
@@ -131,11 +322,13 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 		if (getClass() != obj.getClass())
 			return false;
 		TlvDataObjectContainer other = (TlvDataObjectContainer) obj;
+		List<TlvDataObject> allTlvObjects = getAllTlvObjects();
+		List<TlvDataObject> otherTlvObjects = other.getAllTlvObjects();
 
-		if (tlvObjects == null) {
-			if (other.tlvObjects != null)
+		if (allTlvObjects == null) {
+			if (otherTlvObjects != null)
 				return false;
-		} else if (!tlvObjects.equals(other.tlvObjects)) {
+		} else if (!allTlvObjects.equals(otherTlvObjects)) {
 			return false;
 		} else {
 			//tlvObjects fields are equal
@@ -180,6 +373,40 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 		if(tagIdentifier == null) {throw new IllegalArgumentException("tag must not be null");}
 		int remainingOccurences = tagIdentifier.getNoOfPreviousOccurrences();
 
+		if(isLazy()) {
+			TlvTag tlvTag = tagIdentifier.getTag();
+			for(int i = 0; i < lazyObjects.length; i++) {
+				if(lazyObjectHasTag(i, tlvTag)) {
+					if (remainingOccurences == 0) {
+						return getLazyObject(i);
+					} else {
+						remainingOccurences--;
+					}
+				}
+			}
+			return null;
+		}
+
+		Map<Integer, List<TlvDataObject>> currentTagIndex = getTagIndex();
+		if(currentTagIndex != null) {
+			TlvTag tlvTag = tagIdentifier.getTag();
+			List<TlvDataObject> candidates = currentTagIndex.get(tlvTag.getTagKey());
+			if(candidates == null) {
+				return null;
+			}
+			for(TlvDataObject tlvDataObject : candidates) {
+				/* different tags may share the same key */
+				if(tlvDataObject.tlvTag.matches(tlvTag)) {
+					if (remainingOccurences == 0) {
+						return tlvDataObject;
+					} else {
+						remainingOccurences--;
+					}
+				}
+			}
+			return null;
+		}
+
 		for(TlvDataObject tlvDataObject : this.tlvObjects) {
 			if(tlvDataObject.getTlvTag().equals(tagIdentifier.getTag())) {
 				if (remainingOccurences == 0) {
@@ -193,6 +420,100 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 		return null;
 	}
 
+	/**
+	 * This method returns the tag index, creating it if necessary. This object must not be in lazy mode.
+	 * @return the tag index or null if this object contains too few objects to be indexed
+	 */
+	private Map<Integer, List<TlvDataObject>> getTagIndex() {
+		if(tagIndex != null) {
+			return tagIndex;
+		}
+
+		if(tlvObjects.size() < TAG_INDEX_MIN_NO_OF_ELEMENTS) {
+			return null;
+		}
+
+		tagIndex = new HashMap<>();
+		for(TlvDataObject tlvDataObject : tlvObjects) {
+			addToTagIndex(tlvDataObject);
+		}
+
+		return tagIndex;
+	}
+
+	/**
+	 * This method adds the provided object to the end of its group within the existing tag index.
+	 */
+	private void addToTagIndex(TlvDataObject tlvDataObject) {
+		tagIndex.computeIfAbsent(tlvDataObject.tlvTag.getTagKey(), key -> new ArrayList<>(1)).add(tlvDataObject);
+		tlvDataObject.addTagIndexingContainer(this);
+	}
+
+	/**
+	 * This method removes the provided object from the existing tag index.
+	 */
+	private void removeFromTagIndex(TlvDataObject tlvDataObject) {
+		Integer tagKey = tlvDataObject.tlvTag.getTagKey();
+		List<TlvDataObject> group = tagIndex.get(tagKey);
+
+		if(group != null) {
+			for(int i = 0; i < group.size(); i++) {
+				if(group.get(i) == tlvDataObject) {
+					group.remove(i);
+					if(group.isEmpty()) {
+						tagIndex.remove(tagKey);
+					}
+					tlvDataObject.removeTagIndexingContainer(this);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method drops the tag index, if any, and unregisters this container
+	 * from all indexed objects.
+	 */
+	private void dropTagIndex() {
+		if(tagIndex == null) {
+			return;
+		}
+
+		Map<Integer, List<TlvDataObject>> droppedTagIndex = tagIndex;
+		tagIndex = null;
+		for(List<TlvDataObject> group : droppedTagIndex.values()) {
+			for(TlvDataObject tlvDataObject : group) {
+				tlvDataObject.removeTagIndexingContainer(this);
+			}
+		}
+	}
+
+	/**
+	 * This method is called by an indexed object before its tag is changed.
+	 */
+	void tagChanged() {
+		dropTagIndex();
+	}
+
+	/**
+	 * @return whether this container currently holds a tag index
+	 */
+	boolean isTagIndexed() {
+		return tagIndex != null;
+	}
+
+	/**
+	 * This method returns the contained object at the given index without creating any other contained object.
+	 * @param index the index of the object
+	 * @return the object at the given index
+	 */
+	TlvDataObject getTlvObject(int index) {
+		if(isLazy()) {
+			return getLazyObject(index);
+		}
+		return tlvObjects.get(index);
+	}
+
 	@Override
 	public TlvDataObject getTlvDataObject(TlvTag tlvTag) {
 		return getTlvDataObject(new TlvTagIdentifier(tlvTag));
@@ -205,7 +526,11 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 	@Override
 	public int getNoOfElements(boolean recursive) {
-		int noOfElements = this.tlvObjects.size();
+		if(isLazy() && !recursive) {
+			return lazyObjects.length;
+		}
+
+		int noOfElements = getAllTlvObjects().size();
 
 		if(recursive) {
 			for(TlvDataObject tlvDataObject : this.tlvObjects) {
@@ -224,43 +549,111 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	}
 
 	/**
-	 * @return the tlvObjects
+	 * @return an unmodifiable view of the tlvObjects, modifications must use the methods of this object
 	 */
 	public List<TlvDataObject> getTlvObjects() {
-		return tlvObjects;
+		return Collections.unmodifiableList(getAllTlvObjects());
 	}
 
 	@Override
 	public byte[] toByteArray() {
-		ByteArrayOutputStream outputStream;
-		byte[] tlvObjectAsByteArray;
+		return TlvEncoder.encode(this);
+	}
 
-		outputStream = new ByteArrayOutputStream();
+	/**
+	 * This method adds the encodings of all contained TLV data objects to the
+	 * provided encoder.
+	 * @param encoder the encoder to add the encodings to
+	 * @return the length of this object as returned by {@link #getLength()}
+	 */
+	int addTo(TlvEncoder encoder) {
+		int length = 0;
+
+		if(isLazy()) {
+			/* objects not yet created are still encoded as recorded, created ones may have been modified */
+			int unmodifiedOffset = lazyOffsets[0];
+			for(int i = 0; i < lazyObjects.length; i++) {
+				if(lazyObjects[i] != null) {
+					if(lazyOffsets[i] > unmodifiedOffset) {
+						encoder.addPart(new TlvValueView(lazyEncoding, unmodifiedOffset, lazyOffsets[i]));
+						length += lazyOffsets[i] - unmodifiedOffset;
+					}
+					length += encoder.addTlvDataObject(lazyObjects[i]);
+					unmodifiedOffset = lazyOffsets[i + 1];
+				}
+			}
+			if(lazyOffsets[lazyObjects.length] > unmodifiedOffset) {
+				encoder.addPart(new TlvValueView(lazyEncoding, unmodifiedOffset, lazyOffsets[lazyObjects.length]));
+				length += lazyOffsets[lazyObjects.length] - unmodifiedOffset;
+			}
+			return length;
+		}
 
 		for(TlvDataObject tlvObject : this.tlvObjects) {
-			try {
-				tlvObjectAsByteArray = tlvObject.toByteArray();
-				outputStream.write(tlvObjectAsByteArray);
-			} catch (IOException e) {
-				logException(e.getMessage(), e, LogLevel.ERROR, new LogTag(BasicLogger.LOG_TAG_TAG_ID, PersoSimLogTags.COMMAND_PROCESSOR_TAG_ID));
-			}
+			length += encoder.addTlvDataObject(tlvObject);
 		}
 
-		return outputStream.toByteArray();
+		return length;
 	}
 
 	/*--------------------------------------------------------------------------------*/
 
+	@Override
+	public TlvValueView getView() {
+		if(isLazy() && isNoLazyObjectCreated()) {
+			/* the recorded encoding is never modified and can be shared */
+			return new TlvValueView(lazyEncoding, lazyOffsets[0], lazyOffsets[lazyObjects.length]);
+		}
+		return super.getView();
+	}
+
+	/**
+	 * @return whether none of the contained objects has been created yet. This object must be in lazy mode.
+	 */
+	private boolean isNoLazyObjectCreated() {
+		for(TlvDataObject tlvDataObject : lazyObjects) {
+			if(tlvDataObject != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public Iterator<TlvDataObject> iterator() {
-		return this.tlvObjects.iterator();
+		Iterator<TlvDataObject> iterator = getAllTlvObjects().iterator();
+
+		return new Iterator<TlvDataObject>() {
+
+			private TlvDataObject current;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public TlvDataObject next() {
+				current = iterator.next();
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				if(tagIndex != null) {
+					removeFromTagIndex(current);
+				}
+			}
+		};
 	}
 
 	/*--------------------------------------------------------------------------------*/
 
 	@Override
 	public void sort(Comparator<TlvDataObject> comparator) {
-		Collections.sort(this.tlvObjects, comparator);
+		Collections.sort(getAllTlvObjects(), comparator);
+		dropTagIndex();
 	}
 
 	@Override
@@ -275,8 +668,12 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 	@Override
 	public void addTlvDataObject(TlvDataObject... tlvDataObject) {
+		List<TlvDataObject> allTlvObjects = getAllTlvObjects();
 		for (int i = 0; i < tlvDataObject.length; i++) {
-			this.tlvObjects.add(tlvDataObject[i]);
+			allTlvObjects.add(tlvDataObject[i]);
+			if(tagIndex != null) {
+				addToTagIndex(tlvDataObject[i]);
+			}
 		}
 	}
 
@@ -301,7 +698,7 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	public void removeTlvDataObject(TlvTagIdentifier tagIdentifier) {
 		TlvDataObject objToRemove = getTlvDataObject(tagIdentifier);
 
-		tlvObjects.removeIf(new Predicate<TlvDataObject>() {
+		boolean removed = getAllTlvObjects().removeIf(new Predicate<TlvDataObject>() {
 
 			@Override
 			public boolean test(TlvDataObject t) {
@@ -309,6 +706,10 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 			}
 		});
 
+		if(removed && (tagIndex != null)) {
+			removeFromTagIndex(objToRemove);
+		}
+
 	}
 
 	@Override
@@ -322,6 +723,17 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 		length = 0;
 
+		if(isLazy()) {
+			for(int i = 0; i < lazyObjects.length; i++) {
+				if(lazyObjects[i] != null) {
+					length += lazyObjects[i].getLength();
+				} else {
+					length += lazyOffsets[i + 1] - lazyOffsets[i];
+				}
+			}
+			return length;
+		}
+
 		for(TlvDataObject tlvDataObject : this.tlvObjects) {
 			length += tlvDataObject.getLength();
 		}
@@ -335,7 +747,7 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 		sb.append("(");
 
-		for(TlvDataObject tlvDataObject : this.tlvObjects) {
+		for(TlvDataObject tlvDataObject : getAllTlvObjects()) {
 			sb.append("[");
 			sb.append(tlvDataObject.toString());
 			sb.append("]");
@@ -348,7 +760,7 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 	@Override
 	public boolean isValidBerEncoding() {
-		for(TlvDataObject tlvDataObject : tlvObjects) {
+		for(TlvDataObject tlvDataObject : getAllTlvObjects()) {
 			if(!tlvDataObject.isValidBerEncoding()) {return false;}
 		}
 
@@ -358,6 +770,7 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	@Override
 	public boolean isValidDerEncoding() {
 		/* first check elements for themselves */
+		List<TlvDataObject> tlvObjects = getAllTlvObjects();
 		for(TlvDataObject tlvDataObject : tlvObjects) {
 			if(!tlvDataObject.isValidDerEncoding()) {return false;}
 		}
@@ -376,17 +789,36 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 
 	@Override
 	public TlvDataObjectContainer copy(){
+		if(isLazy() && isNoLazyObjectCreated()) {
+			/* the recorded encoding and boundaries are never modified and can be shared, the copy creates its own objects */
+			TlvDataObjectContainer copy = new TlvDataObjectContainer();
+			copy.tlvObjects = null;
+			copy.lazyEncoding = lazyEncoding;
+			copy.lazyOffsets = lazyOffsets;
+			copy.lazyTagLengths = lazyTagLengths;
+			copy.lazyObjects = new TlvDataObject[lazyObjects.length];
+			return copy;
+		}
 		return new TlvDataObjectContainer(this.toByteArray());
 	}
 
 	@Override
 	public void removeAllTlvDataObjects() {
-		tlvObjects.clear();
+		getAllTlvObjects().clear();
+		dropTagIndex();
 	}
 
 	@Override
 	public void remove(TlvDataObject object) {
-		tlvObjects.remove(object);
+		List<TlvDataObject> allTlvObjects = getAllTlvObjects();
+		int index = allTlvObjects.indexOf(object);
+
+		if(index >= 0) {
+			TlvDataObject removed = allTlvObjects.remove(index);
+			if(tagIndex != null) {
+				removeFromTagIndex(removed);
+			}
+		}
 	}
 
 }
@@ -47,6 +47,25 @@ public final class TlvDataObjectFactory {
 		return tlvDataObject;
 	}
 
+	/**
+	 * Constructs an object from a range of an array that has already been
+	 * checked to contain a valid TLV structure and that is not modified
+	 * afterwards. Sub-objects of constructed objects are created on first
+	 * access, see {@link TlvDataObjectContainer}.
+	 * @param checkedEncoding the byte array that contains the TLV object
+	 * @param minOffset the first offset to be used (inclusive)
+	 * @param maxOffset the last offset to be used (exclusive)
+	 */
+	static TlvDataObject createCheckedTlvDataObject(byte[] checkedEncoding, int minOffset, int maxOffset) {
+		if((byte) (checkedEncoding[minOffset] & (byte) 0x20) == (byte) 0x20) {
+			// isConstructed
+			return new ConstructedTlvDataObject(checkedEncoding, minOffset, maxOffset, true);
+		} else{
+			// isPrimitive
+			return new PrimitiveTlvDataObject(checkedEncoding, minOffset, maxOffset);
+		}
+	}
+
 	/**
 	 * Shortcut to {@link #createTLVDataObject(byte[], int, int)} using the bytes from provided HexString 
 	 * @param hexString
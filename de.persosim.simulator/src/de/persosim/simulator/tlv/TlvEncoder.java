@@ -0,0 +1,158 @@
+package de.persosim.simulator.tlv;
+
+import java.util.Arrays;
+
+/**
+ * This class encodes TLV data objects and containers in a single pass into one
+ * preallocated array.
+ *
+ * In a first step the structure is traversed once. The tag and length fields
+ * as well as the primitive values are collected in encoding order, while the
+ * lengths of the value fields are computed bottom-up. Each length is computed
+ * exactly once per encoding, so length fields of constructed objects do not
+ * trigger repeated traversals of their sub-trees. In a second step all
+ * collected parts are copied into an array of the total size.
+ *
+ * The computed lengths are only cached for a single encoding, as TLV data
+ * objects may be modified by reference at any time and may be contained in
+ * more than one structure.
+ *
+ * Objects of subclasses of {@link PrimitiveTlvDataObject} or
+ * {@link ConstructedTlvDataObject} contained in the encoded structure are
+ * encoded using their own {@link TlvDataObject#toByteArray()} implementation.
+ */
+final class TlvEncoder {
+
+	private static final byte[] LENGTH_FIELD_PLACEHOLDER = new byte[0];
+
+	/* the parts of the encoding in encoding order, either byte[] or TlvValueView */
+	private Object[] parts = new Object[16];
+	private int noOfParts;
+	private int size;
+
+	/*--------------------------------------------------------------------------------*/
+
+	private TlvEncoder() {
+	}
+
+	/**
+	 * This method returns the encoding of the provided TLV data object.
+	 * @param tlvDataObject the object to encode
+	 * @return the encoding of the provided object
+	 */
+	static byte[] encode(TlvDataObject tlvDataObject) {
+		TlvEncoder encoder = new TlvEncoder();
+		encoder.addTlvDataObjectElements(tlvDataObject);
+		return encoder.toByteArray();
+	}
+
+	/**
+	 * This method returns the encoding of the provided container, i.e. the
+	 * concatenated encodings of all contained TLV data objects.
+	 * @param tlvDataObjectContainer the container to encode
+	 * @return the encoding of the provided container
+	 */
+	static byte[] encode(TlvDataObjectContainer tlvDataObjectContainer) {
+		TlvEncoder encoder = new TlvEncoder();
+		tlvDataObjectContainer.addTo(encoder);
+		return encoder.toByteArray();
+	}
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * This method adds the encoding of the provided TLV data object.
+	 * @param tlvDataObject the object to add
+	 * @return the length of the object as returned by {@link TlvDataObject#getLength()}
+	 */
+	int addTlvDataObject(TlvDataObject tlvDataObject) {
+		Class<?> tlvDataObjectClass = tlvDataObject.getClass();
+		if((tlvDataObjectClass == PrimitiveTlvDataObject.class) || (tlvDataObjectClass == ConstructedTlvDataObject.class)) {
+			return addTlvDataObjectElements(tlvDataObject);
+		}
+
+		/* subclasses may encode differently, e.g. intentionally damaged objects */
+		addPart(tlvDataObject.toByteArray());
+		return tlvDataObject.getLength();
+	}
+
+	/**
+	 * This method adds the tag, length and value field of the provided TLV data object.
+	 * @param tlvDataObject the object to add
+	 * @return the total length of the added fields
+	 */
+	private int addTlvDataObjectElements(TlvDataObject tlvDataObject) {
+		byte[] tagField = tlvDataObject.tlvTag.toByteArray();
+		addPart(tagField);
+
+		/* the length field depends on the value field and is set after the value field has been added */
+		int lengthFieldIndex = noOfParts;
+		addPart(LENGTH_FIELD_PLACEHOLDER);
+
+		int valueLength;
+		TlvValue tlvValue = tlvDataObject.getTlvValue();
+		if(tlvValue instanceof TlvDataObjectContainer) {
+			valueLength = ((TlvDataObjectContainer) tlvValue).addTo(this);
+		} else{
+			TlvValueView valueView = tlvValue.getView();
+			addPart(valueView);
+			valueLength = valueView.getLength();
+		}
+
+		byte[] lengthField = tlvDataObject.getTlvLength(valueLength).toByteArray();
+		parts[lengthFieldIndex] = lengthField;
+		size += lengthField.length;
+
+		return tagField.length + lengthField.length + valueLength;
+	}
+
+	/**
+	 * This method adds a part of the encoding that is not modified until the encoding is complete.
+	 * @param part the part to add
+	 */
+	void addPart(byte[] part) {
+		ensureCapacity();
+		parts[noOfParts++] = part;
+		size += part.length;
+	}
+
+	/**
+	 * This method adds a part of the encoding that is not modified until the encoding is complete.
+	 * @param part the part to add
+	 */
+	void addPart(TlvValueView part) {
+		ensureCapacity();
+		parts[noOfParts++] = part;
+		size += part.getLength();
+	}
+
+	private void ensureCapacity() {
+		if(noOfParts == parts.length) {
+			parts = Arrays.copyOf(parts, parts.length * 2);
+		}
+	}
+
+	/**
+	 * @return the concatenation of all added parts
+	 */
+	private byte[] toByteArray() {
+		byte[] encoding = new byte[size];
+		int offset = 0;
+
+		for(int i = 0; i < noOfParts; i++) {
+			Object part = parts[i];
+			if(part instanceof byte[]) {
+				byte[] bytes = (byte[]) part;
+				System.arraycopy(bytes, 0, encoding, offset, bytes.length);
+				offset += bytes.length;
+			} else{
+				TlvValueView view = (TlvValueView) part;
+				view.copyTo(encoding, offset);
+				offset += view.getLength();
+			}
+		}
+
+		return encoding;
+	}
+
+}
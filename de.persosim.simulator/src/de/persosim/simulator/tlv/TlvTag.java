@@ -1,6 +1,8 @@
 package de.persosim.simulator.tlv;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import de.persosim.simulator.exception.ISO7816Exception;
 import de.persosim.simulator.utils.Utils;
@@ -11,11 +13,42 @@ import de.persosim.simulator.utils.Utils;
  * In the field tags do not need to be changed for themselves. They may only need to be exchanged as part of another data structure, i.e. {@link PrimitiveTlvDataObject}.
  * The preferred way of doing so is to provide/use an according unchecked setter method for/of respective data structures.
  * 
+ * Tag fields of up to 4 bytes are stored as packed int so that comparing tags
+ * does not require any byte arrays. As tags are immutable, frequently used tags
+ * are interned and can be obtained via the getInstance methods.
+ * 
  * @author slutters
  *
  */
 public final class TlvTag extends TlvElement implements Asn1 {
 	
+	/* the maximum length of tag fields stored as packed int */
+	private static final int MAX_PACKED_LENGTH = 4;
+	
+	/* multi byte tags to be interned in addition to all valid single byte tags */
+	private static final int[] FREQUENTLY_USED_MULTI_BYTE_TAGS = new int[] {
+			0x5F1F, 0x5F20, 0x5F24, 0x5F25, 0x5F29, 0x5F37, 0x5F4C,
+			0x7F21, 0x7F49, 0x7F4C, 0x7F4E };
+	
+	private static final TlvTag[] SINGLE_BYTE_TAGS = new TlvTag[256];
+	private static final Map<Integer, TlvTag> MULTI_BYTE_TAGS = new HashMap<>();
+	
+	static {
+		for(int i = 0; i < SINGLE_BYTE_TAGS.length; i++) {
+			if((i & 0x1F) != 0x1F) {
+				SINGLE_BYTE_TAGS[i] = new TlvTag(i, 1);
+			}
+		}
+		for(int packedTagField : FREQUENTLY_USED_MULTI_BYTE_TAGS) {
+			MULTI_BYTE_TAGS.put(packedTagField, new TlvTag(packedTagField, 2));
+		}
+	}
+	
+	/* the tag field as unsigned big-endian number, if not stored in tagField */
+	private int packedTagField;
+	/* the number of bytes of the tag field, if not stored in tagField */
+	private int packedTagFieldLength;
+	/* the tag field if longer than MAX_PACKED_LENGTH (only possible if validity checks are skipped), null otherwise */
 	private byte[] tagField;
 	
 	/*--------------------------------------------------------------------------------*/
@@ -37,17 +70,30 @@ public final class TlvTag extends TlvElement implements Asn1 {
 		super();
 		
 		if(performValidityChecks == PERFORM_VALIDITY_CHECKS) {
-			this.setTagField(tagFieldInput, minOffset, maxOffset);
+			this.setTagField(tagFieldInput, minOffset, getEndOfTagField(tagFieldInput, minOffset, maxOffset));
 		} else{
 			if(tagFieldInput == null) {throw new NullPointerException("tag field must not be null");}
 			if(minOffset < 0) {throw new IllegalArgumentException("min offset must not be less than 0");}
 			if(maxOffset < minOffset) {throw new IllegalArgumentException("max offset must not be smaller than min offset");}
 			if(maxOffset > tagFieldInput.length) {throw new IllegalArgumentException("selected array area must not lie outside of data array");}
 			
-			this.tagField = Arrays.copyOfRange(tagFieldInput, minOffset, maxOffset);
+			this.setTagField(tagFieldInput, minOffset, maxOffset);
 		}
 	}
 	
+	/**
+	 * Constructor for this object based on an already packed tag field.
+	 * 
+	 * @param packedTagField the tag field as unsigned big-endian number
+	 * @param packedTagFieldLength the number of bytes of the tag field
+	 */
+	private TlvTag(int packedTagField, int packedTagFieldLength) {
+		super();
+		
+		this.packedTagField = packedTagField;
+		this.packedTagFieldLength = packedTagFieldLength;
+	}
+	
 	/**
 	 * Constructor for this object based on a range defined on an array of raw bytes.
 	 * 
@@ -136,6 +182,69 @@ public final class TlvTag extends TlvElement implements Asn1 {
 		this(tlvTag.toByteArray(), performValidityChecks);
 	}
 	
+	/**
+	 * Returns an object for the tag contained at the beginning of the provided
+	 * range. The object is checked in the same way as by
+	 * {@link #TlvTag(byte[], int, int)} but frequently used tags are not
+	 * created but returned as interned objects.
+	 * 
+	 * @param tagFieldInput the byte array that in a certain range contains the TLV tag
+	 * @param minOffset the first offset of the range to contain the TLV tag (inclusive)
+	 * @param maxOffset the first offset not to be part of the range to contain the TLV tag (exclusive).
+	 * @return the tag
+	 */
+	public static TlvTag getInstance(byte[] tagFieldInput, int minOffset, int maxOffset) {
+		int endOffset = getEndOfTagField(tagFieldInput, minOffset, maxOffset);
+		
+		TlvTag internedTag = getInternedInstance(pack(tagFieldInput, minOffset, endOffset), endOffset - minOffset);
+		if(internedTag != null) {
+			return internedTag;
+		}
+		
+		TlvTag tlvTag = new TlvTag(0, 0);
+		tlvTag.setTagField(tagFieldInput, minOffset, endOffset);
+		return tlvTag;
+	}
+	
+	/**
+	 * Returns an object for the provided tag, see {@link #getInstance(byte[], int, int)}.
+	 * 
+	 * @param tagFieldInput the byte array that contains the TLV tag
+	 * @return the tag
+	 */
+	public static TlvTag getInstance(byte[] tagFieldInput) {
+		if(tagFieldInput == null) {throw new NullPointerException("tag field must not be null");}
+		return getInstance(tagFieldInput, 0, tagFieldInput.length);
+	}
+	
+	/**
+	 * Returns an object for the provided single byte tag, see {@link #getInstance(byte[], int, int)}.
+	 * 
+	 * @param tagFieldInput the byte that contains the TLV tag
+	 * @return the tag
+	 */
+	public static TlvTag getInstance(byte tagFieldInput) {
+		TlvTag internedTag = SINGLE_BYTE_TAGS[tagFieldInput & 0xFF];
+		if(internedTag != null) {
+			return internedTag;
+		}
+		
+		return getInstance(new byte[] {tagFieldInput});
+	}
+	
+	/**
+	 * @return the interned object for the provided packed tag field or null if not interned
+	 */
+	private static TlvTag getInternedInstance(int packedTagField, int packedTagFieldLength) {
+		if(packedTagFieldLength == 1) {
+			return SINGLE_BYTE_TAGS[packedTagField];
+		}
+		if(packedTagFieldLength == 2) {
+			return MULTI_BYTE_TAGS.get(packedTagField);
+		}
+		return null;
+	}
+	
 	/**
 	 * Constructor for this object based on an already existing object of this type.
 	 * 
@@ -148,7 +257,37 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	/*--------------------------------------------------------------------------------*/
 	
 	/**
-	 * This method sets the TLV tag based on a raw byte array.
+	 * This method sets the tag field to the provided range without any checks.
+	 * 
+	 * @param tagFieldInput the data field that contains the tag field
+	 * @param minOffset the first offset of the tag field (inclusive)
+	 * @param maxOffset the first offset no longer belonging to the tag field (exclusive)
+	 */
+	private void setTagField(byte[] tagFieldInput, int minOffset, int maxOffset) {
+		if((maxOffset - minOffset) <= MAX_PACKED_LENGTH) {
+			this.packedTagField = pack(tagFieldInput, minOffset, maxOffset);
+			this.packedTagFieldLength = maxOffset - minOffset;
+			this.tagField = null;
+		} else{
+			this.packedTagField = 0;
+			this.packedTagFieldLength = 0;
+			this.tagField = Arrays.copyOfRange(tagFieldInput, minOffset, maxOffset);
+		}
+	}
+	
+	/**
+	 * @return the provided range of at most {@link #MAX_PACKED_LENGTH} bytes as unsigned big-endian number
+	 */
+	private static int pack(byte[] tagFieldInput, int minOffset, int maxOffset) {
+		int packed = 0;
+		for(int i = minOffset; i < maxOffset; i++) {
+			packed = (packed << 8) | (tagFieldInput[i] & 0xFF);
+		}
+		return packed;
+	}
+	
+	/**
+	 * This method determines the TLV tag within a raw byte array.
 	 * 
 	 * The variables minOffset and maxOffset specify a range that is supposed to contain the tag.
 	 * When parsing a raw byte array representation of a tag, the exact length of it is previously unknown.
@@ -161,8 +300,9 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	 * @param tagFieldInput the data field that contains the range containing the tag field
 	 * @param minOffset the first offset of the tag field (inclusive)
 	 * @param maxOffset the first offset no longer belonging to the range containing the tag field (exclusive)
+	 * @return the first offset no longer belonging to the tag field
 	 */
-	private void setTagField(byte[] tagFieldInput, int minOffset, int maxOffset) {
+	private static int getEndOfTagField(byte[] tagFieldInput, int minOffset, int maxOffset) {
 		if(tagFieldInput == null) {throw new NullPointerException("tag field must not be null");}
 		if(minOffset < 0) {throw new IllegalArgumentException("min offset must not be less than 0");}
 		if(maxOffset < minOffset) {throw new IllegalArgumentException("max offset must not be smaller than min offset");}
@@ -178,7 +318,7 @@ public final class TlvTag extends TlvElement implements Asn1 {
 		boolean isSecondByteOfMultiByteTag = false;
 		if(!((byte) (currentByte & (byte) 0x1F) == (byte) 0x1F)) {
 			/* if this tag has a short tag, i.e. 1 byte tag field (0 <= tag <= 30) */
-			this.tagField = Arrays.copyOfRange(tagFieldInput, currentOff, currentOff + 1);
+			return currentOff + 1;
 		} else{
 			isSecondByteOfMultiByteTag = true;
 			while(true) {
@@ -214,8 +354,7 @@ public final class TlvTag extends TlvElement implements Asn1 {
 					ISO7816Exception.throwIt(SW_6A80_WRONG_DATA);
 				}
 				
-					this.tagField = Arrays.copyOfRange(tagFieldInput, minOffset, currentOff + 1);
-					return;
+					return currentOff + 1;
 				}
 			}
 		}
@@ -223,22 +362,22 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	
 	@Override
 	public boolean isValidBerEncoding() {
-		int tagFieldLength = tagField.length;
+		int tagFieldLength = getLength();
 		
 		/* ensure valid length */
 		if((tagFieldLength < 1) || (tagFieldLength > 3)) {return false;};
 		
 		/* ensure valid formatting of value */
 		if(tagFieldLength == 1) {
-			if((tagField[0] & ((short) 0x1F)) == ((short) 0x1F)) {return false;};
+			if((getByte(0) & ((short) 0x1F)) == ((short) 0x1F)) {return false;};
 		} else{
-			if((tagField[1] & ((short) 0x7F)) == ((short) 0x00)) {return false;};
+			if((getByte(1) & ((short) 0x7F)) == ((short) 0x00)) {return false;};
 			
 			for(int i = 1; i < tagFieldLength; i++) {
 				if(i == (tagFieldLength - 1)) {
-					if((tagField[i] & ((short) 0x80)) == ((short) 0x80)) {return false;};
+					if((getByte(i) & ((short) 0x80)) == ((short) 0x80)) {return false;};
 				} else{
-					if((tagField[i] & ((short) 0x80)) != ((short) 0x80)) {return false;};
+					if((getByte(i) & ((short) 0x80)) != ((short) 0x80)) {return false;};
 				}
 			}
 		}
@@ -265,17 +404,17 @@ public final class TlvTag extends TlvElement implements Asn1 {
 		currentOffset = 0;
 		tagNo = 0;
 		
-		if(((byte) (this.tagField[currentOffset] & (byte) 0x1F)) == (byte) 0x1F) {
+		if(((byte) (getByte(currentOffset) & (byte) 0x1F)) == (byte) 0x1F) {
 			/* if tag length > 1 */
 			for(int i = 1; i < this.getLength(); i++) {
 				currentOffset++;
 				
 				tagNo <<= 7;
-				tagNo |= (byte) (this.tagField[currentOffset] & (byte) 0x7F);
+				tagNo |= (byte) (getByte(currentOffset) & (byte) 0x7F);
 			}
 		} else{
 			/* if tag length == 1 */
-			tagNo = Utils.maskUnsignedByteToInt((byte) (this.tagField[currentOffset] & (byte) 0x1F));
+			tagNo = Utils.maskUnsignedByteToInt((byte) (getByte(currentOffset) & (byte) 0x1F));
 		}
 		
 		return tagNo;
@@ -286,7 +425,7 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	 * @return whether this tag field indicates primitive encoding
 	 */
 	public boolean indicatesEncodingPrimitive() {
-		return getEncoding(this.tagField) == ENCODING_PRIMITIVE;
+		return (byte) (getByte(0) & ENCODING) == ENCODING_PRIMITIVE;
 	}
 	
 	/**
@@ -294,7 +433,7 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	 * @return whether this tag field indicates constructed encoding
 	 */
 	public boolean indicatesEncodingConstructed() {
-		return getEncoding(this.tagField) == ENCODING_CONSTRUCTED;
+		return (byte) (getByte(0) & ENCODING) == ENCODING_CONSTRUCTED;
 	}
 	
 	/**
@@ -307,20 +446,43 @@ public final class TlvTag extends TlvElement implements Asn1 {
 	 * @return whether this tag field indicates the provided class
 	 */
 	public boolean indicatesClass(byte indicatedClass) {
-		return getEncodedClass(this.tagField) == indicatedClass;
+		return getEncodedClass() == indicatedClass;
 	}
 	
 	public boolean matches(TlvTag anotherTlvTag) {
-		if (!Arrays.equals(this.tagField, anotherTlvTag.tagField)) {
-			return false;
+		if((this.tagField == null) && (anotherTlvTag.tagField == null)) {
+			return (this.packedTagField == anotherTlvTag.packedTagField) && (this.packedTagFieldLength == anotherTlvTag.packedTagFieldLength);
 		}
 		
-		return true;
+		return Arrays.equals(this.toByteArray(), anotherTlvTag.toByteArray());
 	}
 	
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(tagField);
+		/* same as Arrays.hashCode(toByteArray()) */
+		int hash = 1;
+		for(int i = 0; i < getLength(); i++) {
+			hash = 31 * hash + getByte(i);
+		}
+		return hash;
+	}
+	
+	/**
+	 * Returns the tag field encoded as int. Tag fields of up to 4 bytes are
+	 * encoded as unsigned big-endian number, longer ones are hashed. Hence
+	 * different tags may share the same key.
+	 * @return the tag field encoded as int
+	 */
+	int getTagKey() {
+		if(tagField == null) {
+			return packedTagField;
+		}
+		
+		if(tagField.length > MAX_PACKED_LENGTH) {
+			return hashCode();
+		}
+		
+		return pack(tagField, 0, tagField.length);
 	}
 
 	@Override
@@ -331,29 +493,52 @@ public final class TlvTag extends TlvElement implements Asn1 {
 			return false;
 		if (getClass() != obj.getClass())
 			return false;
-		TlvTag other = (TlvTag) obj;
-		if (!Arrays.equals(tagField, other.tagField))
-			return false;
-		return true;
+		return matches((TlvTag) obj);
 	}
 
 	public byte getEncodedClass() {
-		return getEncodedClass(this.tagField);
+		return (byte) (getByte(0) & CLASS);
+	}
+	
+	/**
+	 * Returns the byte of the tag field at the provided index.
+	 * @param index the index within the tag field
+	 * @return the byte at the provided index
+	 */
+	private byte getByte(int index) {
+		if(tagField != null) {
+			return tagField[index];
+		}
+		
+		if((index < 0) || (index >= packedTagFieldLength)) {throw new ArrayIndexOutOfBoundsException(index);}
+		return (byte) (packedTagField >>> (8 * (packedTagFieldLength - 1 - index)));
 	}
 	
 	@Override
 	public int getLength() {
-		return tagField.length;
+		return (tagField != null) ? tagField.length : packedTagFieldLength;
 	}
 	
 	@Override
 	public byte[] toByteArray() {
-		return Arrays.copyOf(tagField, tagField.length);
+		if(tagField != null) {
+			return Arrays.copyOf(tagField, tagField.length);
+		}
+		
+		byte[] tagFieldCopy = new byte[packedTagFieldLength];
+		for(int i = 0; i < packedTagFieldLength; i++) {
+			tagFieldCopy[i] = getByte(i);
+		}
+		return tagFieldCopy;
 	}
 	
 	@Override
 	public TlvTag clone() {
-		return new TlvTag(this.toByteArray(), SKIP_VALIDITY_CHECKS);
+		if(tagField != null) {
+			return new TlvTag(this.toByteArray(), SKIP_VALIDITY_CHECKS);
+		}
+		
+		return new TlvTag(packedTagField, packedTagFieldLength);
 	}
 	
 	/**
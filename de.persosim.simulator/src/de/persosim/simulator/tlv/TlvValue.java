@@ -21,4 +21,16 @@ public abstract class TlvValue extends TlvElement {
 	 */
 	public abstract TlvValue copy();
 	
+	/**
+	 * Returns a read-only view on the encoding of this value field. The view
+	 * reflects the state of this object at the time of the call.
+	 * 
+	 * This implementation returns a view on {@link #toByteArray()}. Subclasses
+	 * that are able to provide a view without copying should override it.
+	 * @return a read-only view on the encoding of this value field
+	 */
+	public TlvValueView getView() {
+		return new TlvValueView(toByteArray());
+	}
+	
 }
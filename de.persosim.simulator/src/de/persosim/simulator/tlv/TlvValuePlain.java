@@ -105,6 +105,12 @@ public class TlvValuePlain extends TlvValue {
 		return Arrays.copyOf(this.valueField, this.valueField.length);
 	}
 	
+	@Override
+	public TlvValueView getView() {
+		/* the value field is never modified but only replaced, so it can be shared */
+		return new TlvValueView(this.valueField);
+	}
+	
 	@Override
 	public TlvValuePlain copy() {
 		return new TlvValuePlain(this.valueField);
@@ -0,0 +1,178 @@
+package de.persosim.simulator.tlv;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * This class implements a read-only view on a range of a byte array, e.g. the
+ * value field of a TLV data object. It allows values to be passed on without
+ * copying them. Copies are only created when explicitly requested, e.g. by
+ * {@link #toByteArray()}.
+ *
+ * The view itself never modifies the backing array. Objects providing views on
+ * their internal arrays (see {@link TlvValue#getView()}) must guarantee that
+ * these arrays are not modified afterwards. Views created on arrays provided by
+ * the caller reflect any later modification of these arrays.
+ *
+ * Views are considered equal iff they contain the same sequence of bytes.
+ */
+public final class TlvValueView {
+
+	private static final TlvValueView EMPTY = new TlvValueView(new byte[0]);
+
+	private final byte[] backingArray;
+	private final int offset;
+	private final int length;
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * Constructor for a view on a range of the provided array.
+	 *
+	 * @param backingArray the array that contains the viewed bytes
+	 * @param minOffset the first offset of the range (inclusive)
+	 * @param maxOffset the first offset not to be part of the range (exclusive)
+	 */
+	public TlvValueView(byte[] backingArray, int minOffset, int maxOffset) {
+		if(backingArray == null) {throw new NullPointerException();}
+		if(minOffset < 0) {throw new IllegalArgumentException("min offset must not be less than 0");}
+		if(maxOffset < minOffset) {throw new IllegalArgumentException("max offset must not be smaller than min offset");}
+		if(maxOffset > backingArray.length) {throw new IllegalArgumentException("selected array area must not lie outside of data array");}
+
+		this.backingArray = backingArray;
+		this.offset = minOffset;
+		this.length = maxOffset - minOffset;
+	}
+
+	/**
+	 * Constructor for a view on the whole provided array.
+	 *
+	 * @param backingArray the array that contains the viewed bytes
+	 */
+	public TlvValueView(byte[] backingArray) {
+		this(backingArray, 0, backingArray.length);
+	}
+
+	/**
+	 * @return an empty view
+	 */
+	public static TlvValueView empty() {
+		return EMPTY;
+	}
+
+	/*--------------------------------------------------------------------------------*/
+
+	/**
+	 * @return the number of bytes within this view
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return whether this view is empty, i.e. its length is 0 bytes
+	 */
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	/**
+	 * Returns the byte at the given index of this view.
+	 * @param index the index relative to the start of this view
+	 * @return the byte at the given index
+	 */
+	public byte get(int index) {
+		if((index < 0) || (index >= length)) {throw new IndexOutOfBoundsException("index " + index + " outside of view of length " + length);}
+		return backingArray[offset + index];
+	}
+
+	/**
+	 * Returns a view on a range of this view without copying.
+	 * @param minOffset the first offset relative to this view (inclusive)
+	 * @param maxOffset the first offset relative to this view not to be part of the range (exclusive)
+	 * @return the view on the range
+	 */
+	public TlvValueView subView(int minOffset, int maxOffset) {
+		if(minOffset < 0) {throw new IllegalArgumentException("min offset must not be less than 0");}
+		if(maxOffset < minOffset) {throw new IllegalArgumentException("max offset must not be smaller than min offset");}
+		if(maxOffset > length) {throw new IllegalArgumentException("selected area must not lie outside of view");}
+
+		return new TlvValueView(backingArray, offset + minOffset, offset + maxOffset);
+	}
+
+	/**
+	 * @return a copy of the bytes within this view
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOfRange(backingArray, offset, offset + length);
+	}
+
+	/**
+	 * Returns a read-only {@link ByteBuffer} on the bytes within this view.
+	 * The position of the buffer is 0 and its limit is the length of this view.
+	 * @return the read-only buffer
+	 */
+	public ByteBuffer asByteBuffer() {
+		return ByteBuffer.wrap(backingArray, offset, length).slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * This method copies the bytes within this view to the provided array.
+	 * @param destination the array to copy to
+	 * @param destinationOffset the offset within the destination array to start copying to
+	 */
+	public void copyTo(byte[] destination, int destinationOffset) {
+		System.arraycopy(backingArray, offset, destination, destinationOffset, length);
+	}
+
+	/**
+	 * This method writes the bytes within this view to the provided stream.
+	 * @param outputStream the stream to write to
+	 */
+	public void writeTo(ByteArrayOutputStream outputStream) {
+		outputStream.write(backingArray, offset, length);
+	}
+
+	/**
+	 * Returns whether this view contains exactly the provided bytes.
+	 * @param bytes the bytes to compare with
+	 * @return whether this view contains exactly the provided bytes
+	 */
+	public boolean contentEquals(byte[] bytes) {
+		if(bytes == null) {return false;}
+		return Arrays.equals(backingArray, offset, offset + length, bytes, 0, bytes.length);
+	}
+
+	/*--------------------------------------------------------------------------------*/
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof TlvValueView)) {
+			return false;
+		}
+
+		TlvValueView other = (TlvValueView) obj;
+		return Arrays.equals(backingArray, offset, offset + length, other.backingArray, other.offset, other.offset + other.length);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = offset; i < offset + length; i++) {
+			result = 31 * result + backingArray[i];
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return HexString.encode(toByteArray());
+	}
+
+}